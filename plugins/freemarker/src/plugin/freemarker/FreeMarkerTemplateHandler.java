@@ -23,14 +23,17 @@ import com.scooterframework.admin.ApplicationConfig;
 import com.scooterframework.admin.EnvConfig;
 import com.scooterframework.admin.Plugin;
 import com.scooterframework.common.logging.LogUtil;
+import com.scooterframework.web.controller.TemplateCompiler;
 import com.scooterframework.web.controller.TemplateHandler;
+import com.scooterframework.web.controller.TemplateHandlerFactory;
 
 /**
- * FreeMarkerTemplateHandler handles freemarker templates.
+ * FreeMarkerTemplateHandler handles freemarker templates. Parsed templates
+ * are kept in the template cache of <tt>TemplateHandlerFactory</tt>.
  *
  * @author (Fei) John Chen
  */
-public class FreeMarkerTemplateHandler extends Plugin implements TemplateHandler {
+public class FreeMarkerTemplateHandler extends Plugin implements TemplateHandler, TemplateCompiler<Template> {
 	private static LogUtil log = LogUtil.getLogger(FreeMarkerTemplateHandler.class.getName());
 
 	private Configuration cfg;
@@ -68,6 +71,9 @@ public class FreeMarkerTemplateHandler extends Plugin implements TemplateHandler
 			cfg = new Configuration();
 			cfg.setDirectoryForTemplateLoading(new File(templateDir));
 			cfg.setObjectWrapper(ObjectWrapper.DEFAULT_WRAPPER);
+			
+			//changes are detected by the template cache
+			cfg.setTemplateUpdateDelay(0);
 		}
 		catch(Exception ex) {
 			log.error("Failed to configure freemarker Configuration instance because " + ex.getMessage());
@@ -103,23 +109,7 @@ public class FreeMarkerTemplateHandler extends Plugin implements TemplateHandler
     public String handle(File templateFile, Map props) {
     	String newContent = "";
 		try {
-			String name = templateFile.getCanonicalPath();
-			if (!name.startsWith(templateDir)) {
-				if (customTemplateDir) {
-					name = templateFile.getName();
-				}
-				else {
-					throw new IllegalArgumentException("FreeMarkerTemplateHandler " +
-							"is configured to handle template files under " +
-							templateDir +
-							" directory, but the input template file '" +
-							name +"' is not under that directory.");
-				}
-			}
-			else {
-				name = name.substring(templateDir.length());
-			}
-			Template temp = cfg.getTemplate(name);
+			Template temp = TemplateHandlerFactory.getTemplateCache().get(templateFile, this);
 	    	Writer out = new StringWriter();
 	    	temp.process(props, out);
 	    	out.flush();
@@ -130,4 +120,30 @@ public class FreeMarkerTemplateHandler extends Plugin implements TemplateHandler
 		}
 		return newContent;
     }
+
+    /**
+     * Parses the template file.
+     *
+     * @param templateFile
+     * @return the parsed template
+     */
+    public Template compile(File templateFile) throws Exception {
+		String name = templateFile.getCanonicalPath();
+		if (!name.startsWith(templateDir)) {
+			if (customTemplateDir) {
+				name = templateFile.getName();
+			}
+			else {
+				throw new IllegalArgumentException("FreeMarkerTemplateHandler " +
+						"is configured to handle template files under " +
+						templateDir +
+						" directory, but the input template file '" +
+						name +"' is not under that directory.");
+			}
+		}
+		else {
+			name = name.substring(templateDir.length());
+		}
+		return cfg.getTemplate(name);
+    }
 }
@@ -18,6 +18,7 @@ import java.util.concurrent.TimeUnit;
 import net.spy.memcached.MemcachedClient;
 
 import com.scooterframework.cache.Cache;
+import com.scooterframework.cache.CacheKey;
 import com.scooterframework.common.logging.LogUtil;
 
 /**
@@ -90,6 +91,7 @@ public class SpyMemcachedCache implements Cache {
 	}
 
 	private String toString(Object obj) {
+		if (obj instanceof CacheKey) return ((CacheKey)obj).toCompactKey();
 		return (obj != null)?obj.toString():null;
 	}
 
@@ -15,6 +15,7 @@ import java.util.Properties;
 import net.rubyeye.xmemcached.MemcachedClient;
 
 import com.scooterframework.cache.Cache;
+import com.scooterframework.cache.CacheKey;
 import com.scooterframework.common.logging.LogUtil;
 
 /**
@@ -91,6 +92,7 @@ public class XMemcachedCache implements Cache {
 	}
 	
 	private String toString(Object obj) {
+		if (obj instanceof CacheKey) return ((CacheKey)obj).toCompactKey();
 		return (obj != null)?obj.toString():null;
 	}
 
@@ -7,6 +7,10 @@
  */
 package com.scooterframework.admin;
 
+import java.lang.reflect.Method;
+
+import com.scooterframework.common.exception.ExecutionException;
+import com.scooterframework.common.util.BeanUtil;
 
 /**
  * ActionControlFilter class contains a filter for a controller class.
@@ -29,14 +33,29 @@ public class ActionControlFilter {
 
     
     /**
-     * Executes the filter
+     * Executes the filter on a new instance of the owner class, so that 
+     * filters with instance state are not shared among requests.
      */
     public String execute() {
+        Object instance = AutoLoadedObjectFactory.getInstance().newInstance(owner.getName());
+        Method m = method;
+        if (m == null || !m.getDeclaringClass().isInstance(instance)) {
+            m = BeanUtil.getMethod(instance.getClass(), filterMethod);
+            method = m;
+        }
+
+        Object o = null;
+        try {
+            o = m.invoke(instance, (Object[])null);
+        }
+        catch(Exception ex) {
+            throw new ExecutionException(instance.getClass().getName(), filterMethod, null, ex);
+        }
+        
         String r = null;
-        Object o = AutoLoadedObjectFactory.getInstance().execute(owner.getName(), filterMethod, null);
         if (o != null) {
             if (o instanceof String) {
-                r = o.toString();
+                r = (String)o;
             }
             else {
                 throw new IllegalArgumentException("Filter method \"" + filterMethod + 
@@ -47,6 +66,21 @@ public class ActionControlFilter {
         return r;
     }
     
+    /**
+     * Resolves the filter method, so that it is not looked up when the filter 
+     * is executed. A filter method which does not exist is reported when the 
+     * filter is executed.
+     */
+    void compile() {
+        if (method != null) return;
+        try {
+            method = BeanUtil.getMethod(owner, filterMethod);
+        }
+        catch(RuntimeException ex) {
+            ;//reported by execute()
+        }
+    }
+    
     public String getACFKey() {
         return key;
     }
@@ -66,6 +100,11 @@ public class ActionControlFilter {
      */
     private String filterMethod;
     
+    /**
+     * The resolved filter method.
+     */
+    private volatile Method method;
+    
     /**
      * A string to represent the uniqueness of this class
      */
@@ -8,10 +8,10 @@
 package com.scooterframework.admin;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import com.scooterframework.common.util.Converters;
 
@@ -111,13 +111,11 @@ public class ActionFilterData
     
     private ActionControlFilter getFilter(Class<?> fc, String filter) {
         String key = ActionControlFilter.formatKey(fc, filter);
-        ActionControlFilter acf = null;
-        if (acfMap.containsKey(key)) {
-            acf = (ActionControlFilter)acfMap.get(key);
-        }
-        else {
+        ActionControlFilter acf = acfMap.get(key);
+        if (acf == null) {
             acf = new ActionControlFilter(fc, filter);
-            acfMap.put(key, acf);
+            ActionControlFilter oldAcf = acfMap.putIfAbsent(key, acf);
+            if (oldAcf != null) acf = oldAcf;
         }
         return acf;
     }
@@ -145,5 +143,5 @@ public class ActionFilterData
      * Map of ActionControlFilter. Key is a combination of the filter method 
      * name and its class name
      */
-    private static Map<String, ActionControlFilter> acfMap = new HashMap<String, ActionControlFilter>();
+    private static ConcurrentMap<String, ActionControlFilter> acfMap = new ConcurrentHashMap<String, ActionControlFilter>();
 }
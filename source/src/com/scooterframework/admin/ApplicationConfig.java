@@ -22,7 +22,9 @@ import com.scooterframework.i18n.I18nConfig;
 import com.scooterframework.orm.activerecord.ReferenceDataLoader;
 import com.scooterframework.orm.sqldataexpress.config.DatabaseConfig;
 import com.scooterframework.orm.sqldataexpress.config.SqlConfig;
+import com.scooterframework.orm.sqldataexpress.util.SchemaSnapshot;
 import com.scooterframework.web.controller.ActionContext;
+import com.scooterframework.web.controller.TemplateHandlerFactory;
 import com.scooterframework.web.route.RouteConfig;
 
 /**
@@ -139,6 +141,23 @@ public class ApplicationConfig {
 	private void initializePlugins() {
 		PluginManager.getInstance().startPlugins();
 	}
+	
+	/**
+	 * Restores table meta data from <tt>WEB-INF/schema.snapshot</tt> file, 
+	 * so that models do not have to look up their tables on first use. The 
+	 * snapshot is saved when the application ends.
+	 */
+	private void restoreSchemaSnapshot(int threads) {
+		File file = new File(applicationPath + File.separatorChar + "WEB-INF" + 
+							File.separatorChar + "schema.snapshot");
+		schemaSnapshot = new SchemaSnapshot(file);
+		try {
+			schemaSnapshot.restore(threads);
+		}
+		catch(Exception ex) {
+			log.error("Error in restoring schema snapshot", ex);
+		}
+	}
     
     
     /**
@@ -284,6 +303,10 @@ public class ApplicationConfig {
         
         SqlConfig.getInstance();
         
+        if (isWebApp() && !isInDevelopmentEnvironment() && dbc.useSchemaSnapshot()) {
+            restoreSchemaSnapshot(dbc.getSchemaSnapshotThreads());
+        }
+        
         if (isWebApp()) RouteConfig.getInstance();
         
         if (isWebApp() && !ReferenceDataLoader.isStarted()) {
@@ -323,6 +346,12 @@ public class ApplicationConfig {
         
         initializePlugins();
         
+        if (isWebApp()) {
+            TemplateHandlerFactory.getTemplateCache().setCheckModified(isInDevelopmentEnvironment());
+            TemplateHandlerFactory.precompileTemplates(
+            		new File(applicationPath + EnvConfig.getInstance().getWebPageDirectoryName()));
+        }
+        
         applicationStarted = true;
         if (log != null) {
         	String startMsg = "Application started in " + runningEnvironment + 
@@ -339,6 +368,11 @@ public class ApplicationConfig {
             rdLoader.stop();
         }
         
+        if (schemaSnapshot != null) {
+            schemaSnapshot.save();
+            schemaSnapshot = null;
+        }
+        
         PropertyFileChangeMonitor.getInstance().stop();
         
         FileMonitor.getInstance().stop();
@@ -346,6 +380,8 @@ public class ApplicationConfig {
         //started by I18nConfig
         DirChangeMonitor.getInstance().stop();
         
+        FileChangeScheduler.getInstance().shutdown();
+        
         DatabaseConfig.getInstance().destroy();
         
         applicationStarted = false;
@@ -661,4 +697,5 @@ public class ApplicationConfig {
     private String pluginsPath;
     private String referencesLibPath;
     private ReferenceDataLoader rdLoader = null;
+    private SchemaSnapshot schemaSnapshot = null;
 }
@@ -127,4 +127,6 @@ public class Constants {
 // Events
 //************************************************************************
     public static final String EVENT_COMPILE = "EVENT_COMPILE";
+    public static final String EVENT_CLASS_RELOAD = "EVENT_CLASS_RELOAD";
+    public static final String EVENT_FILE_CHANGE = "EVENT_FILE_CHANGE";
 }
@@ -9,13 +9,11 @@ package com.scooterframework.admin;
 
 import java.io.File;
 import java.io.FileFilter;
-import java.util.Date;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Observable;
 import java.util.Observer;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
 
 import com.scooterframework.common.logging.LogUtil;
 
@@ -35,12 +33,10 @@ import com.scooterframework.common.logging.LogUtil;
 public class DirChangeMonitor {
     private LogUtil log = LogUtil.getLogger(this.getClass().getName());
     
-    private Map<String, Observable> observables = new HashMap<String, Observable>();
+    private Map<String, Observable> observables = new ConcurrentHashMap<String, Observable>();
     
-    private static long oneHundredDays = 8640000;
     private boolean periodicReading = false;
-    private Date oldDate = null;
-    private Timer timer = null;
+    private ScheduledFuture<?> future = null;
     
     /**
      * Time interval in milliseconds between successive task executions
@@ -71,22 +67,16 @@ public class DirChangeMonitor {
         return fcm;
     }
     
-    public void start() {
-        if (periodicReading) {
-            oldDate = new Date();
-            oldDate.setTime(oldDate.getTime()-oneHundredDays);
-            
-            timer = new Timer();
-            
-            DirChangeMonitorTimerTask task = 
-                new DirChangeMonitorTimerTask();
-            schedule(task, loadInterval);
+    public synchronized void start() {
+        if (periodicReading && future == null) {
+            future = FileChangeScheduler.getInstance().schedule(new DirChangeMonitorTimerTask(), loadInterval);
         }
     }
     
-    public void stop() {
-        if (timer != null) {
-            timer.cancel();
+    public synchronized void stop() {
+        if (future != null) {
+            FileChangeScheduler.getInstance().cancel(future);
+            future = null;
             log.debug("Dir files change monitor stopped.");
         }
     }
@@ -180,23 +170,10 @@ public class DirChangeMonitor {
         return (filter != null)?(path + "_" + filter.toString()):path;
     }
     
-    private void schedule(TimerTask task, long period) {
-        if (period > 0) {
-            timer.schedule(task, oldDate, period);
-        }
-        else {
-            timer.schedule(task, oldDate);
-        }
-    }
-    
     /**
      * DirChangeMonitorTimerTask is responsible for scanning files in the directory.
      */
-    public class DirChangeMonitorTimerTask extends TimerTask {
-        public DirChangeMonitorTimerTask() {
-            super();
-        }
-        
+    public class DirChangeMonitorTimerTask implements Runnable {
         public void run() {
             for (Map.Entry<String, Observable> entry : observables.entrySet()) {
                 DirObservable observable = (DirObservable)observables.get(entry.getKey());
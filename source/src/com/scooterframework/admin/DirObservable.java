@@ -72,14 +72,14 @@ public class DirObservable extends Observable {
             if (file.getName().startsWith("Copy ") || file.getName().indexOf(" Copy") != -1) continue;
             
             Long current = fileTimestampMap.get(file);
-            if (current == null) {
-                fileTimestampMap.put(file, Long.valueOf(file.lastModified()));
-                onChange(file, FileChangeNotice.ADD_FILE);
-            }
-            else if (current.longValue() != file.lastModified()) {
-                fileTimestampMap.put(file, Long.valueOf(file.lastModified()));
-                onChange(file, FileChangeNotice.MODIFY_FILE);
-            }
+            long lastModified = file.lastModified();
+            if (current != null && current.longValue() == lastModified) continue;
+            
+            //wait until the file is no longer being written
+            if (!FileChangeScheduler.isQuiet(lastModified)) continue;
+            
+            fileTimestampMap.put(file, Long.valueOf(lastModified));
+            onChange(file, (current == null)?FileChangeNotice.ADD_FILE:FileChangeNotice.MODIFY_FILE);
         }
         
         Iterator<Entry<File, Long>> it = fileTimestampMap.entrySet().iterator();
@@ -98,6 +98,7 @@ public class DirObservable extends Observable {
         super.setChanged();
         log.debug("File: " + file.getName() + ", action: " + action);
         notifyObservers(new FileChangeNotice(file, action));
+        FileChangeScheduler.publishChange(file, action);
     }
     
     public String toString() {
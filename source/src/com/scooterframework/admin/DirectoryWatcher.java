@@ -0,0 +1,185 @@
+/*
+ *   This software is distributed under the terms of the FSF
+ *   Gnu Lesser General Public License (see lgpl.txt).
+ *
+ *   This program is distributed WITHOUT ANY WARRANTY. See the
+ *   GNU General Public License for more details.
+ */
+package com.scooterframework.admin;
+
+import java.io.File;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.scooterframework.common.logging.LogUtil;
+
+/**
+ * <p>
+ * DirectoryWatcher class receives change notifications of directory trees
+ * from the file system through <tt>java.nio.file.WatchService</tt>, so
+ * that a monitor only scans files after something has changed.
+ * </p>
+ *
+ * <p>
+ * The framework is built for Java 5, so the watch service is used through
+ * reflection. {@link #create()} returns <tt>null</tt> when the running JVM
+ * has no watch service, in which case monitors keep polling.
+ * </p>
+ *
+ * <p>
+ * Sub-directories are registered one by one, as the watch service does not
+ * watch a tree. Directories created later are registered when they are
+ * reported.
+ * </p>
+ *
+ * @author (Fei) John Chen
+ */
+public class DirectoryWatcher {
+    private static LogUtil log = LogUtil.getLogger(DirectoryWatcher.class.getName());
+
+    private static Method newWatchService;
+    private static Method toPath;
+    private static Method register;
+    private static Method poll;
+    private static Method close;
+    private static Method pollEvents;
+    private static Method reset;
+    private static Method kind;
+    private static Method context;
+    private static Object kinds;
+    private static Object entryCreate;
+    private static Object fileSystem;
+    private static boolean supported = false;
+
+    static {
+        try {
+            Class<?> fileSystemsClass = Class.forName("java.nio.file.FileSystems");
+            Class<?> fileSystemClass = Class.forName("java.nio.file.FileSystem");
+            Class<?> pathClass = Class.forName("java.nio.file.Path");
+            Class<?> watchServiceClass = Class.forName("java.nio.file.WatchService");
+            Class<?> watchKeyClass = Class.forName("java.nio.file.WatchKey");
+            Class<?> watchEventClass = Class.forName("java.nio.file.WatchEvent");
+            Class<?> kindClass = Class.forName("java.nio.file.WatchEvent$Kind");
+            Class<?> kindsClass = Class.forName("java.nio.file.StandardWatchEventKinds");
+
+            fileSystem = fileSystemsClass.getMethod("getDefault").invoke(null);
+            newWatchService = fileSystemClass.getMethod("newWatchService");
+            toPath = File.class.getMethod("toPath");
+            register = pathClass.getMethod("register", watchServiceClass, Array.newInstance(kindClass, 0).getClass());
+            poll = watchServiceClass.getMethod("poll");
+            close = watchServiceClass.getMethod("close");
+            pollEvents = watchKeyClass.getMethod("pollEvents");
+            reset = watchKeyClass.getMethod("reset");
+            kind = watchEventClass.getMethod("kind");
+            context = watchEventClass.getMethod("context");
+
+            entryCreate = kindsClass.getField("ENTRY_CREATE").get(null);
+            kinds = Array.newInstance(kindClass, 3);
+            Array.set(kinds, 0, entryCreate);
+            Array.set(kinds, 1, kindsClass.getField("ENTRY_DELETE").get(null));
+            Array.set(kinds, 2, kindsClass.getField("ENTRY_MODIFY").get(null));
+            supported = true;
+        }
+        catch(Throwable ex) {
+            supported = false;
+        }
+    }
+
+    private final Object watchService;
+    private final Map<Object, File> watchedDirs = new ConcurrentHashMap<Object, File>();
+
+    private DirectoryWatcher(Object watchService) {
+        this.watchService = watchService;
+    }
+
+    /**
+     * Creates a watcher, or returns <tt>null</tt> if the running JVM does
+     * not support watching directories.
+     *
+     * @return a new watcher or <tt>null</tt>
+     */
+    public static DirectoryWatcher create() {
+        if (!supported) return null;
+        try {
+            return new DirectoryWatcher(newWatchService.invoke(fileSystem));
+        }
+        catch(Exception ex) {
+            log.debug("Directory watch service is not available: " + ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Watches a directory and all of its sub-directories.
+     *
+     * @param dir the directory
+     * @return true if all directories are registered
+     */
+    public boolean registerTree(File dir) {
+        if (dir == null || !dir.isDirectory()) return false;
+        try {
+            Object key = register.invoke(toPath.invoke(dir), watchService, kinds);
+            watchedDirs.put(key, dir);
+        }
+        catch(Exception ex) {
+            log.debug("Failed to watch directory " + dir + ": " + ex.getMessage());
+            return false;
+        }
+
+        boolean allRegistered = true;
+        File[] files = dir.listFiles();
+        if (files == null) return allRegistered;
+        for (int i = 0; i < files.length; i++) {
+            if (files[i].isDirectory() && !registerTree(files[i])) allRegistered = false;
+        }
+        return allRegistered;
+    }
+
+    /**
+     * Takes all pending change notifications without waiting. Newly created
+     * sub-directories are watched as well.
+     *
+     * @return true if anything has changed since the previous call
+     */
+    public boolean pollChanges() {
+        boolean changed = false;
+        try {
+            Object key = null;
+            while ((key = poll.invoke(watchService)) != null) {
+                changed = true;
+                File dir = watchedDirs.get(key);
+                List<?> events = (List<?>)pollEvents.invoke(key);
+                for (Object event : events) {
+                    if (dir != null && entryCreate.equals(kind.invoke(event))) {
+                        File created = new File(dir, String.valueOf(context.invoke(event)));
+                        if (created.isDirectory()) registerTree(created);
+                    }
+                }
+                if (!((Boolean)reset.invoke(key)).booleanValue()) {
+                    watchedDirs.remove(key);
+                }
+            }
+        }
+        catch(Exception ex) {
+            log.debug("Failed to read directory changes: " + ex.getMessage());
+            return true;
+        }
+        return changed;
+    }
+
+    /**
+     * Stops watching.
+     */
+    public void close() {
+        try {
+            close.invoke(watchService);
+        }
+        catch(Exception ex) {
+            ;
+        }
+        watchedDirs.clear();
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ *   This software is distributed under the terms of the FSF
+ *   Gnu Lesser General Public License (see lgpl.txt).
+ *
+ *   This program is distributed WITHOUT ANY WARRANTY. See the
+ *   GNU General Public License for more details.
+ */
+package com.scooterframework.admin;
+
+import java.io.File;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import com.scooterframework.common.logging.LogUtil;
+
+/**
+ * <p>
+ * FileChangeScheduler class runs the scan tasks of all file change monitors
+ * on one shared daemon thread, instead of a <tt>Timer</tt> thread for each
+ * monitor.
+ * </p>
+ *
+ * <p>
+ * Tasks are run with a fixed delay between the end of a scan and the start
+ * of the next one, so that a slow scan never piles up runs. An exception
+ * thrown by a task is logged and does not cancel the task.
+ * </p>
+ *
+ * <p>
+ * A burst of changes, such as saving several files or switching a branch,
+ * is coalesced by waiting for a quiet period after the latest change before
+ * acting on it. See {@link #isQuiet(long)}.
+ * </p>
+ *
+ * @author (Fei) John Chen
+ */
+public class FileChangeScheduler {
+    private static LogUtil log = LogUtil.getLogger(FileChangeScheduler.class.getName());
+
+    /**
+     * Time in milliseconds without further changes before changed files
+     * are processed.
+     */
+    public static final long QUIET_PERIOD = 300L;
+
+    private static final FileChangeScheduler me = new FileChangeScheduler();
+
+    private ScheduledExecutorService executor;
+
+    private FileChangeScheduler() {
+    }
+
+    /**
+     * Returns the singleton instance of the <tt>FileChangeScheduler</tt>.
+     *
+     * @return the singleton instance of the <tt>FileChangeScheduler</tt>.
+     */
+    public static FileChangeScheduler getInstance() {
+        return me;
+    }
+
+    /**
+     * Schedules a scan task to run now and then repeatedly with
+     * <tt>period</tt> milliseconds between runs.
+     *
+     * @param task   the scan task
+     * @param period delay in milliseconds between successive runs
+     * @return a future which can be passed to {@link #cancel(ScheduledFuture)}
+     */
+    public synchronized ScheduledFuture<?> schedule(final Runnable task, long period) {
+        if (task == null)
+            throw new IllegalArgumentException("task cannot be null in schedule().");
+        if (period <= 0)
+            throw new IllegalArgumentException("period must be positive in schedule().");
+
+        if (executor == null) {
+            executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "scooter-file-monitor");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        }
+
+        Runnable safeTask = new Runnable() {
+            public void run() {
+                try {
+                    task.run();
+                }
+                catch(RuntimeException ex) {
+                    log.error("Error in running file change task " + task + ": " + ex.getMessage());
+                }
+            }
+        };
+        return executor.scheduleWithFixedDelay(safeTask, 0L, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Cancels a scheduled task.
+     *
+     * @param future the future returned by <tt>schedule</tt>
+     */
+    public void cancel(ScheduledFuture<?> future) {
+        if (future != null) future.cancel(false);
+    }
+
+    /**
+     * Stops the shared thread. Tasks scheduled afterwards start a new one.
+     */
+    public synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Checks if there has been no change for the quiet period since
+     * <tt>lastChangeTime</tt>.
+     *
+     * @param lastChangeTime time of the latest change in milliseconds
+     * @return true if changes can be processed now
+     */
+    public static boolean isQuiet(long lastChangeTime) {
+        return System.currentTimeMillis() - lastChangeTime >= QUIET_PERIOD;
+    }
+
+    /**
+     * Publishes a file change to listeners of the
+     * <tt>EVENT_FILE_CHANGE</tt> event type.
+     *
+     * @param file   the changed file
+     * @param action the change, one of the actions of <tt>FileChangeNotice</tt>
+     */
+    public static void publishChange(File file, String action) {
+        EventsManager.getInstance().publishEvent(
+                new Event(Constants.EVENT_FILE_CHANGE, new FileChangeNotice(file, action)));
+    }
+}
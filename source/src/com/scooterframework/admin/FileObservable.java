@@ -43,6 +43,8 @@ public class FileObservable extends Observable {
     void checkChange() {
         long last = source.lastModified();
         if (lastSourceModifiedTime < last) {
+            //wait until the file is no longer being written
+            if (!FileChangeScheduler.isQuiet(last)) return;
             onChange();
         }
         lastSourceModifiedTime = last;
@@ -52,6 +54,7 @@ public class FileObservable extends Observable {
         super.setChanged();
         log.debug("File " + source.getName() + " is modified.");
         notifyObservers(source.getName());
+        FileChangeScheduler.publishChange(source, FileChangeNotice.MODIFY_FILE);
     }
 
     public String toString() {
@@ -13,6 +13,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 /**
@@ -46,13 +47,18 @@ public class FilterManager {
     private List<String> actionMethods = null;
     private Map<String, List<ActionControlFilter>> actionBeforeFiltersMap = new HashMap<String, List<ActionControlFilter>>();
     private Map<String, List<ActionControlFilter>> actionAfterFiltersMap = new HashMap<String, List<ActionControlFilter>>();
+    private Map<String, ActionControlFilter[]> actionBeforeChainsMap = new HashMap<String, ActionControlFilter[]>();
+    private Map<String, ActionControlFilter[]> actionAfterChainsMap = new HashMap<String, ActionControlFilter[]>();
 
-    private static Map<String, ActionFilterData> allFiltersMap = new HashMap<String, ActionFilterData>();
+    private static final ActionControlFilter[] NO_FILTERS = new ActionControlFilter[0];
+
+    private static Map<String, ActionFilterData> allFiltersMap = new ConcurrentHashMap<String, ActionFilterData>();
     private static final String FILTER_KEY_SEPARATOR = "-";
 
 	private Class<?> ownerClass;
-    private boolean filtersRegistrationCompleted;
-    private boolean noFilterDeclared;
+    private volatile boolean filtersRegistrationCompleted;
+    private volatile boolean noFilterDeclared;
+    private volatile int revision;
 
 	/**
 	 * Constructs a new instance of the <tt>FilterManager</tt>.
@@ -80,6 +86,15 @@ public class FilterManager {
 		return ownerClass.getName();
 	}
 
+	/**
+	 * Returns the revision of filter declarations. The revision is increased
+	 * each time a filter is declared, so that a caller holding resolved
+	 * filters of an action can tell whether they are still current.
+	 */
+	public int getRevision() {
+		return revision;
+	}
+
 	/**
 	 * True if no filter declared.
 	 */
@@ -107,6 +122,28 @@ public class FilterManager {
         return getFiltersForAction(action, FILTER_TYPE_AFTER);
     }
 
+    /**
+     * Returns the before filters of an action in execution order. The
+     * returned array is shared and must not be modified.
+     *
+     * @param action action name
+     * @return array of filters, empty if the action has no before filter
+     */
+	public ActionControlFilter[] getBeforeFilterChain(String action) {
+        return getFilterChain(action, FILTER_TYPE_BEFORE);
+    }
+
+    /**
+     * Returns the after filters of an action in execution order. The
+     * returned array is shared and must not be modified.
+     *
+     * @param action action name
+     * @return array of filters, empty if the action has no after filter
+     */
+	public ActionControlFilter[] getAfterFilterChain(String action) {
+        return getFilterChain(action, FILTER_TYPE_AFTER);
+    }
+
     /**
      * Returns a map of an action and its related before filters.
      *
@@ -161,20 +198,29 @@ public class FilterManager {
      * @return result of filtering
      */
     private String executeFiltersOn(String action, String type) {
-    	if (!filtersRegistrationCompleted) configFilters();
-
         String ret = null;
-        List<ActionControlFilter> filters = getFiltersForAction(action, type);
-        if (filters != null) {
-            Iterator<ActionControlFilter> it = filters.iterator();
-            while(it.hasNext() && (ret == null)) {
-                ActionControlFilter af = it.next();
-                ret = af.execute();
-            }
+        ActionControlFilter[] filters = getFilterChain(action, type);
+        for (int i = 0; i < filters.length && ret == null; i++) {
+            ret = filters[i].execute();
         }
         return ret;
     }
 
+    //returns the compiled filter chain of an action
+    private ActionControlFilter[] getFilterChain(String action, String type) {
+    	if (!filtersRegistrationCompleted) configFilters();
+
+        ActionControlFilter[] chain = null;
+        if (FILTER_TYPE_BEFORE.equals(type)) {
+            chain = actionBeforeChainsMap.get(action);
+        }
+        else
+        if (FILTER_TYPE_AFTER.equals(type)) {
+            chain = actionAfterChainsMap.get(action);
+        }
+        return (chain != null)?chain:NO_FILTERS;
+    }
+
     /**
      * Returns a list of ActionFilter objects for an action.
      *
@@ -183,6 +229,8 @@ public class FilterManager {
      * @return list of ActionFilter objects
      */
     private List<ActionControlFilter> getFiltersForAction(String action, String type) {
+    	if (!filtersRegistrationCompleted) configFilters();
+
         List<ActionControlFilter> l = null;
         if (FILTER_TYPE_BEFORE.equalsIgnoreCase(type)) {
             l = actionBeforeFiltersMap.get(action);
@@ -194,7 +242,7 @@ public class FilterManager {
         return l;
     }
 
-    private void prepareFilter(List<ActionFilterData> filterDataList, String filterType, Class<?> filterClz, String filters) {
+    private synchronized void prepareFilter(List<ActionFilterData> filterDataList, String filterType, Class<?> filterClz, String filters) {
     	String key = fileterKey(filterType, filterClz, filters);
     	ActionFilterData filter = allFiltersMap.get(key);
         if (filter == null) {
@@ -205,9 +253,10 @@ public class FilterManager {
 
         filtersRegistrationCompleted = false;
         noFilterDeclared = false;
+        revision++;
     }
 
-    private void prepareFilter(List<ActionFilterData> filterDataList, String filterType, Class<?> filterClz, String filters, String option, String actions) {
+    private synchronized void prepareFilter(List<ActionFilterData> filterDataList, String filterType, Class<?> filterClz, String filters, String option, String actions) {
         String key = fileterKey(filterType, filterClz, filters, option, actions);
         ActionFilterData filter = allFiltersMap.get(key);
         if (!allFiltersMap.containsKey(key)) {
@@ -218,6 +267,7 @@ public class FilterManager {
 
         filtersRegistrationCompleted = false;
         noFilterDeclared = false;
+        revision++;
     }
 
     /**
@@ -447,12 +497,16 @@ public class FilterManager {
 
 
     //create action filters map
-    private void configFilters() {
+    private synchronized void configFilters() {
+        if (filtersRegistrationCompleted) return;
+
         //get action list
         List<String> actions = getAllActionMethods();
 
         actionBeforeFiltersMap = constructActionFiltersMap(actions, beforeFilterDataList, skipBeforeFilterDataList);
         actionAfterFiltersMap  = constructActionFiltersMap(actions, afterFilterDataList, skipAfterFilterDataList);
+        actionBeforeChainsMap = compileFilterChains(actionBeforeFiltersMap);
+        actionAfterChainsMap  = compileFilterChains(actionAfterFiltersMap);
 
         filtersRegistrationCompleted = true;
     }
@@ -494,6 +548,19 @@ public class FilterManager {
         return m;
     }
 
+    //compile filters of each action into an array
+    private Map<String, ActionControlFilter[]> compileFilterChains(Map<String, List<ActionControlFilter>> actionFiltersMap) {
+        Map<String, ActionControlFilter[]> m = new HashMap<String, ActionControlFilter[]>();
+        for (Map.Entry<String, List<ActionControlFilter>> entry : actionFiltersMap.entrySet()) {
+            List<ActionControlFilter> filters = entry.getValue();
+            for (ActionControlFilter acf : filters) {
+                acf.compile();
+            }
+            m.put(entry.getKey(), filters.toArray(new ActionControlFilter[filters.size()]));
+        }
+        return m;
+    }
+
     //construct filter list for a specific action
     private List<ActionControlFilter> constructFiltersListForAction(String action, List<ActionFilterData> appendFilterDataList, List<ActionFilterData> skipFilterDataList) {
         List<ActionControlFilter> al = _constructFiltersListForAction(action, appendFilterDataList);//append filter list
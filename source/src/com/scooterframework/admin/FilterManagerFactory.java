@@ -7,6 +7,7 @@
  */
 package com.scooterframework.admin;
 
+import java.util.Iterator;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 
@@ -43,7 +44,8 @@ public class FilterManagerFactory {
 		FilterManager fm = filterManagersMap.get(ownerClass);
 		if (fm == null) {
 			fm = new FilterManager(ownerClass);
-			filterManagersMap.putIfAbsent(ownerClass, fm);
+			FilterManager oldFm = filterManagersMap.putIfAbsent(ownerClass, fm);
+			if (oldFm != null) fm = oldFm;
 		}
 		return fm;
 	}
@@ -56,4 +58,15 @@ public class FilterManagerFactory {
 	public void removeFilterManager(Class<?> ownerClass) {
 		filterManagersMap.remove(ownerClass);
 	}
+	
+	/**
+	 * Removes filter managers of owner classes loaded by a class loader.
+	 * 
+	 * @param classLoader  the class loader
+	 */
+	public void removeFilterManagers(ClassLoader classLoader) {
+		for (Iterator<Class<?>> it = filterManagersMap.keySet().iterator(); it.hasNext();) {
+			if (it.next().getClassLoader() == classLoader) it.remove();
+		}
+	}
 }
@@ -8,13 +8,11 @@
 package com.scooterframework.admin;
 
 import java.io.File;
-import java.util.Date;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Observable;
 import java.util.Observer;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
 
 import com.scooterframework.common.logging.LogUtil;
 
@@ -39,12 +37,10 @@ import com.scooterframework.common.logging.LogUtil;
 public class PropertyFileChangeMonitor {
     private LogUtil log = LogUtil.getLogger(this.getClass().getName());
     
-    private Map<File, Observable> observables = new HashMap<File, Observable>();
+    private Map<File, Observable> observables = new ConcurrentHashMap<File, Observable>();
     
-    private static long oneHundredDays = 8640000;
     private boolean periodicReading = false;
-    private Date oldDate = null;
-    private Timer timer = null;
+    private ScheduledFuture<?> future = null;
     
     /**
      * Time interval in milliseconds between successive task executions
@@ -79,22 +75,16 @@ public class PropertyFileChangeMonitor {
         return fcm;
     }
     
-    public void start() {
-        if (periodicReading) {
-            oldDate = new Date();
-            oldDate.setTime(oldDate.getTime()-oneHundredDays);
-            
-            timer = new Timer();
-            
-            PropertyFileChangeMonitorTimerTask task = 
-                new PropertyFileChangeMonitorTimerTask();
-            schedule(task, loadInterval);
+    public synchronized void start() {
+        if (periodicReading && future == null) {
+            future = FileChangeScheduler.getInstance().schedule(new PropertyFileChangeMonitorTimerTask(), loadInterval);
         }
     }
     
-    public void stop() {
-        if (timer != null) {
-            timer.cancel();
+    public synchronized void stop() {
+        if (future != null) {
+            FileChangeScheduler.getInstance().cancel(future);
+            future = null;
             log.debug("Property file change monitor stopped.");
         }
     }
@@ -137,23 +127,10 @@ public class PropertyFileChangeMonitor {
             (fileName);
     }
     
-    private void schedule(TimerTask task, long period) {
-        if (period > 0) {
-            timer.schedule(task, oldDate, period);
-        }
-        else {
-            timer.schedule(task, oldDate);
-        }
-    }
-    
     /**
      * FileChangeMonitorTimerTask is responsible for scanning files.
      */
-    public class PropertyFileChangeMonitorTimerTask extends TimerTask {
-        public PropertyFileChangeMonitorTimerTask() {
-            super();
-        }
-        
+    public class PropertyFileChangeMonitorTimerTask implements Runnable {
         public void run() {
             for (Map.Entry<File, Observable> entry : observables.entrySet()) {
                 FileObservable observable = (FileObservable)observables.get(entry.getKey());
@@ -7,6 +7,11 @@
  */
 package com.scooterframework.autoloader;
 
+import java.util.Collection;
+
+import com.scooterframework.admin.Constants;
+import com.scooterframework.admin.Event;
+import com.scooterframework.admin.EventsManager;
 import com.scooterframework.common.exception.ObjectCreationException;
 
 /**
@@ -51,7 +56,30 @@ public class ClassManager {
         return xcl;
     }
     
+    /**
+     * Loads classes in one batch. If any of the classes has been loaded by 
+     * the current class loader, the class loader is replaced once before 
+     * the classes are loaded by the new one.
+     */
+    void reloadClasses(Collection<String> classNames) 
+    throws ClassNotFoundException {
+        if (xcl.hasLoadedAny(classNames)) {
+            createNewClassLoader(null);
+        }
+        
+        for (String className : classNames) {
+            loadMyClass(className);
+        }
+    }
+    
+    /**
+     * Replaces the class loader. An <tt>EVENT_CLASS_RELOAD</tt> event is
+     * published with the replaced class loader as data, so that caches of
+     * classes loaded by it can be cleared.
+     */
     void createNewClassLoader(String className) {
+        MyClassLoader old = xcl;
         xcl = new MyClassLoader(this);
+        EventsManager.getInstance().publishEvent(new Event(Constants.EVENT_CLASS_RELOAD, old));
     }
 }
@@ -40,6 +40,25 @@ public class ClassWorkHelper {
     	allowedClassNames.clear();
     }
     
+    /**
+     * Loads recompiled classes in one batch. The class loader is replaced 
+     * at most once for the whole batch, instead of being checked for 
+     * changed sources by each class loaded.
+     * 
+     * @param classNames names of recompiled classes
+     * @throws Exception
+     */
+    public static void reloadClasses(Collection<String> classNames) throws Exception {
+    	if (classNames == null || classNames.size() == 0) return;
+    	allowedClassNames = classNames;
+    	try {
+    		ClassManager.getInstance().reloadClasses(classNames);
+    	}
+    	finally {
+    		allowedClassNames = new ArrayList<String>();
+    	}
+    }
+    
     public static boolean isAllowedClassName(String className) {
     	return allowedClassNames.contains(className);
     }
@@ -20,8 +20,13 @@ import com.scooterframework.admin.Event;
 public class CompileEvent extends Event {
 	private boolean success;
 	private List<String> filePaths;
+	private long compileTime;
 	
 	public CompileEvent(boolean success, String eventType, String message, List<String> filePaths) {
+		this(success, eventType, message, filePaths, 0L);
+	}
+	
+	public CompileEvent(boolean success, String eventType, String message, List<String> filePaths, long compileTime) {
 		super(eventType, message);
 		
 		if (!Constants.EVENT_COMPILE.equals(eventType)) {
@@ -30,6 +35,7 @@ public class CompileEvent extends Event {
 		
 		this.success = success;
 		this.filePaths = filePaths;
+		this.compileTime = compileTime;
 	}
 	
 	/**
@@ -46,6 +52,13 @@ public class CompileEvent extends Event {
 		return filePaths;
 	}
 	
+	/**
+	 * Returns the time in milliseconds spent on the compile.
+	 */
+	public long getCompileTime() {
+		return compileTime;
+	}
+	
 	/**
 	 * Returns a string representation of this object.
 	 */
@@ -53,7 +66,8 @@ public class CompileEvent extends Event {
 		StringBuilder sb = new StringBuilder();
 		sb.append(super.toString()).append(", ");
 		sb.append("success=").append(success).append(", ");
-		sb.append("filePaths=").append(filePaths);
+		sb.append("filePaths=").append(filePaths).append(", ");
+		sb.append("compileTime=").append(compileTime);
 		return sb.toString();
 	}
 }
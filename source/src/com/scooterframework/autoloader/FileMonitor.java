@@ -10,15 +10,20 @@ package com.scooterframework.autoloader;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.StringTokenizer;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
 
+import com.scooterframework.admin.DirectoryWatcher;
+import com.scooterframework.admin.FileChangeNotice;
+import com.scooterframework.admin.FileChangeScheduler;
 import com.scooterframework.common.logging.LogUtil;
 
 /**
@@ -28,6 +33,20 @@ import com.scooterframework.common.logging.LogUtil;
  * </p>
  * 
  * <p>
+ * Source files which refer to a changed class are recompiled together with 
+ * the changed class, as recorded by {@link SourceDependencies}, so that 
+ * inlined constants and changed signatures are picked up without 
+ * recompiling all sources.
+ * </p>
+ * 
+ * <p>
+ * When the JVM supports <tt>java.nio.file.WatchService</tt>, source
+ * directories are watched through a {@link DirectoryWatcher}, and the
+ * source files are only scanned after the file system reports a change.
+ * Otherwise the source files are scanned on every run of the monitor.
+ * </p>
+ * 
+ * <p>
  * The default monitor interval is 1000 milliseconds. This can be changed by
  * updating the <tt>source_file_monitor_period</tt> property in
  * <tt>autoloader.properties</tt> file.
@@ -38,16 +57,17 @@ import com.scooterframework.common.logging.LogUtil;
 public class FileMonitor {
     private LogUtil log = LogUtil.getLogger(this.getClass().getName());
     
-    private static long oneHundredDays = 8640000;
     private static boolean started = false;
-    private Date oldDate = null;
-    private Timer timer = null;
+    private ScheduledFuture<?> future = null;
     private long period = 0L;
     private String sourcePath = "";
     private long lastScanTime = 0L;
     private static ConcurrentMap<String, SourceFile> sourceMap = new ConcurrentHashMap<String, SourceFile>();
+    private ConcurrentMap<String, String> classNamesByPath = new ConcurrentHashMap<String, String>();
     private ConcurrentMap<String, SourceFile> modifiedSources = new ConcurrentHashMap<String, SourceFile>();
+    private SourceDependencies dependencies = new SourceDependencies();
     private long latestChange = 0L;
+    private volatile DirectoryWatcher watcher = null;
     
     private static FileMonitor fm;
     
@@ -67,37 +87,38 @@ public class FileMonitor {
         return fm;
     }
     
-    public void start() {
+    public synchronized void start() {
         if (turnOff || started) return;
         
-        oldDate = new Date();
-        oldDate.setTime(oldDate.getTime()-oneHundredDays);
-        
-        timer = new Timer();
         sourcePath = AutoLoaderConfig.getInstance().getSourcePath();
         period = AutoLoaderConfig.getInstance().getPeriod();
         
         if (period > 0) {
+            watcher = createWatcher(sourcePath);
             SourceFileTimerTask sourceTask = 
                 new SourceFileTimerTask(sourcePath);
-            schedule(sourceTask, period);
+            future = FileChangeScheduler.getInstance().schedule(sourceTask, period);
             
             started = true;
-            log.debug("Java source file change monitor started with an interval of " + period + " milliseconds.");
+            log.debug("Java source file change monitor started with an interval of " + period + " milliseconds" + 
+            		((watcher != null)?", scanning only after changes are reported.":"."));
         }
     }
     
     /**
      * Terminates this loader, discarding any currently scheduled tasks.
-     * 
-     * @see  java.util.Timer#cancel()
      */
-    public void stop() {
+    public synchronized void stop() {
     	if (!started) return;
-        if (timer != null) {
-            timer.cancel();
+        if (future != null) {
+            FileChangeScheduler.getInstance().cancel(future);
+            future = null;
             log.debug("Java source file change monitor stopped.");
         }
+        if (watcher != null) {
+            watcher.close();
+            watcher = null;
+        }
         started = false;
     }
     
@@ -129,7 +150,7 @@ public class FileMonitor {
     }
     
     public static SourceFile getSourceFile(String className) {
-        SourceFile sf = (SourceFile)sourceMap.get(className);
+        SourceFile sf = sourceMap.get(className);
         if (sf == null) {
             sf = SourceFileHelper.getSourceFileFromClassName(className);
         }
@@ -140,12 +161,37 @@ public class FileMonitor {
         return lastScanTime;
     }
     
-    private void schedule(TimerTask task, long period) {
-        if (period > 0) {
-            timer.schedule(task, oldDate, period);
+    //Returns null if any of the source directories cannot be watched.
+    private DirectoryWatcher createWatcher(String sourceLocation) {
+        if (sourceLocation == null) return null;
+        
+        DirectoryWatcher w = DirectoryWatcher.create();
+        if (w == null) return null;
+        
+        StringTokenizer st = new StringTokenizer(sourceLocation, File.pathSeparator);
+        while (st.hasMoreElements()) {
+            if (!w.registerTree(new File((String) st.nextElement()))) {
+                w.close();
+                return null;
+            }
         }
-        else {
-            timer.schedule(task, oldDate);
+        return w;
+    }
+    
+    //Sources are scanned when the watcher reports a change, or on every run 
+    //if there is no watcher. Otherwise only a recompile waiting for the end 
+    //of a burst of changes is finished.
+    private void checkSources(String sourceLocation) {
+        DirectoryWatcher w = watcher;
+        if (w == null || lastScanTime == 0L || w.pollChanges()) {
+            scanAllSources(sourceLocation);
+            return;
+        }
+        
+        try {
+            recompile();
+        } catch (Exception ex) {
+            log.error("Error in checkSources() for " + sourceLocation + ": " + ex);
         }
     }
     
@@ -153,12 +199,14 @@ public class FileMonitor {
     	if (sourceLocation == null) return;
     	
 		try {
+			Set<String> scannedClassNames = new HashSet<String>(sourceMap.size());
 			StringTokenizer st = new StringTokenizer(sourceLocation, File.pathSeparator);
 			while (st.hasMoreElements()) {
 				String sourceDirPath = (String) st.nextElement();
 				File base = new File(sourceDirPath);
-				scanFiles(base, sourceDirPath);
+				scanFiles(base, sourceDirPath, scannedClassNames);
 			}
+			removeDeletedSources(scannedClassNames);
 			lastScanTime = (new Date()).getTime();
 
 			recompile();
@@ -167,37 +215,75 @@ public class FileMonitor {
 		}
     }
         
-    private void scanFiles(File file, String sourceDirPath) throws IOException {
+    private void scanFiles(File file, String sourceDirPath, Set<String> scannedClassNames) throws IOException {
         if (file.isDirectory()) {
             File[] files = file.listFiles();
             int length = files.length;
             for (int i=0; i<length; i++) {
                 File f = files[i];
-                scanFiles(f, sourceDirPath);
+                scanFiles(f, sourceDirPath, scannedClassNames);
             }
         }
         else {
             String fn = file.getName();
             if (fn.endsWith("java") && (fn.indexOf(' ') == -1)) {
-                processJavaFile(file, sourceDirPath);
+                scannedClassNames.add(processJavaFile(file, sourceDirPath));
             }
         }
     }
     
-    private void processJavaFile(File file, String sourceDirPath) throws IOException {
-        String filePath = file.getCanonicalPath();
-        String className = SourceFileHelper.getClassNameFromSourceFile(file, sourceDirPath);
-        if (sourceMap.containsKey(className)) {
-            SourceFile sf = (SourceFile)sourceMap.get(className);
-            if (sf.isUpdated(file) || sf.availableForRecompile()) {
-            	modifiedSources.putIfAbsent(filePath, sf);
+    //A known file is only parsed again when its last modified time changes.
+    private String processJavaFile(File file, String sourceDirPath) throws IOException {
+        String path = file.getPath();
+        String className = classNamesByPath.get(path);
+        if (className == null) {
+            className = SourceFileHelper.getClassNameFromSourceFile(file, sourceDirPath);
+            classNamesByPath.put(path, className);
+        }
+        
+        SourceFile sf = sourceMap.get(className);
+        if (sf != null) {
+            boolean updated = file.lastModified() > sf.getLastSourceModifiedTime() && sf.isUpdated(file);
+            if (updated) {
+                dependencies.update(className, file);
+            	FileChangeScheduler.publishChange(file, FileChangeNotice.MODIFY_FILE);
+            }
+            
+            //a source whose class file is missing or older is compiled again
+            if (updated || sf.availableForRecompile()) {
+            	modifiedSources.putIfAbsent(className, sf);
             }
         }
         else {
-        	SourceFile sf =  new SourceFile(file, sourceDirPath);
+        	sf =  new SourceFile(file, sourceDirPath);
             sourceMap.put(className, sf);
+            dependencies.update(className, file);
             
-            if (sf.availableForRecompile()) modifiedSources.put(filePath, sf);
+            if (sf.availableForRecompile()) modifiedSources.put(className, sf);
+            if (lastScanTime != 0L) FileChangeScheduler.publishChange(file, FileChangeNotice.ADD_FILE);
+        }
+        return className;
+    }
+    
+    //Sources of classes not found by a scan are deleted. Sources which 
+    //refer to a deleted class are compiled again.
+    private void removeDeletedSources(Set<String> scannedClassNames) {
+        if (scannedClassNames.size() == sourceMap.size()) return;
+        
+        for (Map.Entry<String, SourceFile> entry : sourceMap.entrySet()) {
+            String className = entry.getKey();
+            if (scannedClassNames.contains(className)) continue;
+            
+            SourceFile sf = entry.getValue();
+            sourceMap.remove(className);
+            classNamesByPath.values().remove(className);
+            modifiedSources.remove(className);
+            for (String dependent : dependencies.getDependents(Collections.singleton(className))) {
+                SourceFile dsf = sourceMap.get(dependent);
+                if (dsf != null) modifiedSources.putIfAbsent(dependent, dsf);
+            }
+            dependencies.remove(className);
+            FileChangeScheduler.publishChange(sf.getSource(), FileChangeNotice.DELETE_FILE);
         }
     }
     
@@ -206,38 +292,53 @@ public class FileMonitor {
     	
         //1. check if there is any change in source files
         List<File> files = new ArrayList<File>(modifiedSources.size());
+        Set<String> classNames = new HashSet<String>();
         long sumTime = 0L;
+        long lastModified = 0L;
         for (Map.Entry<String, SourceFile> entry : modifiedSources.entrySet()) {
             SourceFile sf = entry.getValue();
             
             if (sf.getSource().exists()) {
                 files.add(sf.getSource());
+                classNames.add(entry.getKey());
                 sumTime += sf.getLastSourceModifiedTime();
+                lastModified = Math.max(lastModified, sf.getLastSourceModifiedTime());
             }
         }
         
         if (sumTime == latestChange) return;
         
-        //2. recompile
+        //wait for the end of a burst of changes
+        if (!FileChangeScheduler.isQuiet(lastModified)) return;
+        
+        //2. add sources which refer to the changed classes
+        for (String className : dependencies.getDependents(classNames)) {
+            SourceFile sf = sourceMap.get(className);
+            if (sf != null && !classNames.contains(className) && sf.getSource().exists()) {
+                files.add(sf.getSource());
+                classNames.add(className);
+            }
+        }
+        
+        //3. recompile
         log.debug("recompile classes: " + files);
         latestChange = sumTime;
         
         String result = JavaCompiler.compile(files);
         
-        //3. transform
+        //4. transform
         if (result == null || "".equals(result)) {
-        	List<String> classNames = new ArrayList<String>();
-            for (Map.Entry<String, SourceFile> entry : modifiedSources.entrySet()) {
-                SourceFile sf = entry.getValue();
+        	List<String> loadClassNames = new ArrayList<String>();
+            for (String className : classNames) {
+                SourceFile sf = sourceMap.get(className);
                 if (sf.getClassFile().exists()) {
-                	String className = SourceFileHelper.getClassNameFromClassFile(sf.getClassFile());
-                	classNames.add(className);
+                	loadClassNames.add(SourceFileHelper.getClassNameFromClassFile(sf.getClassFile()));
                 }
             }
-            ClassWorkHelper.preloadClasses(classNames);
+            ClassWorkHelper.reloadClasses(loadClassNames);
         }
         
-        //4. cleanup
+        //5. cleanup
         if (result == null || "".equals(result)) {
         	modifiedSources.clear();
         }
@@ -246,16 +347,15 @@ public class FileMonitor {
     /**
      * SourceFileTimerTask is responsible for scanning files.
      */
-    public class SourceFileTimerTask extends TimerTask {
+    public class SourceFileTimerTask implements Runnable {
         private String sourceLocation = "";
         
         public SourceFileTimerTask(String sourceLocation) {
-            super();
             this.sourceLocation = sourceLocation;
         }
         
         public void run() {
-            if (started) scanAllSources(sourceLocation);
+            if (started) checkSources(sourceLocation);
         }
     }
 }
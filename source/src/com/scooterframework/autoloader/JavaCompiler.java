@@ -44,12 +44,14 @@ public final class JavaCompiler {
 		PrintWriter compilerMessageWriter = new PrintWriter(compilerMessage);
 		String args[] = constructCompilerArgs(sourceFileFullPaths);
 		int exitValue = 0;
+		long start = System.currentTimeMillis();
 		try {
 			exitValue = Main.compile(args, compilerMessageWriter);
 		}
 		catch(Exception ex) {
 			log.error(ex);
 		}
+		long compileTime = System.currentTimeMillis() - start;
 		compilerMessageWriter.close();
 		
 		String result = (exitValue == 0) ? null : compilerMessage.toString();
@@ -57,15 +59,15 @@ public final class JavaCompiler {
             log.error("Failed to compile. Error details: \n\r" + result);
             CompileEvent ce = 
             	new CompileEvent(false, Constants.EVENT_COMPILE, result, 
-            			Arrays.asList(sourceFileFullPaths));
+            			Arrays.asList(sourceFileFullPaths), compileTime);
             EventsManager.getInstance().publishEvent(ce);
             compileErrors = new CompileErrors(result);
         }
         else {
-        	log.info("Compile success.");
+        	log.info("Compile success: " + sourceFileFullPaths.length + " files in " + compileTime + " ms.");
             CompileEvent ce = 
             	new CompileEvent(true, Constants.EVENT_COMPILE, result, 
-            			Arrays.asList(sourceFileFullPaths));
+            			Arrays.asList(sourceFileFullPaths), compileTime);
             EventsManager.getInstance().publishEvent(ce);
             compileErrors = null;
         }
@@ -7,6 +7,7 @@
  */
 package com.scooterframework.autoloader;
 
+import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -88,6 +89,16 @@ public class MyClassLoader extends ClassLoader {
         return c;
     }
     
+    /**
+     * Checks if any of the classes has been loaded by this class loader.
+     */
+    boolean hasLoadedAny(Collection<String> classNames) {
+        for (String className : classNames) {
+            if (loadedClasses.containsKey(className)) return true;
+        }
+        return false;
+    }
+    
     protected boolean sourceChanged() {
         boolean changed = false;
         if (loadedClasses == null || loadedClasses.size() == 0) return changed;
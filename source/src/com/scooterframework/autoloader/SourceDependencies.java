@@ -0,0 +1,217 @@
+/*
+ *   This software is distributed under the terms of the FSF
+ *   Gnu Lesser General Public License (see lgpl.txt).
+ *
+ *   This program is distributed WITHOUT ANY WARRANTY. See the
+ *   GNU General Public License for more details.
+ */
+package com.scooterframework.autoloader;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.scooterframework.common.logging.LogUtil;
+
+/**
+ * <p>
+ * SourceDependencies class keeps a reverse dependency graph of monitored
+ * source files, so that a source file which refers to a changed class can be
+ * recompiled together with the changed class.
+ * </p>
+ *
+ * <p>
+ * References are found by scanning the source text instead of class files,
+ * because a constant of another class is inlined by the compiler and leaves
+ * no reference in the class file. A capitalized name in a source file is
+ * taken as a reference to a class of the same package, to an imported class,
+ * or to a class of an imported package. A name found in a comment or a
+ * string may cause an extra recompile but never a missed one.
+ * </p>
+ *
+ * @author (Fei) John Chen
+ */
+public class SourceDependencies {
+    private static LogUtil log = LogUtil.getLogger(SourceDependencies.class.getName());
+
+    private static final Pattern PACKAGE_PATTERN = Pattern.compile("^\\s*package\\s+([\\w.]+)\\s*;");
+    private static final Pattern IMPORT_PATTERN = Pattern.compile("^\\s*import\\s+(static\\s+)?([\\w.]+)(\\.\\*)?\\s*;");
+    private static final Pattern NAME_PATTERN = Pattern.compile("[A-Za-z_$][\\w$]*(\\.[A-Za-z_$][\\w$]*)*");
+
+    /**
+     * class name -> names of classes it may refer to
+     */
+    private final Map<String, Set<String>> references = new HashMap<String, Set<String>>();
+
+    /**
+     * class name -> names of classes which may refer to it
+     */
+    private final Map<String, Set<String>> dependents = new HashMap<String, Set<String>>();
+
+    /**
+     * Scans the source file of a class and records the classes it refers to.
+     * References recorded by a previous scan are replaced.
+     *
+     * @param className  name of the class
+     * @param sourceFile the source file of the class
+     */
+    public void update(String className, File sourceFile) {
+        Set<String> names = null;
+        try {
+            names = scan(sourceFile);
+        }
+        catch(IOException ex) {
+            log.error("Error in update() for " + sourceFile + ": " + ex.getMessage());
+            names = new HashSet<String>();
+        }
+        names.remove(className);
+
+        synchronized(this) {
+            removeReferences(className);
+            references.put(className, names);
+            for (String name : names) {
+                Set<String> s = dependents.get(name);
+                if (s == null) {
+                    s = new HashSet<String>();
+                    dependents.put(name, s);
+                }
+                s.add(className);
+            }
+        }
+    }
+
+    /**
+     * Removes a class from the graph.
+     *
+     * @param className name of the class
+     */
+    public synchronized void remove(String className) {
+        removeReferences(className);
+    }
+
+    /**
+     * Returns names of classes whose sources refer to any of the
+     * <tt>classNames</tt>, directly or through other dependent classes.
+     * The <tt>classNames</tt> themselves are not included unless they refer
+     * to each other. Each class is visited once, so cyclic references end.
+     *
+     * @param classNames names of changed classes
+     * @return names of dependent classes
+     */
+    public synchronized Set<String> getDependents(Collection<String> classNames) {
+        Set<String> result = new HashSet<String>();
+        LinkedList<String> pending = new LinkedList<String>(classNames);
+        while (pending.size() > 0) {
+            Set<String> s = dependents.get(pending.removeFirst());
+            if (s == null) continue;
+            for (String name : s) {
+                if (result.add(name)) pending.add(name);
+            }
+        }
+        return result;
+    }
+
+    private void removeReferences(String className) {
+        Set<String> names = references.remove(className);
+        if (names == null) return;
+        for (String name : names) {
+            Set<String> s = dependents.get(name);
+            if (s != null) {
+                s.remove(className);
+                if (s.size() == 0) dependents.remove(name);
+            }
+        }
+    }
+
+    private static Set<String> scan(File sourceFile) throws IOException {
+        String packageName = "";
+        List<String> packageImports = new ArrayList<String>();
+        Map<String, String> classImports = new HashMap<String, String>();
+        Set<String> usedNames = new HashSet<String>();
+
+        BufferedReader reader = new BufferedReader(new FileReader(sourceFile));
+        try {
+            String line = null;
+            while ((line = reader.readLine()) != null) {
+                Matcher m = PACKAGE_PATTERN.matcher(line);
+                if (m.find()) {
+                    packageName = m.group(1);
+                    continue;
+                }
+
+                m = IMPORT_PATTERN.matcher(line);
+                if (m.find()) {
+                    String name = m.group(2);
+                    if (m.group(1) != null) {
+                        //static import: refer to the class of the members
+                        int lastDot = name.lastIndexOf('.');
+                        if (m.group(3) != null) usedNames.add(name);
+                        else if (lastDot != -1) usedNames.add(name.substring(0, lastDot));
+                    }
+                    else if (m.group(3) != null) {
+                        packageImports.add(name);
+                    }
+                    else {
+                        classImports.put(name.substring(name.lastIndexOf('.') + 1), name);
+                    }
+                    continue;
+                }
+
+                m = NAME_PATTERN.matcher(line);
+                while (m.find()) {
+                    usedNames.add(m.group());
+                }
+            }
+        }
+        finally {
+            reader.close();
+        }
+
+        Set<String> names = new HashSet<String>();
+        names.addAll(classImports.values());
+        for (String name : usedNames) {
+            int dot = name.indexOf('.');
+            String first = (dot == -1)?name:name.substring(0, dot);
+            if (Character.isUpperCase(first.charAt(0))) {
+                String imported = classImports.get(first);
+                if (imported != null) continue;
+                names.add(qualify(packageName, first));
+                for (String pkg : packageImports) {
+                    names.add(pkg + "." + first);
+                }
+            }
+            else if (dot != -1) {
+                //a qualified name: add each prefix ending with a class name
+                String prefix = first;
+                int start = dot + 1;
+                while (start < name.length()) {
+                    int next = name.indexOf('.', start);
+                    String part = (next == -1)?name.substring(start):name.substring(start, next);
+                    prefix = prefix + "." + part;
+                    if (Character.isUpperCase(part.charAt(0))) {
+                        names.add(prefix);
+                        break;
+                    }
+                    if (next == -1) break;
+                    start = next + 1;
+                }
+            }
+        }
+        return names;
+    }
+
+    private static String qualify(String packageName, String simpleName) {
+        return ("".equals(packageName))?simpleName:(packageName + "." + simpleName);
+    }
+}
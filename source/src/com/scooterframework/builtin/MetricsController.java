@@ -0,0 +1,41 @@
+/*
+ *   This software is distributed under the terms of the FSF
+ *   Gnu Lesser General Public License (see lgpl.txt).
+ *
+ *   This program is distributed WITHOUT ANY WARRANTY. See the
+ *   GNU General Public License for more details.
+ */
+package com.scooterframework.builtin;
+
+import static com.scooterframework.web.controller.ActionControl.*;
+
+import com.scooterframework.common.util.RequestMetrics;
+
+/**
+ * MetricsController class has methods for request metrics. Metrics are
+ * recorded when <tt>benchmark</tt> is enabled in environment.properties
+ * file. Only a logged-in admin can see the metrics.
+ *
+ * @author (Fei) John Chen
+ */
+public class MetricsController {
+
+	static {
+		filterManagerFor(MetricsController.class).declareBeforeFilter(
+				AdminSignonController.class, "loginRequired");
+	}
+
+	/**
+	 * index action returns request metrics in JSON format.
+	 */
+    public String index() {
+    	return render(RequestMetrics.toJSON(), "json");
+    }
+
+	/**
+	 * prometheus action returns request metrics in Prometheus text format.
+	 */
+    public String prometheus() {
+    	return render(RequestMetrics.toPrometheus(), "text");
+    }
+}
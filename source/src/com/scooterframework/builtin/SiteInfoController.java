@@ -10,6 +10,7 @@ package com.scooterframework.builtin;
 import static com.scooterframework.web.controller.ActionControl.*;
 
 import com.scooterframework.admin.EnvConfig;
+import com.scooterframework.orm.sqldataexpress.util.DBStore;
 import com.scooterframework.web.route.MatchMaker;
 import com.scooterframework.web.route.RouteConfig;
 
@@ -32,6 +33,9 @@ public class SiteInfoController {
     	setViewData("auto.rest", (RouteConfig.getInstance().allowAutoREST()?"On":"Off"));
     	setViewData("auto.crud", (EnvConfig.getInstance().allowAutoCRUD()?"On":"Off"));
     	setViewData("routes", MatchMaker.getInstance().getAllRoutes());
+    	setViewData("route.cache.statistics", MatchMaker.getInstance().getRouteCacheStatistics());
+    	setViewData("statement.cache.statistics", DBStore.getInstance().getStatementCache().getStatistics());
+    	setViewData("statement.cache.connections", DBStore.getInstance().getStatementCache().getConnectionStatistics());
         return null;
     }
     
@@ -1,32 +1,208 @@
 /*
- *   This software is distributed under the terms of the FSF 
- *   Gnu Lesser General Public License (see lgpl.txt). 
+ *   This software is distributed under the terms of the FSF
+ *   Gnu Lesser General Public License (see lgpl.txt).
  *
  *   This program is distributed WITHOUT ANY WARRANTY. See the
  *   GNU General Public License for more details.
  */
 package com.scooterframework.cache;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.math.BigInteger;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
 
 /**
- * CacheKey class
- * 
+ * <p>
+ * CacheKey class is an immutable key of a cached object. A key consists of
+ * a namespace, a name and a list of elements such as a SQL statement and its
+ * input values. Elements keep their types, so that <tt>5</tt> and
+ * <tt>"5"</tt> are different elements. The hash code is computed when it
+ * is first needed, and only once.
+ * </p>
+ *
+ * <p>
+ * A key refers to the elements given to it, so that a key created just for
+ * a lookup costs no copying. Before a key is stored in a cache, use
+ * {@link #copy()} to get a key whose maps, collections and arrays cannot be
+ * changed by the caller any more.
+ * </p>
+ *
+ * <p>
+ * For caches that only accept short string keys, such as memcached,
+ * {@link #toCompactKey()} returns a string of at most
+ * {@link #MAX_COMPACT_KEY_LENGTH} ASCII characters. It is derived from
+ * {@link #toBytes()} whose content does not depend on the JVM.
+ * </p>
+ *
  * @author (Fei) John Chen
  */
-public class CacheKey {
-	
+public final class CacheKey implements Serializable {
+	private static final long serialVersionUID = -2766325409377146307L;
+
+	/**
+	 * Maximum length of a compact key.
+	 */
+	public static final int MAX_COMPACT_KEY_LENGTH = 250;
+
+	private static final int MAX_PREFIX_LENGTH = MAX_COMPACT_KEY_LENGTH - 33;
+
+	private final String namespace;
+	private final String name;
+	private final Object[] elements;
+	private int hash;
+	private transient String compactKey;
+
+	/**
+	 * Constructs a cache key.
+	 *
+	 * @param namespace  namespace of the key, such as a model class name
+	 * @param name       name of the key, such as a finder method name
+	 * @param elements   elements of the key
+	 */
+	public CacheKey(String namespace, String name, Object... elements) {
+		this.namespace = (namespace != null)?namespace:"";
+		this.name = (name != null)?name:"";
+		this.elements = (elements != null)?elements:new Object[0];
+	}
+
+	private CacheKey(CacheKey key) {
+		this.namespace = key.namespace;
+		this.name = key.name;
+		this.elements = copyElements(key.elements);
+		this.hash = key.hash;
+	}
+
 	/**
 	 * Returns cache key
-	 * 
+	 *
 	 * @param namespace
 	 * @param name
 	 * @param elements
 	 * @return cache key
 	 */
 	public static Object getCacheKey(String namespace, String name, Object... elements) {
+		return new CacheKey(namespace, name, elements);
+	}
+
+	public String getNamespace() {
+		return namespace;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns a key which is equal to this key and does not share maps,
+	 * collections or arrays with the caller. Returns this key if its
+	 * elements have none of them.
+	 *
+	 * @return a key safe to be stored
+	 */
+	public CacheKey copy() {
+		for (Object element : elements) {
+			if (isContainer(element)) return new CacheKey(this);
+		}
+		return this;
+	}
+
+	/**
+	 * Returns a copy of the elements of this key.
+	 */
+	public Object[] getElements() {
+		return elements.clone();
+	}
+
+	@Override
+	public int hashCode() {
+		int h = hash;
+		if (h == 0) {
+			h = computeHash();
+			hash = h;
+		}
+		return h;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) return true;
+		if (!(obj instanceof CacheKey)) return false;
+		CacheKey that = (CacheKey) obj;
+		return hashCode() == that.hashCode() &&
+			name.equals(that.name) &&
+			namespace.equals(that.namespace) &&
+			Arrays.deepEquals(elements, that.elements);
+	}
+
+	/**
+	 * Returns a serialized form of the key. Map entries are written in the
+	 * order of their key strings, so equal keys give equal bytes in any JVM.
+	 *
+	 * @return bytes of the key
+	 */
+	public byte[] toBytes() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+		DataOutputStream out = new DataOutputStream(bytes);
+		try {
+			writeString(out, namespace);
+			writeString(out, name);
+			out.writeInt(elements.length);
+			for (Object element : elements) {
+				writeElement(out, element);
+			}
+			out.flush();
+		}
+		catch(IOException ex) {
+			//not possible with a byte array stream
+			throw new IllegalStateException(ex);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Returns a short string form of the key. It starts with the namespace
+	 * and name, and ends with an MD5 digest of {@link #toBytes()}. Spaces
+	 * and other characters not allowed in memcached keys are replaced.
+	 *
+	 * @return a string of at most <tt>MAX_COMPACT_KEY_LENGTH</tt> characters
+	 */
+	public String toCompactKey() {
+		if (compactKey != null) return compactKey;
+
+		String prefix = namespace + '.' + name;
+		if (prefix.length() > MAX_PREFIX_LENGTH) prefix = prefix.substring(0, MAX_PREFIX_LENGTH);
+
+		StringBuilder sb = new StringBuilder(prefix.length() + 33);
+		int length = prefix.length();
+		for (int i = 0; i < length; i++) {
+			char c = prefix.charAt(i);
+			sb.append((c > ' ' && c < 127)?c:'_');
+		}
+		sb.append('#').append(md5(toBytes()));
+		compactKey = sb.toString();
+		return compactKey;
+	}
+
+	/**
+	 * Returns a readable form of the key.
+	 */
+	@Override
+	public String toString() {
 		StringBuilder sb = new StringBuilder();
 		sb.append(namespace).append('.').append(name);
-		if (elements != null && elements.length > 0) {
+		if (elements.length > 0) {
 			sb.append(" - ");
 			for (Object object : elements) {
 				sb.append(object).append("|");
@@ -34,4 +210,101 @@ public class CacheKey {
 		}
 		return sb.toString();
 	}
+
+	private int computeHash() {
+		int h = namespace.hashCode();
+		h = 31 * h + name.hashCode();
+		h = 31 * h + Arrays.deepHashCode(elements);
+		return h;
+	}
+
+	private static Object[] copyElements(Object[] elements) {
+		if (elements == null || elements.length == 0) return new Object[0];
+		Object[] copy = new Object[elements.length];
+		for (int i = 0; i < elements.length; i++) {
+			copy[i] = copyElement(elements[i]);
+		}
+		return copy;
+	}
+
+	private static boolean isContainer(Object element) {
+		return element instanceof Map<?, ?> || element instanceof Collection<?> || element instanceof Object[];
+	}
+
+	private static Object copyElement(Object element) {
+		if (element instanceof Map<?, ?>) {
+			return new HashMap<Object, Object>((Map<?, ?>)element);
+		}
+		if (element instanceof Collection<?>) {
+			return new ArrayList<Object>((Collection<?>)element);
+		}
+		if (element instanceof Object[]) {
+			return copyElements((Object[])element);
+		}
+		return element;
+	}
+
+	private static void writeElement(DataOutputStream out, Object element) throws IOException {
+		if (element == null) {
+			out.writeByte('N');
+		}
+		else if (element instanceof String) {
+			out.writeByte('S');
+			writeString(out, (String)element);
+		}
+		else if (element instanceof Map<?, ?>) {
+			Map<String, Map.Entry<?, ?>> sorted = new TreeMap<String, Map.Entry<?, ?>>();
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>)element).entrySet()) {
+				sorted.put(String.valueOf(entry.getKey()), entry);
+			}
+			out.writeByte('M');
+			out.writeInt(sorted.size());
+			for (Map.Entry<?, ?> entry : sorted.values()) {
+				writeElement(out, entry.getKey());
+				writeElement(out, entry.getValue());
+			}
+		}
+		else if (element instanceof Collection<?>) {
+			Collection<?> c = (Collection<?>)element;
+			out.writeByte('C');
+			out.writeInt(c.size());
+			Iterator<?> it = c.iterator();
+			while(it.hasNext()) {
+				writeElement(out, it.next());
+			}
+		}
+		else if (element instanceof Object[]) {
+			Object[] array = (Object[])element;
+			out.writeByte('A');
+			out.writeInt(array.length);
+			for (Object object : array) {
+				writeElement(out, object);
+			}
+		}
+		else {
+			out.writeByte('O');
+			writeString(out, element.getClass().getName());
+			writeString(out, element.toString());
+		}
+	}
+
+	private static void writeString(DataOutputStream out, String s) throws IOException {
+		byte[] bytes = s.getBytes("UTF-8");
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String md5(byte[] input) {
+		try {
+			MessageDigest md = MessageDigest.getInstance("MD5");
+			String hashtext = new BigInteger(1, md.digest(input)).toString(16);
+			while (hashtext.length() < 32) {
+				hashtext = "0" + hashtext;
+			}
+			return hashtext;
+		}
+		catch(NoSuchAlgorithmException e) {
+			throw new RuntimeException(e);
+		}
+	}
 }
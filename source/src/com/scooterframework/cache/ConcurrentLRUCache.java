@@ -0,0 +1,249 @@
+/*
+ *   This software is distributed under the terms of the FSF
+ *   Gnu Lesser General Public License (see lgpl.txt).
+ *
+ *   This program is distributed WITHOUT ANY WARRANTY. See the
+ *   GNU General Public License for more details.
+ */
+package com.scooterframework.cache;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ConcurrentLRUCache class is a bounded in-memory cache which can be shared
+ * by many threads.
+ *
+ * <p>Reads do not lock and do not allocate. Each read only stamps the entry
+ * with an access tick. When the number of entries goes over the maximum
+ * size, the least recently used entries are evicted in one batch by the
+ * writing thread. Eviction is therefore approximate: a few entries over the
+ * limit may exist for a short while under concurrent writes.</p>
+ *
+ * <p>Hit, miss and eviction counts are kept and can be retrieved through
+ * {@link #getStatistics()}.</p>
+ *
+ * @author (Fei) John Chen
+ */
+public class ConcurrentLRUCache<K, V> {
+
+	/**
+	 * Default maximum number of entries.
+	 */
+	public static final int DEFAULT_MAX_SIZE = 1000;
+
+	private final String name;
+	private final ConcurrentHashMap<K, Entry<V>> map;
+	private final ReentrantLock evictionLock = new ReentrantLock();
+	private final AtomicInteger size = new AtomicInteger();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong evictions = new AtomicLong();
+
+	private volatile int maxSize;
+
+	/**
+	 * Access clock. Increments are not atomic on purpose: a lost tick only
+	 * makes the recency order slightly less precise.
+	 */
+	private volatile long tick;
+
+	public ConcurrentLRUCache(String name) {
+		this(name, DEFAULT_MAX_SIZE);
+	}
+
+	public ConcurrentLRUCache(String name, int maxSize) {
+		if (maxSize <= 0)
+			throw new IllegalArgumentException("maxSize must be positive for cache " + name + ".");
+
+		this.name = name;
+		this.maxSize = maxSize;
+		this.map = new ConcurrentHashMap<K, Entry<V>>(Math.min(maxSize, 1024));
+	}
+
+	/**
+	 * Returns the cache name.
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns the maximum number of entries.
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Sets the maximum number of entries. Extra entries are evicted right
+	 * away if the new size is smaller than the current number of entries.
+	 */
+	public void setMaxSize(int maxSize) {
+		if (maxSize <= 0)
+			throw new IllegalArgumentException("maxSize must be positive for cache " + name + ".");
+		this.maxSize = maxSize;
+		if (size.get() > maxSize) evict();
+	}
+
+    /**
+     * Returns object from cache based on <tt>key</tt>.
+     *
+	 * @return the value to which this cache maps the specified key, or null
+	 * if the cache contains no mapping for this key.
+     */
+	public V get(K key) {
+		Entry<V> entry = map.get(key);
+		if (entry == null) {
+			misses.incrementAndGet();
+			return null;
+		}
+		entry.lastAccess = ++tick;
+		hits.incrementAndGet();
+		return entry.value;
+	}
+
+	/**
+	 * Stores object into cache based on <tt>key</tt>.
+	 */
+	public void put(K key, V value) {
+		if (key == null || value == null) return;
+
+		Entry<V> old = map.put(key, new Entry<V>(value, ++tick));
+		if (old == null && size.incrementAndGet() > maxSize) {
+			evict();
+		}
+	}
+
+	/**
+	 * Stores object into cache based on <tt>key</tt> unless the key is
+	 * already mapped.
+	 *
+	 * @return the value already in the cache, or <tt>value</tt> if it is
+	 * stored by this call
+	 */
+	public V putIfAbsent(K key, V value) {
+		if (key == null || value == null) return value;
+
+		Entry<V> old = map.putIfAbsent(key, new Entry<V>(value, ++tick));
+		if (old != null) {
+			old.lastAccess = ++tick;
+			return old.value;
+		}
+		if (size.incrementAndGet() > maxSize) {
+			evict();
+		}
+		return value;
+	}
+
+	/**
+	 * Removes the mapping for this key from the cache if present.
+	 */
+	public void remove(K key) {
+		if (key == null) return;
+		if (map.remove(key) != null) size.decrementAndGet();
+	}
+
+	/**
+	 * Removes all key/value pairs from cache. Statistics counters are kept.
+	 */
+	public void clear() {
+		Iterator<K> it = map.keySet().iterator();
+		while (it.hasNext()) {
+			remove(it.next());
+		}
+	}
+
+	/**
+	 * Returns the number of entries in the cache.
+	 */
+	public int size() {
+		return size.get();
+	}
+
+	public long getHitCount() {
+		return hits.get();
+	}
+
+	public long getMissCount() {
+		return misses.get();
+	}
+
+	public long getEvictionCount() {
+		return evictions.get();
+	}
+
+	/**
+	 * Returns the cache statistics. Keys are defined in
+	 * {@link com.scooterframework.cache.CacheStatisticsConstats}.
+	 */
+	public Properties getStatistics() {
+		Properties p = new Properties();
+		p.setProperty(CacheStatisticsConstats.KEY_CACHE_STATS_ObjectCount, "" + size());
+		p.setProperty(CacheStatisticsConstats.KEY_CACHE_STATS_CacheHits, "" + getHitCount());
+		p.setProperty(CacheStatisticsConstats.KEY_CACHE_STATS_CacheMisses, "" + getMissCount());
+		p.setProperty(CacheStatisticsConstats.KEY_CACHE_STATS_EvictionCount, "" + getEvictionCount());
+		return p;
+	}
+
+	/**
+	 * Removes the least recently used entries so that about one tenth of
+	 * the cache becomes free. Only one thread evicts at a time; other
+	 * writers do not wait for it.
+	 */
+	private void evict() {
+		if (!evictionLock.tryLock()) return;
+		try {
+			int limit = maxSize;
+			int excess = size.get() - limit;
+			if (excess <= 0) return;
+
+			int target = Math.min(size.get(), excess + Math.max(1, limit / 10));
+			long[] stamps = new long[map.size()];
+			int count = 0;
+			for (Entry<V> entry : map.values()) {
+				if (count == stamps.length) break;
+				stamps[count++] = entry.lastAccess;
+			}
+			if (count == 0) return;
+			Arrays.sort(stamps, 0, count);
+			long threshold = stamps[Math.min(target, count) - 1];
+
+			int removed = 0;
+			Iterator<Map.Entry<K, Entry<V>>> it = map.entrySet().iterator();
+			while (it.hasNext() && removed < target) {
+				Map.Entry<K, Entry<V>> e = it.next();
+				Entry<V> entry = e.getValue();
+				if (entry.lastAccess <= threshold && map.remove(e.getKey(), entry)) {
+					size.decrementAndGet();
+					removed++;
+				}
+			}
+			evictions.addAndGet(removed);
+		}
+		finally {
+			evictionLock.unlock();
+		}
+	}
+
+	public String toString() {
+		return "ConcurrentLRUCache{name = " + name + ", maxSize = " + maxSize +
+				", statistics = " + getStatistics() + "}";
+	}
+
+	private static class Entry<V> {
+		private final V value;
+		private volatile long lastAccess;
+
+		private Entry(V value, long lastAccess) {
+			this.value = value;
+			this.lastAccess = lastAccess;
+		}
+	}
+}
@@ -1,6 +1,6 @@
 /*
- *   This software is distributed under the terms of the FSF 
- *   Gnu Lesser General Public License (see lgpl.txt). 
+ *   This software is distributed under the terms of the FSF
+ *   Gnu Lesser General Public License (see lgpl.txt).
  *
  *   This program is distributed WITHOUT ANY WARRANTY. See the
  *   GNU General Public License for more details.
@@ -10,55 +10,144 @@ package com.scooterframework.common.util;
 import java.util.HashMap;
 import java.util.Map;
 
+import com.scooterframework.admin.Constants;
+import com.scooterframework.web.route.RouteConstants;
+
 /**
- * CurrentThreadCache class is a local store for current request.
- * 
+ * <p>CurrentThreadCache class is a local store for current request.</p>
+ *
+ * <p>Properties of well-known keys, such as request path, controller and
+ * action, which are set on every request, are kept in fixed slots of a
+ * context object of the thread, and can be read and written by slot
+ * index. Properties of other keys are kept in a map which is only created
+ * when such a property is stored. Both are reused by later requests of
+ * the thread.</p>
+ *
  * @author (Fei) John Chen
  */
 public class CurrentThreadCache {
-    private static ThreadLocal<Map<String, Object>> local = new ThreadLocal<Map<String, Object>>();
+    public static final int SLOT_HTTP_METHOD = 0;
+    public static final int SLOT_REQUEST_PATH = 1;
+    public static final int SLOT_REQUEST_PATH_KEY = 2;
+    public static final int SLOT_REQUEST_URI = 3;
+    public static final int SLOT_REQUEST_HEADER = 4;
+    public static final int SLOT_LOCAL_REQUEST = 5;
+    public static final int SLOT_FIELD_VALUES = 6;
+    public static final int SLOT_CONTROLLER = 7;
+    public static final int SLOT_CONTROLLER_CLASS = 8;
+    public static final int SLOT_CONTROLLER_PATH = 9;
+    public static final int SLOT_ACTION = 10;
+    public static final int SLOT_MODEL = 11;
+    public static final int SLOT_FORMAT = 12;
+    public static final int SLOT_RESOURCE = 13;
+    public static final int SLOT_REQUEST_CACHEABLE = 14;
 
-    private static Map<String, Object> getMap() {
-        Map<String, Object> map = local.get();
-        if (map == null) {
-        	map = new HashMap<String, Object>();
-        	local.set(map);
+    /**
+     * keys of the slots, in the order of slot indexes
+     */
+    private static final String[] SLOT_KEYS = {
+        Constants.HTTP_METHOD,
+        Constants.REQUEST_PATH,
+        Constants.REQUEST_PATH_KEY,
+        Constants.REQUEST_URI,
+        Constants.REQUEST_HEADER,
+        Constants.LOCAL_REQUEST,
+        RouteConstants.FIELD_VALUES,
+        Constants.CONTROLLER,
+        Constants.CONTROLLER_CLASS,
+        Constants.CONTROLLER_PATH,
+        Constants.ACTION,
+        Constants.MODEL,
+        Constants.FORMAT,
+        Constants.RESOURCE,
+        Constants.REQUEST_CACHEABLE
+    };
+
+    private static final Map<String, Integer> slotIndexes = new HashMap<String, Integer>();
+    static {
+        for (int i = 0; i < SLOT_KEYS.length; i++) {
+            slotIndexes.put(SLOT_KEYS[i], Integer.valueOf(i));
         }
-        return map;
     }
-    
+
+    private static ThreadLocal<Context> local = new ThreadLocal<Context>() {
+        protected Context initialValue() {
+            return new Context();
+        }
+    };
+
     /**
      * Retrieves the property for a key.
-     * 
+     *
      * @param key   key name of the property
      * @return the property
      */
     public static Object get(String key) {
-    	return getMap().get(key);
+        Context context = local.get();
+        Integer slot = slotIndexes.get(key);
+        if (slot != null) return context.slots[slot.intValue()];
+        return (context.map != null)?context.map.get(key):null;
+    }
+
+    /**
+     * Retrieves the property in a slot.
+     *
+     * @param slot  index of the slot
+     * @return the property
+     */
+    public static Object get(int slot) {
+        return local.get().slots[slot];
     }
-    
+
     /**
      * Stores a property.
-     * 
+     *
      * @param key   key name of the property
      * @param value value of the property
      */
     public static void set(String key, Object value) {
-        Map<String, Object> map = getMap();
-        map.put(key, value);
+        Context context = local.get();
+        Integer slot = slotIndexes.get(key);
+        if (slot != null) {
+            context.slots[slot.intValue()] = value;
+            return;
+        }
+
+        if (context.map == null) context.map = new HashMap<String, Object>();
+        context.map.put(key, value);
     }
-    
+
+    /**
+     * Stores a property in a slot.
+     *
+     * @param slot  index of the slot
+     * @param value value of the property
+     */
+    public static void set(int slot, Object value) {
+        local.get().slots[slot] = value;
+    }
+
     /**
      * Clears all content of the cache.
      */
     public static void clear() {
-        getMap().clear();
+        Context context = local.get();
+        Object[] slots = context.slots;
+        for (int i = 0; i < slots.length; i++) slots[i] = null;
+        if (context.map != null && context.map.size() > 0) context.map.clear();
     }
-    
+
     /**
      * Clears content of the cache associated with a key.
      */
     public static void clear(String key) {
-        getMap().remove(key);
+        set(key, null);
+        Context context = local.get();
+        if (context.map != null) context.map.remove(key);
+    }
+
+    private static class Context {
+        private final Object[] slots = new Object[SLOT_KEYS.length];
+        private Map<String, Object> map;
     }
 }
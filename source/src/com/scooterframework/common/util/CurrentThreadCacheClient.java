@@ -12,7 +12,6 @@ import java.util.List;
 import java.util.Map;
 
 import com.scooterframework.admin.Constants;
-import com.scooterframework.web.route.RouteConstants;
 
 /**
  * CurrentThreadCacheClient class.
@@ -67,99 +66,99 @@ public class CurrentThreadCacheClient {
 	
 	
 	public static void cacheHttpMethod(String httpMethod) {
-		CurrentThreadCache.set(Constants.HTTP_METHOD, httpMethod);
+		CurrentThreadCache.set(CurrentThreadCache.SLOT_HTTP_METHOD, httpMethod);
 	}
 	
 	public static String httpMethod() {
-		return (String)CurrentThreadCache.get(Constants.HTTP_METHOD);
+		return (String)CurrentThreadCache.get(CurrentThreadCache.SLOT_HTTP_METHOD);
 	}
 	
 	public static void cacheRequestPath(String requestPath) {
-		CurrentThreadCache.set(Constants.REQUEST_PATH, requestPath);
+		CurrentThreadCache.set(CurrentThreadCache.SLOT_REQUEST_PATH, requestPath);
 	}
 	
 	public static String requestPath() {
-		return (String)CurrentThreadCache.get(Constants.REQUEST_PATH);
+		return (String)CurrentThreadCache.get(CurrentThreadCache.SLOT_REQUEST_PATH);
 	}
 	
 	public static void cacheRequestPathKey(String requestPathKey) {
-		CurrentThreadCache.set(Constants.REQUEST_PATH_KEY, requestPathKey);
+		CurrentThreadCache.set(CurrentThreadCache.SLOT_REQUEST_PATH_KEY, requestPathKey);
 	}
 	
 	public static String requestPathKey() {
-		return (String)CurrentThreadCache.get(Constants.REQUEST_PATH_KEY);
+		return (String)CurrentThreadCache.get(CurrentThreadCache.SLOT_REQUEST_PATH_KEY);
 	}
 	
 	public static void cacheFieldValues(Map<String, String> fieldValues) {
-		CurrentThreadCache.set(RouteConstants.FIELD_VALUES, fieldValues);
+		CurrentThreadCache.set(CurrentThreadCache.SLOT_FIELD_VALUES, fieldValues);
 	}
 	
 	@SuppressWarnings("unchecked")
 	public static Map<String, String> fieldValues() {
-		return (Map<String, String>)CurrentThreadCache.get(RouteConstants.FIELD_VALUES);
+		return (Map<String, String>)CurrentThreadCache.get(CurrentThreadCache.SLOT_FIELD_VALUES);
 	}
 	
 	public static void cacheController(String controller) {
-		CurrentThreadCache.set(Constants.CONTROLLER, controller);
+		CurrentThreadCache.set(CurrentThreadCache.SLOT_CONTROLLER, controller);
 	}
 	
 	public static String controller() {
-		return (String)CurrentThreadCache.get(Constants.CONTROLLER);
+		return (String)CurrentThreadCache.get(CurrentThreadCache.SLOT_CONTROLLER);
 	}
 	
 	public static void cacheControllerClass(String controllerClass) {
-		CurrentThreadCache.set(Constants.CONTROLLER_CLASS, controllerClass);
+		CurrentThreadCache.set(CurrentThreadCache.SLOT_CONTROLLER_CLASS, controllerClass);
 	}
 	
 	public static String controllerClass() {
-		return (String)CurrentThreadCache.get(Constants.CONTROLLER_CLASS);
+		return (String)CurrentThreadCache.get(CurrentThreadCache.SLOT_CONTROLLER_CLASS);
 	}
 	
 	public static void cacheControllerPath(String controllerPath) {
-		CurrentThreadCache.set(Constants.CONTROLLER_PATH, controllerPath);
+		CurrentThreadCache.set(CurrentThreadCache.SLOT_CONTROLLER_PATH, controllerPath);
 	}
 	
 	public static String controllerPath() {
-		return (String)CurrentThreadCache.get(Constants.CONTROLLER_PATH);
+		return (String)CurrentThreadCache.get(CurrentThreadCache.SLOT_CONTROLLER_PATH);
 	}
 	
 	public static void cacheAction(String action) {
-		CurrentThreadCache.set(Constants.ACTION, action);
+		CurrentThreadCache.set(CurrentThreadCache.SLOT_ACTION, action);
 	}
 	
 	public static String action() {
-		return (String)CurrentThreadCache.get(Constants.ACTION);
+		return (String)CurrentThreadCache.get(CurrentThreadCache.SLOT_ACTION);
 	}
 	
 	public static void cacheModel(String model) {
-		CurrentThreadCache.set(Constants.MODEL, model);
+		CurrentThreadCache.set(CurrentThreadCache.SLOT_MODEL, model);
 	}
 	
 	public static String model() {
-		return (String)CurrentThreadCache.get(Constants.MODEL);
+		return (String)CurrentThreadCache.get(CurrentThreadCache.SLOT_MODEL);
 	}
 	
 	public static void cacheFormat(String format) {
-		CurrentThreadCache.set(Constants.FORMAT, format);
+		CurrentThreadCache.set(CurrentThreadCache.SLOT_FORMAT, format);
 	}
 	
 	public static String format() {
-		return (String)CurrentThreadCache.get(Constants.FORMAT);
+		return (String)CurrentThreadCache.get(CurrentThreadCache.SLOT_FORMAT);
 	}
 	
 	public static void cacheResource(String resource) {
-		CurrentThreadCache.set(Constants.RESOURCE, resource);
+		CurrentThreadCache.set(CurrentThreadCache.SLOT_RESOURCE, resource);
 	}
 	
 	public static String resource() {
-		return (String)CurrentThreadCache.get(Constants.RESOURCE);
+		return (String)CurrentThreadCache.get(CurrentThreadCache.SLOT_RESOURCE);
 	}
 	
 	public static void cacheCacheable(String cacheable) {
-		CurrentThreadCache.set(Constants.REQUEST_CACHEABLE, cacheable);
+		CurrentThreadCache.set(CurrentThreadCache.SLOT_REQUEST_CACHEABLE, cacheable);
 	}
 	
 	public static String cacheable() {
-		return (String)CurrentThreadCache.get(Constants.REQUEST_CACHEABLE);
+		return (String)CurrentThreadCache.get(CurrentThreadCache.SLOT_REQUEST_CACHEABLE);
 	}
 }
@@ -0,0 +1,134 @@
+/*
+ *   This software is distributed under the terms of the FSF
+ *   Gnu Lesser General Public License (see lgpl.txt).
+ *
+ *   This program is distributed WITHOUT ANY WARRANTY. See the
+ *   GNU General Public License for more details.
+ */
+package com.scooterframework.common.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>
+ * LatencyHistogram class counts durations in nanoseconds in log-linear
+ * buckets. Each power of two is divided into 16 buckets, so a value read
+ * from the histogram is within about 6% of the recorded value, from one
+ * nanosecond up to about 36 minutes. Longer durations are counted in the
+ * last bucket.
+ * </p>
+ *
+ * <p>
+ * Recording is lock-free and creates no object. Reading while recording
+ * goes on gives counts which may be off by the values being recorded.
+ * </p>
+ *
+ * @author (Fei) John Chen
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int HALF_SUB_COUNT = SUB_COUNT >> 1;
+    private static final int MAX_EXPONENT = 40;
+    private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+    private static final int BUCKETS = bucketIndex(MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos duration in nanoseconds
+     */
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.incrementAndGet(bucketIndex((nanos > MAX_VALUE)?MAX_VALUE:nanos));
+        count.incrementAndGet();
+        sum.addAndGet(nanos);
+
+        long m = max.get();
+        while (nanos > m && !max.compareAndSet(m, nanos)) {
+            m = max.get();
+        }
+    }
+
+    /**
+     * Returns number of recorded durations.
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * Returns sum of recorded durations in nanoseconds.
+     */
+    public long getSum() {
+        return sum.get();
+    }
+
+    /**
+     * Returns the longest recorded duration in nanoseconds.
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Returns the duration in nanoseconds below which the <tt>percentile</tt>
+     * of recorded durations fall.
+     *
+     * @param percentile a value from 0 to 100
+     * @return duration in nanoseconds, or 0 if nothing is recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100)
+            throw new IllegalArgumentException("percentile must be between 0 and 100.");
+
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) total += counts.get(i);
+        if (total == 0) return 0L;
+
+        long target = (long)Math.ceil(total * percentile / 100.0);
+        if (target < 1) target = 1;
+
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= target) return Math.min(highestValue(i), getMax());
+        }
+        return getMax();
+    }
+
+    /**
+     * Returns number of recorded durations which are not longer than
+     * <tt>nanos</tt>, counted by whole buckets.
+     *
+     * @param nanos duration in nanoseconds
+     * @return number of durations
+     */
+    public long getCountAtOrBelow(long nanos) {
+        long result = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            if (highestValue(i) > nanos) break;
+            result += counts.get(i);
+        }
+        return result;
+    }
+
+    private static int bucketIndex(long value) {
+        if (value < SUB_COUNT) return (int)value;
+        int shift = (63 - Long.numberOfLeadingZeros(value)) - (SUB_BITS - 1);
+        return shift * HALF_SUB_COUNT + (int)(value >>> shift);
+    }
+
+    private static long highestValue(int index) {
+        if (index < SUB_COUNT) return index;
+        int shift = index / HALF_SUB_COUNT - 1;
+        long sub = index - shift * HALF_SUB_COUNT;
+        return ((sub + 1) << shift) - 1;
+    }
+}
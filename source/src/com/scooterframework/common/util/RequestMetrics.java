@@ -0,0 +1,311 @@
+/*
+ *   This software is distributed under the terms of the FSF
+ *   Gnu Lesser General Public License (see lgpl.txt).
+ *
+ *   This program is distributed WITHOUT ANY WARRANTY. See the
+ *   GNU General Public License for more details.
+ */
+package com.scooterframework.common.util;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>
+ * RequestMetrics class keeps latency histograms of requests by route and
+ * HTTP method. The time of a request is broken down into the following
+ * phases:
+ * </p>
+ *
+ * <ul>
+ * <li>total: the whole request, from the request filter</li>
+ * <li>routing: matching the request path to a route</li>
+ * <li>filters: before and after filters of the action</li>
+ * <li>action: the action method</li>
+ * <li>render: processing the result of the action, such as a view</li>
+ * <li>db: SQL statements, which are also part of the other phases</li>
+ * </ul>
+ *
+ * <p>
+ * Times are collected in a timer of the request thread between
+ * {@link #begin(String)} and {@link #end()}. Recording creates no object
+ * once a route and method have been seen, and is lock-free. Time spent
+ * outside a request, such as a SQL statement of a background job, is
+ * ignored. Requests which are not matched to an existing action, and
+ * requests of routes beyond the first {@link #MAX_ROUTES}, are timed as
+ * {@link #UNMATCHED_ROUTE}.
+ * </p>
+ *
+ * <p>Example of timing a phase:</p>
+ * <pre>
+ *    long start = RequestMetrics.now();
+ *    ...
+ *    RequestMetrics.addTime(RequestMetrics.PHASE_ACTION, start);
+ * </pre>
+ *
+ * @author (Fei) John Chen
+ */
+public class RequestMetrics {
+    public static final int PHASE_TOTAL = 0;
+    public static final int PHASE_ROUTING = 1;
+    public static final int PHASE_FILTERS = 2;
+    public static final int PHASE_ACTION = 3;
+    public static final int PHASE_RENDER = 4;
+    public static final int PHASE_DB = 5;
+
+    private static final String[] PHASES = {"total", "routing", "filters", "action", "render", "db"};
+    private static final String[] METHODS = {"GET", "POST", "PUT", "DELETE", "HEAD", "OPTIONS", "OTHER"};
+
+    /**
+     * Route name of requests which have not been matched to a route.
+     */
+    public static final String UNMATCHED_ROUTE = "unmatched";
+
+    /**
+     * Maximum number of routes to be timed separately. Requests of other
+     * routes are timed as {@link #UNMATCHED_ROUTE}.
+     */
+    public static final int MAX_ROUTES = 1000;
+
+    /**
+     * Upper bounds in seconds of histogram buckets in Prometheus format.
+     */
+    private static final double[] PROMETHEUS_BUCKETS = {
+        0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1.0, 2.5, 5.0, 10.0};
+
+    private static final ConcurrentMap<String, AtomicReferenceArray<LatencyHistogram[]>> routes =
+        new ConcurrentHashMap<String, AtomicReferenceArray<LatencyHistogram[]>>();
+
+    private static final ThreadLocal<Timer> timers = new ThreadLocal<Timer>() {
+        protected Timer initialValue() {
+            return new Timer();
+        }
+    };
+
+    /**
+     * Starts timing a request in the current thread.
+     *
+     * @param httpMethod HTTP method of the request
+     */
+    public static void begin(String httpMethod) {
+        Timer t = timers.get();
+        t.active = true;
+        t.start = System.nanoTime();
+        t.method = methodIndex(httpMethod);
+        t.route = UNMATCHED_ROUTE;
+        for (int i = 0; i < t.nanos.length; i++) t.nanos[i] = 0L;
+    }
+
+    /**
+     * Sets the route of the request being timed in the current thread.
+     *
+     * @param route name of the matched route
+     */
+    public static void setRoute(String route) {
+        if (route == null) return;
+        Timer t = timers.get();
+        if (t.active) t.route = route;
+    }
+
+    /**
+     * Returns start time of a phase.
+     *
+     * @return current value of <tt>System.nanoTime()</tt>
+     */
+    public static long now() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Adds time since <tt>start</tt> to a phase of the request being timed
+     * in the current thread.
+     *
+     * @param phase one of the phase constants
+     * @param start start time returned by {@link #now()}
+     */
+    public static void addTime(int phase, long start) {
+        Timer t = timers.get();
+        if (t.active) t.nanos[phase] += System.nanoTime() - start;
+    }
+
+    /**
+     * Stops timing the request in the current thread and records its times.
+     *
+     * @return total time of the request in nanoseconds, or -1 if no request
+     *         is being timed
+     */
+    public static long end() {
+        Timer t = timers.get();
+        if (!t.active) return -1L;
+        t.active = false;
+
+        long total = System.nanoTime() - t.start;
+        t.nanos[PHASE_TOTAL] = total;
+
+        LatencyHistogram[] histograms = getHistograms(t.route, t.method);
+        histograms[PHASE_TOTAL].record(total);
+        for (int i = 1; i < histograms.length; i++) {
+            if (t.nanos[i] > 0) histograms[i].record(t.nanos[i]);
+        }
+        return total;
+    }
+
+    /**
+     * Removes all recorded times.
+     */
+    public static void clear() {
+        routes.clear();
+    }
+
+    /**
+     * <p>Returns recorded times in JSON format. Times are in milliseconds.</p>
+     *
+     * <pre>
+     * {"routes": [{"route": "posts_index", "method": "GET", "phases":
+     *     {"total": {"count": 12, "sum": 80.5, "max": 20.1, "p50": 5.2, "p90": 12.0, "p99": 20.1}, ...}}]}
+     * </pre>
+     *
+     * @return a JSON string
+     */
+    public static String toJSON() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"routes\": [");
+        boolean firstRoute = true;
+        for (Map.Entry<String, AtomicReferenceArray<LatencyHistogram[]>> entry : sortedRoutes().entrySet()) {
+            AtomicReferenceArray<LatencyHistogram[]> byMethod = entry.getValue();
+            for (int m = 0; m < METHODS.length; m++) {
+                LatencyHistogram[] histograms = byMethod.get(m);
+                if (histograms == null) continue;
+
+                if (!firstRoute) sb.append(", ");
+                firstRoute = false;
+                sb.append("{\"route\": ").append(jsonString(entry.getKey()));
+                sb.append(", \"method\": ").append(jsonString(METHODS[m]));
+                sb.append(", \"phases\": {");
+                boolean firstPhase = true;
+                for (int p = 0; p < PHASES.length; p++) {
+                    LatencyHistogram h = histograms[p];
+                    if (h.getCount() == 0) continue;
+
+                    if (!firstPhase) sb.append(", ");
+                    firstPhase = false;
+                    sb.append(jsonString(PHASES[p])).append(": {");
+                    sb.append("\"count\": ").append(h.getCount());
+                    sb.append(", \"sum\": ").append(millis(h.getSum()));
+                    sb.append(", \"max\": ").append(millis(h.getMax()));
+                    sb.append(", \"p50\": ").append(millis(h.getValueAtPercentile(50)));
+                    sb.append(", \"p90\": ").append(millis(h.getValueAtPercentile(90)));
+                    sb.append(", \"p99\": ").append(millis(h.getValueAtPercentile(99)));
+                    sb.append("}");
+                }
+                sb.append("}}");
+            }
+        }
+        sb.append("]}");
+        return sb.toString();
+    }
+
+    /**
+     * Returns recorded times in Prometheus text exposition format, as
+     * histogram <tt>scooter_request_duration_seconds</tt> with labels
+     * <tt>route</tt>, <tt>method</tt> and <tt>phase</tt>.
+     *
+     * @return a string in Prometheus text format
+     */
+    public static String toPrometheus() {
+        String name = "scooter_request_duration_seconds";
+        StringBuilder sb = new StringBuilder();
+        sb.append("# HELP ").append(name).append(" Time of requests by route, method and phase.\n");
+        sb.append("# TYPE ").append(name).append(" histogram\n");
+        for (Map.Entry<String, AtomicReferenceArray<LatencyHistogram[]>> entry : sortedRoutes().entrySet()) {
+            AtomicReferenceArray<LatencyHistogram[]> byMethod = entry.getValue();
+            for (int m = 0; m < METHODS.length; m++) {
+                LatencyHistogram[] histograms = byMethod.get(m);
+                if (histograms == null) continue;
+
+                for (int p = 0; p < PHASES.length; p++) {
+                    LatencyHistogram h = histograms[p];
+                    long count = h.getCount();
+                    if (count == 0) continue;
+
+                    String labels = "route=\"" + labelValue(entry.getKey()) +
+                        "\",method=\"" + METHODS[m] + "\",phase=\"" + PHASES[p] + "\"";
+                    for (int b = 0; b < PROMETHEUS_BUCKETS.length; b++) {
+                        long bound = (long)(PROMETHEUS_BUCKETS[b] * 1000000000L);
+                        sb.append(name).append("_bucket{").append(labels);
+                        sb.append(",le=\"").append(PROMETHEUS_BUCKETS[b]).append("\"} ");
+                        sb.append(h.getCountAtOrBelow(bound)).append('\n');
+                    }
+                    sb.append(name).append("_bucket{").append(labels).append(",le=\"+Inf\"} ").append(count).append('\n');
+                    sb.append(name).append("_sum{").append(labels).append("} ").append(h.getSum() / 1000000000.0).append('\n');
+                    sb.append(name).append("_count{").append(labels).append("} ").append(count).append('\n');
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private static LatencyHistogram[] getHistograms(String route, int method) {
+        AtomicReferenceArray<LatencyHistogram[]> byMethod = routes.get(route);
+        if (byMethod == null && routes.size() >= MAX_ROUTES) {
+            route = UNMATCHED_ROUTE;
+            byMethod = routes.get(route);
+        }
+        if (byMethod == null) {
+            byMethod = new AtomicReferenceArray<LatencyHistogram[]>(METHODS.length);
+            AtomicReferenceArray<LatencyHistogram[]> existing = routes.putIfAbsent(route, byMethod);
+            if (existing != null) byMethod = existing;
+        }
+
+        LatencyHistogram[] histograms = byMethod.get(method);
+        if (histograms == null) {
+            histograms = new LatencyHistogram[PHASES.length];
+            for (int i = 0; i < histograms.length; i++) histograms[i] = new LatencyHistogram();
+            if (!byMethod.compareAndSet(method, null, histograms)) histograms = byMethod.get(method);
+        }
+        return histograms;
+    }
+
+    private static int methodIndex(String httpMethod) {
+        for (int i = 0; i < METHODS.length - 1; i++) {
+            if (METHODS[i].equalsIgnoreCase(httpMethod)) return i;
+        }
+        return METHODS.length - 1;
+    }
+
+    private static Map<String, AtomicReferenceArray<LatencyHistogram[]>> sortedRoutes() {
+        return new TreeMap<String, AtomicReferenceArray<LatencyHistogram[]>>(routes);
+    }
+
+    private static String millis(long nanos) {
+        return Double.toString(Math.round(nanos / 1000.0) / 1000.0);
+    }
+
+    private static String jsonString(String s) {
+        StringBuilder sb = new StringBuilder();
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '"' || c == '\\') sb.append('\\').append(c);
+            else if (c < 0x20) sb.append(String.format("\\u%04x", Integer.valueOf(c)));
+            else sb.append(c);
+        }
+        sb.append('"');
+        return sb.toString();
+    }
+
+    private static String labelValue(String s) {
+        return s.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static class Timer {
+        private boolean active;
+        private long start;
+        private int method;
+        private String route;
+        private final long[] nanos = new long[PHASES.length];
+    }
+}
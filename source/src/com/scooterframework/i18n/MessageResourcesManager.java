@@ -16,6 +16,7 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import com.scooterframework.admin.PropertyReader;
 import com.scooterframework.common.logging.LogUtil;
@@ -94,6 +95,12 @@ public class MessageResourcesManager {
 	 */
 	private static Map<String, Properties> localeMsgMap = new ConcurrentHashMap<String, Properties>();
 	
+	/*
+	 * map of locale and its compiled message templates.
+	 */
+	private static ConcurrentMap<String, ConcurrentMap<String, MessageTemplate>> localeTemplatesMap = 
+		new ConcurrentHashMap<String, ConcurrentMap<String, MessageTemplate>>();
+	
 	public MessageResourcesManager(String configPath, String baseName) {
 		this.configPath = configPath;
 		this.baseName = baseName;
@@ -146,6 +153,40 @@ public class MessageResourcesManager {
 		return (prop != null)?prop.getProperty(key):null;
 	}
 	
+    /**
+     * Returns a compiled template of the message associated with the 
+     * <tt>key</tt> in a specific <tt>locale</tt>. Templates are cached 
+     * until the message files are changed.
+     * 
+     * <p>If there is no message associated with the <tt>key</tt> in messages 
+     * property files, this method returns <tt>null</tt>.</p>
+     * 
+     * @param key       a message key in messages resource files
+     * @param locale    a specific locale object
+     * @param plural    true if <tt>(s)</tt> in the message are plural slots
+     * @return a message template
+     */
+	public MessageTemplate getMessageTemplate(String key, Locale locale, boolean plural) {
+		String localeKey = getLocaleKey(locale);
+		ConcurrentMap<String, MessageTemplate> templates = localeTemplatesMap.get(localeKey);
+		if (templates != null) {
+			MessageTemplate template = templates.get(key);
+			if (template != null) return template;
+		}
+		
+		String message = getMessage(key, locale);
+		if (message == null) return null;
+		
+		MessageTemplate template = MessageTemplate.compile(message, plural);
+		if (templates == null) {
+			templates = new ConcurrentHashMap<String, MessageTemplate>();
+			ConcurrentMap<String, MessageTemplate> existing = localeTemplatesMap.putIfAbsent(localeKey, templates);
+			if (existing != null) templates = existing;
+		}
+		templates.put(key, template);
+		return template;
+	}
+	
 	public void loadLocale(Locale locale) {
 		if (locale == null) throw new IllegalArgumentException("Input locale cannot be null in loadLocale().");
 		
@@ -309,6 +350,7 @@ public class MessageResourcesManager {
 			String key = getLocaleKey(locale);
 			localeMsgMap.remove(key);
 			localeMsgMap.put(key, getMessages(locale));
+			localeTemplatesMap.remove(key);
 		}
 	}
     
@@ -327,6 +369,7 @@ public class MessageResourcesManager {
             localeFilesInRealityMap.put(key, getFilesInReality(locale));
             localeMsgMap.remove(key);
             localeMsgMap.put(key, getMessages(locale));
+            localeTemplatesMap.remove(key);
         }
     }
     
@@ -346,6 +389,7 @@ public class MessageResourcesManager {
             localeFilesInRealityMap.put(key, getFilesInReality(locale));
             localeMsgMap.remove(key);
             localeMsgMap.put(key, getMessages(locale));
+            localeTemplatesMap.remove(key);
         }
     }
 }
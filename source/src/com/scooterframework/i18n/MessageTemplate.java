@@ -0,0 +1,186 @@
+/*
+ *   This software is distributed under the terms of the FSF
+ *   Gnu Lesser General Public License (see lgpl.txt).
+ *
+ *   This program is distributed WITHOUT ANY WARRANTY. See the
+ *   GNU General Public License for more details.
+ */
+package com.scooterframework.i18n;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * MessageTemplate class is a message parsed into literal text and slots,
+ * so that values can be put into the message without parsing it again.
+ * </p>
+ *
+ * <p>
+ * A <tt>{i}</tt> slot is replaced by the string of the i-th value, or an
+ * empty string if the value is null. A slot with no value is kept as it
+ * is. In a template with plural slots, such as <tt>friendlytime</tt>
+ * messages, the i-th <tt>(s)</tt> becomes <tt>s</tt>, or an empty string
+ * if the i-th value is 0 or 1.
+ * </p>
+ *
+ * <pre>
+ *    MessageTemplate t = MessageTemplate.compile("{0} hour(s) ago", true);
+ *    t.render(new Object[]{"1"});    //1 hour ago
+ *    t.render(new Object[]{"5"});    //5 hours ago
+ * </pre>
+ *
+ * @author (Fei) John Chen
+ */
+public class MessageTemplate {
+    private static final String PLURAL = "(s)";
+    private static final int MAX_BUFFER_SIZE = 4096;
+
+    private static final ThreadLocal<StringBuilder> buffers = new ThreadLocal<StringBuilder>() {
+        protected StringBuilder initialValue() {
+            return new StringBuilder(256);
+        }
+    };
+
+    private final String message;
+
+    /*
+     * Text of each part. For a value slot, it is the original slot text.
+     */
+    private final String[] texts;
+
+    /*
+     * Kind of each part: -1 for literal text, -2 - i for the i-th plural
+     * slot, or the value index of a value slot.
+     */
+    private final int[] kinds;
+
+    private MessageTemplate(String message, String[] texts, int[] kinds) {
+        this.message = message;
+        this.texts = texts;
+        this.kinds = kinds;
+    }
+
+    /**
+     * Parses a message into a template.
+     *
+     * @param message  the message
+     * @param plural   true if <tt>(s)</tt> in the message are plural slots
+     * @return a template
+     */
+    public static MessageTemplate compile(String message, boolean plural) {
+        if (message == null)
+            throw new IllegalArgumentException("Message cannot be null.");
+
+        List<String> texts = new ArrayList<String>();
+        List<Integer> kinds = new ArrayList<Integer>();
+        int length = message.length();
+        int literalStart = 0;
+        int plurals = 0;
+        int i = 0;
+        while (i < length) {
+            char c = message.charAt(i);
+            int end = -1;
+            int kind = -1;
+            if (c == '{') {
+                int j = i + 1;
+                while (j < length && Character.isDigit(message.charAt(j))) j++;
+                if (j > i + 1 && j < length && message.charAt(j) == '}' && j - i <= 10) {
+                    end = j + 1;
+                    kind = Integer.parseInt(message.substring(i + 1, j));
+                }
+            }
+            else if (plural && c == '(' && message.startsWith(PLURAL, i)) {
+                end = i + PLURAL.length();
+                kind = -2 - plurals;
+                plurals++;
+            }
+
+            if (end == -1) {
+                i++;
+                continue;
+            }
+
+            if (i > literalStart) {
+                texts.add(message.substring(literalStart, i));
+                kinds.add(Integer.valueOf(-1));
+            }
+            texts.add(message.substring(i, end));
+            kinds.add(Integer.valueOf(kind));
+            i = end;
+            literalStart = end;
+        }
+        if (literalStart < length) {
+            texts.add(message.substring(literalStart));
+            kinds.add(Integer.valueOf(-1));
+        }
+
+        int[] kindArray = new int[kinds.size()];
+        for (int k = 0; k < kindArray.length; k++) kindArray[k] = kinds.get(k).intValue();
+        return new MessageTemplate(message, texts.toArray(new String[texts.size()]), kindArray);
+    }
+
+    /**
+     * Returns the original message.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * Returns the message with the values.
+     *
+     * @param values  values of the slots
+     * @return the message with the values
+     */
+    public String render(Object[] values) {
+        if (values == null || values.length == 0) return message;
+
+        StringBuilder sb = buffers.get();
+        sb.setLength(0);
+        render(values, sb);
+        String result = sb.toString();
+        if (sb.capacity() > MAX_BUFFER_SIZE) buffers.remove();
+        return result;
+    }
+
+    /**
+     * Appends the message with the values to a string builder.
+     *
+     * @param values  values of the slots
+     * @param sb      the string builder
+     */
+    public void render(Object[] values, StringBuilder sb) {
+        int count = (values == null)?0:values.length;
+        for (int i = 0; i < texts.length; i++) {
+            int kind = kinds[i];
+            if (kind == -1) {
+                sb.append(texts[i]);
+            }
+            else if (kind >= 0) {
+                if (kind < count) {
+                    Object o = values[kind];
+                    if (o != null) sb.append(o.toString());
+                }
+                else {
+                    sb.append(texts[i]);
+                }
+            }
+            else {
+                int index = -2 - kind;
+                if (index < count) {
+                    Object o = values[index];
+                    String r = (o == null)?"":o.toString();
+                    if (!"0".equals(r) && !"1".equals(r)) sb.append('s');
+                }
+                else {
+                    sb.append(texts[i]);
+                }
+            }
+        }
+    }
+
+    public String toString() {
+        return message;
+    }
+}
@@ -112,9 +112,8 @@ public class Messages {
      * @return a message string
      */
     public static String get(String messageKey, Object[] values) {
-    	if (messageKey != null && messageKey.startsWith("friendlytime")) 
-    		return processFriendlytime(get(messageKey), values);
-        return process(get(messageKey), values);
+        Locale locale = ACH.getAC().getLocale();
+        return get(messageKey, locale, values);
     }
     
     /**
@@ -130,39 +129,14 @@ public class Messages {
      * @return a message string
      */
     public static String get(String messageKey, Locale locale, Object[] values) {
-    	if (messageKey != null && messageKey.startsWith("friendlytime")) 
-    		return processFriendlytime(get(messageKey, locale), values);
-        return process(get(messageKey, locale), values);
-    }
-    
-    private static String processFriendlytime(String message, Object[] values) {
-        if (values == null || values.length == 0 || message == null || "".equals(message)) 
-            return message;
-        
-        int length = values.length;
-        for (int i=0; i < length; i++) {
-            Object o = values[i];
-            String r = (o==null)?"":o.toString();
-            message = message.replaceAll("\\Q{" + i + "}", r);
-            message = ("0".equals(r) || "1".equals(r))?
-            		message.replaceFirst("\\(s\\)", ""):
-            	    message.replaceFirst("\\(s\\)", "s");
-        }
-        
-        return message;
-    }
-    
-    private static String process(String message, Object[] values) {
-        if (values == null || values.length == 0 || message == null || "".equals(message)) 
-            return message;
+        if (values == null || values.length == 0) return get(messageKey, locale);
         
-        int length = values.length;
-        for (int i=0; i < length; i++) {
-            Object o = values[i];
-            String r = (o==null)?"":o.toString();
-            message = message.replaceAll("\\Q{" + i + "}", r);
-        }
+        boolean plural = (messageKey != null && messageKey.startsWith("friendlytime"));
+        MessageTemplate template = I18nConfig.mrm.getMessageTemplate(messageKey, locale, plural);
+        if (template != null) return template.render(values);
         
-        return message;
+        String message = get(messageKey, locale);
+        if (message == null || "".equals(message)) return message;
+        return MessageTemplate.compile(message, plural).render(values);
     }
 }
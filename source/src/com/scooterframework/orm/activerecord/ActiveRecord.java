@@ -10,6 +10,7 @@ package com.scooterframework.orm.activerecord;
 import java.io.Serializable;
 import java.sql.Timestamp;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -21,6 +22,7 @@ import org.json.JSONObject;
 
 import com.scooterframework.common.exception.GenericException;
 import com.scooterframework.common.exception.InvalidOperationException;
+import com.scooterframework.common.exception.ObjectCreationException;
 import com.scooterframework.common.logging.LogUtil;
 import com.scooterframework.common.util.Converters;
 import com.scooterframework.common.util.StringUtil;
@@ -248,7 +250,7 @@ import com.scooterframework.transaction.TransactionManagerUtil;
  * @author (Fei) John Chen
  */
 public class ActiveRecord extends ActiveRecordClass
-implements RESTified, Serializable {
+implements RESTified, Serializable, Cloneable {
 
     /**
      * <p>Constructs an instance of <tt>ActiveRecord</tt>.</p>
@@ -648,7 +650,7 @@ implements RESTified, Serializable {
 
             tm.commitTransactionImplicit();
             
-            ActiveRecordUtil.getGateway(getClass()).getModelCacheClient().clearCache("create");
+            ActiveRecordUtil.getGateway(getClass()).getModelCacheClient().clearQueryCache("create");
         }
         catch(BaseSQLException bdex) {
             tm.rollbackTransactionImplicit();
@@ -864,7 +866,7 @@ implements RESTified, Serializable {
 
             tm.commitTransactionImplicit();
             
-            ActiveRecordUtil.getGateway(getClass()).getModelCacheClient().clearCache("update");
+            ActiveRecordUtil.getGateway(getClass()).getModelCacheClient().clearCache("update", this);
         }
         catch(BaseSQLException bdex) {
             tm.rollbackTransactionImplicit();
@@ -910,7 +912,8 @@ implements RESTified, Serializable {
                 inputs.put(columnName, columnData);
             }
 
-            count = ActiveRecordUtil.getGateway(getClass()).deleteAll(inputs);
+            TableGateway gateway = ActiveRecordUtil.getGateway(getClass());
+            count = gateway.internal_deleteAll(inputs);
 
             after_internal_delete();
 
@@ -919,6 +922,8 @@ implements RESTified, Serializable {
             freeze();
 
             tm.commitTransactionImplicit();
+            
+            gateway.getModelCacheClient().clearCache("delete", this);
         }
         catch(BaseSQLException bdex) {
             tm.rollbackTransactionImplicit();
@@ -2391,6 +2396,16 @@ implements RESTified, Serializable {
         return extra;
     }
 
+    /**
+     * Returns names of extra fields of the record in upper case. The list
+     * is read-only.
+     *
+     * @return list of extra field names
+     */
+    public List<String> getExtraFieldNames() {
+        return Collections.unmodifiableList(extraFields);
+    }
+
     /**
      * Returns a list of modified field names.
      *
@@ -2637,6 +2652,53 @@ implements RESTified, Serializable {
         }
     }
 
+    /**
+     * <p>Creates a record of the same class with data from database by 
+     * copying this record, instead of running a constructor which looks up 
+     * meta data of the table and declares fields again.</p>
+     * 
+     * <p>Table meta data, connection and table names and declared fields 
+     * are copied from this record. State of the new record, such as 
+     * modified columns, extra field values, relations and validation 
+     * results, is new.</p>
+     * 
+     * @param rd  row data from database, or null for an empty record
+     * @return a new record
+     */
+    ActiveRecord newRecordFromPrototype(RowData rd) {
+        ActiveRecord record = null;
+        try {
+            record = (ActiveRecord)super.clone();
+        }
+        catch(CloneNotSupportedException ex) {
+            throw new ObjectCreationException(getClass().getName(), ex);
+        }
+        
+        record.existInDatabase = false;
+        record.waitingForGeneratedKey = false;
+        record.isHomeInstance = false;
+        record.freezed = false;
+        record.dirty = false;
+        record.hasCopied = false;
+        record.modifiedColumns = new ArrayList<String>();
+        record.latestDbRowData = null;
+        record.errors = new ValidationResults();
+        record.protectedColumns = new ArrayList<String>(protectedColumns);
+        record.extraFields = new ArrayList<String>(extraFields);
+        record.extraFieldsMap = new HashMap<String, Object>();
+        record.recordRelations = new ConcurrentHashMap<String, RecordRelation>();
+        record.loadGroup = null;
+        record.validators = null;
+        
+        if (rd == null) {
+            record.rowData = new RowData(rowInfo, null);
+        }
+        else {
+            record.populateDataFromDatabase(rd);
+        }
+        return record;
+    }
+
     /**
      * Returns table meta data. <tt>table</tt> is a full table name.
      */
@@ -2898,36 +2960,11 @@ implements RESTified, Serializable {
      * Creates the record in database and returns it.
      */
     protected ActiveRecord internal_create(boolean changedOnly) {
-    	if (changedOnly && (modifiedColumns == null || modifiedColumns.size() == 0)) 
-    		changedOnly = false;
-    	
-        String createSQL = "INSERT INTO " + getTableName();
-
-        Map<String, Object> pkValues = null;
         try {
-            before_internal_create();
-
-            boolean autoPopulatePrimaryKey = false;
-
-            //prepare primary key value
-            if (isPrimaryKeyDataEmpty()) {
-                pkValues = populatePrimaryKeyValuesBeforeInsert();
-                if (pkValues == null || pkValues.size() == 0) {
-                    autoPopulatePrimaryKey = true;
-                }
-                else {
-                    setData(pkValues);
-                }
-            }
-
-            StringBuilder strBuffer = new StringBuilder();
             Map<String, Object> inputs = new HashMap<String, Object>();
-
-            prepareInsertSQL(rowData, inputs, strBuffer, autoPopulatePrimaryKey, changedOnly);
-
-            createSQL += " " + strBuffer.toString();
+            String createSQL = prepareCreate(changedOnly, inputs);
             log.debug("create sql = " + createSQL);
-            
+
             inputs = addMoreProperties(inputs, null);
 
             OmniDTO returnTO =
@@ -2940,21 +2977,7 @@ implements RESTified, Serializable {
                           " objects were created instead.");
             }
 
-            //populate auto-generated primary keys
-            if (autoPopulatePrimaryKey) {
-                long gpk = returnTO.getGeneratedKey();
-                if (gpk != -1) {
-                    Map<String, Object> pkMap = getPrimaryKeyDataMap();
-                    Iterator<String> it = pkMap.keySet().iterator();
-                    if(it.hasNext()) { //only one column is allowed to be auto-generated primary key
-                        setData((String)it.next(), Long.valueOf(gpk));
-                    }
-                }
-            }
-
-            createClean();
-
-            after_internal_create();
+            finishCreate(returnTO.getGeneratedKey());
         }
         catch (Exception ex) {
             throw new BaseSQLException(ex);
@@ -2963,6 +2986,76 @@ implements RESTified, Serializable {
         return this;
     }
 
+    /**
+     * <p>Prepares the insert statement of this record. Statement inputs are
+     * put into <tt>inputs</tt> map.</p>
+     *
+     * <p>This method does everything before the insert is executed. The
+     * caller must execute the statement and then call
+     * {@link #finishCreate(long)}.</p>
+     *
+     * @param changedOnly  true if only changed fields are included in SQL query
+     * @param inputs       map to hold statement inputs
+     * @return the insert SQL statement
+     */
+    String prepareCreate(boolean changedOnly, Map<String, Object> inputs) {
+    	if (changedOnly && (modifiedColumns == null || modifiedColumns.size() == 0)) 
+    		changedOnly = false;
+
+        before_internal_create();
+
+        waitingForGeneratedKey = false;
+
+        //prepare primary key value
+        if (isPrimaryKeyDataEmpty()) {
+            Map<String, Object> pkValues = populatePrimaryKeyValuesBeforeInsert();
+            if (pkValues == null || pkValues.size() == 0) {
+                waitingForGeneratedKey = true;
+            }
+            else {
+                setData(pkValues);
+            }
+        }
+
+        StringBuilder strBuffer = new StringBuilder();
+        prepareInsertSQL(rowData, inputs, strBuffer, waitingForGeneratedKey, changedOnly);
+
+        return "INSERT INTO " + getTableName() + " " + strBuffer.toString();
+    }
+
+    /**
+     * Checks if the primary key of this record is to be generated by
+     * database. This is only known after {@link #prepareCreate(boolean, Map)}
+     * is called.
+     */
+    boolean isWaitingForGeneratedKey() {
+        return waitingForGeneratedKey;
+    }
+
+    /**
+     * Finishes the create after the insert statement is executed.
+     *
+     * @param generatedKey  primary key value generated by database, or
+     *                      <tt>-1</tt> if there is none
+     */
+    void finishCreate(long generatedKey) {
+        //populate auto-generated primary keys
+        if (waitingForGeneratedKey) {
+            if (generatedKey != -1) {
+                Map<String, Object> pkMap = getPrimaryKeyDataMap();
+                Iterator<String> it = pkMap.keySet().iterator();
+                if(it.hasNext()) { //only one column is allowed to be auto-generated primary key
+                    setData((String)it.next(), Long.valueOf(generatedKey));
+                }
+            }
+            waitingForGeneratedKey = false;
+        }
+
+        createClean();
+
+        after_internal_create();
+    }
+
     /**
      * <p>Cleans up something before finishing create.</p>
      *
@@ -3087,40 +3180,11 @@ implements RESTified, Serializable {
      * @return count of records updated.
      */
 	private int internal_update(boolean changedOnly) {
-		if (changedOnly
-				&& (modifiedColumns == null || modifiedColumns.size() == 0))
-			return 0;
-
-        before_internal_update();
-
         int count = 0;
-        String updateSQL = "UPDATE " + getTableName();
         try {
             Map<String, Object> inputs = new HashMap<String, Object>();
-
-            int position = 1;
-
-            //construct sets
-            StringBuilder sets = new StringBuilder();
-            position = prepareSetSQL(position, rowData, inputs, sets, changedOnly);
-            sets = StringUtil.removeLastToken(sets, ", ");
-            updateSQL += " SET " + sets.toString();
-
-            //construct where clause
-            Map<String, Object> conditions = null;
-            String[] pkNames = rowInfo.getPrimaryKeyColumnNames();
-            if (pkNames == null || pkNames.length == 0) {
-                conditions = (latestDbRowData != null)?latestDbRowData.getDataMap():null;
-            }
-            else {
-                conditions = rowData.getPrimaryKeyDataMap();
-            }
-            
-            if (conditions != null && conditions.size() > 0) {
-                StringBuilder wheres = new StringBuilder();
-                position = prepareWhereClause(position, conditions, inputs, wheres);
-                updateSQL += " WHERE " + wheres.toString();
-            }
+            String updateSQL = prepareUpdate(changedOnly, inputs);
+            if (updateSQL == null) return 0;
 
             log.debug("update sql = " + updateSQL);
             
@@ -3131,7 +3195,7 @@ implements RESTified, Serializable {
 
             count = returnTO.getUpdatedRowCount();
 
-            after_internal_update();
+            finishUpdate();
         }
         catch (Exception ex) {
             throw new BaseSQLException(ex);
@@ -3140,6 +3204,60 @@ implements RESTified, Serializable {
         return count;
     }
 
+    /**
+     * <p>Prepares the update statement of this record. Statement inputs are
+     * put into <tt>inputs</tt> map.</p>
+     *
+     * <p>This method does everything before the update is executed. The
+     * caller must execute the statement and then call
+     * {@link #finishUpdate()}.</p>
+     *
+     * @param changedOnly  true if only changed fields are included in SQL query
+     * @param inputs       map to hold statement inputs
+     * @return the update SQL statement, or null if there is nothing to update
+     */
+    String prepareUpdate(boolean changedOnly, Map<String, Object> inputs) {
+		if (changedOnly
+				&& (modifiedColumns == null || modifiedColumns.size() == 0))
+			return null;
+
+        before_internal_update();
+
+        String updateSQL = "UPDATE " + getTableName();
+        int position = 1;
+
+        //construct sets
+        StringBuilder sets = new StringBuilder();
+        position = prepareSetSQL(position, rowData, inputs, sets, changedOnly);
+        sets = StringUtil.removeLastToken(sets, ", ");
+        updateSQL += " SET " + sets.toString();
+
+        //construct where clause
+        Map<String, Object> conditions = null;
+        String[] pkNames = rowInfo.getPrimaryKeyColumnNames();
+        if (pkNames == null || pkNames.length == 0) {
+            conditions = (latestDbRowData != null)?latestDbRowData.getDataMap():null;
+        }
+        else {
+            conditions = rowData.getPrimaryKeyDataMap();
+        }
+        
+        if (conditions != null && conditions.size() > 0) {
+            StringBuilder wheres = new StringBuilder();
+            position = prepareWhereClause(position, conditions, inputs, wheres);
+            updateSQL += " WHERE " + wheres.toString();
+        }
+
+        return updateSQL;
+    }
+
+    /**
+     * Finishes the update after the update statement is executed.
+     */
+    void finishUpdate() {
+        after_internal_update();
+    }
+
     /**
      * <p>Cleans up something before finishing update.</p>
      *
@@ -3412,7 +3530,7 @@ implements RESTified, Serializable {
         log.debug("deleteHasManySimply deleteSQL: " + deleteSQL);
         
         inputs = addMoreProperties(inputs, null);
-        ActiveRecordUtil.getGateway(getClass()).deleteBySQL(deleteSQL, inputs);
+        ActiveRecordUtil.getGateway(rel.getTargetClass()).deleteBySQL(deleteSQL, inputs);
     }
 
     /**
@@ -3478,7 +3596,7 @@ implements RESTified, Serializable {
         String updateSQL = sb.append(setStr).append(" WHERE ").append(whereStr).toString();
         
         inputs = addMoreProperties(inputs, null);
-        ActiveRecordUtil.getGateway(getClass()).updateBySQL(updateSQL, inputs);
+        ActiveRecordUtil.getGateway(rel.getTargetClass()).updateBySQL(updateSQL, inputs);
     }
 
     void incrementCounterInParent(BelongsToRelation btr) {
@@ -3820,6 +3938,14 @@ implements RESTified, Serializable {
         return rr;
     }
 
+    RecordLoadGroup getLoadGroup() {
+        return loadGroup;
+    }
+
+    void setLoadGroup(RecordLoadGroup loadGroup) {
+        this.loadGroup = loadGroup;
+    }
+
     /**
      * Sets a RecordRelation related to the target model.
      *
@@ -4122,11 +4248,9 @@ implements RESTified, Serializable {
     public Map<String, Object> toMap() {
     	Map<String, Object> map = new HashMap<String, Object>();
 
-        String[] colNames = rowInfo.getColumnNames();
-        int colNamesLength = colNames.length;
-        for (int i = 0; i < colNamesLength; i++) {
-            String colName = colNames[i];
-            map.put(colName.toLowerCase(), getField(colName));
+        int dimension = rowInfo.getDimension();
+        for (int i = 0; i < dimension; i++) {
+            map.put(rowInfo.getColumnNameInLowerCase(i), rowData.getField(i));
         }
 
         for (String colName : extraFields) {
@@ -4154,11 +4278,11 @@ implements RESTified, Serializable {
         String classNameInLowerCase = Util.getShortClassName(this.getClass()).toLowerCase();
         xmlSB.append("<").append(classNameInLowerCase).append(">");
 
-        String[] colNames = rowInfo.getColumnNames();
-        for (String colName : colNames) {
-            String colNameInLowerCase = colName.toLowerCase();
+        int dimension = rowInfo.getDimension();
+        for (int i = 0; i < dimension; i++) {
+            String colNameInLowerCase = rowInfo.getColumnNameInLowerCase(i);
             xmlSB.append("<").append(colNameInLowerCase).append(">");
-            xmlSB.append(getField(colName));
+            xmlSB.append(rowData.getField(i));
             xmlSB.append("</").append(colNameInLowerCase).append(">");
         }
 
@@ -4199,6 +4323,9 @@ implements RESTified, Serializable {
     //boolean to indicate whether the record is a new record
     private boolean existInDatabase = false;
 
+    //boolean to indicate whether a prepared insert needs a generated key
+    private transient boolean waitingForGeneratedKey = false;
+
     //boolean to indicate whether the record is a home record
     private boolean isHomeInstance = false;
 
@@ -4262,6 +4389,9 @@ implements RESTified, Serializable {
      */
     private Map<String, RecordRelation> recordRelations = new ConcurrentHashMap<String, RecordRelation>();
 
+    //group of records loaded together with this record
+    private transient RecordLoadGroup loadGroup;
+
     private transient ModelValidators validators = null;
 
     private transient LogUtil log = LogUtil.getLogger(this.getClass().getName());
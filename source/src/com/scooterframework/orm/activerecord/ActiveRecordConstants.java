@@ -82,6 +82,24 @@ public class ActiveRecordConstants {
      */
     public static final String key_join_type = "join_type";
     
+    /**
+     * <p>Key <tt>include_strategy</tt> indicates how associated entities of 
+     * an <tt>include</tt> option are loaded. Allowed values are auto, join 
+     * and preload.</p>
+     * <ul>
+     * <li>auto: preload is used when more than one has-many association is 
+     * included, or when a has-many association is included in a paginated 
+     * query. Otherwise join is used. (default)</li>
+     * <li>join: all entities are loaded by one query with joins.</li>
+     * <li>preload: the main entities are loaded first, then one query is run 
+     * for each included association with the keys of the loaded entities.</li>
+     * </ul>
+     * 
+     * <p>Join is always used for <tt>strict_include</tt> and when conditions 
+     * or order-by clauses refer to an included table.</p>
+     */
+    public static final String key_include_strategy = "include_strategy";
+    
     /**
      * <p>Key <tt>conditions_sql</tt> represents extra conditional SQL string 
      * to be appended to a query.</p>
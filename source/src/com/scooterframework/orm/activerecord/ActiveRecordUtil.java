@@ -437,6 +437,7 @@ public class ActiveRecordUtil {
             record.setAsHomeInstance();
             
             setGateInstance(record.getClass().getName(), new TableGateway(record));
+            RecordFactory.reset(record.getClass());
 
             String modelKey = getHomeInstanceKey(record.getClass().getName());
             if (DatabaseConfig.getInstance().isInDevelopmentEnvironment() || EnvConfig.getInstance().allowAutoCRUD()) {
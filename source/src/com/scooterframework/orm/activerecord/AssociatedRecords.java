@@ -226,6 +226,11 @@ abstract public class AssociatedRecords {
      * @return the number of associated objects.
      */
     public int size() {
+        if (!latestRecordsLoaded && !ownerIsNew() && 
+        		recordRelation.loadInGroup(null) && latestRecordsLoaded) {
+            return associatedRecords.size();
+        }
+        
         if (!latestRecordsLoaded && !ownerIsNew()) {
             int recordsSize = countRecordsInDB();
             
@@ -41,6 +41,8 @@ public class BelongsToRecordRelation extends RecordRelation {
      * @return AssociatedRecord
      */
     public AssociatedRecord associatedRecord(String options, boolean refresh) {
+        if (!refresh) loadInGroup(options);
+        
         AssociatedRecord relatedData = (AssociatedRecord)getAssociatedData();
         
         if (!refresh && !optionsChangedFromLastRetrieval(options)) {
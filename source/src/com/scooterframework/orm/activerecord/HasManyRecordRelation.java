@@ -42,6 +42,8 @@ public class HasManyRecordRelation extends RecordRelation {
      * @return AssociatedRecords
      */
     public AssociatedRecords allAssociatedRecords(String options, boolean refresh) {
+        if (!refresh) loadInGroup(options);
+        
         AssociatedRecords relatedData = (AssociatedRecords)getAssociatedData();
         
         if (!refresh && !optionsChangedFromLastRetrieval(options)) {
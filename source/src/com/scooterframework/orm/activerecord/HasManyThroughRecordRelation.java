@@ -50,6 +50,8 @@ public class HasManyThroughRecordRelation extends RecordRelation {
      * @return AssociatedRecords
      */
     public AssociatedRecords allAssociatedRecords(String options, boolean refresh) {
+        if (!refresh) loadInGroup(options);
+        
         AssociatedRecords relatedData = (AssociatedRecords)getAssociatedData();
 
         if (!refresh && !optionsChangedFromLastRetrieval(options)) {
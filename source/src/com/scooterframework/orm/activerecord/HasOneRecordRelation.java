@@ -40,6 +40,8 @@ public class HasOneRecordRelation extends RecordRelation {
      * @return AssociatedRecord
      */
     public AssociatedRecord associatedRecord(String options, boolean refresh) {
+        if (!refresh) loadInGroup(options);
+        
         AssociatedRecord relatedData = (AssociatedRecord)getAssociatedData();
         
         if (!refresh && !optionsChangedFromLastRetrieval(options)) {
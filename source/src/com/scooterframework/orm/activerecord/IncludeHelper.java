@@ -22,6 +22,7 @@ import com.scooterframework.orm.sqldataexpress.object.RowInfo;
 import com.scooterframework.orm.sqldataexpress.object.TableData;
 import com.scooterframework.orm.sqldataexpress.processor.DataProcessor;
 import com.scooterframework.orm.sqldataexpress.util.OrmObjectFactory;
+import com.scooterframework.orm.sqldataexpress.util.SqlConstants;
 
 /**
  * IncludeHelper class has helper methods for SQL queries with include option.
@@ -159,6 +160,112 @@ public class IncludeHelper {
         return unique;
     }
 
+    /**
+     * Checks if associated records should be loaded by separate queries
+     * instead of joins. See {@link ActiveRecordConstants#key_include_strategy}
+     * for how the strategy is chosen.
+     *
+     * @return true if preload should be used
+     */
+    boolean usePreload() {
+        String strategy = options.get(ActiveRecordConstants.key_include_strategy);
+        if (isEmpty(strategy)) strategy = INCLUDE_STRATEGY_AUTO;
+
+        if (INCLUDE_STRATEGY_JOIN.equalsIgnoreCase(strategy)) return false;
+
+        boolean requested = INCLUDE_STRATEGY_PRELOAD.equalsIgnoreCase(strategy);
+        if (!requested && !INCLUDE_STRATEGY_AUTO.equalsIgnoreCase(strategy)) {
+            throw new IllegalArgumentException("Unknown value of " +
+                ActiveRecordConstants.key_include_strategy + ": " + strategy);
+        }
+
+        if (!canPreload()) {
+            if (requested) log.warn("Preload is not possible for options " + options + ", join is used.");
+            return false;
+        }
+
+        if (requested) return true;
+
+        int toManyNodes = 0;
+        for (IncludeNode node : includeNodes) {
+            String type = node.getRelation().getRelationType();
+            if (Relation.HAS_MANY_TYPE.equals(type) || Relation.HAS_MANY_THROUGH_TYPE.equals(type)) {
+                toManyNodes++;
+            }
+        }
+        boolean paginated = options.containsKey(ActiveRecordConstants.key_limit) ||
+                            options.containsKey(ActiveRecordConstants.key_offset) ||
+                            options.containsKey(ActiveRecordConstants.key_page) ||
+                            options.containsKey(DataProcessor.input_key_records_limit) ||
+                            options.containsKey(DataProcessor.input_key_records_offset);
+        return toManyNodes > 1 || (toManyNodes == 1 && paginated);
+    }
+
+    //Preload keeps the semantics of a left outer join only if the query
+    //does not refer to any included table.
+    private boolean canPreload() {
+        if (JOIN_TYPE_INNER.equals(joinType) || hmtInnerJoinSQL != null) return false;
+
+        StringBuilder clauses = new StringBuilder();
+        if (conditionsSQL != null) clauses.append(conditionsSQL).append(' ');
+        appendOption(clauses, ActiveRecordConstants.key_conditions_sql);
+        appendOption(clauses, SqlConstants.key_order_by);
+        appendOption(clauses, SqlConstants.key_group_by);
+        appendOption(clauses, SqlConstants.key_having);
+        if (conditions != null) {
+            for (String key : conditions.keySet()) {
+                if (key != null) clauses.append(key).append(' ');
+            }
+        }
+        String lowerClauses = clauses.toString().toLowerCase();
+
+        for (IncludeNode node : includeNodes) {
+            if (!IncludePreloader.canPreload(node.getRelation())) return false;
+            if (lowerClauses.indexOf(node.getMappingName().toLowerCase() + ".") != -1 ||
+                lowerClauses.indexOf(node.getHomeInstance().getTableName().toLowerCase() + ".") != -1) {
+                return false;
+            }
+            if (node.getRelation() instanceof HasManyThroughRelation) {
+                Class<? extends ActiveRecord> middleC = ((HasManyThroughRelation)node.getRelation()).getMiddleC();
+                String middleTable = ActiveRecordUtil.getHomeInstance(middleC).getTableName();
+                if (lowerClauses.indexOf(middleTable.toLowerCase() + ".") != -1) return false;
+            }
+        }
+        return true;
+    }
+
+    private void appendOption(StringBuilder sb, String key) {
+        String value = options.get(key);
+        if (value != null) sb.append(value).append(' ');
+    }
+
+    /**
+     * Loads associated records of the main records by separate queries.
+     *
+     * @param mainRecords records of the main entity
+     */
+    void preload(List<ActiveRecord> mainRecords) {
+        new IncludePreloader(includeNodes).preload(mainRecords);
+    }
+
+    /**
+     * Returns classes of all models joined by the include option. For a
+     * has-many-through relation, the class of the middle model is included.
+     *
+     * @return a set of model classes
+     */
+    Set<Class<? extends ActiveRecord>> getIncludedModelClasses() {
+        Set<Class<? extends ActiveRecord>> classes = new HashSet<Class<? extends ActiveRecord>>();
+        for (IncludeNode node : includeNodes) {
+            classes.add(node.getHomeInstance().getClass());
+            Relation relation = node.getRelation();
+            if (relation instanceof HasManyThroughRelation) {
+                classes.add(((HasManyThroughRelation)relation).getMiddleC());
+            }
+        }
+        return classes;
+    }
+
     /**
      * Constructs a SQL query for the include case.
      *
@@ -619,6 +726,10 @@ public class IncludeHelper {
     public static final String JOIN_TYPE_LEFT_OUTER = "LEFT OUTER JOIN";
     public static final String INCLUDE_LINK = "=>";
 
+    public static final String INCLUDE_STRATEGY_AUTO = "auto";
+    public static final String INCLUDE_STRATEGY_JOIN = "join";
+    public static final String INCLUDE_STRATEGY_PRELOAD = "preload";
+
     private String joinType = JOIN_TYPE_LEFT_OUTER;
     private ActiveRecord mainHome;
     private Map<String, Object> conditions;
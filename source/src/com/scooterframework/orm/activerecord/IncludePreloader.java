@@ -0,0 +1,336 @@
+/*
+ *   This software is distributed under the terms of the FSF
+ *   Gnu Lesser General Public License (see lgpl.txt).
+ *
+ *   This program is distributed WITHOUT ANY WARRANTY. See the
+ *   GNU General Public License for more details.
+ */
+package com.scooterframework.orm.activerecord;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.scooterframework.common.logging.LogUtil;
+import com.scooterframework.orm.sqldataexpress.util.SqlUtil;
+import com.scooterframework.orm.sqldataexpress.vendor.DBAdapterFactory;
+
+/**
+ * <p>
+ * IncludePreloader class loads associated records of include nodes with
+ * separate queries. For each include node, the keys of the owner records
+ * are collected and the target records are loaded by
+ * <tt>WHERE fk IN (...)</tt> queries. Each query has at most as many values
+ * as the database allows in an <tt>IN</tt> list. The target records are then
+ * linked to their owners in memory.
+ * </p>
+ *
+ * <p>
+ * Unlike a join, the number of rows retrieved is the number of records,
+ * no matter how many has-many associations are included.
+ * </p>
+ *
+ * @author (Fei) John Chen
+ */
+class IncludePreloader {
+    private static LogUtil log = LogUtil.getLogger(IncludePreloader.class.getName());
+
+    private List<IncludeNode> includeNodes;
+
+    //key is the include path of a node, value is the records loaded for it
+    private Map<String, List<ActiveRecord>> loadedRecords = new HashMap<String, List<ActiveRecord>>();
+
+    IncludePreloader(List<IncludeNode> includeNodes) {
+        this.includeNodes = includeNodes;
+    }
+
+    /**
+     * Checks if records of a relation can be preloaded. A relation can be
+     * preloaded when its mapping consists of plain column names.
+     *
+     * @param relation the relation
+     * @return true if the relation can be preloaded
+     */
+    static boolean canPreload(Relation relation) {
+        if (relation instanceof HasManyThroughRelation) {
+            HasManyThroughRelation hmt = (HasManyThroughRelation)relation;
+            return canPreload(hmt.getACRelation()) && canPreload(hmt.getCBRelation());
+        }
+
+        Map<String, String> mappingMap = relation.getMappingMap();
+        if (mappingMap == null || mappingMap.size() == 0) return false;
+        for (Map.Entry<String, String> entry : mappingMap.entrySet()) {
+            String left = entry.getKey();
+            String right = entry.getValue();
+            if (left == null || right == null ||
+                left.indexOf('.') != -1 || right.indexOf('.') != -1) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Loads records of all include nodes and links them to the main records.
+     *
+     * @param mainRecords records of the main entity
+     */
+    void preload(List<ActiveRecord> mainRecords) {
+        if (mainRecords == null || mainRecords.size() == 0) return;
+
+        for (IncludeNode node : includeNodes) {
+            if (node == null) continue;
+
+            String path = getIncludePath(node);
+            if (loadedRecords.containsKey(path)) continue;
+
+            List<ActiveRecord> owners = null;
+            if (node.hasPrevious()) {
+                owners = loadedRecords.get(getIncludePath(node.previous()));
+            }
+            else {
+                owners = mainRecords;
+            }
+
+            loadedRecords.put(path, load(node.getRelation(), node.getIncludeName(), owners));
+        }
+    }
+
+    /**
+     * Loads targets of a relation for all the owners and links them to the
+     * owners. An association holder which already exists for an owner is
+     * filled in place.
+     *
+     * @param relation  the relation of the owners
+     * @param include   association name of the relation
+     * @param owners    the owner records
+     * @return all the target records loaded
+     */
+    static List<ActiveRecord> load(Relation relation, String include, List<ActiveRecord> owners) {
+        if (owners == null || owners.size() == 0) return Collections.emptyList();
+
+        long start = System.currentTimeMillis();
+
+        Map<ActiveRecord, List<ActiveRecord>> targetsMap = null;
+        if (relation instanceof HasManyThroughRelation) {
+            HasManyThroughRelation hmt = (HasManyThroughRelation)relation;
+            Map<ActiveRecord, List<ActiveRecord>> middlesMap =
+                loadTargets(owners, hmt.getACRelation(), relation.getConditionsString());
+            List<ActiveRecord> middles = collectTargets(middlesMap);
+            Map<ActiveRecord, List<ActiveRecord>> endsMap =
+                loadTargets(middles, hmt.getCBRelation(), null);
+
+            targetsMap = new IdentityHashMap<ActiveRecord, List<ActiveRecord>>();
+            for (Map.Entry<ActiveRecord, List<ActiveRecord>> entry : middlesMap.entrySet()) {
+                List<ActiveRecord> targets = new ArrayList<ActiveRecord>();
+                for (ActiveRecord middle : entry.getValue()) {
+                    for (ActiveRecord target : endsMap.get(middle)) {
+                        if (!targets.contains(target)) targets.add(target);
+                    }
+                }
+                targetsMap.put(entry.getKey(), targets);
+            }
+        }
+        else {
+            targetsMap = loadTargets(owners, relation, null);
+        }
+
+        String relationType = relation.getRelationType();
+        for (ActiveRecord owner : owners) {
+            List<ActiveRecord> targets = targetsMap.get(owner);
+            RecordRelation rr = owner.getRecordRelation(include);
+            Object data = rr.getAssociatedData();
+            if (Relation.HAS_MANY_TYPE.equals(relationType) ||
+                Relation.HAS_MANY_THROUGH_TYPE.equals(relationType)) {
+                if (data instanceof AssociatedRecords) {
+                    ((AssociatedRecords)data).storeLoadedAssociatedRecords(targets);
+                }
+                else if (Relation.HAS_MANY_TYPE.equals(relationType)) {
+                    rr.setAssociatedData(new AssociatedRecordsHM(rr, targets));
+                }
+                else {
+                    rr.setAssociatedData(new AssociatedRecordsHMT(rr, targets));
+                }
+            }
+            else {
+                ActiveRecord target = (targets.size() > 0)?targets.get(0):null;
+                if (data instanceof AssociatedRecord) {
+                    ((AssociatedRecord)data).storeLoadedAssociatedRecord(target);
+                }
+                else {
+                    rr.setAssociatedData(new AssociatedRecord(rr, target));
+                }
+            }
+            rr.setLastUsedOptions(null);
+        }
+
+        List<ActiveRecord> allTargets = collectTargets(targetsMap);
+        log.debug("preload " + include + ": " + allTargets.size() + " records for " +
+                owners.size() + " owners in " + (System.currentTimeMillis() - start) + " ms");
+        return allTargets;
+    }
+
+    //Returns a map of owner and its targets. Every owner is a key of the map.
+    private static Map<ActiveRecord, List<ActiveRecord>> loadTargets(List<ActiveRecord> owners,
+            Relation relation, String extraConditions) {
+        String[] ownerColumns = relation.getLeftSideMappingItems();
+        String[] targetColumns = relation.getRightSideMappingItems();
+
+        //group owners by their key values
+        Map<Object, List<ActiveRecord>> ownersByKey = new LinkedHashMap<Object, List<ActiveRecord>>();
+        Map<Object, Object[]> keyValues = new HashMap<Object, Object[]>();
+        for (ActiveRecord owner : owners) {
+            Object[] values = getValues(owner, ownerColumns);
+            if (values == null) continue;
+            Object key = toKey(values);
+            List<ActiveRecord> list = ownersByKey.get(key);
+            if (list == null) {
+                list = new ArrayList<ActiveRecord>();
+                ownersByKey.put(key, list);
+                keyValues.put(key, values);
+            }
+            list.add(owner);
+        }
+
+        Map<Object, List<ActiveRecord>> targetsByKey = new HashMap<Object, List<ActiveRecord>>();
+        if (ownersByKey.size() > 0) {
+            Class<? extends ActiveRecord> targetClass = relation.getTargetClass();
+            ActiveRecord targetHome = ActiveRecordUtil.getHomeInstance(targetClass);
+            TableGateway targetGateway = ActiveRecordUtil.getGateway(targetClass);
+
+            String conditions = combine(relation.getConditionsString(), extraConditions);
+            Map<String, String> options = new HashMap<String, String>();
+            options.putAll(relation.getProperties());
+            options.remove(ActiveRecordConstants.key_conditions_sql);
+
+            int chunkSize = DBAdapterFactory.getInstance().getAdapter(
+                    targetHome.getConnectionName()).getMaxInListSize() / targetColumns.length;
+            if (chunkSize < 1) chunkSize = 1;
+
+            List<Object[]> chunk = new ArrayList<Object[]>(Math.min(chunkSize, ownersByKey.size()));
+            for (Object[] values : keyValues.values()) {
+                chunk.add(values);
+                if (chunk.size() == chunkSize) {
+                    loadChunk(targetGateway, targetColumns, chunk, conditions, options, targetsByKey);
+                    chunk.clear();
+                }
+            }
+            if (chunk.size() > 0) {
+                loadChunk(targetGateway, targetColumns, chunk, conditions, options, targetsByKey);
+            }
+        }
+
+        Map<ActiveRecord, List<ActiveRecord>> targetsMap = new IdentityHashMap<ActiveRecord, List<ActiveRecord>>();
+        List<ActiveRecord> none = Collections.emptyList();
+        for (ActiveRecord owner : owners) {
+            targetsMap.put(owner, none);
+        }
+        for (Map.Entry<Object, List<ActiveRecord>> entry : ownersByKey.entrySet()) {
+            List<ActiveRecord> targets = targetsByKey.get(entry.getKey());
+            if (targets == null) continue;
+            for (ActiveRecord owner : entry.getValue()) {
+                targetsMap.put(owner, targets);
+            }
+        }
+        return targetsMap;
+    }
+
+    private static void loadChunk(TableGateway targetGateway, String[] targetColumns,
+            List<Object[]> chunk, String conditions, Map<String, String> options,
+            Map<Object, List<ActiveRecord>> targetsByKey) {
+        Map<String, Object> inputs = new HashMap<String, Object>();
+        int position = 1;
+
+        StringBuilder sb = new StringBuilder();
+        if (targetColumns.length == 1) {
+            sb.append(targetColumns[0]).append(" IN (");
+            for (Object[] values : chunk) {
+                if (position > 1) sb.append(", ");
+                sb.append('?');
+                inputs.put((position++) + "", values[0]);
+            }
+            sb.append(')');
+        }
+        else {
+            sb.append('(');
+            for (Object[] values : chunk) {
+                if (position > 1) sb.append(" OR ");
+                sb.append('(');
+                for (int i = 0; i < targetColumns.length; i++) {
+                    if (i > 0) sb.append(" AND ");
+                    sb.append(targetColumns[i]).append(" = ?");
+                    inputs.put((position++) + "", values[i]);
+                }
+                sb.append(')');
+            }
+            sb.append(')');
+        }
+        String conditionsSQL = combine(sb.toString(), conditions);
+
+        List<ActiveRecord> targets = targetGateway.findAll(conditionsSQL, inputs,
+                new HashMap<String, String>(options));
+        for (ActiveRecord target : targets) {
+            Object[] values = getValues(target, targetColumns);
+            if (values == null) continue;
+            Object key = toKey(values);
+            List<ActiveRecord> list = targetsByKey.get(key);
+            if (list == null) {
+                list = new ArrayList<ActiveRecord>();
+                targetsByKey.put(key, list);
+            }
+            list.add(target);
+        }
+    }
+
+    private static List<ActiveRecord> collectTargets(Map<ActiveRecord, List<ActiveRecord>> targetsMap) {
+        Map<ActiveRecord, Object> all = new IdentityHashMap<ActiveRecord, Object>();
+        List<ActiveRecord> list = new ArrayList<ActiveRecord>();
+        for (List<ActiveRecord> targets : targetsMap.values()) {
+            for (ActiveRecord target : targets) {
+                if (all.put(target, target) == null) list.add(target);
+            }
+        }
+        return list;
+    }
+
+    private static String getIncludePath(IncludeNode node) {
+        String path = node.getIncludeName();
+        IncludeNode previous = node.previous();
+        while (previous != null) {
+            path = previous.getIncludeName() + IncludeHelper.INCLUDE_LINK + path;
+            previous = previous.previous();
+        }
+        return path;
+    }
+
+    private static String combine(String conditions1, String conditions2) {
+        if (conditions2 == null || "".equals(conditions2.trim())) return conditions1;
+        if (conditions1 == null || "".equals(conditions1.trim())) return conditions2;
+        return conditions1 + " AND (" + conditions2 + ")";
+    }
+
+    //Returns null if any of the values is null.
+    private static Object[] getValues(ActiveRecord record, String[] columns) {
+        Object[] values = new Object[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            Object value = record.getField(columns[i]);
+            if (value == null) return null;
+            values[i] = value;
+        }
+        return values;
+    }
+
+    //Integral numbers of different types, such as Integer and BigDecimal
+    //values of the same key column, must give the same key.
+    private static Object toKey(Object[] values) {
+        if (values.length == 1) return SqlUtil.getKeyValue(values[0]);
+
+        List<Object> key = new ArrayList<Object>(values.length);
+        for (Object value : values) {
+            key.add(SqlUtil.getKeyValue(value));
+        }
+        return key;
+    }
+}
@@ -8,6 +8,8 @@
 package com.scooterframework.orm.activerecord;
 
 import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.scooterframework.admin.EnvConfig;
 import com.scooterframework.cache.Cache;
@@ -21,6 +23,29 @@ import com.scooterframework.cache.NamedCurrentThreadCache;
  * ModelCacheClient class provides cache methods for a model.
  * </p>
  * 
+ * <p>
+ * Cache keys are tagged so that a write does not have to empty the whole
+ * cache of a model. Keys of records found by primary key or id carry a
+ * <tt>record generation</tt>, and keys of query results carry a
+ * <tt>query generation</tt> of the model and of each model the query
+ * includes. A write to a single record removes the keys of that record and
+ * advances the query generation. A write whose affected records are unknown,
+ * such as <tt>updateBySQL</tt>, advances both generations. Entries under old
+ * generations are never read again and expire by the rules of the
+ * underlying cache.
+ * </p>
+ * 
+ * <p>
+ * Generations are stored in the model's cache itself, so they are shared
+ * wherever the cache is shared. A generation value is derived from the
+ * current time, so it still advances if its entry is evicted. Each client
+ * also keeps the generations it has read or advanced, and reads them from
+ * the cache again at most once every <tt>GENERATION_CHECK_MILLIS</tt>
+ * milliseconds. A cache hit therefore does not need another round trip to
+ * a remote cache, and a write made through another node sharing the cache
+ * is seen within that interval.
+ * </p>
+ * 
  * @author (Fei) John Chen
  */
 public class ModelCacheClient {
@@ -35,6 +60,13 @@ public class ModelCacheClient {
 	private Collection<String> localUseCacheExceptions;
 	private Collection<String> localFlushCacheExceptions;
 	private Cache modelCache;
+	private ConcurrentHashMap<String, Generation> generations = new ConcurrentHashMap<String, Generation>();
+	
+	/**
+	 * Maximum time in milliseconds a generation is used before it is read
+	 * from the cache again.
+	 */
+	public static final long GENERATION_CHECK_MILLIS = 1000L;
 
 	/**
 	 * Constructs an instance of ModelCacheClient.
@@ -77,6 +109,61 @@ public class ModelCacheClient {
 		return CacheKey.getCacheKey(clazz.getName(), request, elements);
 	}
 	
+	/**
+	 * Returns cache key of a record found by its primary key or id. The key
+	 * is tagged with the current record generation of the model. Elements 
+	 * are compared by their string values, so that an id given as a number 
+	 * and the same id given as a string refer to the same record.
+	 * 
+	 * @param request  name of the find method
+	 * @param elements elements identifying the record
+	 * @return cache key
+	 */
+	public Object getRecordCacheKey(String request, Object... elements) {
+		Object[] ids = new String[(elements != null)?elements.length:0];
+		for (int i = 0; i < ids.length; i++) {
+			ids[i] = String.valueOf(elements[i]);
+		}
+		return CacheKey.getCacheKey(clazz.getName(), 
+				request + "@" + getGeneration(KEY_RECORD_GENERATION), ids);
+	}
+	
+	/**
+	 * Returns cache key of a query result. The key is tagged with the current 
+	 * query generation of the model.
+	 * 
+	 * @param request  name of the find method
+	 * @param elements elements identifying the query
+	 * @return cache key
+	 */
+	public Object getQueryCacheKey(String request, Object... elements) {
+		return getQueryCacheKey(request, (Set<Class<? extends ActiveRecord>>)null, elements);
+	}
+	
+	/**
+	 * Returns cache key of a query result which also depends on other models.
+	 * The key is tagged with the current query generation of the model and of
+	 * each of the <tt>dependents</tt>.
+	 * 
+	 * @param request    name of the find method
+	 * @param dependents other model classes involved in the query
+	 * @param elements   elements identifying the query
+	 * @return cache key
+	 */
+	public Object getQueryCacheKey(String request, 
+			Set<Class<? extends ActiveRecord>> dependents, Object... elements) {
+		StringBuilder sb = new StringBuilder();
+		sb.append(request).append('@').append(getGeneration(KEY_QUERY_GENERATION));
+		if (dependents != null) {
+			for (Class<? extends ActiveRecord> dependent : dependents) {
+				if (dependent == clazz) continue;
+				ModelCacheClient mcc = ActiveRecordUtil.getGateway(dependent).getModelCacheClient();
+				sb.append(',').append(mcc.getGeneration(KEY_QUERY_GENERATION));
+			}
+		}
+		return CacheKey.getCacheKey(clazz.getName(), sb.toString(), elements);
+	}
+	
 	public boolean useCache(String method) {
 		boolean useCheck = useRequestCache || useSecondLevelCache;
 		if (useCheck) {
@@ -92,8 +179,93 @@ public class ModelCacheClient {
 		return useCheck;
 	}
 	
+	/**
+	 * Invalidates all cached records and query results of the model. This 
+	 * is used when the records affected by a change are unknown.
+	 * 
+	 * @param method name of the method which makes the change
+	 */
 	public void clearCache(String method) {
-		if (flushCache(method)) getCache().clear();
+		if (!flushCache(method) || getCache() == null) return;
+		advanceGeneration(KEY_RECORD_GENERATION);
+		advanceGeneration(KEY_QUERY_GENERATION);
+	}
+	
+	/**
+	 * Invalidates cached query results of the model. Cached records are 
+	 * kept. This is used when new records are added.
+	 * 
+	 * @param method name of the method which makes the change
+	 */
+	public void clearQueryCache(String method) {
+		if (!flushCache(method) || getCache() == null) return;
+		advanceGeneration(KEY_QUERY_GENERATION);
+	}
+	
+	/**
+	 * Removes a changed record from the cache and invalidates cached query 
+	 * results of the model.
+	 * 
+	 * @param method name of the method which makes the change
+	 * @param record the changed record
+	 */
+	public void clearCache(String method, ActiveRecord record) {
+		if (!flushCache(method) || getCache() == null) return;
+		removeRecord(record);
+		advanceGeneration(KEY_QUERY_GENERATION);
+	}
+	
+	/**
+	 * Removes changed records from the cache and invalidates cached query 
+	 * results of the model.
+	 * 
+	 * @param method  name of the method which makes the change
+	 * @param records the changed records
+	 */
+	public void clearCache(String method, Collection<? extends ActiveRecord> records) {
+		if (!flushCache(method) || getCache() == null) return;
+		for (ActiveRecord record : records) {
+			removeRecord(record);
+		}
+		advanceGeneration(KEY_QUERY_GENERATION);
+	}
+	
+	/**
+	 * Removes a record identified by its primary key string from the cache
+	 * and invalidates cached query results of the model.
+	 * 
+	 * @param method   name of the method which makes the change
+	 * @param pkString primary key string of the changed record
+	 */
+	public void clearCacheByPK(String method, String pkString) {
+		if (!flushCache(method) || getCache() == null) return;
+		if (hasIdColumn() && !isIdPrimaryKey()) {
+			//the id of the record is unknown
+			advanceGeneration(KEY_RECORD_GENERATION);
+		}
+		else {
+			removeRecord(pkString, pkString);
+		}
+		advanceGeneration(KEY_QUERY_GENERATION);
+	}
+	
+	/**
+	 * Removes a record identified by its id from the cache and invalidates
+	 * cached query results of the model.
+	 * 
+	 * @param method name of the method which makes the change
+	 * @param id     id of the changed record
+	 */
+	public void clearCacheById(String method, Object id) {
+		if (!flushCache(method) || getCache() == null) return;
+		if (isIdPrimaryKey()) {
+			removeRecord(id, (id != null)?id.toString():null);
+		}
+		else {
+			//the primary key of the record is unknown
+			advanceGeneration(KEY_RECORD_GENERATION);
+		}
+		advanceGeneration(KEY_QUERY_GENERATION);
 	}
 	
 	public boolean flushCache(String method) {
@@ -130,4 +302,102 @@ public class ModelCacheClient {
 		
 		return modelCache;
 	}
+	
+	/**
+	 * Stores an object in the cache. A {@link CacheKey} is copied first, so 
+	 * that inputs changed by the caller later do not change the stored key.
+	 * 
+	 * @param cacheKey  key of the object
+	 * @param value     the object
+	 */
+	public void putCache(Object cacheKey, Object value) {
+		if (cacheKey instanceof CacheKey) cacheKey = ((CacheKey)cacheKey).copy();
+		getCache().put(cacheKey, value);
+	}
+	
+	private void removeRecord(ActiveRecord record) {
+		if (record == null) return;
+		Object id = (hasIdColumn())?record.getField("ID"):null;
+		removeRecord(id, record.getRestfulId());
+	}
+	
+	private void removeRecord(Object id, String pkString) {
+		Cache cache = getCache();
+		if (id != null) {
+			cache.remove(getRecordCacheKey("findById", id));
+		}
+		if (pkString != null) {
+			cache.remove(getRecordCacheKey("findByPK", pkString));
+			cache.remove(getRecordCacheKey("findByRESTfulId", pkString));
+		}
+	}
+	
+	private boolean hasIdColumn() {
+		return home.getRowInfo().isValidColumnName("ID");
+	}
+	
+	private boolean isIdPrimaryKey() {
+		String[] pkNames = home.getPrimaryKeyNames();
+		return pkNames != null && pkNames.length == 1 && "ID".equalsIgnoreCase(pkNames[0]);
+	}
+	
+	private long getGeneration(String type) {
+		Cache cache = getCache();
+		if (cache == null) return 0L;
+		
+		long now = System.currentTimeMillis();
+		Generation local = generations.get(type);
+		if (local != null && now - local.checkedAt < GENERATION_CHECK_MILLIS) {
+			return local.value;
+		}
+		
+		Object key = getCacheKey(type);
+		Long generation = (Long) cache.get(key);
+		if (generation == null) {
+			generation = Long.valueOf(nextGeneration((local != null)?local.value:0L));
+			cache.put(key, generation);
+		}
+		long value = generation.longValue();
+		if (local != null && local.value > value) value = local.value;
+		generations.put(type, new Generation(value, now));
+		return value;
+	}
+	
+	private void advanceGeneration(String type) {
+		Object key = getCacheKey(type);
+		Long generation = (Long) getCache().get(key);
+		long current = (generation != null)?generation.longValue():0L;
+		Generation local = generations.get(type);
+		if (local != null && local.value > current) current = local.value;
+		
+		long next = nextGeneration(current);
+		getCache().put(key, Long.valueOf(next));
+		generations.put(type, new Generation(next, System.currentTimeMillis()));
+	}
+	
+	/**
+	 * Returns a generation greater than <tt>current</tt>. Generations follow
+	 * the clock so that a lost generation entry is not replaced by a value 
+	 * used before.
+	 */
+	private static long nextGeneration(long current) {
+		long stamp = System.currentTimeMillis() << 10;
+		return (stamp > current)?stamp:(current + 1);
+	}
+	
+	private static final String KEY_RECORD_GENERATION = "recordGeneration";
+	private static final String KEY_QUERY_GENERATION = "queryGeneration";
+	
+	/*
+	 * A generation and the time it was last read from or written to the cache.
+	 */
+	private static class Generation {
+		private final long value;
+		private final long checkedAt;
+		
+		Generation(long value, long checkedAt) {
+			this.value = value;
+			this.checkedAt = checkedAt;
+		}
+	}
 }
@@ -0,0 +1,26 @@
+/*
+ *   This software is distributed under the terms of the FSF
+ *   Gnu Lesser General Public License (see lgpl.txt).
+ *
+ *   This program is distributed WITHOUT ANY WARRANTY. See the
+ *   GNU General Public License for more details.
+ */
+package com.scooterframework.orm.activerecord;
+
+/**
+ * RecordCallback interface processes records streamed by
+ * <tt>TableGateway.forEach</tt> methods one at a time.
+ *
+ * @author (Fei) John Chen
+ */
+public interface RecordCallback {
+
+    /**
+     * Processes a record.
+     *
+     * @param record  a record retrieved from database
+     * @return <tt>false</tt> to stop the iteration, <tt>true</tt> to
+     *         continue with the next record
+     */
+    public boolean process(ActiveRecord record);
+}
@@ -0,0 +1,135 @@
+/*
+ *   This software is distributed under the terms of the FSF
+ *   Gnu Lesser General Public License (see lgpl.txt).
+ *
+ *   This program is distributed WITHOUT ANY WARRANTY. See the
+ *   GNU General Public License for more details.
+ */
+package com.scooterframework.orm.activerecord;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.scooterframework.admin.EnvConfig;
+import com.scooterframework.common.exception.ObjectCreationException;
+import com.scooterframework.orm.sqldataexpress.config.DatabaseConfig;
+import com.scooterframework.orm.sqldataexpress.object.RowData;
+
+/**
+ * <p>
+ * RecordFactory class creates records of a model class from data retrieved
+ * from database.
+ * </p>
+ *
+ * <p>
+ * Instead of constructing each record, which looks up table meta data and
+ * declares protected and extra fields again, a record is copied from a
+ * prototype record of the model class which is constructed once. A model
+ * class which declares instance fields of its own is always constructed,
+ * because the fields of a prototype may not be shared. Records are also
+ * constructed in development environment or when auto CRUD is allowed,
+ * where table meta data is not kept between requests.
+ * </p>
+ *
+ * <p>
+ * A prototype holds the table meta data read when it was constructed. It is
+ * discarded by {@link #reset(Class)} whenever a new home instance is set for
+ * the model, and when the model class is reloaded.
+ * </p>
+ *
+ * @author (Fei) John Chen
+ */
+class RecordFactory {
+    private static final ConcurrentMap<String, RecordFactory> factories =
+        new ConcurrentHashMap<String, RecordFactory>();
+
+    private final Class<? extends ActiveRecord> modelClass;
+    private final boolean copyable;
+    private volatile ActiveRecord prototype;
+
+    private RecordFactory(Class<? extends ActiveRecord> modelClass) {
+        this.modelClass = modelClass;
+        this.copyable = !hasInstanceFields(modelClass);
+    }
+
+    /**
+     * Returns a record factory for a model class.
+     *
+     * @param modelClass  the model class
+     * @return a record factory
+     */
+    static RecordFactory getInstance(Class<? extends ActiveRecord> modelClass) {
+        if (!keepsTableInfo()) return new RecordFactory(modelClass);
+
+        String name = modelClass.getName();
+        RecordFactory factory = factories.get(name);
+        if (factory == null) {
+            factory = new RecordFactory(modelClass);
+            RecordFactory existing = factories.putIfAbsent(name, factory);
+            if (existing != null) factory = existing;
+        }
+        if (factory.modelClass != modelClass) {
+            //the model class has been reloaded
+            factory = new RecordFactory(modelClass);
+            factories.put(name, factory);
+        }
+        return factory;
+    }
+
+    /**
+     * Discards the prototype record of a model class, so that the next
+     * record is copied from a prototype with current table meta data.
+     *
+     * @param modelClass  the model class
+     */
+    static void reset(Class<? extends ActiveRecord> modelClass) {
+        factories.remove(modelClass.getName());
+    }
+
+    /**
+     * Creates a record with data from database.
+     *
+     * @param rd  row data from database
+     * @return a new record
+     */
+    ActiveRecord newRecord(RowData rd) {
+        if (!copyable || !keepsTableInfo()) {
+            ActiveRecord record = construct();
+            record.populateDataFromDatabase(rd);
+            return record;
+        }
+
+        ActiveRecord p = prototype;
+        if (p == null) {
+            p = construct();
+            prototype = p;
+        }
+        return p.newRecordFromPrototype(rd);
+    }
+
+    private ActiveRecord construct() {
+        try {
+            return modelClass.newInstance();
+        }
+        catch(Exception ex) {
+            throw new ObjectCreationException(modelClass.getName(), ex);
+        }
+    }
+
+    private static boolean keepsTableInfo() {
+        return !DatabaseConfig.getInstance().isInDevelopmentEnvironment() &&
+            !EnvConfig.getInstance().allowAutoCRUD();
+    }
+
+    private static boolean hasInstanceFields(Class<?> c) {
+        while (c != null && c != ActiveRecord.class) {
+            for (Field field : c.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) return true;
+            }
+            c = c.getSuperclass();
+        }
+        return false;
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ *   This software is distributed under the terms of the FSF
+ *   Gnu Lesser General Public License (see lgpl.txt).
+ *
+ *   This program is distributed WITHOUT ANY WARRANTY. See the
+ *   GNU General Public License for more details.
+ */
+package com.scooterframework.orm.activerecord;
+
+import java.util.Iterator;
+
+import com.scooterframework.orm.sqldataexpress.object.RowData;
+import com.scooterframework.orm.sqldataexpress.object.RowIterator;
+
+/**
+ * RecordIterator class streams records of a query. Each record is created
+ * from its row only when it is asked for, so that memory use does not
+ * depend on the number of records retrieved.
+ *
+ * <p>The iterator holds a database connection until it is closed. It is
+ * closed automatically after the last record is read. If not all records
+ * are read, the caller must close it:</p>
+ *
+ * <pre>
+ *      RecordIterator it = ActiveRecordUtil.getGateway(Post.class).stream("status='PUBLISHED'");
+ *      try {
+ *          while (it.hasNext()) {
+ *              ActiveRecord post = it.next();
+ *              ...
+ *          }
+ *      }
+ *      finally {
+ *          it.close();
+ *      }
+ * </pre>
+ *
+ * @author (Fei) John Chen
+ */
+public class RecordIterator implements Iterator<ActiveRecord> {
+    private TableGateway gateway;
+    private RowIterator rows;
+
+    RecordIterator(TableGateway gateway, RowIterator rows) {
+        this.gateway = gateway;
+        this.rows = rows;
+    }
+
+    public boolean hasNext() {
+        return rows.hasNext();
+    }
+
+    public ActiveRecord next() {
+        RowData rd = rows.next();
+        try {
+            return gateway.createNewInstance(rd);
+        }
+        catch(RuntimeException ex) {
+            close();
+            throw ex;
+        }
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException("remove() is not supported.");
+    }
+
+    /**
+     * Releases the database resources held by this iterator.
+     */
+    public void close() {
+        rows.close();
+    }
+}
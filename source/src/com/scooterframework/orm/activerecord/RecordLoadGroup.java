@@ -0,0 +1,106 @@
+/*
+ *   This software is distributed under the terms of the FSF
+ *   Gnu Lesser General Public License (see lgpl.txt).
+ *
+ *   This program is distributed WITHOUT ANY WARRANTY. See the
+ *   GNU General Public License for more details.
+ */
+package com.scooterframework.orm.activerecord;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.scooterframework.common.logging.LogUtil;
+
+/**
+ * <p>
+ * RecordLoadGroup class links records which are loaded together by one
+ * finder of <tt>TableGateway</tt>.
+ * </p>
+ *
+ * <p>
+ * When an association of a record in the group is accessed for the first
+ * time, the association is loaded for all records of the group which have
+ * not loaded it yet, by <tt>WHERE fk IN (...)</tt> queries of
+ * {@link IncludePreloader}. Looping through a list of records and reading
+ * the same association of each record therefore runs one query per
+ * association instead of one query per record.
+ * </p>
+ *
+ * <p>
+ * An association is batch loaded only once for a group. Later accesses
+ * with options or with refresh are handled by the record itself.
+ * </p>
+ *
+ * @author (Fei) John Chen
+ */
+class RecordLoadGroup {
+    private static LogUtil log = LogUtil.getLogger(RecordLoadGroup.class.getName());
+
+    private final List<ActiveRecord> records;
+    private final Set<String> loadedAssociations = new HashSet<String>();
+
+    private RecordLoadGroup(List<ActiveRecord> records) {
+        this.records = records;
+    }
+
+    /**
+     * Links the records into a new group. Nothing is done for a list of
+     * less than two records.
+     *
+     * @param records records loaded together
+     */
+    static void join(List<ActiveRecord> records) {
+        if (records == null || records.size() < 2) return;
+
+        RecordLoadGroup group = new RecordLoadGroup(new ArrayList<ActiveRecord>(records));
+        for (ActiveRecord record : records) {
+            record.setLoadGroup(group);
+        }
+    }
+
+    /**
+     * Loads the association of the relation for all records of the group.
+     *
+     * @param relation the relation of the association
+     * @return true if the association has been loaded by this method
+     */
+    synchronized boolean load(Relation relation) {
+        String association = relation.getAssociation().toLowerCase();
+        if (loadedAssociations.contains(association)) return false;
+        loadedAssociations.add(association);
+
+        if (!IncludePreloader.canPreload(relation)) return false;
+
+        List<ActiveRecord> owners = new ArrayList<ActiveRecord>(records.size());
+        for (ActiveRecord record : records) {
+            if (record.isNewRecord() || record.getLoadGroup() != this) continue;
+            if (!relation.getOwnerClass().isAssignableFrom(record.getClass())) continue;
+            if (isLoaded(record.getRecordRelation(association).getAssociatedData())) continue;
+            owners.add(record);
+        }
+        if (owners.size() < 2) return false;
+
+        try {
+            IncludePreloader.load(relation, association, owners);
+        }
+        catch(RuntimeException ex) {
+            log.warn("Failed to load " + association + " for a group of " +
+                    owners.size() + " records, records are loaded one by one: " + ex.getMessage());
+            return false;
+        }
+        return true;
+    }
+
+    private static boolean isLoaded(Object data) {
+        if (data instanceof AssociatedRecords) {
+            return ((AssociatedRecords)data).hasLoadedFromDatabase();
+        }
+        if (data instanceof AssociatedRecord) {
+            return ((AssociatedRecord)data).hasLoadedFromDatabase();
+        }
+        return false;
+    }
+}
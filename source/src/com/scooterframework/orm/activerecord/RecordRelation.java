@@ -263,6 +263,26 @@ public class RecordRelation {
         return state;
     }
 
+    /**
+     * Loads the associated data of all records which are loaded together 
+     * with the owner, if the associated data of the owner has not been 
+     * loaded yet and there are no options.
+     * 
+     * @param options  options of the current retrieval
+     * @return true if the associated data has been loaded
+     */
+    protected boolean loadInGroup(String options) {
+        if (options != null && !"".equals(options)) return false;
+        RecordLoadGroup group = owner.getLoadGroup();
+        if (group == null || owner.isNewRecord()) return false;
+
+        Object data = getAssociatedData();
+        if (data instanceof AssociatedRecords && ((AssociatedRecords)data).hasLoadedFromDatabase()) return false;
+        if (data instanceof AssociatedRecord && ((AssociatedRecord)data).hasLoadedFromDatabase()) return false;
+
+        return group.load(relation);
+    }
+
     /**
      * <p>Creates a data map of which key is the foreign key in child record,
      * while the value is the corresponding data from parent record.
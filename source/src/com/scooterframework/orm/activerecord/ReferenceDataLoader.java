@@ -19,8 +19,11 @@ import java.util.Properties;
 import java.util.Timer;
 import java.util.TimerTask;
 
+import com.scooterframework.common.logging.LogUtil;
+import com.scooterframework.common.util.CurrentThreadCache;
 import com.scooterframework.orm.sqldataexpress.config.DatabaseConfig;
 import com.scooterframework.orm.sqldataexpress.object.RowData;
+import com.scooterframework.orm.sqldataexpress.processor.DataProcessor;
 import com.scooterframework.orm.sqldataexpress.service.SqlServiceClient;
 
 /**
@@ -29,6 +32,7 @@ import com.scooterframework.orm.sqldataexpress.service.SqlServiceClient;
  * @author (Fei) John Chen
  */
 public class ReferenceDataLoader implements Observer {
+    private static LogUtil log = LogUtil.getLogger(ReferenceDataLoader.class.getName());
     private static Map<String, ReferenceDataTimerTask> referenceDataTaskMap = new HashMap<String, ReferenceDataTimerTask>();
     private static long oneHundredDays = 8640000;
     private static boolean started = false;
@@ -143,6 +147,7 @@ public class ReferenceDataLoader implements Observer {
         String sql = null;
         String key = "";
         String value = "";
+        String checksumSql = null;
         long period = 0;//in milliseconds
         Date loadedTime = null;
         boolean hasRun = false;
@@ -164,6 +169,7 @@ public class ReferenceDataLoader implements Observer {
 
             key = prop.getProperty("key");
             value = prop.getProperty("value");
+            checksumSql = prop.getProperty("checksum");
 
             long thePeriod = 0;
             try {
@@ -196,6 +202,26 @@ public class ReferenceDataLoader implements Observer {
         public void run() {
             if (donotRun || (runOnlyOnce && hasRun)) return;
 
+            //the timer thread is not a request thread, so drop data cached 
+            //by the previous run, such as results of findAll
+            CurrentThreadCache.clear();
+
+            String checksum = null;
+            String sumSql = getChecksumSql();
+            if (sumSql != null) {
+                try {
+                    checksum = readChecksum(sumSql);
+                }
+                catch(Exception ex) {
+                    log.warn("Failed to check reference data " + theName + ": " + ex.getMessage());
+                }
+                if (checksum != null && ReferenceDataStore.getReferenceDataList(theName) != null && 
+                        checksum.equals(ReferenceDataStore.getReferenceDataChecksum(theName))) {
+                    hasRun = true;
+                    return;
+                }
+            }
+
             if (clz != null) {
                 List<ActiveRecord> records = null;
                 if (sql != null) {
@@ -204,17 +230,60 @@ public class ReferenceDataLoader implements Observer {
                 else {
                     records = ActiveRecordUtil.getGateway(clz).findAll();
                 }
-                ReferenceDataStore.setReferenceData(theName, convertRecordsToReferenceDataList(records));
+                ReferenceDataStore.setReferenceData(theName, convertRecordsToReferenceDataList(records), checksum);
             }
             else {
                 List<RowData> rows = SqlServiceClient.retrieveRowsBySQL(sql);
-                ReferenceDataStore.setReferenceData(theName, convertRowsToReferenceDataList(rows));
+                ReferenceDataStore.setReferenceData(theName, convertRowsToReferenceDataList(rows), checksum);
             }
 
             loadedTime = new Date();
             hasRun = true;
         }
 
+        /**
+         * Returns a query for checking if the data has changed since it was 
+         * last loaded. The query is either the <tt>checksum</tt> property, 
+         * or, for data loaded by a model's findAll method, a query of row 
+         * count and the latest value of an update timestamp column, if the 
+         * table has one of the <tt>autoaudit.update.timestamp.fields</tt>.
+         */
+        private String getChecksumSql() {
+            if (checksumSql != null) return checksumSql;
+            if (clz == null || sql != null) return null;
+
+            ActiveRecord home = ActiveRecordUtil.getHomeInstance(clz);
+            String[] columns = home.getRowInfo().getColumnNames();
+            for (int i = 0; i < columns.length; i++) {
+                if (DatabaseConfig.getInstance().isAutoAuditUpdate(columns[i])) {
+                    return "SELECT COUNT(*), MAX(" + columns[i] + ") FROM " + home.getTableName();
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Runs the checksum query. For data of a model, the query is run 
+         * on the model's database connection.
+         */
+        private String readChecksum(String sumSql) {
+            Map<String, Object> inputs = new HashMap<String, Object>();
+            if (clz != null) {
+                inputs.put(DataProcessor.input_key_database_connection_name, 
+                        ActiveRecordUtil.getHomeInstance(clz).getConnectionName());
+            }
+            List<RowData> rows = SqlServiceClient.retrieveRowsBySQL(sumSql, inputs);
+            if (rows == null || rows.size() == 0) return null;
+
+            Object[] fields = rows.get(0).getFields();
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < fields.length; i++) {
+                if (i > 0) sb.append(':');
+                sb.append(fields[i]);
+            }
+            return sb.toString();
+        }
+
         public String toString() {
             StringBuilder sb = new StringBuilder();
             sb.append("name=" + theName).append(", ");
@@ -222,6 +291,7 @@ public class ReferenceDataLoader implements Observer {
             sb.append("sql=" + sql).append(", ");
             sb.append("key=" + key).append(", ");
             sb.append("value=" + value).append(", ");
+            sb.append("checksum=" + checksumSql).append(", ");
             sb.append("period=" + period).append(", ");
             sb.append("loadedTime=" + loadedTime);
             return sb.toString();
@@ -1,23 +1,30 @@
 /*
- *   This software is distributed under the terms of the FSF 
- *   Gnu Lesser General Public License (see lgpl.txt). 
+ *   This software is distributed under the terms of the FSF
+ *   Gnu Lesser General Public License (see lgpl.txt).
  *
  *   This program is distributed WITHOUT ANY WARRANTY. See the
  *   GNU General Public License for more details.
  */
 package com.scooterframework.orm.activerecord;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
-import java.util.Iterator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * ReferenceDataStore class holds static reference data for all users.
- * 
+ * <p>ReferenceDataStore class holds static reference data for all users.</p>
+ *
+ * <p>Data of each type is kept in an immutable snapshot which has indexes
+ * of the data by key and by value. Keys and values are matched case
+ * insensitively. Loading a type replaces its snapshot with a single
+ * volatile write, so that readers never see data which is partly loaded.</p>
+ *
  * @author (Fei) John Chen
- * 
+ *
  */
 public class ReferenceDataStore implements java.io.Serializable {
 
@@ -25,69 +32,55 @@ public class ReferenceDataStore implements java.io.Serializable {
 	 * Generated serialVersionUID
 	 */
 	private static final long serialVersionUID = 5382025995336758728L;
-    
-    private static Map<String, List<ReferenceData>> refData = new ConcurrentHashMap<String, List<ReferenceData>>();
-    private static Date refDataLoadedTime = null;
-	
+
+    private static volatile Map<String, Snapshot> refData = Collections.emptyMap();
+    private static volatile Date refDataLoadedTime = null;
+
 	/**
      * Gets ReferenceData by type and key
-     * 
+     *
      * @return  ReferenceData
      */
     public static ReferenceData getReferenceDataByTypeAndKey(String type, String keyData) {
         if (keyData == null) return null;
-        
-        ReferenceData rd = null;
-
-        List<ReferenceData> list = refData.get(type);
-        if ( list != null ) {
-            Iterator<ReferenceData> it = list.iterator();
-            while (it.hasNext()) {
-                ReferenceData tmp = it.next();
-                if (tmp != null && tmp.getKeyData() != null && 
-                		keyData.equalsIgnoreCase(tmp.getKeyData().toString())) {
-                    rd = tmp;
-                    break;
-                }
-            }
-        }
 
-        return rd;
+        Snapshot snapshot = refData.get(type);
+        return (snapshot != null)?snapshot.byKey.get(fold(keyData)):null;
     }
-    
+
     /**
      * Gets ReferenceData by type and value
-     * 
+     *
      * @return  ReferenceData
      */
     public static ReferenceData getReferenceDataByTypeAndValue(String type, Object valueData) {
         if (valueData == null) return null;
-        
-        ReferenceData rd = null;
-
-        List<ReferenceData> list = refData.get(type);
-        if ( list != null ) {
-            Iterator<ReferenceData> it = list.iterator();
-            while (it.hasNext()) {
-                ReferenceData tmp = it.next();
-                if (tmp != null && tmp.getValueData() != null && 
-                		valueData.toString().equalsIgnoreCase(tmp.getValueData().toString())) {
-                    rd = tmp;
-                    break;
-                }
-            }
-        }
 
-        return rd;
+        Snapshot snapshot = refData.get(type);
+        return (snapshot != null)?snapshot.byValue.get(fold(valueData.toString())):null;
     }
 
     /**
-     * Gets a list of ReferenceData instances for a certain type
-     * 
+     * Gets a list of ReferenceData instances for a certain type. The list
+     * is read-only.
+     *
      * @return List
      */
     public static List<ReferenceData> getReferenceDataList(String type) {
-        return refData.get(type);
+        Snapshot snapshot = refData.get(type);
+        return (snapshot != null)?snapshot.list:null;
+    }
+
+    /**
+     * Returns the checksum of the loaded data of a certain type, or null if
+     * the data was loaded without a checksum.
+     *
+     * @param type type of the data
+     * @return checksum string
+     */
+    public static String getReferenceDataChecksum(String type) {
+        Snapshot snapshot = refData.get(type);
+        return (snapshot != null)?snapshot.checksum:null;
     }
 
     /**
@@ -95,9 +88,15 @@ public class ReferenceDataStore implements java.io.Serializable {
      *
      * @param dataMap a map of reference data
      */
-    public static void setReferenceData(Map<String, List<ReferenceData>> dataMap) {
+    public static synchronized void setReferenceData(Map<String, List<ReferenceData>> dataMap) {
         if (dataMap == null || dataMap.size() == 0) return;
-        refData = dataMap;
+
+        Map<String, Snapshot> snapshots = new HashMap<String, Snapshot>();
+        for (Map.Entry<String, List<ReferenceData>> entry : dataMap.entrySet()) {
+            if (entry.getValue() == null) continue;
+            snapshots.put(entry.getKey(), new Snapshot(entry.getValue(), null));
+        }
+        refData = snapshots;
         refDataLoadedTime = new Date();
     }
 
@@ -108,9 +107,23 @@ public class ReferenceDataStore implements java.io.Serializable {
      * @param data a list of reference data
      */
     public static void setReferenceData(String type, List<ReferenceData> data) {
+        setReferenceData(type, data, null);
+    }
+
+    /**
+     * Sets ReferenceData for a certain type
+     *
+     * @param type     type of the data
+     * @param data     a list of reference data
+     * @param checksum checksum of the data, such as row count and the
+     *                 latest update time of the rows
+     */
+    public static synchronized void setReferenceData(String type, List<ReferenceData> data, String checksum) {
         if (data == null) return;
-        
-        refData.put(type, data);
+
+        Map<String, Snapshot> snapshots = new HashMap<String, Snapshot>(refData);
+        snapshots.put(type, new Snapshot(data, checksum));
+        refData = snapshots;
         refDataLoadedTime = new Date();
     }
 
@@ -120,6 +133,47 @@ public class ReferenceDataStore implements java.io.Serializable {
      * @return a date instance
      */
     public static Date getLastReferenceDataLoadedTime() {
-        return (refDataLoadedTime == null)?refDataLoadedTime:(new Date(refDataLoadedTime.getTime()));
+        Date d = refDataLoadedTime;
+        return (d == null)?d:(new Date(d.getTime()));
+    }
+
+    private static String fold(String s) {
+        return s.toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * Reference data of a type with indexes by key and by value. The first
+     * item of a key or a value in the list is indexed.
+     */
+    private static class Snapshot {
+        private final List<ReferenceData> list;
+        private final Map<String, ReferenceData> byKey;
+        private final Map<String, ReferenceData> byValue;
+        private final String checksum;
+
+        Snapshot(List<ReferenceData> data, String checksum) {
+            this.list = Collections.unmodifiableList(new ArrayList<ReferenceData>(data));
+            this.checksum = checksum;
+
+            Map<String, ReferenceData> keys = new HashMap<String, ReferenceData>();
+            Map<String, ReferenceData> values = new HashMap<String, ReferenceData>();
+            for (ReferenceData rd : list) {
+                if (rd == null) continue;
+
+                Object key = rd.getKeyData();
+                if (key != null) {
+                    String k = fold(key.toString());
+                    if (!keys.containsKey(k)) keys.put(k, rd);
+                }
+
+                Object value = rd.getValueData();
+                if (value != null) {
+                    String v = fold(value.toString());
+                    if (!values.containsKey(v)) values.put(v, rd);
+                }
+            }
+            this.byKey = keys;
+            this.byValue = values;
+        }
     }
 }
@@ -8,7 +8,8 @@
 package com.scooterframework.orm.activerecord;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -21,7 +22,17 @@ import com.scooterframework.orm.sqldataexpress.config.DatabaseConfig;
 import com.scooterframework.orm.sqldataexpress.object.RowInfo;
 
 /**
+ * <p>
  * RelationManager class manages relations. 
+ * </p>
+ * 
+ * <p>
+ * Besides the map of all relations keyed by relation key, relations are 
+ * indexed by owner model and by owner model and target class name. Each 
+ * index entry is an immutable snapshot which is replaced as a whole when 
+ * a relation of the owner is added or removed. Therefore lookups of the 
+ * relations of an owner do not lock and do not copy.
+ * </p>
  * 
  * @author (Fei) John Chen
  */
@@ -234,48 +245,29 @@ public class RelationManager {
     public List<String> getAllRelationNameTypes(Class<? extends ActiveRecord> clz) {
         _registerRelations(clz);
         
-        String model = ActiveRecordUtil.getModelName(clz);
-        String relationOwnerKey = getRelationOwnerKey(model);
         List<String> nameTypes = new ArrayList<String>();
-        
-    	for (Map.Entry<String, Relation> entry : relations.entrySet()) {
-            String key = entry.getKey();
-            if (key == null) continue;
-            if (key.startsWith(relationOwnerKey)) {
-                Relation r = entry.getValue();
-                String rType = (r != null)?r.getRelationType():null;
-                nameTypes.add(key + " = " + rType);
-            }
+        for (Relation r : getOwnerRelations(clz).relations) {
+            nameTypes.add(r.getRelationKey() + " = " + r.getRelationType());
         }
         
         return nameTypes;
     }
     
     /**
-     * Returns a list of relation instances owned by an owner class type.
+     * Returns a list of relation instances owned by an owner class type. 
+     * The returned list is read-only.
      * 
      * @param owner ActiveRecord class type
      * @return List of relation instances
      */
     public List<Relation> getOwnedRelations(Class<? extends ActiveRecord> owner) {
         _registerRelations(owner);
-        
-        String model = ActiveRecordUtil.getModelName(owner);
-        String relationOwnerKey = getRelationOwnerKey(model);
-        List<Relation> rls = new ArrayList<Relation>();
-
-        for (Map.Entry<String, Relation> entry : relations.entrySet()) {
-            String key = entry.getKey();
-            if (key != null && key.startsWith(relationOwnerKey)) {
-                rls.add(entry.getValue());
-            }
-        }
-        return rls;
+        return getOwnerRelations(owner).relations;
     }
     
     /**
      * Returns a list of relation instances owned by an owner class type 
-     * with the specific target class type.
+     * with the specific target class type. The returned list is read-only.
      * 
      * @param owner  owner ActiveRecord class type
      * @param target target ActiveRecord class type
@@ -283,21 +275,7 @@ public class RelationManager {
      */
     public List<Relation> getRelations(Class<? extends ActiveRecord> owner, Class<? extends ActiveRecord> target) {
         _registerRelations(owner);
-        
-        String model = ActiveRecordUtil.getModelName(owner);
-        String relationOwnerKey = getRelationOwnerKey(model);
-        List<Relation> rls = new ArrayList<Relation>();
-
-    	for (Map.Entry<String, Relation> entry : relations.entrySet()) {
-            String key = entry.getKey();
-            if (key != null && key.startsWith(relationOwnerKey)) {
-            	Relation r = (Relation)relations.get(key);
-            	if (target.getName().equals(r.getTargetClass().getName())) {
-            		rls.add(r);
-            	}
-            }
-        }
-        return rls;
+        return getOwnerRelations(owner).getRelations(target.getName());
     }
     
     /**
@@ -305,14 +283,13 @@ public class RelationManager {
      * 
      * @param model the owner of the relation
      */
-    public void removeRelationsFor(String model) {
+    public synchronized void removeRelationsFor(String model) {
         String relationOwnerKey = getRelationOwnerKey(model);
-
-    	for (Map.Entry<String, Relation> entry : relations.entrySet()) {
-            String key = entry.getKey();
-            if (key != null && key.startsWith(relationOwnerKey)) {
-            	relations.remove(key);
-            }
+        OwnerRelations ors = ownerRelationsMap.remove(relationOwnerKey);
+        if (ors == null) return;
+        
+        for (Relation r : ors.relations) {
+            relations.remove(r.getRelationKey());
         }
     }
     
@@ -325,7 +302,7 @@ public class RelationManager {
      */
     public Relation getRelation(Class<? extends ActiveRecord> owner, String associationId) {
         _registerRelations(owner);
-        return (Relation)relations.get(getRelationKey(owner, associationId));
+        return getOwnerRelations(owner).associationRelations.get(associationId.toLowerCase());
     }
     
     /**
@@ -337,18 +314,7 @@ public class RelationManager {
      */
     public String getRelationType(Class<? extends ActiveRecord> owner, Class<? extends ActiveRecord> target) {
     	List<Relation> list = getRelations(owner, target);
-    	if (list == null) return null;
-    	
-    	String type = null;
-    	Iterator<Relation> it = list.iterator();
-    	while(it.hasNext()) {
-    		Relation r = it.next();
-    		if (r != null) {
-	    		type = r.getRelationType();
-	    		break;
-    		}
-    	}
-    	return type;
+    	return (list.size() > 0)?list.get(0).getRelationType():null;
     }
     
     /**
@@ -359,19 +325,7 @@ public class RelationManager {
      * @return true if endA class belongs-to endB class
      */
     public boolean existsBelongsToRelationBetween(Class<? extends ActiveRecord> endA, Class<? extends ActiveRecord> endB) {
-    	List<Relation> list = getRelations(endA, endB);
-    	if (list == null) return false;
-    	
-    	boolean status = false;
-    	Iterator<Relation> it = list.iterator();
-    	while(it.hasNext()) {
-    		Relation r = (Relation)it.next();
-    		if (Relation.BELONGS_TO_TYPE.equals(r.getRelationType())) {
-    			status = true;
-    			break;
-            }
-    	}
-    	return status;
+        return getRelationBetween(endA, endB, Relation.BELONGS_TO_TYPE) != null;
     }
     
     /**
@@ -382,19 +336,7 @@ public class RelationManager {
      * @return true if endA class has-one endB class
      */
     public boolean existsHasOneRelationBetween(Class<? extends ActiveRecord> endA, Class<? extends ActiveRecord> endB) {
-    	List<Relation> list = getRelations(endA, endB);
-    	if (list == null) return false;
-    	
-    	boolean status = false;
-    	Iterator<Relation> it = list.iterator();
-    	while(it.hasNext()) {
-    		Relation r = (Relation)it.next();
-    		if (r != null && Relation.HAS_ONE_TYPE.equals(r.getRelationType())) {
-    			status = true;
-    			break;
-            }
-    	}
-    	return status;
+        return getRelationBetween(endA, endB, Relation.HAS_ONE_TYPE) != null;
     }
     
     /**
@@ -405,19 +347,7 @@ public class RelationManager {
      * @return true if endA class has-many endB class
      */
     public boolean existsHasManyRelationBetween(Class<? extends ActiveRecord> endA, Class<? extends ActiveRecord> endB) {
-    	List<Relation> list = getRelations(endA, endB);
-    	if (list == null) return false;
-    	
-    	boolean status = false;
-    	Iterator<Relation> it = list.iterator();
-    	while(it.hasNext()) {
-    		Relation r = (Relation)it.next();
-    		if (r != null && Relation.HAS_MANY_TYPE.equals(r.getRelationType())) {
-    			status = true;
-    			break;
-            }
-    	}
-    	return status;
+        return getRelationBetween(endA, endB, Relation.HAS_MANY_TYPE) != null;
     }
     
     /**
@@ -428,19 +358,7 @@ public class RelationManager {
      * @return true if endA class has-many-through endB class
      */
     public boolean existsHasManyThroughRelationBetween(Class<? extends ActiveRecord> endA, Class<? extends ActiveRecord> endB) {
-    	List<Relation> list = getRelations(endA, endB);
-    	if (list == null) return false;
-    	
-    	boolean status = false;
-    	Iterator<Relation> it = list.iterator();
-    	while(it.hasNext()) {
-    		Relation r = (Relation)it.next();
-    		if (r != null && Relation.HAS_MANY_THROUGH_TYPE.equals(r.getRelationType())) {
-    			status = true;
-    			break;
-            }
-    	}
-    	return status;
+        return getRelationBetween(endA, endB, Relation.HAS_MANY_THROUGH_TYPE) != null;
     }
     
     /**
@@ -451,19 +369,7 @@ public class RelationManager {
      * @return a belongs-to relation
      */
     public Relation getBelongsToRelationBetween(Class<? extends ActiveRecord> endA, Class<? extends ActiveRecord> endB) {
-    	Relation rel = null;
-    	List<Relation> list = getRelations(endA, endB);
-    	if (list == null) return null;
-    	
-    	Iterator<Relation> it = list.iterator();
-    	while(it.hasNext()) {
-    		Relation r = (Relation)it.next();
-    		if (r != null && Relation.BELONGS_TO_TYPE.equals(r.getRelationType())) {
-    			rel = r;
-    			break;
-            }
-    	}
-    	return rel;
+        return getRelationBetween(endA, endB, Relation.BELONGS_TO_TYPE);
     }
     
     /**
@@ -474,19 +380,7 @@ public class RelationManager {
      * @return a has-one relation
      */
     public Relation getHasOneRelationBetween(Class<? extends ActiveRecord> endA, Class<? extends ActiveRecord> endB) {
-    	Relation rel = null;
-    	List<Relation> list = getRelations(endA, endB);
-    	if (list == null) return null;
-    	
-    	Iterator<Relation> it = list.iterator();
-    	while(it.hasNext()) {
-    		Relation r = (Relation)it.next();
-    		if (r != null && Relation.HAS_ONE_TYPE.equals(r.getRelationType())) {
-    			rel = r;
-    			break;
-            }
-    	}
-    	return rel;
+        return getRelationBetween(endA, endB, Relation.HAS_ONE_TYPE);
     }
     
     /**
@@ -497,19 +391,7 @@ public class RelationManager {
      * @return a has-many relation
      */
     public Relation getHasManyRelationBetween(Class<? extends ActiveRecord> endA, Class<? extends ActiveRecord> endB) {
-    	Relation rel = null;
-    	List<Relation> list = getRelations(endA, endB);
-    	if (list == null) return null;
-    	
-    	Iterator<Relation> it = list.iterator();
-    	while(it.hasNext()) {
-    		Relation r = (Relation)it.next();
-    		if (r != null && Relation.HAS_MANY_TYPE.equals(r.getRelationType())) {
-    			rel = r;
-    			break;
-            }
-    	}
-    	return rel;
+        return getRelationBetween(endA, endB, Relation.HAS_MANY_TYPE);
     }
     
     /**
@@ -520,25 +402,19 @@ public class RelationManager {
      * @return a has-many-through relation
      */
     public Relation getHasManyThroughRelationBetween(Class<? extends ActiveRecord> endA, Class<? extends ActiveRecord> endB) {
-    	Relation rel = null;
+        return getRelationBetween(endA, endB, Relation.HAS_MANY_THROUGH_TYPE);
+    }
+    
+    private Relation getRelationBetween(Class<? extends ActiveRecord> endA, Class<? extends ActiveRecord> endB, String type) {
     	List<Relation> list = getRelations(endA, endB);
-    	if (list == null) return null;
-    	
-    	Iterator<Relation> it = list.iterator();
-    	while(it.hasNext()) {
-    		Relation r = (Relation)it.next();
-    		if (r != null && Relation.HAS_MANY_THROUGH_TYPE.equals(r.getRelationType())) {
-    			rel = r;
-    			break;
-            }
+    	int size = list.size();
+    	for (int i = 0; i < size; i++) {
+    		Relation r = list.get(i);
+    		if (type.equals(r.getRelationType())) return r;
     	}
-    	return rel;
+    	return null;
     }
     
-    
-    
-    
-    
     /**
      * Registers a Category.
      * 
@@ -741,12 +617,12 @@ public class RelationManager {
      * Check if a class has been set up relations.
      */
     private boolean hasCompletedRelationSetup(String className) {
-        return completedClasses.contains(className);
+        return completedClasses.containsKey(className);
     }
     
     private void completeRegistration(String className) {
         if (DatabaseConfig.getInstance().isInDevelopmentEnvironment()) return;
-        completedClasses.add(className);
+        completedClasses.put(className, Boolean.TRUE);
     }
 
     private void _registerRelations(Class<? extends ActiveRecord> clz) {
@@ -816,6 +692,24 @@ public class RelationManager {
         return (a + ":").toLowerCase();
     }
     
+    private OwnerRelations getOwnerRelations(Class<? extends ActiveRecord> owner) {
+        String className = owner.getName();
+        String relationOwnerKey = null;
+        if (ActiveRecord.class.getName().equals(className)) {
+            relationOwnerKey = getRelationOwnerKey(ActiveRecordUtil.getModelName(owner));
+        }
+        else {
+            relationOwnerKey = relationOwnerKeys.get(className);
+            if (relationOwnerKey == null) {
+                relationOwnerKey = getRelationOwnerKey(ActiveRecordUtil.getModelName(owner));
+                relationOwnerKeys.put(className, relationOwnerKey);
+            }
+        }
+        
+        OwnerRelations ors = ownerRelationsMap.get(relationOwnerKey);
+        return (ors != null)?ors:OwnerRelations.EMPTY;
+    }
+    
     private void validateCascade(Map<String, String> properties, String rtype, String relationKey) {
         if (properties == null) return;
         
@@ -835,8 +729,63 @@ public class RelationManager {
         }
     }
     
-    private void cacheRelation(String key, Relation relation) {
-        relations.put(key, relation);
+    private synchronized void cacheRelation(String key, Relation relation) {
+        Relation old = relations.put(key, relation);
+        
+        String relationOwnerKey = key.substring(0, key.indexOf(':') + 1);
+        OwnerRelations ors = ownerRelationsMap.get(relationOwnerKey);
+        List<Relation> list = new ArrayList<Relation>();
+        if (ors != null) {
+            for (Relation r : ors.relations) {
+                if (r != old) list.add(r);
+            }
+        }
+        list.add(relation);
+        ownerRelationsMap.put(relationOwnerKey, new OwnerRelations(list));
+    }
+    
+    /**
+     * OwnerRelations is an immutable snapshot of relations of an owner.
+     */
+    private static class OwnerRelations {
+        static final OwnerRelations EMPTY = new OwnerRelations(new ArrayList<Relation>());
+        
+        final List<Relation> relations;
+        
+        //key is target class name
+        final Map<String, List<Relation>> targetRelations;
+        
+        //key is association id in lower case
+        final Map<String, Relation> associationRelations;
+        
+        OwnerRelations(List<Relation> list) {
+            relations = Collections.unmodifiableList(list);
+            
+            associationRelations = new HashMap<String, Relation>();
+            Map<String, List<Relation>> map = new HashMap<String, List<Relation>>();
+            for (Relation r : list) {
+                String key = r.getRelationKey();
+                associationRelations.put(key.substring(key.indexOf(':') + 1), r);
+                
+                String target = r.getTargetClass().getName();
+                List<Relation> rls = map.get(target);
+                if (rls == null) {
+                    rls = new ArrayList<Relation>();
+                    map.put(target, rls);
+                }
+                rls.add(r);
+            }
+            for (Map.Entry<String, List<Relation>> entry : map.entrySet()) {
+                entry.setValue(Collections.unmodifiableList(entry.getValue()));
+            }
+            targetRelations = map;
+        }
+        
+        List<Relation> getRelations(String targetClassName) {
+            List<Relation> rls = targetRelations.get(targetClassName);
+            if (rls != null) return rls;
+            return Collections.emptyList();
+        }
     }
 
     /**
@@ -849,8 +798,17 @@ public class RelationManager {
      */
     private Map<String, Relation> relations = new ConcurrentHashMap<String, Relation>();
     
-    //List of setup classes. Each entry in the list is a full class name.
-    private List<String> completedClasses = new ArrayList<String>();
+    /**
+     * Map of relation owner key and relations of the owner. See 
+     * {@link #getRelationOwnerKey(String)} method for the key.
+     */
+    private Map<String, OwnerRelations> ownerRelationsMap = new ConcurrentHashMap<String, OwnerRelations>();
+    
+    //Map of full class name of a model and its relation owner key.
+    private Map<String, String> relationOwnerKeys = new ConcurrentHashMap<String, String>();
+    
+    //Map of setup classes. Each key in the map is a full class name.
+    private Map<String, Boolean> completedClasses = new ConcurrentHashMap<String, Boolean>();
     
     /**
      * Map of category name and corresponding category instance, key is 
@@ -10,12 +10,15 @@ package com.scooterframework.orm.activerecord;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.StringTokenizer;
 
-import com.scooterframework.common.exception.ObjectCreationException;
+import com.scooterframework.common.exception.InvalidOperationException;
 import com.scooterframework.common.exception.RequiredDataMissingException;
+import com.scooterframework.common.logging.LogUtil;
 import com.scooterframework.common.util.Converters;
 import com.scooterframework.common.util.StringUtil;
 import com.scooterframework.common.util.Util;
@@ -32,6 +35,9 @@ import com.scooterframework.orm.sqldataexpress.service.SqlService;
 import com.scooterframework.orm.sqldataexpress.service.SqlServiceClient;
 import com.scooterframework.orm.sqldataexpress.service.SqlServiceConfig;
 import com.scooterframework.orm.sqldataexpress.util.SqlConstants;
+import com.scooterframework.orm.sqldataexpress.vendor.DBAdapterFactory;
+import com.scooterframework.transaction.ImplicitTransactionManager;
+import com.scooterframework.transaction.TransactionManagerUtil;
 
 /**
  * <p>
@@ -326,7 +332,7 @@ public class TableGateway {
 		
 		Object cacheKey = null;
 		if (modelCacheClient.useCache("findById")) {
-			cacheKey = modelCacheClient.getCacheKey("findById", findSQL, inputs);
+			cacheKey = modelCacheClient.getRecordCacheKey("findById", id);
 			ar = (ActiveRecord) modelCacheClient.getCache().get(cacheKey);
 			if (ar != null) return ar;
 		}
@@ -337,11 +343,10 @@ public class TableGateway {
 
 			RowData tmpRd = returnTO.getTableData(findSQL).getRow(0);
 			if (tmpRd != null) {
-				ar = (ActiveRecord) createNewInstance();
-				ar.populateDataFromDatabase(tmpRd);
+				ar = createNewInstance(tmpRd);
 				
 				if (modelCacheClient.useCache("findById")) {
-					modelCacheClient.getCache().put(cacheKey, ar);
+					modelCacheClient.putCache(cacheKey, ar);
 				}
 			}
 		} catch (Exception ex) {
@@ -372,7 +377,7 @@ public class TableGateway {
 		
 		Object cacheKey = null;
 		if (modelCacheClient.useCache("findByRESTfulId")) {
-			cacheKey = modelCacheClient.getCacheKey("findByRESTfulId", restfulId);
+			cacheKey = modelCacheClient.getRecordCacheKey("findByRESTfulId", restfulId);
 			record = (ActiveRecord) modelCacheClient.getCache().get(cacheKey);
 			if (record != null) return record;
 		}
@@ -380,7 +385,7 @@ public class TableGateway {
 		record = findFirst(pkMap);
 		if (record != null) {
 			if (modelCacheClient.useCache("findByRESTfulId")) {
-				modelCacheClient.getCache().put(cacheKey, record);
+				modelCacheClient.putCache(cacheKey, record);
 			}
 		}
 		
@@ -406,7 +411,7 @@ public class TableGateway {
 		
 		Object cacheKey = null;
 		if (modelCacheClient.useCache("findByPK")) {
-			cacheKey = modelCacheClient.getCacheKey("findByPK", pkString);
+			cacheKey = modelCacheClient.getRecordCacheKey("findByPK", pkString);
 			record = (ActiveRecord) modelCacheClient.getCache().get(cacheKey);
 			if (record != null) return record;
 		}
@@ -414,7 +419,7 @@ public class TableGateway {
 		record = findByRESTfulId(pkString);
 		if (record != null) {
 			if (modelCacheClient.useCache("findByPK")) {
-				modelCacheClient.getCache().put(cacheKey, record);
+				modelCacheClient.putCache(cacheKey, record);
 			}
 		}
 		
@@ -452,7 +457,7 @@ public class TableGateway {
 		
 		Object cacheKey = null;
 		if (modelCacheClient.useCache("findAllBySQL")) {
-			cacheKey = modelCacheClient.getCacheKey("findAllBySQL", sql, inputs);
+			cacheKey = modelCacheClient.getQueryCacheKey("findAllBySQL", sql, inputs);
 			list = (List<ActiveRecord>) modelCacheClient.getCache().get(cacheKey);
 			if (list != null) return list;
 		}
@@ -468,13 +473,13 @@ public class TableGateway {
 					if (records > 0) {
 						list = new ArrayList<ActiveRecord>();
 						for (int i = 0; i < records; i++) {
-							ActiveRecord newRecord = (ActiveRecord) createNewInstance();
-							newRecord.populateDataFromDatabase(rt.getRow(i));
+							ActiveRecord newRecord = createNewInstance(rt.getRow(i));
 							list.add(newRecord);
 						}
+						RecordLoadGroup.join(list);
 						
 						if (modelCacheClient.useCache("findAllBySQL")) {
-							modelCacheClient.getCache().put(cacheKey, list);
+							modelCacheClient.putCache(cacheKey, list);
 						}
 					}
 				}
@@ -518,7 +523,7 @@ public class TableGateway {
 		
 		Object cacheKey = null;
 		if (modelCacheClient.useCache("findAllBySQLKey")) {
-			cacheKey = modelCacheClient.getCacheKey("findAllBySQLKey", sqlKey, inputs);
+			cacheKey = modelCacheClient.getQueryCacheKey("findAllBySQLKey", sqlKey, inputs);
 			list = (List<ActiveRecord>) modelCacheClient.getCache().get(cacheKey);
 			if (list != null) return list;
 		}
@@ -534,13 +539,13 @@ public class TableGateway {
 					if (records > 0) {
 						list = new ArrayList<ActiveRecord>();
 						for (int i = 0; i < records; i++) {
-							ActiveRecord newRecord = (ActiveRecord) createNewInstance();
-							newRecord.populateDataFromDatabase(rt.getRow(i));
+							ActiveRecord newRecord = createNewInstance(rt.getRow(i));
 							list.add(newRecord);
 						}
+						RecordLoadGroup.join(list);
 						
 						if (modelCacheClient.useCache("findAllBySQLKey")) {
-							modelCacheClient.getCache().put(cacheKey, list);
+							modelCacheClient.putCache(cacheKey, list);
 						}
 					}
 				}
@@ -574,7 +579,7 @@ public class TableGateway {
 		
 		Object cacheKey = null;
 		if (modelCacheClient.useCache("findFirstBy")) {
-			cacheKey = modelCacheClient.getCacheKey("findFirstBy", columns, values);
+			cacheKey = modelCacheClient.getQueryCacheKey("findFirstBy", columns, values);
 			record = (ActiveRecord) modelCacheClient.getCache().get(cacheKey);
 			if (record != null) return record;
 		}
@@ -584,7 +589,7 @@ public class TableGateway {
 			record = (ActiveRecord) all.get(0);
 			if (record != null) {
 				if (modelCacheClient.useCache("findFirstBy")) {
-					modelCacheClient.getCache().put(cacheKey, record);
+					modelCacheClient.putCache(cacheKey, record);
 				}
 			}
 		}
@@ -614,7 +619,7 @@ public class TableGateway {
 		
 		Object cacheKey = null;
 		if (modelCacheClient.useCache("findLastBy")) {
-			cacheKey = modelCacheClient.getCacheKey("findLastBy", columns, values);
+			cacheKey = modelCacheClient.getQueryCacheKey("findLastBy", columns, values);
 			record = (ActiveRecord) modelCacheClient.getCache().get(cacheKey);
 			if (record != null) return record;
 		}
@@ -624,7 +629,7 @@ public class TableGateway {
 			record = (ActiveRecord) all.get(all.size() - 1);
 			if (record != null) {
 				if (modelCacheClient.useCache("findLastBy")) {
-					modelCacheClient.getCache().put(cacheKey, record);
+					modelCacheClient.putCache(cacheKey, record);
 				}
 			}
 		}
@@ -690,7 +695,8 @@ public class TableGateway {
 		
 		Object cacheKey = null;
 		if (modelCacheClient.useCache("findAllBy")) {
-			cacheKey = modelCacheClient.getCacheKey("findAllBy", map, options);
+			cacheKey = modelCacheClient.getQueryCacheKey("findAllBy", 
+					getIncludedModelClasses(options), map, options);
 			list = (List<ActiveRecord>) modelCacheClient.getCache().get(cacheKey);
 			if (list != null) return list;
 		}
@@ -698,7 +704,7 @@ public class TableGateway {
 		list = findAll(map, options);
 		if (modelCacheClient.useCache("findAllBy")) {
 			if (list != null && list.size() > 0)
-				modelCacheClient.getCache().put(cacheKey, list);
+				modelCacheClient.putCache(cacheKey, list);
 		}
 
 		return list;
@@ -933,6 +939,137 @@ public class TableGateway {
 				Converters.convertSqlOptionStringToMap(options));
 	}
 
+	/**
+	 * <p>
+	 * Streams all the records that satisfy the conditions.
+	 * </p>
+	 * 
+	 * @param conditionsSQL
+	 *            a SQL fragment string
+	 * @return an iterator of ActiveRecord objects
+	 * @see #stream(String, Map, Map)
+	 */
+	public RecordIterator stream(String conditionsSQL) {
+		return stream(conditionsSQL, null, (Map<String, String>) null);
+	}
+
+	/**
+	 * <p>
+	 * Streams all the records that satisfy the conditions.
+	 * </p>
+	 * 
+	 * @param conditionsSQL
+	 *            a SQL fragment string
+	 * @param conditionsSQLData
+	 *            a data map for dynamic attributes in <tt>conditionsSQL</tt>
+	 * @return an iterator of ActiveRecord objects
+	 * @see #stream(String, Map, Map)
+	 */
+	public RecordIterator stream(String conditionsSQL, 
+			Map<String, Object> conditionsSQLData) {
+		return stream(conditionsSQL, conditionsSQLData, (Map<String, String>) null);
+	}
+
+	/**
+	 * <p>
+	 * Streams all the records that satisfy the conditions and options. 
+	 * Unlike <tt>findAll</tt> methods, records are not loaded all at once. 
+	 * Each record is created only when the iterator gets to it, so memory 
+	 * use stays the same no matter how many records there are. This is 
+	 * useful for exports and batch jobs over large tables.
+	 * </p>
+	 * 
+	 * <p>
+	 * The returned iterator holds a database connection and must be closed 
+	 * if not all records are read. Records are not cached, and 
+	 * <tt>include</tt> option is not supported.
+	 * </p>
+	 * 
+	 * @param conditionsSQL
+	 *            a SQL fragment string
+	 * @param conditionsSQLData
+	 *            a data map for dynamic attributes in <tt>conditionsSQL</tt>
+	 * @param options
+	 *            a map of options.
+	 * @return an iterator of ActiveRecord objects
+	 */
+	public RecordIterator stream(String conditionsSQL,
+			Map<String, Object> conditionsSQLData, Map<String, String> options) {
+		if (options == null)
+			options = new HashMap<String, String>();
+
+		if (options.containsKey(ActiveRecordConstants.key_include) || 
+				options.containsKey(ActiveRecordConstants.key_strict_include)) {
+			throw new IllegalArgumentException("Option include is not supported in streaming records.");
+		}
+
+		Map<String, Object> inputs = 
+			constructFindSQL(conditionsSQL, conditionsSQLData, options);
+		String findSQL = (String) inputs.get(ActiveRecordConstants.key_finder_sql);
+		inputs = addMoreProperties(inputs, options);
+		inputs.put(DataProcessor.input_key_records_offset, Integer.valueOf(getOffset(options)));
+		inputs.put(DataProcessor.input_key_records_limit, Integer.valueOf(getLimit(options)));
+
+		return new RecordIterator(this, getSqlService().streamRows(inputs,
+				DataProcessorTypes.DIRECT_SQL_STATEMENT_PROCESSOR, findSQL));
+	}
+
+	/**
+	 * <p>
+	 * Passes each record that satisfies the conditions to the callback. 
+	 * </p>
+	 * 
+	 * @param conditionsSQL
+	 *            a SQL fragment string
+	 * @param conditionsSQLData
+	 *            a data map for dynamic attributes in <tt>conditionsSQL</tt>
+	 * @param callback
+	 *            the callback to process each record
+	 * @return number of records processed
+	 * @see #forEach(String, Map, Map, RecordCallback)
+	 */
+	public int forEach(String conditionsSQL, 
+			Map<String, Object> conditionsSQLData, RecordCallback callback) {
+		return forEach(conditionsSQL, conditionsSQLData, null, callback);
+	}
+
+	/**
+	 * <p>
+	 * Passes each record that satisfies the conditions and options to the 
+	 * callback. Records are streamed in the same way as 
+	 * {@link #stream(String, Map, Map)}. The iteration stops when the 
+	 * callback returns <tt>false</tt>. Database resources are released 
+	 * before this method returns.
+	 * </p>
+	 * 
+	 * @param conditionsSQL
+	 *            a SQL fragment string
+	 * @param conditionsSQLData
+	 *            a data map for dynamic attributes in <tt>conditionsSQL</tt>
+	 * @param options
+	 *            a map of options.
+	 * @param callback
+	 *            the callback to process each record
+	 * @return number of records processed
+	 */
+	public int forEach(String conditionsSQL, Map<String, Object> conditionsSQLData, 
+			Map<String, String> options, RecordCallback callback) {
+		if (callback == null)
+			throw new IllegalArgumentException("callback is null.");
+
+		int count = 0;
+		RecordIterator it = stream(conditionsSQL, conditionsSQLData, options);
+		try {
+			while (it.hasNext()) {
+				count++;
+				if (!callback.process(it.next())) break;
+			}
+		} finally {
+			it.close();
+		}
+		return count;
+	}
+
 	/**
 	 * <p>
 	 * Finds the first record of a table.
@@ -991,7 +1128,8 @@ public class TableGateway {
 		
 		Object cacheKey = null;
 		if (modelCacheClient.useCache("findFirst")) {
-			cacheKey = modelCacheClient.getCacheKey("findFirst", conditions, options);
+			cacheKey = modelCacheClient.getQueryCacheKey("findFirst", 
+					getIncludedModelClasses(options), conditions, options);
 			record = (ActiveRecord) modelCacheClient.getCache().get(cacheKey);
 			if (record != null) return record;
 		}
@@ -1001,7 +1139,7 @@ public class TableGateway {
 		
 		if (record != null) {
 			if (modelCacheClient.useCache("findFirst")) {
-				modelCacheClient.getCache().put(cacheKey, record);
+				modelCacheClient.putCache(cacheKey, record);
 			}
 		}
 		
@@ -1124,7 +1262,8 @@ public class TableGateway {
 		
 		Object cacheKey = null;
 		if (modelCacheClient.useCache("findFirst")) {
-			cacheKey = modelCacheClient.getCacheKey("findFirst", conditionsSQL, conditionsSQLData, options);
+			cacheKey = modelCacheClient.getQueryCacheKey("findFirst", 
+					getIncludedModelClasses(options), conditionsSQL, conditionsSQLData, options);
 			record = (ActiveRecord) modelCacheClient.getCache().get(cacheKey);
 			if (record != null) return record;
 		}
@@ -1134,7 +1273,7 @@ public class TableGateway {
 		
 		if (record != null) {
 			if (modelCacheClient.useCache("findFirst")) {
-				modelCacheClient.getCache().put(cacheKey, record);
+				modelCacheClient.putCache(cacheKey, record);
 			}
 		}
 		
@@ -1217,7 +1356,8 @@ public class TableGateway {
 		
 		Object cacheKey = null;
 		if (modelCacheClient.useCache("findLast")) {
-			cacheKey = modelCacheClient.getCacheKey("findLast", conditions, options);
+			cacheKey = modelCacheClient.getQueryCacheKey("findLast", 
+					getIncludedModelClasses(options), conditions, options);
 			record = (ActiveRecord) modelCacheClient.getCache().get(cacheKey);
 			if (record != null) return record;
 		}
@@ -1228,7 +1368,7 @@ public class TableGateway {
 		
 		if (record != null) {
 			if (modelCacheClient.useCache("findLast")) {
-				modelCacheClient.getCache().put(cacheKey, record);
+				modelCacheClient.putCache(cacheKey, record);
 			}
 		}
 		
@@ -1343,7 +1483,8 @@ public class TableGateway {
 		
 		Object cacheKey = null;
 		if (modelCacheClient.useCache("findLast")) {
-			cacheKey = modelCacheClient.getCacheKey("findLast", conditionsSQL, conditionsSQLData, options);
+			cacheKey = modelCacheClient.getQueryCacheKey("findLast", 
+					getIncludedModelClasses(options), conditionsSQL, conditionsSQLData, options);
 			record = (ActiveRecord) modelCacheClient.getCache().get(cacheKey);
 			if (record != null) return record;
 		}
@@ -1354,7 +1495,7 @@ public class TableGateway {
 		
 		if (record != null) {
 			if (modelCacheClient.useCache("findLast")) {
-				modelCacheClient.getCache().put(cacheKey, record);
+				modelCacheClient.putCache(cacheKey, record);
 			}
 		}
 		
@@ -1404,7 +1545,7 @@ public class TableGateway {
 			
 			Object cacheKey = null;
 			if (modelCacheClient.useCache("findAll")) {
-				cacheKey = modelCacheClient.getCacheKey("findAll", findSQL, inputs, limit, offset);
+				cacheKey = modelCacheClient.getQueryCacheKey("findAll", findSQL, inputs, limit, offset);
 				list = (List<ActiveRecord>) modelCacheClient.getCache().get(cacheKey);
 				if (list != null) return list;
 			}
@@ -1418,13 +1559,13 @@ public class TableGateway {
 				if (records > 0) {
 					list = new ArrayList<ActiveRecord>();
 					for (int i = 0; i < records; i++) {
-						ActiveRecord newRecord = (ActiveRecord) createNewInstance();
-						newRecord.populateDataFromDatabase(td.getRow(i));
+						ActiveRecord newRecord = createNewInstance(td.getRow(i));
 						list.add(newRecord);
 					}
+					RecordLoadGroup.join(list);
 					
 					if (modelCacheClient.useCache("findAll")) {
-						modelCacheClient.getCache().put(cacheKey, list);
+						modelCacheClient.putCache(cacheKey, list);
 					}
 				}
 			}
@@ -1452,7 +1593,7 @@ public class TableGateway {
 			
 			Object cacheKey = null;
 			if (modelCacheClient.useCache("findAll")) {
-				cacheKey = modelCacheClient.getCacheKey("findAll", findSQL, inputs, limit, offset);
+				cacheKey = modelCacheClient.getQueryCacheKey("findAll", findSQL, inputs, limit, offset);
 				list = (List<ActiveRecord>) modelCacheClient.getCache().get(cacheKey);
 				if (list != null) return list;
 			}
@@ -1466,13 +1607,13 @@ public class TableGateway {
 				if (records > 0) {
 					list = new ArrayList<ActiveRecord>();
 					for (int i = 0; i < records; i++) {
-						ActiveRecord newRecord = (ActiveRecord) createNewInstance();
-						newRecord.populateDataFromDatabase(td.getRow(i));
+						ActiveRecord newRecord = createNewInstance(td.getRow(i));
 						list.add(newRecord);
 					}
+					RecordLoadGroup.join(list);
 					
 					if (modelCacheClient.useCache("findAll")) {
-						modelCacheClient.getCache().put(cacheKey, list);
+						modelCacheClient.putCache(cacheKey, list);
 					}
 				}
 			}
@@ -1521,14 +1662,11 @@ public class TableGateway {
 		return limit;
 	}
 
-	Object createNewInstance() throws Exception {
-		Object o = null;
-		try {
-			o = home.getClass().newInstance();
-		} catch (Exception ex) {
-			throw new ObjectCreationException(home.getClass().getName(), ex);
-		}
-		return o;
+	/**
+	 * Creates a record of the model class with data from database.
+	 */
+	ActiveRecord createNewInstance(RowData rd) {
+		return RecordFactory.getInstance(home.getClass()).newRecord(rd);
 	}
 
 	Map<String, Object> constructFindSQL(Map<String, Object> conditions,
@@ -1745,6 +1883,11 @@ public class TableGateway {
 			Map<String, String> options) {
 		IncludeHelper sqlHelper = new IncludeHelper(getModelClass(),
 				conditions, options);
+		if (sqlHelper.usePreload()) {
+			Map<String, String> mainOptions = getPreloadMainOptions(options);
+			return internal_findAll_preload(sqlHelper, 
+					constructFindSQL(conditions, mainOptions), mainOptions);
+		}
 		return internal_findAll_include_fetch(sqlHelper, options);
 	}
 
@@ -1755,9 +1898,84 @@ public class TableGateway {
 			Map<String, Object> conditionsSQLData, Map<String, String> options) {
 		IncludeHelper sqlHelper = new IncludeHelper(getModelClass(),
 				conditionsSQL, conditionsSQLData, options);
+		if (sqlHelper.usePreload()) {
+			Map<String, String> mainOptions = getPreloadMainOptions(options);
+			
+			//conditions_sql option is applied by joins, but not by 
+			//constructFindSQL with conditionsSQL
+			String conditionSql = mainOptions.remove(ActiveRecordConstants.key_conditions_sql);
+			if (conditionSql != null && !"".equals(conditionSql.trim())) {
+				conditionsSQL = (conditionsSQL != null && !"".equals(conditionsSQL.trim()))?
+						("(" + conditionsSQL + ") AND (" + conditionSql + ")"):conditionSql;
+			}
+			
+			return internal_findAll_preload(sqlHelper, 
+					constructFindSQL(conditionsSQL, conditionsSQLData, mainOptions), mainOptions);
+		}
 		return internal_findAll_include_fetch(sqlHelper, options);
 	}
 
+	private Map<String, String> getPreloadMainOptions(Map<String, String> options) {
+		Map<String, String> mainOptions = new HashMap<String, String>(options);
+		mainOptions.remove(ActiveRecordConstants.key_include);
+		mainOptions.remove(ActiveRecordConstants.key_strict_include);
+		mainOptions.remove(ActiveRecordConstants.key_join_type);
+		mainOptions.remove(ActiveRecordConstants.key_include_strategy);
+		return mainOptions;
+	}
+
+	/**
+	 * Finds the main records first and then preloads their associated 
+	 * records with separate queries.
+	 */
+	@SuppressWarnings("unchecked")
+	private List<ActiveRecord> internal_findAll_preload(IncludeHelper sqlHelper, 
+			Map<String, Object> inputs, Map<String, String> options) {
+		List<ActiveRecord> list = null;
+
+		try {
+			String findSQL = (String) inputs.get(ActiveRecordConstants.key_finder_sql);
+			int offset = getOffset(options);
+			int limit = getLimit(options);
+
+			inputs = addMoreProperties(inputs, options);
+			
+			Object cacheKey = null;
+			if (modelCacheClient.useCache("findAll") && modelCacheClient.allowCacheAssociatedObjects()) {
+				cacheKey = modelCacheClient.getQueryCacheKey("findAll.preload", 
+						sqlHelper.getIncludedModelClasses(), findSQL, inputs, limit, offset);
+				list = (List<ActiveRecord>) modelCacheClient.getCache().get(cacheKey);
+				if (list != null) return list;
+			}
+
+			TableData td = getSqlService().retrieveRows(inputs,
+					DataProcessorTypes.DIRECT_SQL_STATEMENT_PROCESSOR, findSQL,
+					limit, offset);
+
+			if (td != null) {
+				int records = td.getTableSize();
+				list = new ArrayList<ActiveRecord>(records);
+				for (int i = 0; i < records; i++) {
+					ActiveRecord newRecord = createNewInstance(td.getRow(i));
+					list.add(newRecord);
+				}
+				RecordLoadGroup.join(list);
+				
+				sqlHelper.preload(list);
+				
+				if (modelCacheClient.useCache("findAll") && modelCacheClient.allowCacheAssociatedObjects()) {
+					modelCacheClient.putCache(cacheKey, list);
+				}
+			}
+		} catch (BaseSQLException ex) {
+			throw ex;
+		} catch (Exception ex) {
+			throw new BaseSQLException(ex);
+		}
+
+		return (list != null) ? list : (new ArrayList<ActiveRecord>());
+	}
+
 	/**
 	 * Finds a list of records that satisfy the conditions and options in a
 	 * has-many-through relation.
@@ -1787,7 +2005,8 @@ public class TableGateway {
 			
 			Object cacheKey = null;
 			if (modelCacheClient.useCache("findAll") && modelCacheClient.allowCacheAssociatedObjects()) {
-				cacheKey = modelCacheClient.getCacheKey("findAll", findSQL, inputs, limit, offset);
+				cacheKey = modelCacheClient.getQueryCacheKey("findAll", 
+						sqlHelper.getIncludedModelClasses(), findSQL, inputs, limit, offset);
 				list = (List<ActiveRecord>) modelCacheClient.getCache().get(cacheKey);
 				if (list != null) return list;
 			}
@@ -1798,9 +2017,10 @@ public class TableGateway {
 
 			if (td != null) {
 				list = sqlHelper.organizeData(td);
+				RecordLoadGroup.join(list);
 				
 				if (modelCacheClient.useCache("findAll") && modelCacheClient.allowCacheAssociatedObjects()) {
-					modelCacheClient.getCache().put(cacheKey, list);
+					modelCacheClient.putCache(cacheKey, list);
 				}
 			}
 		} catch (Exception ex) {
@@ -1846,13 +2066,14 @@ public class TableGateway {
 			throw new IllegalArgumentException("There is no column name as ID");
 		}
 		
-		modelCacheClient.clearCache("deleteById");
-
 		Map<String, Object> inputs = new HashMap<String, Object>();
+		inputs.put("1", id);
 		inputs = addMoreProperties(inputs, null);
 
 		String deleteSQL = "DELETE FROM " + home.getTableName() + " WHERE id = ?";
-		return SqlServiceClient.executeSQL(deleteSQL, inputs);
+		int count = SqlServiceClient.executeSQL(deleteSQL, inputs);
+		modelCacheClient.clearCacheById("deleteById", id);
+		return count;
 	}
 
 	/**
@@ -1868,7 +2089,6 @@ public class TableGateway {
 		Map<String, Object> pkMap = convertToPrimaryKeyDataMap(pkString);
 		if (pkMap == null) return 0;
 		
-		modelCacheClient.clearCache("deleteByPK");
 		return deleteByPrimaryKeyMap(pkMap);
 	}
 
@@ -1882,10 +2102,9 @@ public class TableGateway {
 	public int deleteByPrimaryKeyMap(Map<String, Object> dataMap) {
 		if (dataMap == null || dataMap.size() == 0)	return -1;
 		
-		modelCacheClient.clearCache("deleteByPrimaryKeyMap");
-
 		// construct a map of primary keys
 		Map<String, Object> pkMap = new HashMap<String, Object>();
+		StringBuilder pkString = new StringBuilder();
 		String[] pkNames = home.getPrimaryKeyNames();
 		int length = pkNames.length;
 		for (int i = 0; i < length; i++) {
@@ -1897,9 +2116,13 @@ public class TableGateway {
 				throw rdmEx;
 			}
 			pkMap.put(name, data);
+			if (i > 0) pkString.append(DatabaseConfig.PRIMARY_KEY_SEPARATOR);
+			pkString.append(data);
 		}
 
-		return deleteAll(pkMap);
+		int count = internal_deleteAll(pkMap);
+		modelCacheClient.clearCacheByPK("deleteByPrimaryKeyMap", pkString.toString());
+		return count;
 	}
 
 	/**
@@ -2017,7 +2240,7 @@ public class TableGateway {
 		return internal_deleteAll(conditionsSQL, conditionsSQLData);
 	}
 
-	private int internal_deleteAll(Map<String, Object> conditions) {
+	int internal_deleteAll(Map<String, Object> conditions) {
 		int count = -1;
 		String deleteSQL = "DELETE FROM " + home.getTableName();
 
@@ -2227,6 +2450,278 @@ public class TableGateway {
 		return field;
 	}
 
+	/**
+	 * <p>
+	 * Inserts a list of new records in JDBC batches. This is the same as 
+	 * calling <tt>insertAll(records, batchSize)</tt> with batch size 
+	 * defined by <tt>batch.size</tt> property in database.properties file.
+	 * </p>
+	 * 
+	 * @param records
+	 *            list of new records of this gateway's model
+	 * @return number of records inserted
+	 * @see #insertAll(List, int)
+	 */
+	public int insertAll(List<? extends ActiveRecord> records) {
+		return insertAll(records, DatabaseConfig.getInstance().getBatchSize());
+	}
+
+	/**
+	 * <p>
+	 * Inserts a list of new records in JDBC batches. Records whose insert 
+	 * statements have the same columns are grouped together, and each 
+	 * group is sent to database in batches of at most <tt>batchSize</tt> 
+	 * rows. All batches run in one transaction, which is committed after 
+	 * the last batch and rolled back if any batch fails. If this method is 
+	 * called within a transaction, the batches become part of it.
+	 * </p>
+	 * 
+	 * <p>
+	 * Like {@link ActiveRecord#create()}, this method calls 
+	 * <tt>beforeCreate()</tt> and <tt>afterCreate()</tt> of each record, 
+	 * and populates primary keys generated by database. If the database 
+	 * driver cannot return generated keys of a batch, records that need 
+	 * them are inserted one by one on the same statement. Model cache is 
+	 * flushed once for each batch.
+	 * </p>
+	 * 
+	 * @param records
+	 *            list of new records of this gateway's model
+	 * @param batchSize
+	 *            maximum number of rows in one batch
+	 * @return number of records inserted
+	 */
+	public int insertAll(List<? extends ActiveRecord> records, int batchSize) {
+		if (batchSize <= 0)
+			throw new IllegalArgumentException("batchSize must be positive.");
+		if (records == null || records.size() == 0) return 0;
+
+		ImplicitTransactionManager tm = TransactionManagerUtil.getImplicitTransactionManager();
+		int count = 0;
+
+		try {
+			tm.beginTransactionImplicit();
+
+			Map<String, PendingBatch> batches = new LinkedHashMap<String, PendingBatch>();
+			for (ActiveRecord record : records) {
+				checkBatchRecord(record);
+				if (!record.isNewRecord())
+					throw new IllegalArgumentException("Record is not new: " + record);
+
+				record.beforeCreate();
+
+				Map<String, Object> inputs = new HashMap<String, Object>();
+				String sql = record.prepareCreate(true, inputs);
+				PendingBatch batch = addToBatch(batches, sql, record, inputs);
+				if (batch.size() >= batchSize) {
+					count += flushInserts(batch);
+				}
+			}
+
+			for (PendingBatch batch : batches.values()) {
+				if (batch.size() > 0) count += flushInserts(batch);
+			}
+
+			tm.commitTransactionImplicit();
+		}
+		catch(BaseSQLException bdex) {
+			tm.rollbackTransactionImplicit();
+			throw bdex;
+		}
+		finally {
+			tm.releaseResourcesImplicit();
+		}
+
+		modelCacheClient.clearQueryCache("create");
+
+		return count;
+	}
+
+	/**
+	 * <p>
+	 * Updates changed fields of a list of records in JDBC batches. This is 
+	 * the same as calling <tt>updateAll(records, batchSize)</tt> with batch 
+	 * size defined by <tt>batch.size</tt> property in database.properties 
+	 * file.
+	 * </p>
+	 * 
+	 * @param records
+	 *            list of records of this gateway's model
+	 * @return number of records updated
+	 * @see #updateAll(List, int)
+	 */
+	public int updateAll(List<? extends ActiveRecord> records) {
+		return updateAll(records, DatabaseConfig.getInstance().getBatchSize());
+	}
+
+	/**
+	 * <p>
+	 * Updates changed fields of a list of records in JDBC batches. Records 
+	 * with the same changed fields are grouped together, and each group is 
+	 * sent to database in batches of at most <tt>batchSize</tt> rows. 
+	 * Records without changes are skipped. All batches run in one 
+	 * transaction, which is committed after the last batch and rolled back 
+	 * if any batch fails. If this method is called within a transaction, 
+	 * the batches become part of it.
+	 * </p>
+	 * 
+	 * <p>
+	 * Like {@link ActiveRecord#update()}, this method calls 
+	 * <tt>beforeUpdate()</tt> and <tt>afterUpdate()</tt> of each record. 
+	 * Model cache is flushed once for each batch.
+	 * </p>
+	 * 
+	 * @param records
+	 *            list of records of this gateway's model
+	 * @param batchSize
+	 *            maximum number of rows in one batch
+	 * @return number of records updated
+	 */
+	public int updateAll(List<? extends ActiveRecord> records, int batchSize) {
+		if (batchSize <= 0)
+			throw new IllegalArgumentException("batchSize must be positive.");
+		if (records == null || records.size() == 0) return 0;
+
+		ImplicitTransactionManager tm = TransactionManagerUtil.getImplicitTransactionManager();
+		int count = 0;
+
+		try {
+			tm.beginTransactionImplicit();
+
+			Map<String, PendingBatch> batches = new LinkedHashMap<String, PendingBatch>();
+			for (ActiveRecord record : records) {
+				checkBatchRecord(record);
+				if (record.isFreezed())
+					throw new InvalidOperationException(record, "update", "freezed");
+
+				record.beforeUpdate();
+
+				Map<String, Object> inputs = new HashMap<String, Object>();
+				String sql = record.prepareUpdate(true, inputs);
+				if (sql == null) {
+					record.afterUpdate();
+					continue;
+				}
+
+				PendingBatch batch = addToBatch(batches, sql, record, inputs);
+				if (batch.size() >= batchSize) {
+					count += flushUpdates(batch);
+				}
+			}
+
+			for (PendingBatch batch : batches.values()) {
+				if (batch.size() > 0) count += flushUpdates(batch);
+			}
+
+			tm.commitTransactionImplicit();
+		}
+		catch(BaseSQLException bdex) {
+			tm.rollbackTransactionImplicit();
+			throw bdex;
+		}
+		finally {
+			tm.releaseResourcesImplicit();
+		}
+
+		modelCacheClient.clearCache("update", records);
+
+		return count;
+	}
+
+	private Set<Class<? extends ActiveRecord>> getIncludedModelClasses(Map<String, String> options) {
+		if (options == null || 
+				(!options.containsKey(ActiveRecordConstants.key_include) && 
+				 !options.containsKey(ActiveRecordConstants.key_strict_include))) return null;
+		return new IncludeHelper(getModelClass(), null, options).getIncludedModelClasses();
+	}
+
+	private void checkBatchRecord(ActiveRecord record) {
+		if (record == null)
+			throw new IllegalArgumentException("Record in the list is null.");
+		if (!clazz.isInstance(record))
+			throw new WrongRecordTypeException("Record of type " + record.getClass().getName() + 
+					" cannot be handled by gateway of " + clazz.getName() + ".");
+	}
+
+	private PendingBatch addToBatch(Map<String, PendingBatch> batches, String sql, 
+			ActiveRecord record, Map<String, Object> inputs) {
+		PendingBatch batch = batches.get(sql);
+		if (batch == null) {
+			batch = new PendingBatch(sql);
+			batches.put(sql, batch);
+		}
+		batch.add(record, addMoreProperties(inputs, null));
+		return batch;
+	}
+
+	private int flushInserts(PendingBatch batch) {
+		long start = System.currentTimeMillis();
+		int size = batch.size();
+
+		boolean needKeys = false;
+		for (ActiveRecord record : batch.records) {
+			if (record.isWaitingForGeneratedKey()) {
+				needKeys = true;
+				break;
+			}
+		}
+
+		int count = 0;
+		if (needKeys && !DBAdapterFactory.getInstance().getAdapter(home.getConnectionName()).supportsBatchGeneratedKeys()) {
+			//the driver cannot return generated keys of a batch
+			for (int i = 0; i < size; i++) {
+				OmniDTO dto = getSqlService().execute(batch.inputsList.get(i), 
+						DataProcessorTypes.DIRECT_SQL_STATEMENT_PROCESSOR, batch.sql);
+				count += dto.getUpdatedRowCount();
+				ActiveRecord record = batch.records.get(i);
+				record.finishCreate(dto.getGeneratedKey());
+				record.afterCreate();
+			}
+		}
+		else {
+			OmniDTO dto = getSqlService().executeBatch(batch.inputsList, 
+					DataProcessorTypes.DIRECT_SQL_STATEMENT_PROCESSOR, batch.sql);
+			count = dto.getUpdatedRowCount();
+			long[] keys = dto.getGeneratedKeys();
+			if (needKeys && (keys == null || keys.length != size)) {
+				throw new BaseSQLException("Expected " + size + " generated keys for " + 
+						batch.sql + ", but got " + ((keys == null)?0:keys.length) + ".");
+			}
+			for (int i = 0; i < size; i++) {
+				ActiveRecord record = batch.records.get(i);
+				record.finishCreate((needKeys)?keys[i]:-1);
+				record.afterCreate();
+			}
+		}
+
+		modelCacheClient.clearQueryCache("create");
+		batch.clear();
+
+		log.debug("insertAll: " + size + " records into " + home.getTableName() + 
+				" in " + (System.currentTimeMillis() - start) + " ms");
+		return count;
+	}
+
+	private int flushUpdates(PendingBatch batch) {
+		long start = System.currentTimeMillis();
+		int size = batch.size();
+
+		OmniDTO dto = getSqlService().executeBatch(batch.inputsList, 
+				DataProcessorTypes.DIRECT_SQL_STATEMENT_PROCESSOR, batch.sql);
+		int count = dto.getUpdatedRowCount();
+		for (ActiveRecord record : batch.records) {
+			record.finishUpdate();
+			record.afterUpdate();
+		}
+
+		modelCacheClient.clearCache("update", batch.records);
+		batch.clear();
+
+		log.debug("updateAll: " + size + " records of " + home.getTableName() + 
+				" in " + (System.currentTimeMillis() - start) + " ms");
+		return count;
+	}
+
 	/**
 	 * Updates all the records that satisfy the SQL statement.
 	 * 
@@ -2319,4 +2814,33 @@ public class TableGateway {
 	private static SqlService getSqlService() {
 		return SqlServiceConfig.getSqlService();
 	}
+
+	/**
+	 * Records waiting to be written with the same SQL statement.
+	 */
+	private static class PendingBatch {
+		private String sql;
+		private List<ActiveRecord> records = new ArrayList<ActiveRecord>();
+		private List<Map<String, Object>> inputsList = new ArrayList<Map<String, Object>>();
+
+		private PendingBatch(String sql) {
+			this.sql = sql;
+		}
+
+		private void add(ActiveRecord record, Map<String, Object> inputs) {
+			records.add(record);
+			inputsList.add(inputs);
+		}
+
+		private int size() {
+			return records.size();
+		}
+
+		private void clear() {
+			records.clear();
+			inputsList.clear();
+		}
+	}
+
+	private LogUtil log = LogUtil.getLogger(this.getClass().getName());
 }
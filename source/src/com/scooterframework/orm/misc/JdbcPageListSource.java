@@ -7,9 +7,13 @@
  */
 package com.scooterframework.orm.misc;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
 
 import com.scooterframework.common.util.Util;
 import com.scooterframework.orm.activerecord.ActiveRecord;
@@ -19,6 +23,8 @@ import com.scooterframework.orm.activerecord.TableGateway;
 import com.scooterframework.orm.sqldataexpress.exception.BaseSQLException;
 import com.scooterframework.orm.sqldataexpress.processor.DataProcessor;
 import com.scooterframework.orm.sqldataexpress.service.SqlServiceClient;
+import com.scooterframework.orm.sqldataexpress.util.SqlConstants;
+import com.scooterframework.orm.sqldataexpress.vendor.DBAdapterFactory;
 
 /**
  * <p>JdbcPageListSource class retrieves paged record list by using ActiveRecord.</p>
@@ -32,6 +38,10 @@ import com.scooterframework.orm.sqldataexpress.service.SqlServiceClient;
  * <p>You can specify more conditional SQL query strings in the inputOptions map 
  * with key ActiveRecord.key_conditions_sql.</p>
  * 
+ * <p>Call {@link #useKeysetPagination()} to locate pages by primary key 
+ * instead of by offset, and {@link #useEstimatedCount(long)} to avoid 
+ * counting all records of a large table on each page view.</p>
+ * 
  * @author (Fei) John Chen
  */
 public class JdbcPageListSource extends PageListSource {
@@ -79,6 +89,61 @@ public class JdbcPageListSource extends PageListSource {
 			ActiveRecordUtil.getHomeInstance(modelClass).getConnectionName());
 	}
 
+    /**
+     * Pages through records by primary key. Records are ordered by the 
+     * primary key, in descending order if option <tt>order</tt> is 
+     * <tt>down</tt>.
+     */
+    public void useKeysetPagination() {
+        String[] pkNames = ActiveRecordUtil.getHomeInstance(modelClass).getPrimaryKeyNames();
+        if (pkNames == null || pkNames.length == 0) {
+            throw new IllegalArgumentException("Model " + modelClass.getName() + 
+                " has no primary key for keyset pagination.");
+        }
+        
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < pkNames.length; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(pkNames[i]);
+        }
+        setKeyColumns(sb.toString());
+    }
+    
+    /**
+     * Sets key columns for keyset pagination. Records are ordered by the key 
+     * columns, which must identify a record together.
+     * 
+     * @param keyColumns comma separated column names, or null for offset 
+     *        pagination
+     */
+    public void setKeyColumns(String keyColumns) {
+        if (keyColumns == null || "".equals(keyColumns.trim())) {
+            this.keyColumns = null;
+            return;
+        }
+        
+        String[] columns = keyColumns.split(",");
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = columns[i].trim();
+        }
+        this.keyColumns = columns;
+    }
+    
+    /**
+     * <p>Uses estimated count of total records. The estimate is read from 
+     * statistics kept by the database when the whole table is paged and the 
+     * database adapter supports it. The exact count is computed in the 
+     * background and cached for <tt>maxAge</tt> milliseconds, after which it 
+     * is refreshed in the background again.</p>
+     * 
+     * @param maxAge maximum age in milliseconds of a cached count
+     */
+    public void useEstimatedCount(long maxAge) {
+        if (maxAge < 0) throw new IllegalArgumentException("maxAge cannot be negative.");
+        this.estimatedCount = true;
+        this.countMaxAge = maxAge;
+    }
+
     protected int countTotalRecords() {
         int totalRecords = 0;
         
@@ -88,11 +153,16 @@ public class JdbcPageListSource extends PageListSource {
             String findSQL = (String)inputs.get(ActiveRecordConstants.key_finder_sql);
             String selectCountSQL = "SELECT count(*) total FROM (" + findSQL + ") xxx";
             
+            if (estimatedCount) {
+                return RecordCountCache.getCount(getCountCacheKey(selectCountSQL, inputs), 
+                        new ExactCounter(selectCountSQL, inputs), getEstimator(), countMaxAge);
+            }
+            
             TableGateway tg = ActiveRecordUtil.getGateway(modelClass);
             Object total = null;
             Object cacheKey = null;
             if (tg.getModelCacheClient().useCache("countTotalRecords")) {
-            	cacheKey = tg.getModelCacheClient().getCacheKey("countTotalRecords", selectCountSQL);
+            	cacheKey = tg.getModelCacheClient().getQueryCacheKey("countTotalRecords", selectCountSQL);
             	total = tg.getModelCacheClient().getCache().get(cacheKey);
             	if (total != null) return Util.getSafeIntValue(total);
             }
@@ -100,7 +170,7 @@ public class JdbcPageListSource extends PageListSource {
             total = SqlServiceClient.retrieveObjectBySQL(selectCountSQL, inputs);
             
             if (tg.getModelCacheClient().useCache("countTotalRecords")) {
-            	tg.getModelCacheClient().getCache().put(cacheKey, total);
+            	tg.getModelCacheClient().putCache(cacheKey, total);
 			}
             
             totalRecords = Util.getSafeIntValue(total);
@@ -112,9 +182,185 @@ public class JdbcPageListSource extends PageListSource {
         return totalRecords;
     }
     
+    protected void execute() {
+        if (isKeysetMode()) {
+            executeKeyset();
+            return;
+        }
+        super.execute();
+    }
+    
+    /**
+     * Does the record count and retrieval in keyset pagination. 
+     */
+    protected void executeKeyset() {
+        if (recount || !totalCounted) {
+            totalCount = countTotalRecords();
+            totalCounted = true;
+        }
+        
+        if (afterKey == null && beforeKey == null && !fromEnd) {
+            offset = checkOffset();
+        }
+        
+        firstKey = null;
+        lastKey = null;
+        moreBefore = false;
+        moreAfter = false;
+        recordList = retrieveKeysetList();
+    }
+    
     protected List<ActiveRecord> retrieveList() {
         return ActiveRecordUtil.getGateway(modelClass).findAll((String)null, (Map<String, Object>)null, inputOptions);
     }
+    
+    /**
+     * Retrieves list of records in keyset pagination, and sets 
+     * <tt>firstKey</tt>, <tt>lastKey</tt>, <tt>moreBefore</tt> and 
+     * <tt>moreAfter</tt>.
+     * 
+     * @return list of records
+     */
+    protected List<ActiveRecord> retrieveKeysetList() {
+        TableGateway tg = ActiveRecordUtil.getGateway(modelClass);
+        String table = ActiveRecordUtil.getHomeInstance(modelClass).getTableName();
+        boolean descending = "down".equalsIgnoreCase(inputOptions.get(SqlConstants.key_order));
+        boolean backward = (beforeKey != null || (afterKey == null && fromEnd));
+        
+        //records are read in reverse order when reading backward
+        String direction = (descending != backward)?" DESC":" ASC";
+        StringBuilder orderBy = new StringBuilder();
+        for (int i = 0; i < keyColumns.length; i++) {
+            if (i > 0) orderBy.append(", ");
+            orderBy.append(table).append('.').append(keyColumns[i]).append(direction);
+        }
+        
+        Map<String, String> options = new HashMap<String, String>(inputOptions);
+        options.remove(SqlConstants.key_sort);
+        options.remove(SqlConstants.key_order);
+        options.put(SqlConstants.key_order_by, orderBy.toString());
+        options.put(DataProcessor.input_key_use_pagination, "Y");
+        options.put(DataProcessor.input_key_records_limit, Integer.valueOf(limit + 1).toString());
+        
+        String conditions = null;
+        Map<String, Object> conditionsData = null;
+        String[] key = (afterKey != null)?afterKey:beforeKey;
+        if (key != null) {
+            conditionsData = new HashMap<String, Object>();
+            conditions = getKeysetConditions(table, key, (descending != backward)?" < ":" > ", conditionsData);
+            options.put(DataProcessor.input_key_records_offset, "0");
+        }
+        else {
+            options.put(DataProcessor.input_key_records_offset, 
+                Integer.valueOf((fromEnd)?0:offset).toString());
+        }
+        
+        List<ActiveRecord> list = tg.findAll(conditions, conditionsData, options);
+        boolean more = list.size() > limit;
+        if (more) list = new ArrayList<ActiveRecord>(list.subList(0, limit));
+        if (backward) {
+            Collections.reverse(list);
+            moreBefore = more;
+            moreAfter = (beforeKey != null);
+        }
+        else {
+            moreBefore = (afterKey != null || offset > 0);
+            moreAfter = more;
+        }
+        
+        if (list.size() > 0) {
+            firstKey = getKey(list.get(0));
+            lastKey = getKey(list.get(list.size() - 1));
+        }
+        
+        return list;
+    }
+    
+    /**
+     * Returns conditions such as <tt>(a > ?) OR (a = ? AND b > ?)</tt> for 
+     * records after a key.
+     */
+    private String getKeysetConditions(String table, String[] key, String operator, 
+            Map<String, Object> conditionsData) {
+        int position = 1;
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < keyColumns.length; i++) {
+            if (i > 0) sb.append(" OR ");
+            sb.append('(');
+            for (int j = 0; j < i; j++) {
+                sb.append(table).append('.').append(keyColumns[j]).append(" = ? AND ");
+                conditionsData.put((position++) + "", key[j]);
+            }
+            sb.append(table).append('.').append(keyColumns[i]).append(operator).append('?');
+            conditionsData.put((position++) + "", key[i]);
+            sb.append(')');
+        }
+        return sb.toString();
+    }
+    
+    private String[] getKey(ActiveRecord record) {
+        String[] key = new String[keyColumns.length];
+        for (int i = 0; i < keyColumns.length; i++) {
+            Object value = record.getField(keyColumns[i]);
+            key[i] = (value != null)?value.toString():null;
+        }
+        return key;
+    }
+    
+    private String getCountCacheKey(String selectCountSQL, Map<String, Object> inputs) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(inputOptions.get(DataProcessor.input_key_database_connection_name));
+        sb.append(':').append(selectCountSQL);
+        for (Map.Entry<String, Object> entry : new TreeMap<String, Object>(inputs).entrySet()) {
+            String key = entry.getKey();
+            if (key.startsWith(DataProcessor.framework_input_key_prefix) || 
+                ActiveRecordConstants.key_finder_sql.equals(key)) continue;
+            sb.append(':').append(key).append('=').append(entry.getValue());
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * Returns an estimator of the count of all records of the table, or 
+     * null if records are filtered or grouped.
+     */
+    private Callable<Integer> getEstimator() {
+        if (inputOptions.containsKey(ActiveRecordConstants.key_finder_sql) || 
+            inputOptions.containsKey(ActiveRecordConstants.key_conditions_sql) || 
+            inputOptions.containsKey(SqlConstants.key_group_by) || 
+            inputOptions.containsKey(SqlConstants.key_having) || 
+            "true".equalsIgnoreCase(inputOptions.get(ActiveRecordConstants.key_unique))) return null;
+        
+        final String connName = inputOptions.get(DataProcessor.input_key_database_connection_name);
+        String table = ActiveRecordUtil.getHomeInstance(modelClass).getTableName();
+        final String estimateSQL = DBAdapterFactory.getInstance().getAdapter(connName).getEstimatedCountSQL(connName, table);
+        if (estimateSQL == null) return null;
+        
+        return new Callable<Integer>() {
+            public Integer call() throws Exception {
+                Map<String, Object> inputs = new HashMap<String, Object>();
+                inputs.put(DataProcessor.input_key_database_connection_name, connName);
+                return Integer.valueOf(Util.getSafeIntValue(SqlServiceClient.retrieveObjectBySQL(estimateSQL, inputs)));
+            }
+        };
+    }
+    
+    private static class ExactCounter implements Callable<Integer> {
+        private final String selectCountSQL;
+        private final Map<String, Object> inputs;
+        
+        ExactCounter(String selectCountSQL, Map<String, Object> inputs) {
+            this.selectCountSQL = selectCountSQL;
+            this.inputs = new HashMap<String, Object>(inputs);
+        }
+        
+        public Integer call() throws Exception {
+            return Integer.valueOf(Util.getSafeIntValue(SqlServiceClient.retrieveObjectBySQL(selectCountSQL, inputs)));
+        }
+    }
 
     private Class<? extends ActiveRecord> modelClass;
+    
+    private boolean estimatedCount = false;
+    private long countMaxAge;
 }
@@ -15,7 +15,14 @@ import com.scooterframework.common.logging.LogUtil;
 import com.scooterframework.orm.sqldataexpress.processor.DataProcessor;
 
 /**
- * PageListSource class sets up basic framework for retrieving paged data.
+ * <p>PageListSource class sets up basic framework for retrieving paged data.</p>
+ * 
+ * <p>By default a page is located by offset. A subclass which supports 
+ * keyset pagination, such as {@link JdbcPageListSource}, may set key 
+ * columns, so that a page is located by the key of the last or the first 
+ * record of the page next to it and the database does not have to read and 
+ * skip all records before the page. See 
+ * {@link #setKeysetPosition(String[], String[], boolean)}.</p>
  * 
  * @author (Fei) John Chen
  */
@@ -101,6 +108,75 @@ public abstract class PageListSource {
         }
     }
     
+    /**
+     * Returns key columns for keyset pagination, or null for offset 
+     * pagination.
+     */
+    public String[] getKeyColumns() {
+        return keyColumns;
+    }
+    
+    /**
+     * Checks if pages are located by keys.
+     */
+    public boolean isKeysetMode() {
+        return keyColumns != null;
+    }
+    
+    /**
+     * <p>Sets the position of the page to retrieve in keyset pagination. At 
+     * most one of <tt>afterKey</tt> and <tt>beforeKey</tt> should be set. When 
+     * none is set, the page is located by offset, or is the last page if 
+     * <tt>fromEnd</tt> is true.</p>
+     * 
+     * @param afterKey key values of the record right before the page
+     * @param beforeKey key values of the record right after the page
+     * @param fromEnd true for the last page
+     */
+    public void setKeysetPosition(String[] afterKey, String[] beforeKey, boolean fromEnd) {
+        if (keyColumns != null) {
+            if (afterKey != null && afterKey.length != keyColumns.length) 
+                throw new IllegalArgumentException("afterKey must have " + keyColumns.length + " values.");
+            if (beforeKey != null && beforeKey.length != keyColumns.length) 
+                throw new IllegalArgumentException("beforeKey must have " + keyColumns.length + " values.");
+        }
+        this.afterKey = afterKey;
+        this.beforeKey = beforeKey;
+        this.fromEnd = fromEnd;
+    }
+    
+    /**
+     * Returns key values of the first record of the retrieved page, or null 
+     * if the page is empty.
+     */
+    public String[] getFirstKey() {
+        return firstKey;
+    }
+    
+    /**
+     * Returns key values of the last record of the retrieved page, or null 
+     * if the page is empty.
+     */
+    public String[] getLastKey() {
+        return lastKey;
+    }
+    
+    /**
+     * Checks if there are records before the retrieved page in keyset 
+     * pagination.
+     */
+    public boolean hasMoreBefore() {
+        return moreBefore;
+    }
+    
+    /**
+     * Checks if there are records after the retrieved page in keyset 
+     * pagination.
+     */
+    public boolean hasMoreAfter() {
+        return moreAfter;
+    }
+    
     /**
      * Returns count of total records.
      */
@@ -190,7 +266,30 @@ public abstract class PageListSource {
      */
     protected int totalCount;
     
-    private boolean totalCounted = false;
+    /**
+     * Boolean variable to indicate whether total records have been counted.
+     */
+    protected boolean totalCounted = false;
+    
+    /**
+     * Key columns for keyset pagination
+     */
+    protected String[] keyColumns;
+    
+    /**
+     * Keyset position of the page to retrieve
+     */
+    protected String[] afterKey;
+    protected String[] beforeKey;
+    protected boolean fromEnd;
+    
+    /**
+     * Keys and boundaries of the retrieved page in keyset pagination
+     */
+    protected String[] firstKey;
+    protected String[] lastKey;
+    protected boolean moreBefore;
+    protected boolean moreAfter;
     
     /**
      * paged record list
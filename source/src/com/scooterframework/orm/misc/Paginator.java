@@ -7,6 +7,9 @@
  */
 package com.scooterframework.orm.misc;
 
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -43,6 +46,16 @@ import com.scooterframework.orm.sqldataexpress.util.SqlConstants;
  * </ul>
  * </p>
  * 
+ * <h3>Keyset Pagination</h3>
+ * 
+ * <p>When key columns are set on the PageListSource instance, the next and 
+ * previous links carry the key of the last and the first record of the 
+ * current page in keys "<tt>after</tt>" and "<tt>before</tt>", so that the 
+ * database seeks to the page instead of skipping all records before it. 
+ * Links to the first and the last page need no key. Links to other 
+ * pages fall back to offset. As the last page holds the last <tt>limit</tt> 
+ * records, start and end indexes of pages reached by keys are approximate.</p>
+ * 
  * <p>Notes: 
  * <ol>
  *   <li>When both <tt>npage</tt> and <tt>offset</tt> exists, the latter is 
@@ -177,6 +190,7 @@ public class Paginator
      * Return index number of the last record on the current page
      */
     public int getEndIndex() {
+        if (pls.isKeysetMode()) return getOffset() + getCurrentPageSize();
         int endIndex = getOffset() + getLimit();
         if (endIndex > getTotalCount()) endIndex = getTotalCount();
         return endIndex;
@@ -191,7 +205,7 @@ public class Paginator
         qs.append("&npage=").append(opage);
         qs.append("&limit=").append(limit);
         qs.append("&cpage=").append(cpage);
-        appendExclude(qs, "r, npage, cpage, limit");
+        appendExclude(qs, pagingKeys());
         return qs.toString();
     }
 
@@ -202,13 +216,17 @@ public class Paginator
      */
     public String getQueryStringPage(int pageNumber) {
         if (pageNumber > pageCount || pageNumber < 1) return "";
+        if (pls.isKeysetMode()) {
+            if (pageNumber == cpage + 1) return getQueryStringNext(link_value_page);
+            if (pageNumber == cpage - 1) return getQueryStringPrevious(link_value_page);
+        }
 
         StringBuilder qs = new StringBuilder();
         qs.append("r=").append(link_value_page);
         qs.append("&npage=").append(pageNumber);
         qs.append("&limit=").append(limit);
         qs.append("&cpage=").append(cpage);
-        appendExclude(qs, "r, npage, cpage, limit");
+        appendExclude(qs, pagingKeys());
         return qs.toString();
     }
 
@@ -223,7 +241,7 @@ public class Paginator
         qs.append("&npage=1");
         qs.append("&limit=").append(limit);
         qs.append("&cpage=").append(cpage);
-        appendExclude(qs, "r, npage, cpage, limit");
+        appendExclude(qs, pagingKeys());
         return qs.toString();
     }
 
@@ -231,14 +249,21 @@ public class Paginator
      * Return query string for link "previous"
      */
     public String getQueryStringPrevious() {
+        return getQueryStringPrevious(link_value_previous);
+    }
+
+    private String getQueryStringPrevious(String link) {
         if (!hasPreviousPage()) return "";
 
         StringBuilder qs = new StringBuilder();
-        qs.append("r=").append(link_value_previous);
+        qs.append("r=").append(link);
         qs.append("&npage=").append(cpage-1);
         qs.append("&limit=").append(limit);
         qs.append("&cpage=").append(cpage);
-        appendExclude(qs, "r, npage, cpage, limit");
+        if (pls.isKeysetMode() && cpage > 2) {
+            qs.append("&").append(key_before).append("=").append(encodeKey(pls.getFirstKey()));
+        }
+        appendExclude(qs, pagingKeys());
         return qs.toString();
     }
 
@@ -246,14 +271,21 @@ public class Paginator
      * Return query string for link "next"
      */
     public String getQueryStringNext() {
+        return getQueryStringNext(link_value_next);
+    }
+
+    private String getQueryStringNext(String link) {
         if (!hasLastPage()) return "";
 
         StringBuilder qs = new StringBuilder();
-        qs.append("r=").append(link_value_next);
+        qs.append("r=").append(link);
         qs.append("&npage=").append(cpage+1);
         qs.append("&limit=").append(limit);
         qs.append("&cpage=").append(cpage);
-        appendExclude(qs, "r, npage, cpage, limit");
+        if (pls.isKeysetMode()) {
+            qs.append("&").append(key_after).append("=").append(encodeKey(pls.getLastKey()));
+        }
+        appendExclude(qs, pagingKeys());
         return qs.toString();
     }
 
@@ -268,7 +300,7 @@ public class Paginator
         qs.append("&npage=").append(pageCount);
         qs.append("&limit=").append(limit);
         qs.append("&cpage=").append(cpage);
-        appendExclude(qs, "r, npage, cpage, limit");
+        appendExclude(qs, pagingKeys());
         return qs.toString();
     }
 
@@ -293,6 +325,7 @@ public class Paginator
      * @return true for having link
      */
     public boolean hasPreviousPage() {
+        if (pls.isKeysetMode()) return pls.hasMoreBefore();
         return cpage > 1;
     }
 
@@ -301,6 +334,7 @@ public class Paginator
      * @return true for having link
      */
     public boolean hasLastPage() {
+        if (pls.isKeysetMode()) return pls.hasMoreAfter();
         return cpage < pageCount;
     }
 
@@ -358,6 +392,13 @@ public class Paginator
     	options.put(key_npage, cpage + 1 + "");
     	options.put(key_cpage, cpage + "");
     	options.remove(key_offset);
+    	options.remove(key_before);
+    	if (pls.isKeysetMode()) {
+    		options.put(key_after, decodeOnce(encodeKey(pls.getLastKey())));
+    	}
+    	else {
+    		options.remove(key_after);
+    	}
     	return new Paginator(pls, options);
     }
 
@@ -379,6 +420,14 @@ public class Paginator
         opage = Util.getIntValue(options, key_cpage, 1);
         ref   = Util.getStringValue(options, key_link, "");
         
+        boolean fromEnd = false;
+        if (pls.isKeysetMode()) {
+            String[] afterKey = decodeKey(options.get(key_after));
+            String[] beforeKey = decodeKey(options.get(key_before));
+            fromEnd = (afterKey == null && beforeKey == null && link_value_last.equals(ref));
+            pls.setKeysetPosition(afterKey, beforeKey, fromEnd);
+        }
+        
         pls.setInputs(options);//in case some other SQL conditions such as order_by, sort, order
         pls.setLimit(limit);
         pls.setOffset(offset);
@@ -388,6 +437,82 @@ public class Paginator
         recordList = pls.getRecordList();
         totalCounted = true;
         pageCount = countPages(totalCount);
+        
+        if (pls.isKeysetMode()) adjustKeysetPage(fromEnd);
+    }
+    
+    /**
+     * Makes page numbers agree with what has been found by keys, as the 
+     * total count may be an estimate.
+     */
+    private void adjustKeysetPage(boolean fromEnd) {
+        if (fromEnd) {
+            cpage = (pageCount > 0)?pageCount:1;
+            offset = totalCount - getCurrentPageSize();
+        }
+        if (!pls.hasMoreBefore()) {
+            cpage = 1;
+            offset = 0;
+        }
+        offset = (offset > 0)?offset:0;
+        
+        if (pls.hasMoreAfter()) {
+            if (pageCount <= cpage) pageCount = cpage + 1;
+        }
+        else {
+            pageCount = cpage;
+        }
+    }
+    
+    private String pagingKeys() {
+        return (pls.isKeysetMode())?"r, npage, cpage, limit, after, before":"r, npage, cpage, limit";
+    }
+    
+    /**
+     * Encodes key values for a query string. Each value is encoded before 
+     * they are joined by comma, so that a comma in a value is kept.
+     */
+    private static String encodeKey(String[] key) {
+        if (key == null) return "";
+        
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < key.length; i++) {
+            if (i > 0) sb.append(',');
+            sb.append(encode((key[i] != null)?key[i]:""));
+        }
+        return encode(sb.toString());
+    }
+    
+    /**
+     * Decodes key values of a request parameter, which has been decoded 
+     * once by the servlet container.
+     */
+    private static String[] decodeKey(String value) {
+        if (value == null || "".equals(value)) return null;
+        
+        String[] key = value.split(",", -1);
+        for (int i = 0; i < key.length; i++) {
+            key[i] = decodeOnce(key[i]);
+        }
+        return key;
+    }
+    
+    private static String encode(String s) {
+        try {
+            return URLEncoder.encode(s, "UTF-8");
+        }
+        catch(UnsupportedEncodingException ex) {
+            throw new IllegalArgumentException(ex.getMessage());
+        }
+    }
+    
+    private static String decodeOnce(String s) {
+        try {
+            return URLDecoder.decode(s, "UTF-8");
+        }
+        catch(UnsupportedEncodingException ex) {
+            throw new IllegalArgumentException(ex.getMessage());
+        }
     }
 
     protected int countPages(int totalRecords) {
@@ -432,6 +557,8 @@ public class Paginator
     public static final String key_offset = "offset";
     public static final String key_cpage = "cpage";
     public static final String key_npage = "npage";
+    public static final String key_after = "after";
+    public static final String key_before = "before";
 
     /**
      * <p>Key <tt>group_by</tt> represents <tt>GROUP BY</tt> clause in SQL. </p>
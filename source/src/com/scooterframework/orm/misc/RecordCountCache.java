@@ -0,0 +1,135 @@
+/*
+ *   This software is distributed under the terms of the FSF
+ *   Gnu Lesser General Public License (see lgpl.txt).
+ *
+ *   This program is distributed WITHOUT ANY WARRANTY. See the
+ *   GNU General Public License for more details.
+ */
+package com.scooterframework.orm.misc;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import com.scooterframework.cache.ConcurrentLRUCache;
+import com.scooterframework.common.logging.LogUtil;
+
+/**
+ * <p>
+ * RecordCountCache class holds exact record counts of paginated queries, so
+ * that a page view does not have to count all records of a query.
+ * </p>
+ *
+ * <p>
+ * A cached count older than the maximum age is still returned, while the
+ * count is refreshed in a background thread. When there is no cached count
+ * yet, an estimated count is returned if one is available, and the exact
+ * count is computed in the background. Only when neither is available is
+ * the exact count computed by the caller.
+ * </p>
+ *
+ * <p>
+ * At most {@link #MAX_SIZE} counts are cached. The least recently used
+ * counts are evicted first.
+ * </p>
+ *
+ * @author (Fei) John Chen
+ */
+public class RecordCountCache {
+    private static LogUtil log = LogUtil.getLogger(RecordCountCache.class.getName());
+
+    /**
+     * Maximum number of cached counts
+     */
+    public static final int MAX_SIZE = 1000;
+
+    private static final ConcurrentLRUCache<String, Entry> counts = new ConcurrentLRUCache<String, Entry>("recordCounts", MAX_SIZE);
+    private static final ConcurrentMap<String, Boolean> refreshing = new ConcurrentHashMap<String, Boolean>();
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "scooter-record-counter");
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    /**
+     * Returns count of records of a query.
+     *
+     * @param key        key of the query, such as the count SQL and its inputs
+     * @param counter    computes the exact count
+     * @param estimator  computes an estimated count, may be null. A
+     *                   negative or zero estimate is taken as unavailable.
+     * @param maxAge     maximum age in milliseconds of a cached count before
+     *                   it is refreshed
+     * @return count of records
+     * @throws Exception if the exact count can not be computed
+     */
+    public static int getCount(String key, Callable<Integer> counter,
+            Callable<Integer> estimator, long maxAge) throws Exception {
+        Entry entry = counts.get(key);
+        if (entry != null) {
+            if (System.currentTimeMillis() - entry.countedTime > maxAge) {
+                refresh(key, counter);
+            }
+            return entry.count;
+        }
+
+        if (estimator != null) {
+            Integer estimate = null;
+            try {
+                estimate = estimator.call();
+            }
+            catch(Exception ex) {
+                log.debug("Failed to estimate count for " + key + ": " + ex.getMessage());
+            }
+            if (estimate != null && estimate.intValue() > 0) {
+                refresh(key, counter);
+                return estimate.intValue();
+            }
+        }
+
+        int count = counter.call().intValue();
+        counts.put(key, new Entry(count));
+        return count;
+    }
+
+    /**
+     * Removes all cached counts.
+     */
+    public static void clear() {
+        counts.clear();
+    }
+
+    private static void refresh(final String key, final Callable<Integer> counter) {
+        if (refreshing.putIfAbsent(key, Boolean.TRUE) != null) return;
+
+        executor.execute(new Runnable() {
+            public void run() {
+                try {
+                    counts.put(key, new Entry(counter.call().intValue()));
+                }
+                catch(Exception ex) {
+                    log.error("Failed to count records for " + key + ": " + ex.getMessage());
+                }
+                finally {
+                    refreshing.remove(key);
+                }
+            }
+        });
+    }
+
+    private static class Entry {
+        private final int count;
+        private final long countedTime;
+
+        Entry(int count) {
+            this.count = count;
+            this.countedTime = System.currentTimeMillis();
+        }
+    }
+}
@@ -33,6 +33,7 @@ import com.scooterframework.common.util.NamedProperties;
 import com.scooterframework.common.util.PropertyFileUtil;
 import com.scooterframework.common.util.Util;
 import com.scooterframework.orm.sqldataexpress.connection.DatabaseConnectionContext;
+import com.scooterframework.orm.sqldataexpress.util.DBStore;
 import com.scooterframework.transaction.Transaction;
 
 /**
@@ -252,6 +253,11 @@ public class DatabaseConfig extends Observable implements Observer {
     public static final String DEFAULT_VALUE_autoAuditCreate = null;
     public static final String DEFAULT_VALUE_autoAuditUpdate = null;
     public static final String DEFAULT_VALUE_additionalSQLDataTypeMapping = null;
+    public static final int DEFAULT_VALUE_statement_cache_size = 500;
+    public static final int DEFAULT_VALUE_prepared_statement_cache_size = 32;
+    public static final int DEFAULT_VALUE_batch_size = 100;
+    public static final String DEFAULT_VALUE_use_schema_snapshot = "false";
+    public static final int DEFAULT_VALUE_schema_snapshot_threads = 4;
     public static final int DEFAULT_VALUE_max_pool_size = 5;
     public static final int DEFAULT_VALUE_min_pool_size = 3;
     public static final int DEFAULT_VALUE_acquire_increment = 3;
@@ -269,6 +275,11 @@ public class DatabaseConfig extends Observable implements Observer {
     private String autoAuditCreate = DEFAULT_VALUE_autoAuditCreate;
     private String autoAuditUpdate = DEFAULT_VALUE_autoAuditUpdate;
     private String additionalSQLDataTypeMapping = DEFAULT_VALUE_additionalSQLDataTypeMapping;
+    private int statementCacheSize = DEFAULT_VALUE_statement_cache_size;
+    private int preparedStatementCacheSize = DEFAULT_VALUE_prepared_statement_cache_size;
+    private int batchSize = DEFAULT_VALUE_batch_size;
+    private String useSchemaSnapshot = DEFAULT_VALUE_use_schema_snapshot;
+    private int schemaSnapshotThreads = DEFAULT_VALUE_schema_snapshot_threads;
 
     private List<String> autoAuditListForCreate = null;
     private List<String> autoAuditListForUpdate = null;
@@ -367,6 +378,48 @@ public class DatabaseConfig extends Observable implements Observer {
         gloablTableNamingSuffix = getProperty("global.table.naming.suffix", DEFAULT_VALUE_gloablTableNamingSuffix);
         usePluralTableName = getProperty("use.plural.table.name", DEFAULT_VALUE_usePluralTableName);
 
+        String cacheSize = getProperty("statement.cache.size", "" + DEFAULT_VALUE_statement_cache_size);
+        try {
+            statementCacheSize = Integer.parseInt(cacheSize.trim());
+        }
+        catch(NumberFormatException ex) {
+            log.error("Invalid value \"" + cacheSize + "\" for statement.cache.size: " + ex.getMessage());
+            statementCacheSize = DEFAULT_VALUE_statement_cache_size;
+        }
+        if (statementCacheSize <= 0) statementCacheSize = DEFAULT_VALUE_statement_cache_size;
+        DBStore.getInstance().getStatementCache().setMaxSizePerConnection(statementCacheSize);
+
+        String psCacheSize = getProperty("prepared.statement.cache.size", "" + DEFAULT_VALUE_prepared_statement_cache_size);
+        try {
+            preparedStatementCacheSize = Integer.parseInt(psCacheSize.trim());
+        }
+        catch(NumberFormatException ex) {
+            log.error("Invalid value \"" + psCacheSize + "\" for prepared.statement.cache.size: " + ex.getMessage());
+            preparedStatementCacheSize = DEFAULT_VALUE_prepared_statement_cache_size;
+        }
+        if (preparedStatementCacheSize < 0) preparedStatementCacheSize = 0;
+
+        String batchSizeValue = getProperty("batch.size", "" + DEFAULT_VALUE_batch_size);
+        try {
+            batchSize = Integer.parseInt(batchSizeValue.trim());
+        }
+        catch(NumberFormatException ex) {
+            log.error("Invalid value \"" + batchSizeValue + "\" for batch.size: " + ex.getMessage());
+            batchSize = DEFAULT_VALUE_batch_size;
+        }
+        if (batchSize <= 0) batchSize = DEFAULT_VALUE_batch_size;
+
+        useSchemaSnapshot = getProperty("use.schema.snapshot", DEFAULT_VALUE_use_schema_snapshot);
+        String threadsValue = getProperty("schema.snapshot.threads", "" + DEFAULT_VALUE_schema_snapshot_threads);
+        try {
+            schemaSnapshotThreads = Integer.parseInt(threadsValue.trim());
+        }
+        catch(NumberFormatException ex) {
+            log.error("Invalid value \"" + threadsValue + "\" for schema.snapshot.threads: " + ex.getMessage());
+            schemaSnapshotThreads = DEFAULT_VALUE_schema_snapshot_threads;
+        }
+        if (schemaSnapshotThreads <= 0) schemaSnapshotThreads = DEFAULT_VALUE_schema_snapshot_threads;
+
         String nameValueSpliter = "=";
         String propertyDelimiter = ",";
 
@@ -584,6 +637,52 @@ public class DatabaseConfig extends Observable implements Observer {
         return gloablTableNamingSuffix;
     }
 
+    /**
+     * Returns the maximum number of parsed SQL statements cached for each
+     * database connection name. The value is defined by
+     * <tt>statement.cache.size</tt> property.
+     */
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    /**
+     * Returns the maximum number of prepared statements kept open on each
+     * user database connection. The value is defined by
+     * <tt>prepared.statement.cache.size</tt> property. Zero means prepared
+     * statements are closed after each use.
+     */
+    public int getPreparedStatementCacheSize() {
+        return preparedStatementCacheSize;
+    }
+
+    /**
+     * Returns the maximum number of rows sent to database in one JDBC 
+     * batch. The value is defined by <tt>batch.size</tt> property.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Checks if table meta data is saved to and restored from a schema 
+     * snapshot file. The value is defined by <tt>use.schema.snapshot</tt> 
+     * property. The default is false. Snapshots are not used in development 
+     * environment.
+     */
+    public boolean useSchemaSnapshot() {
+        return ("true".equalsIgnoreCase(useSchemaSnapshot))?true:false;
+    }
+
+    /**
+     * Returns the maximum number of threads for looking up table meta data 
+     * of a changed schema. The value is defined by 
+     * <tt>schema.snapshot.threads</tt> property.
+     */
+    public int getSchemaSnapshotThreads() {
+        return schemaSnapshotThreads;
+    }
+
     /**
      * Checks if using plural nones as table name
      */
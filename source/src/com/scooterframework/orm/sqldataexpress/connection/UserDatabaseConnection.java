@@ -8,6 +8,7 @@
 package com.scooterframework.orm.sqldataexpress.connection;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 
 
@@ -60,4 +61,35 @@ public interface UserDatabaseConnection
      * @see #getAutoCommit
      */
     public void setAutoCommit(boolean autoCommit) throws SQLException;
+    
+    /**
+     * Returns a prepared statement for the sql string. A statement that 
+     * was prepared earlier on this connection is reused if it is not in 
+     * use. The statement must be handed back by calling 
+     * {@link #releaseStatement(PreparedStatement, boolean)}.
+     * 
+     * @param sql                   executable sql string
+     * @param returnGeneratedKeys   <tt>true</tt> if auto-generated keys 
+     *                              should be made available
+     * @return a prepared statement
+     * @exception SQLException if a database access error occurs
+     */
+    public PreparedStatement prepareStatement(String sql, boolean returnGeneratedKeys) throws SQLException;
+    
+    /**
+     * Hands back a statement obtained from 
+     * {@link #prepareStatement(String, boolean)}. A reusable cached 
+     * statement only has its parameters cleared; any other statement is 
+     * closed.
+     * 
+     * @param pstmt     the statement to release
+     * @param reusable  <tt>false</tt> if the statement failed and should 
+     *                  not be used again
+     */
+    public void releaseStatement(PreparedStatement pstmt, boolean reusable);
+    
+    /**
+     * Closes all prepared statements cached on this connection.
+     */
+    public void closeStatements();
 }
@@ -8,14 +8,30 @@
 package com.scooterframework.orm.sqldataexpress.connection;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import com.scooterframework.common.logging.LogUtil;
+import com.scooterframework.orm.sqldataexpress.config.DatabaseConfig;
 import com.scooterframework.orm.sqldataexpress.exception.CreateConnectionFailureException;
 
 /**
  * Abstract UserDatabaseConnectionImpl class 
  * 
+ * <p>Prepared statements are cached on the connection, keyed by sql string 
+ * and generated-keys mode, so that a statement executed many times within 
+ * a connection's life is only prepared once. The number of cached 
+ * statements is limited by <tt>prepared.statement.cache.size</tt> property 
+ * in database.properties file. The least recently used statement is 
+ * closed when the limit is reached. An instance is used by one thread at 
+ * a time, as is the underlying connection.</p>
+ * 
  * @author (Fei) John Chen
  */
 abstract public class UserDatabaseConnectionImpl implements UserDatabaseConnection {
@@ -39,6 +55,7 @@ abstract public class UserDatabaseConnectionImpl implements UserDatabaseConnecti
         
         this.dcc = dcc;
         this.connName = connectionName;
+        this.maxCachedStatements = DatabaseConfig.getInstance().getPreparedStatementCacheSize();
     }
     
     /**
@@ -125,6 +142,93 @@ abstract public class UserDatabaseConnectionImpl implements UserDatabaseConnecti
 		}
     }
 
+    /**
+     * Returns a prepared statement for the sql string. A cached statement 
+     * is reused if it is not in use.
+     * 
+     * @param sql                   executable sql string
+     * @param returnGeneratedKeys   <tt>true</tt> if auto-generated keys 
+     *                              should be made available
+     * @return a prepared statement
+     * @exception SQLException if a database access error occurs
+     */
+    public PreparedStatement prepareStatement(String sql, boolean returnGeneratedKeys) 
+    throws SQLException {
+        String key = (returnGeneratedKeys)?("K:" + sql):("N:" + sql);
+        PreparedStatement pstmt = cachedStatements.get(key);
+        if (pstmt != null && !leasedStatements.containsKey(pstmt)) {
+            leasedStatements.put(pstmt, key);
+            return pstmt;
+        }
+        
+        if (returnGeneratedKeys) {
+            pstmt = getConnection().prepareStatement(sql, Statement.RETURN_GENERATED_KEYS);
+        }
+        else {
+            pstmt = getConnection().prepareStatement(sql);
+        }
+        
+        if (maxCachedStatements > 0 && !cachedStatements.containsKey(key)) {
+            cachedStatements.put(key, pstmt);
+        }
+        leasedStatements.put(pstmt, key);
+        return pstmt;
+    }
+    
+    /**
+     * Hands back a statement obtained from 
+     * {@link #prepareStatement(String, boolean)}. A reusable cached 
+     * statement only has its parameters cleared; any other statement is 
+     * closed.
+     * 
+     * @param pstmt     the statement to release
+     * @param reusable  <tt>false</tt> if the statement failed and should 
+     *                  not be used again
+     */
+    public void releaseStatement(PreparedStatement pstmt, boolean reusable) {
+        if (pstmt == null) return;
+        
+        String key = leasedStatements.remove(pstmt);
+        boolean cached = key != null && cachedStatements.get(key) == pstmt;
+        if (cached && reusable) {
+            try {
+                pstmt.clearParameters();
+                return;
+            }
+            catch(SQLException ex) {
+                log.warn("Failed to clear parameters of a cached statement: " + ex.getMessage());
+            }
+        }
+        
+        if (cached) cachedStatements.remove(key);
+        closeStatement(pstmt);
+    }
+    
+    /**
+     * Closes all prepared statements cached on this connection.
+     */
+    public void closeStatements() {
+        List<PreparedStatement> statements = new ArrayList<PreparedStatement>(cachedStatements.values());
+        for (PreparedStatement pstmt : leasedStatements.keySet()) {
+            if (!cachedStatements.containsValue(pstmt)) statements.add(pstmt);
+        }
+        cachedStatements.clear();
+        leasedStatements.clear();
+        
+        for (PreparedStatement pstmt : statements) {
+            closeStatement(pstmt);
+        }
+    }
+    
+    private void closeStatement(PreparedStatement pstmt) {
+        try {
+            pstmt.close();
+        }
+        catch(SQLException ex) {
+            log.error("Error in closeStatement: " + ex.getMessage());
+        }
+    }
+
     /**
      * Create a connection based on specific database connection context.
      * 
@@ -136,4 +240,26 @@ abstract public class UserDatabaseConnectionImpl implements UserDatabaseConnecti
     private DatabaseConnectionContext dcc;
     private Connection conn;
     private boolean autoCommit;
+    private int maxCachedStatements;
+    
+    /**
+     * Cached statements in access order. The eldest statement is closed 
+     * when the cache is full, unless it is in use, in which case it is 
+     * closed when it is released.
+     */
+    private Map<String, PreparedStatement> cachedStatements = 
+        new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+            private static final long serialVersionUID = 6150843361573924571L;
+            
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() <= maxCachedStatements) return false;
+                if (!leasedStatements.containsKey(eldest.getValue())) closeStatement(eldest.getValue());
+                return true;
+            }
+        };
+    
+    /**
+     * Statements in use, mapped to their cache keys.
+     */
+    private Map<PreparedStatement, String> leasedStatements = new IdentityHashMap<PreparedStatement, String>();
 }
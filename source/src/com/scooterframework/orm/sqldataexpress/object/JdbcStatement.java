@@ -230,7 +230,7 @@ public class JdbcStatement {
 
     public static final String QuestionMarkStopper = " ,|><=(){}+-*/";
     
-    private boolean loadedParameterProperties = false;
+    private volatile boolean loadedParameterProperties = false;
     private String name = null;
     private String jdbcStatementString = null;
     private List<Parameter> parameters = new ArrayList<Parameter>();
@@ -34,6 +34,7 @@ public class OmniDTO implements OmniDTOJdbcStatement, OmniDTOStoredProcedure, Om
     //jdbc specific keys
     public static final String UPDATED_ROW_COUNT  = "UPDATED_ROW_COUNT";
     public static final String GENERATED_KEY      = "GENERATED_KEY";
+    public static final String GENERATED_KEYS     = "GENERATED_KEYS";
 
     public OmniDTO() {}
 
@@ -95,6 +96,21 @@ public class OmniDTO implements OmniDTOJdbcStatement, OmniDTOStoredProcedure, Om
         resultMap.put(GENERATED_KEY, Long.valueOf(generatedKey));
     }
 
+    /**
+     * returns generated key values of a batch execution, one for each 
+     * row in the order of the batch, or null if there is none.
+     */
+    public long[] getGeneratedKeys() {
+        return (long[])resultMap.get(GENERATED_KEYS);
+    }
+
+    /**
+     * sets generated key values of a batch execution
+     */
+    public void setGeneratedKeys(long[] generatedKeys) {
+        resultMap.put(GENERATED_KEYS, generatedKeys);
+    }
+
     /**
      * returns processor name
      */
@@ -251,7 +267,7 @@ public class OmniDTO implements OmniDTOJdbcStatement, OmniDTOStoredProcedure, Om
      * is a JdbcStatementProcessor.
      */
     public String getMethodNamesSupportingJdbcStatementProcessorOnly() {
-        return "getUpdatedRowCount, setUpdatedRowCount, getGeneratedKey, setGeneratedKey";
+        return "getUpdatedRowCount, setUpdatedRowCount, getGeneratedKey, setGeneratedKey, getGeneratedKeys, setGeneratedKeys";
     }
 
     /**
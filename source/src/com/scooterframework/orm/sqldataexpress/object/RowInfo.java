@@ -144,6 +144,22 @@ public class RowInfo implements Serializable {
         return Util.cloneArray(columnNames);
     }
 
+    /**
+     * returns columnName in lower case
+     * index - the first column is 0, the second is 1, ...
+     */
+    public String getColumnNameInLowerCase(int index) {
+        String[] names = columnNamesInLowerCase;
+        if (names == null) {
+            names = new String[dimension];
+            for (int i = 0; i < dimension; i++) {
+                names[i] = columnNames[i].toLowerCase();
+            }
+            columnNamesInLowerCase = names;
+        }
+        return names[index];
+    }
+
     /**
      * returns primary key columnNames
      */
@@ -697,6 +713,7 @@ public class RowInfo implements Serializable {
 
         //some convenience arraies:
         columnNames = null;
+        columnNamesInLowerCase = null;
         primaryKeyColumnNames = null;
         readOnlyColumnNames.clear();
         columnSqlDataTypes = null;
@@ -865,6 +882,7 @@ public class RowInfo implements Serializable {
 
     //some convenience arraies:
     private String[] columnNames = null;
+    private transient volatile String[] columnNamesInLowerCase = null;
     private String[] primaryKeyColumnNames = null;
     private List<String> readOnlyColumnNames = new ArrayList<String>();
     private int[] columnSqlDataTypes = null;
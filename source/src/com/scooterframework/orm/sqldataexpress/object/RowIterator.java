@@ -0,0 +1,35 @@
+/*
+ *   This software is distributed under the terms of the FSF
+ *   Gnu Lesser General Public License (see lgpl.txt).
+ *
+ *   This program is distributed WITHOUT ANY WARRANTY. See the
+ *   GNU General Public License for more details.
+ */
+package com.scooterframework.orm.sqldataexpress.object;
+
+import java.util.Iterator;
+
+/**
+ * RowIterator interface streams rows of a query result. Rows are read from
+ * the database only when they are asked for, and all rows share the same
+ * header.
+ *
+ * <p>The iterator holds database resources until it is closed. It is closed
+ * automatically when the last row has been read. Callers that stop early
+ * must call {@link #close()}, usually in a <tt>finally</tt> block.</p>
+ *
+ * @author (Fei) John Chen
+ */
+public interface RowIterator extends Iterator<RowData> {
+
+    /**
+     * Returns the header shared by all rows.
+     */
+    public RowInfo getHeader();
+
+    /**
+     * Releases all database resources held by this iterator. Calling this
+     * method more than once has no effect.
+     */
+    public void close();
+}
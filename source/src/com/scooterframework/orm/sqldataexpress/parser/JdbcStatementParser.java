@@ -185,9 +185,12 @@ public class JdbcStatementParser extends JdbcStatementHelper {
                 else if (j>=2 && "LIKE".equalsIgnoreCase(tokens[j-1])) {
                     columnNameToken = tokens[j-2];
                 }
-                else if (!"?".equals(tokens[j-1])) {
+                else if (!tokens[j-1].startsWith("?")) {
                     columnNameToken = tokens[j-1];
                 }
+                else if (getInListColumnToken(j, tokens) != null) {
+                    columnNameToken = getInListColumnToken(j, tokens);
+                }
                 else {
                     log.warn("Failed to detect column name for ? with index " + qmarkIndex + 
                              ", suggest to use inline sql type declaration if " + 
@@ -326,6 +329,15 @@ public class JdbcStatementParser extends JdbcStatementHelper {
         }
     }
     
+    // find the column token of an IN list such as "id IN (?, ?, ?)" for a
+    // ? mark which is not the first one in the list
+    private String getInListColumnToken(int qmarkPosition, String[] tokens) {
+        int k = qmarkPosition - 1;
+        while (k > 0 && tokens[k].startsWith("?")) k--;
+        if (k > 0 && "IN".equalsIgnoreCase(tokens[k])) return tokens[k-1];
+        return null;
+    }
+
     // find the table name for the column corresponding to the ? mark
     private String getTableName(int qmarkPosition, String[] tokens, String columnName) {
         String tableName = "";
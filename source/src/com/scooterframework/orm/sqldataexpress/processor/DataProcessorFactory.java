@@ -72,22 +72,22 @@ public class DataProcessorFactory {
             selectedDataProcessor = new FunctionProcessor(function);
         }
         else if (DataProcessorTypes.NAMED_SQL_STATEMENT_PROCESSOR.equals(processorType)) {
-            selectedDataProcessor = DBStore.getInstance().getJdbcStatementProcessor(processorName);
+            String connName = udc.getConnectionName();
+            selectedDataProcessor = DBStore.getInstance().getJdbcStatementProcessor(connName, processorName);
         	if (selectedDataProcessor == null) {
         		JdbcStatement statement = SqlExpressUtil.createJdbcStatement(processorName);
-                selectedDataProcessor = new JdbcStatementProcessor(statement);
-                DBStore.getInstance().addJdbcStatementProcessor(processorName, 
-                		(JdbcStatementProcessor)selectedDataProcessor);
+                selectedDataProcessor = DBStore.getInstance().addJdbcStatementProcessor(connName, 
+                		processorName, new JdbcStatementProcessor(statement));
         	}
             setDatabaseMetaData(udc, selectedDataProcessor);
         }
         else if (DataProcessorTypes.DIRECT_SQL_STATEMENT_PROCESSOR.equals(processorType)) {
-        	selectedDataProcessor = DBStore.getInstance().getJdbcStatementProcessor(processorName);
+            String connName = udc.getConnectionName();
+        	selectedDataProcessor = DBStore.getInstance().getJdbcStatementProcessor(connName, processorName);
         	if (selectedDataProcessor == null) {
         		JdbcStatement statement = SqlExpressUtil.createJdbcStatementDirect(processorName);
-                selectedDataProcessor = new JdbcStatementProcessor(statement);
-                DBStore.getInstance().addJdbcStatementProcessor(processorName, 
-                		(JdbcStatementProcessor)selectedDataProcessor);
+                selectedDataProcessor = DBStore.getInstance().addJdbcStatementProcessor(connName, 
+                		processorName, new JdbcStatementProcessor(statement));
         	}
             setDatabaseMetaData(udc, selectedDataProcessor);
         }
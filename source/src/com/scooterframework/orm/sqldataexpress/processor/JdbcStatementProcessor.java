@@ -7,7 +7,6 @@
  */
 package com.scooterframework.orm.sqldataexpress.processor;
 
-import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -15,6 +14,7 @@ import java.sql.Statement;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -22,6 +22,7 @@ import java.util.Set;
 import java.util.StringTokenizer;
 
 import com.scooterframework.common.logging.LogUtil;
+import com.scooterframework.common.util.RequestMetrics;
 import com.scooterframework.common.util.StringUtil;
 import com.scooterframework.common.util.Util;
 import com.scooterframework.orm.sqldataexpress.connection.UserDatabaseConnection;
@@ -32,9 +33,11 @@ import com.scooterframework.orm.sqldataexpress.object.OmniDTO;
 import com.scooterframework.orm.sqldataexpress.object.Parameter;
 import com.scooterframework.orm.sqldataexpress.object.RowData;
 import com.scooterframework.orm.sqldataexpress.object.RowInfo;
+import com.scooterframework.orm.sqldataexpress.object.RowIterator;
 import com.scooterframework.orm.sqldataexpress.object.TableData;
 import com.scooterframework.orm.sqldataexpress.parser.JdbcStatementParser;
 import com.scooterframework.orm.sqldataexpress.util.DAOUtil;
+import com.scooterframework.orm.sqldataexpress.util.DBStore;
 import com.scooterframework.orm.sqldataexpress.util.SqlExpressUtil;
 import com.scooterframework.orm.sqldataexpress.util.SqlUtil;
 import com.scooterframework.orm.sqldataexpress.vendor.DBAdapter;
@@ -52,6 +55,13 @@ public class JdbcStatementProcessor extends DataProcessorImpl {
     public JdbcStatementProcessor(JdbcStatement st) {
         this.st = st;
     }
+    
+    /**
+     * Returns the underlying statement.
+     */
+    public JdbcStatement getJdbcStatement() {
+        return st;
+    }
 
     
     /**
@@ -59,12 +69,13 @@ public class JdbcStatementProcessor extends DataProcessorImpl {
      */
     public OmniDTO execute(UserDatabaseConnection udc, Map<String, Object> inputs, Map<String, String> outputFilters) 
     throws BaseSQLException {
-    	Connection connection = udc.getConnection();
     	DBAdapter dba = DBAdapterFactory.getInstance().getAdapter(udc.getConnectionName());
     	
         OmniDTO returnTO = new OmniDTO();
         PreparedStatement pstmt = null;
         ResultSet rs = null;
+        boolean succeeded = false;
+        long start = RequestMetrics.now();
         
         try {
             String stName = st.getName();
@@ -74,7 +85,7 @@ public class JdbcStatementProcessor extends DataProcessorImpl {
             String originalSql = st.getOriginalJdbcStatementString();
             if(checkPagination(inputs)) {
             	String pagedSql = dba.preparePaginationSql(originalSql, inputs, outputFilters);
-            	jstat = SqlExpressUtil.createJdbcStatementDirect(pagedSql);
+            	jstat = getPagedJdbcStatement(udc, pagedSql);
             }
             
             String executableSql = jstat.getExecutableJdbcStatementString();
@@ -85,71 +96,9 @@ public class JdbcStatementProcessor extends DataProcessorImpl {
             log.debug("execute - outputFilters: " + outputFilters);
             
             boolean supportsGetGeneratedKeys = supportsGetGeneratedKeys();
-            if (supportsGetGeneratedKeys && !jstat.isSelectStatement()) {
-                pstmt = connection.prepareStatement(executableSql, Statement.RETURN_GENERATED_KEYS);
-            }
-            else {
-                pstmt = connection.prepareStatement(executableSql);
-            }
+            pstmt = udc.prepareStatement(executableSql, supportsGetGeneratedKeys && !jstat.isSelectStatement());
             
-            // check if need to load parameter properties
-//            if (supportParameterMetaData()) {
-//                if (!jstat.hasLoadedParameterMetaData()) {
-//                    //get parameter meta data if it has not been loaded
-//                    ParameterMetaData pmd = pstmt.getParameterMetaData();
-//                    ParameterMetaDataLoader pmdl = new ParameterMetaDataLoader(pmd, jstat);
-//                    pmdl.loadParameterMetaData();
-//                }
-//            }
-//            else {
-                if (!jstat.hasLoadedParameterProperties()) {
-                	synchronized(jstat) {
-                		if (!jstat.hasLoadedParameterProperties()) {
-                            JdbcStatementParser parser = new JdbcStatementParser(udc, jstat);
-                            parser.parse();
-                		}
-                	}
-                }
-//            }
-            
-            Collection<Parameter> parameters = jstat.getParameters();
-            log.debug("execute - parameters: " + parameters);
-            Iterator<Parameter> pit = parameters.iterator();
-            while(pit.hasNext()) {
-                Parameter p = pit.next();
-                
-                String key = p.getName();
-                if (!inputs.containsKey(key)) {
-                	throw new Exception("There " + 
-                    "must be a key/value pair corresponding to key named " + key + 
-                    " in input parameters: " + inputs.keySet());
-                }
-                
-                if (Parameter.MODE_IN.equals(p.getMode())) {
-                    Object obj = inputs.get(key);
-                    if (obj == null || 
-                        "".equals(obj.toString().trim()) && 
-                        p.getSqlDataType() != Types.CHAR && 
-                        p.getSqlDataType() != Types.VARCHAR && 
-                        p.getSqlDataType() != Types.LONGVARCHAR) {
-                        setNull(pstmt, p.getIndex(), p.getSqlDataType());
-                    }
-                    else {
-                        if(!dba.vendorSpecificSetObject(pstmt, obj, p, inputs)) {
-                            if (Parameter.UNKNOWN_SQL_DATA_TYPE != p.getSqlDataType()) {
-                                setObject(pstmt, obj, p);
-                            }
-                            else {
-                                //It is up to JDBC driver's PreparedStatement implementation 
-                                //class to deal with. Usually the class will make a decision 
-                                //on which setXXX(Type) method to call based on the java 
-                                //class type of the obj instance. 
-                                pstmt.setObject(p.getIndex(), obj);
-                            }
-                        }
-                    }
-                }
-            }
+            setParameters(udc, dba, jstat, pstmt, inputs);
             
             if (jstat.isSelectStatement()) {
                 rs = pstmt.executeQuery();
@@ -178,10 +127,14 @@ public class JdbcStatementProcessor extends DataProcessorImpl {
                         }
                     }
                     catch(Throwable ex) {
+                        log.debug("execute - no generated key: " + ex.getMessage());
+                    }
+                    finally {
                         DAOUtil.closeResultSet(rsg);
                     }
                 }
             }
+            succeeded = true;
         }
         catch (Exception ex) {
         	log.error("Error in execute(): " + ex.getMessage(), ex);
@@ -189,12 +142,246 @@ public class JdbcStatementProcessor extends DataProcessorImpl {
         }
         finally {
             DAOUtil.closeResultSet(rs);
-            DAOUtil.closeStatement(pstmt);
+            udc.releaseStatement(pstmt, succeeded);
+            RequestMetrics.addTime(RequestMetrics.PHASE_DB, start);
+        }
+        
+        return returnTO;
+    }
+
+    /**
+     * Executes the statement once for each inputs map as one JDBC batch. 
+     * The statement must not be a select statement. 
+     * 
+     * <p>The returned <tt>OmniDTO</tt> holds the total number of rows 
+     * updated. If the database adapter supports generated keys of a 
+     * batch, the generated keys are also included, one for each inputs 
+     * map.</p>
+     * 
+     * @param udc           the connection to use
+     * @param inputsList    list of input data, one for each execution
+     * @return OmniDTO
+     */
+    public OmniDTO executeBatch(UserDatabaseConnection udc, List<Map<String, Object>> inputsList) 
+    throws BaseSQLException {
+        if (st.isSelectStatement()) 
+            throw new IllegalArgumentException("Select statement cannot be executed in batch: " + st.getName());
+        
+    	DBAdapter dba = DBAdapterFactory.getInstance().getAdapter(udc.getConnectionName());
+        OmniDTO returnTO = new OmniDTO();
+        PreparedStatement pstmt = null;
+        boolean succeeded = false;
+        long start = RequestMetrics.now();
+        
+        try {
+            String executableSql = st.getExecutableJdbcStatementString();
+            log.debug("executeBatch - parsed expecutable sql: " + executableSql);
+            
+            boolean returnGeneratedKeys = supportsGetGeneratedKeys() && dba.supportsBatchGeneratedKeys();
+            pstmt = udc.prepareStatement(executableSql, returnGeneratedKeys);
+            
+            for (Map<String, Object> inputs : inputsList) {
+                setParameters(udc, dba, st, pstmt, inputs);
+                pstmt.addBatch();
+            }
+            
+            int[] counts = pstmt.executeBatch();
+            int rowCount = 0;
+            for (int count : counts) {
+                if (count > 0) rowCount += count;
+                else if (count == Statement.SUCCESS_NO_INFO) rowCount += 1;
+            }
+            returnTO.setUpdatedRowCount(rowCount);
+            
+            if (returnGeneratedKeys) {
+                ResultSet rsg = null;
+                try {
+                    rsg = pstmt.getGeneratedKeys();
+                    List<Long> keys = new ArrayList<Long>(inputsList.size());
+                    while(rsg.next()) {
+                        keys.add(Long.valueOf(rsg.getLong(1)));
+                    }
+                    long[] generatedKeys = new long[keys.size()];
+                    for (int i = 0; i < generatedKeys.length; i++) {
+                        generatedKeys[i] = keys.get(i).longValue();
+                    }
+                    returnTO.setGeneratedKeys(generatedKeys);
+                }
+                catch(Throwable ex) {
+                    log.debug("executeBatch - no generated keys: " + ex.getMessage());
+                }
+                finally {
+                    DAOUtil.closeResultSet(rsg);
+                }
+            }
+            succeeded = true;
+        }
+        catch (Exception ex) {
+        	log.error("Error in executeBatch(): " + ex.getMessage(), ex);
+            throw new BaseSQLException(ex);
+        }
+        finally {
+            udc.releaseStatement(pstmt, succeeded);
+            RequestMetrics.addTime(RequestMetrics.PHASE_DB, start);
         }
         
         return returnTO;
     }
 
+    /**
+     * Returns an iterator which streams rows of the query one by one. The 
+     * statement is executed with the streaming fetch size of the database 
+     * adapter, and a row is only read and converted when it is asked for. 
+     * 
+     * <p>The returned iterator must be closed by the caller if not all rows 
+     * are read. If <tt>closeConnection</tt> is true, the connection is 
+     * committed and closed together with the iterator.</p>
+     * 
+     * @param udc               the connection to use
+     * @param inputs            input data
+     * @param closeConnection   true if the connection is to be closed with 
+     *                          the iterator
+     * @return a row iterator
+     */
+    public RowIterator stream(UserDatabaseConnection udc, Map<String, Object> inputs, boolean closeConnection) 
+    throws BaseSQLException {
+        if (!st.isSelectStatement()) 
+            throw new IllegalArgumentException("Only select statement can be streamed: " + st.getName());
+        
+    	DBAdapter dba = DBAdapterFactory.getInstance().getAdapter(udc.getConnectionName());
+        PreparedStatement pstmt = null;
+        ResultSet rs = null;
+        long start = RequestMetrics.now();
+        
+        try {
+            autoFill(udc, inputs);
+            
+            JdbcStatement jstat = st;
+            Map<String, String> outputFilters = new HashMap<String, String>();
+            if(checkPagination(inputs)) {
+            	String pagedSql = dba.preparePaginationSql(st.getOriginalJdbcStatementString(), inputs, outputFilters);
+            	jstat = getPagedJdbcStatement(udc, pagedSql);
+            }
+            
+            String executableSql = autoReplace(jstat.getExecutableJdbcStatementString(), inputs);
+            log.debug("stream - parsed expecutable sql: " + executableSql);
+            
+            //streamed statements are not shared, as the fetch size is changed
+            pstmt = udc.getConnection().prepareStatement(executableSql, 
+            		ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            pstmt.setFetchSize(dba.getStreamingFetchSize());
+            setParameters(udc, dba, jstat, pstmt, inputs);
+            
+            rs = pstmt.executeQuery();
+            Cursor cursor = jstat.getCursor(st.getName(), rs);
+            if (outputFilters.size() == 0) {
+                return new ResultSetRowIterator(udc, pstmt, rs, cursor, cursor, null, dba, closeConnection);
+            }
+            
+            //remove helper columns of pagination, such as row numbers
+            Set<String> allowedColumns = getAllowedColumns(outputFilters, cursor);
+            RowInfo header = getFilteredHeaderInfo(allowedColumns, cursor);
+            int[] columns = new int[header.getDimension()];
+            int index = 0;
+            for (int i = 0; i < cursor.getDimension(); i++) {
+                if (allowedColumns.contains(cursor.getColumnName(i))) columns[index++] = i;
+            }
+            return new ResultSetRowIterator(udc, pstmt, rs, cursor, header, columns, dba, closeConnection);
+        }
+        catch (Exception ex) {
+        	log.error("Error in stream(): " + ex.getMessage(), ex);
+            DAOUtil.closeResultSet(rs);
+            DAOUtil.closeStatement(pstmt);
+            if (closeConnection) DAOUtil.closeConnection(udc);
+            throw new BaseSQLException(ex);
+        }
+        finally {
+            RequestMetrics.addTime(RequestMetrics.PHASE_DB, start);
+        }
+    }
+    
+    private void setParameters(UserDatabaseConnection udc, DBAdapter dba, 
+    		JdbcStatement jstat, PreparedStatement pstmt, Map<String, Object> inputs) 
+    throws Exception {
+        // check if need to load parameter properties
+//        if (supportParameterMetaData()) {
+//            if (!jstat.hasLoadedParameterMetaData()) {
+//                //get parameter meta data if it has not been loaded
+//                ParameterMetaData pmd = pstmt.getParameterMetaData();
+//                ParameterMetaDataLoader pmdl = new ParameterMetaDataLoader(pmd, jstat);
+//                pmdl.loadParameterMetaData();
+//            }
+//        }
+//        else {
+            if (!jstat.hasLoadedParameterProperties()) {
+            	synchronized(jstat) {
+            		if (!jstat.hasLoadedParameterProperties()) {
+            			long start = System.nanoTime();
+                        JdbcStatementParser parser = new JdbcStatementParser(udc, jstat);
+                        parser.parse();
+                        DBStore.getInstance().getStatementCache().recordParse(System.nanoTime() - start);
+            		}
+            	}
+            }
+//        }
+        
+        Collection<Parameter> parameters = jstat.getParameters();
+        log.debug("execute - parameters: " + parameters);
+        Iterator<Parameter> pit = parameters.iterator();
+        while(pit.hasNext()) {
+            Parameter p = pit.next();
+            
+            String key = p.getName();
+            if (!inputs.containsKey(key)) {
+            	throw new Exception("There " + 
+                "must be a key/value pair corresponding to key named " + key + 
+                " in input parameters: " + inputs.keySet());
+            }
+            
+            if (Parameter.MODE_IN.equals(p.getMode())) {
+                Object obj = inputs.get(key);
+                if (obj == null || 
+                    "".equals(obj.toString().trim()) && 
+                    p.getSqlDataType() != Types.CHAR && 
+                    p.getSqlDataType() != Types.VARCHAR && 
+                    p.getSqlDataType() != Types.LONGVARCHAR) {
+                    setNull(pstmt, p.getIndex(), p.getSqlDataType());
+                }
+                else {
+                    if(!dba.vendorSpecificSetObject(pstmt, obj, p, inputs)) {
+                        if (Parameter.UNKNOWN_SQL_DATA_TYPE != p.getSqlDataType()) {
+                            setObject(pstmt, obj, p);
+                        }
+                        else {
+                            //It is up to JDBC driver's PreparedStatement implementation 
+                            //class to deal with. Usually the class will make a decision 
+                            //on which setXXX(Type) method to call based on the java 
+                            //class type of the obj instance. 
+                            pstmt.setObject(p.getIndex(), obj);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the statement of a paginated SQL string. Paginated SQL strings 
+     * only differ by the pagination parameters, so the parsed statement is 
+     * shared through the statement cache instead of being parsed on every 
+     * execution.
+     */
+    private JdbcStatement getPagedJdbcStatement(UserDatabaseConnection udc, String pagedSql) {
+    	String connName = udc.getConnectionName();
+    	JdbcStatementProcessor processor = DBStore.getInstance().getJdbcStatementProcessor(connName, pagedSql);
+    	if (processor == null) {
+    		JdbcStatement statement = SqlExpressUtil.createJdbcStatementDirect(pagedSql);
+    		processor = DBStore.getInstance().addJdbcStatementProcessor(connName, 
+    				pagedSql, new JdbcStatementProcessor(statement));
+    	}
+    	return processor.getJdbcStatement();
+    }
+
     protected boolean checkPagination(Map<String, Object> inputs) {
         boolean usePagination = false;
         if(st.isSelectStatement()) {
@@ -0,0 +1,123 @@
+/*
+ *   This software is distributed under the terms of the FSF
+ *   Gnu Lesser General Public License (see lgpl.txt).
+ *
+ *   This program is distributed WITHOUT ANY WARRANTY. See the
+ *   GNU General Public License for more details.
+ */
+package com.scooterframework.orm.sqldataexpress.processor;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.NoSuchElementException;
+
+import com.scooterframework.orm.sqldataexpress.connection.UserDatabaseConnection;
+import com.scooterframework.orm.sqldataexpress.exception.BaseSQLException;
+import com.scooterframework.orm.sqldataexpress.object.Cursor;
+import com.scooterframework.orm.sqldataexpress.object.RowData;
+import com.scooterframework.orm.sqldataexpress.object.RowInfo;
+import com.scooterframework.orm.sqldataexpress.object.RowIterator;
+import com.scooterframework.orm.sqldataexpress.util.DAOUtil;
+import com.scooterframework.orm.sqldataexpress.vendor.DBAdapter;
+
+/**
+ * ResultSetRowIterator class converts rows of an open result set into
+ * <tt>RowData</tt> objects one at a time.
+ *
+ * @author (Fei) John Chen
+ */
+class ResultSetRowIterator implements RowIterator {
+    private UserDatabaseConnection udc;
+    private PreparedStatement pstmt;
+    private ResultSet rs;
+    private Cursor cursor;
+    private RowInfo header;
+    private int[] columns;
+    private DBAdapter dba;
+    private boolean closeConnection;
+
+    private int cursorWidth;
+    private boolean hasNextChecked;
+    private boolean hasNext;
+    private boolean closed;
+
+    /**
+     * Creates an iterator of rows of a result set. Only columns of the
+     * <tt>cursor</tt> at positions in <tt>columns</tt> are read into rows
+     * of the <tt>header</tt>. All columns are read if <tt>columns</tt> is
+     * null.
+     */
+    ResultSetRowIterator(UserDatabaseConnection udc, PreparedStatement pstmt,
+            ResultSet rs, Cursor cursor, RowInfo header, int[] columns,
+            DBAdapter dba, boolean closeConnection) {
+        this.udc = udc;
+        this.pstmt = pstmt;
+        this.rs = rs;
+        this.cursor = cursor;
+        this.header = header;
+        this.columns = columns;
+        this.dba = dba;
+        this.closeConnection = closeConnection;
+        this.cursorWidth = (columns != null)?columns.length:cursor.getDimension();
+    }
+
+    public RowInfo getHeader() {
+        return header;
+    }
+
+    public boolean hasNext() {
+        if (closed) return false;
+        if (!hasNextChecked) {
+            try {
+                hasNext = rs.next();
+            }
+            catch(SQLException ex) {
+                close();
+                throw new BaseSQLException(ex);
+            }
+            hasNextChecked = true;
+            if (!hasNext) close();
+        }
+        return hasNext;
+    }
+
+    public RowData next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        hasNextChecked = false;
+
+        Object[] cellValues = new Object[cursorWidth];
+        try {
+            for (int i = 0; i < cursorWidth; i++) {
+                int column = (columns != null)?columns[i]:i;
+                cellValues[i] = dba.getObjectFromResultSetByType(rs,
+                        cursor.getColumnJavaClassName(column),
+                        cursor.getColumnSqlDataType(column), column + 1);
+            }
+        }
+        catch(SQLException ex) {
+            close();
+            throw new BaseSQLException(ex);
+        }
+        return new RowData(header, cellValues);
+    }
+
+    public void remove() {
+        throw new UnsupportedOperationException("remove() is not supported.");
+    }
+
+    public void close() {
+        if (closed) return;
+        closed = true;
+
+        DAOUtil.closeResultSet(rs);
+        DAOUtil.closeStatement(pstmt);
+        if (closeConnection) {
+            if (!udc.getAutoCommit()) DAOUtil.commit(udc.getConnection());
+            DAOUtil.closeConnection(udc);
+        }
+        rs = null;
+        pstmt = null;
+        udc = null;
+    }
+}
@@ -8,6 +8,7 @@
 package com.scooterframework.orm.sqldataexpress.service;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 import com.scooterframework.orm.sqldataexpress.exception.BaseSQLException;
@@ -44,6 +45,11 @@ public interface SqlServiceGeneric {
      */
     public Collection<OmniDTO> execute(Collection<InputInfo> inputInfoList) throws BaseSQLException;
     
+    /**
+     * execute a statement for each inputs map as one JDBC batch
+     */
+    public OmniDTO executeBatch(List<Map<String, Object>> inputsList, String processorType, String processorName) throws BaseSQLException;
+    
     /**
      * execute an InputInfo object in one transaction
      */
@@ -11,6 +11,7 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -25,6 +26,7 @@ import com.scooterframework.orm.sqldataexpress.config.DatabaseConfig;
 import com.scooterframework.orm.sqldataexpress.config.SqlConfig;
 import com.scooterframework.orm.sqldataexpress.connection.DatabaseConnectionContext;
 import com.scooterframework.orm.sqldataexpress.connection.UserDatabaseConnection;
+import com.scooterframework.orm.sqldataexpress.connection.UserDatabaseConnectionFactory;
 import com.scooterframework.orm.sqldataexpress.exception.BaseSQLException;
 import com.scooterframework.orm.sqldataexpress.exception.CreateConnectionFailureException;
 import com.scooterframework.orm.sqldataexpress.exception.TransactionException;
@@ -35,10 +37,14 @@ import com.scooterframework.orm.sqldataexpress.exception.UnsupportedStoredProced
 import com.scooterframework.orm.sqldataexpress.object.OmniDTO;
 import com.scooterframework.orm.sqldataexpress.object.RowData;
 import com.scooterframework.orm.sqldataexpress.object.RowInfo;
+import com.scooterframework.orm.sqldataexpress.object.RowIterator;
 import com.scooterframework.orm.sqldataexpress.object.TableData;
 import com.scooterframework.orm.sqldataexpress.processor.DataProcessor;
 import com.scooterframework.orm.sqldataexpress.processor.DataProcessorFactory;
 import com.scooterframework.orm.sqldataexpress.processor.DataProcessorTypes;
+import com.scooterframework.orm.sqldataexpress.processor.JdbcStatementProcessor;
+import com.scooterframework.orm.sqldataexpress.util.DAOUtil;
+import com.scooterframework.orm.sqldataexpress.vendor.DBAdapterFactory;
 import com.scooterframework.transaction.ImplicitTransactionManager;
 import com.scooterframework.transaction.Transaction;
 import com.scooterframework.transaction.TransactionManager;
@@ -204,6 +210,58 @@ public class SqlServiceImpl implements SqlService {
         return returnTOList;
     }
 
+    /**
+     * Execute a SQL statement once for each inputs map as one JDBC batch in
+     * one transaction. The connection is decided by the first inputs map.
+     *
+     * @param inputsList        list of input data maps
+     * @param processorType     A named SQL or direct SQL
+     * @param processorName     SQL name or SQL itself
+     * @return OmniDTO          total updated row count and generated keys
+     * @throws com.scooterframework.orm.sqldataexpress.exception.BaseSQLException
+     */
+    public OmniDTO executeBatch(List<Map<String, Object>> inputsList, String processorType, String processorName)
+    throws BaseSQLException {
+        if (processorType == null || processorName == null)
+            throw new IllegalArgumentException("processorType or processorName is null.");
+
+        if (inputsList == null || inputsList.size() == 0)
+            throw new IllegalArgumentException("inputsList is empty.");
+
+        ImplicitTransactionManager tm = TransactionManagerUtil.getImplicitTransactionManager();
+        OmniDTO returnTO = null;
+
+        try {
+            tm.beginTransactionImplicit();
+
+            UserDatabaseConnection udc = findOrCreateConnection(inputsList.get(0));
+            DataProcessor dp = DataProcessorFactory.getInstance().getDataProcessor(udc, processorType, processorName);
+            if (!(dp instanceof JdbcStatementProcessor)) {
+                throw new IllegalArgumentException("Only SQL statement can be executed in batch, but processor type is " + processorType + ".");
+            }
+
+            List<Map<String, Object>> convertedList = new ArrayList<Map<String, Object>>(inputsList.size());
+            for (Map<String, Object> inputs : inputsList) {
+                convertedList.add(convertKeyCase(inputs));
+            }
+
+            returnTO = ((JdbcStatementProcessor)dp).executeBatch(udc, convertedList);
+            returnTO.setProcessorType(processorType);
+            returnTO.setProcessorName(processorName);
+
+            tm.commitTransactionImplicit();
+        }
+        catch(BaseSQLException bdex) {
+            tm.rollbackTransactionImplicit();
+            throw bdex;
+        }
+        finally {
+            tm.releaseResourcesImplicit();
+        }
+
+        return returnTO;
+    }
+
     /**
      * execute a collection of InputInfo objects in one transaction
      */
@@ -261,36 +319,55 @@ public class SqlServiceImpl implements SqlService {
                     }
                 }
 
-                // construct child query
-                String childQuery = "";
-                if (query != null && connectorList.size() > 0 && parentHasData) {
-                    childQuery = getNewChildQuery(query, childIp, parentRt.getAllRows());
-                }
-                else {
-                    childQuery = query;
-                }
-
-                log.debug("child query2: " + childQuery);
-
                 if (parentHasData) {
                     udc = findOrCreateConnection(childIp);
 
-                    OmniDTO returnTO2 =
-                        executeKeepConnection(udc,
-                                              childIp.getInputs(),
-                                              DataProcessorTypes.DIRECT_SQL_STATEMENT_PROCESSOR,
-                                              childQuery,
-                                              childIp.getOutputFilters());
+                    // run the child query for chunks of parent rows with
+                    // distinct connector values, so that the number of bind
+                    // parameters stays within the limit
+                    List<RowData> parentRows = getParentRowsOfDistinctKeys(parentRt, connectorList);
+                    int size = parentRows.size();
+                    int chunkSize = Math.max(1, size);
+                    if (query != null && connectorList.size() > 0) {
+                        chunkSize = getChildQueryChunkSize(udc, query, childIp);
+                    }
 
-                    // merge child records with corresponding parent record
-                    if (returnTO2 != null) {
-                        linkParentWithChild(parentRt,
-                                            returnTO2.getTableData(childQuery),
-                                            childIp.getProcessorName(),
-                                            connectorList);
+                    TableData childRt = null;
+                    for (int start = 0; start < size; start += chunkSize) {
+                        int end = Math.min(start + chunkSize, size);
+                        Map<String, Object> chunkInputs = new HashMap<String, Object>(childIp.getInputs());
+                        String childQuery = query;
+                        if (query != null && connectorList.size() > 0) {
+                            childQuery = getNewChildQuery(query, childIp, chunkInputs, parentRows, start, end);
+                        }
+
+                        log.debug("child query2: " + childQuery);
+
+                        OmniDTO returnTO2 =
+                            executeKeepConnection(udc,
+                                                  chunkInputs,
+                                                  DataProcessorTypes.DIRECT_SQL_STATEMENT_PROCESSOR,
+                                                  childQuery,
+                                                  childIp.getOutputFilters());
+                        log.debug("returnTO2: " + returnTO2);
+
+                        if (returnTO2 != null) {
+                            TableData td = returnTO2.getTableData(childQuery);
+                            if (td == null) continue;
+                            if (childRt == null) {
+                                childRt = td;
+                            }
+                            else {
+                                for (RowData row : td.getAllRows()) childRt.addRow(row);
+                            }
+                        }
                     }
 
-                    log.debug("returnTO2: " + returnTO2);
+                    // merge child records with corresponding parent record
+                    linkParentWithChild(parentRt,
+                                        childRt,
+                                        childIp.getProcessorName(),
+                                        connectorList);
                 }
             }
         }
@@ -452,6 +529,69 @@ public class SqlServiceImpl implements SqlService {
     }
 
 
+    /**
+     * <p>
+     * Retrieve rows from database one by one. Rows are read with the 
+     * streaming fetch size of the database adapter and converted only when 
+     * they are asked for.
+     *
+     * <p>
+     * If there is a transaction in progress, its connection is used and 
+     * stays open after the iterator is closed. Otherwise a new connection 
+     * is opened for the iterator and closed with it. This way other 
+     * database calls made while iterating do not interfere with the 
+     * stream.
+     *
+     * @param inputs            Map of input data
+     * @param processorType     A named SQL or direct SQL
+     * @param processorName     SQL name or SQL itself
+     * @return RowIterator      The row iterator
+     * @throws com.scooterframework.orm.sqldataexpress.exception.BaseSQLException
+     */
+    public RowIterator streamRows(Map<String, Object> inputs, String processorType, String processorName)
+    throws BaseSQLException {
+        if (processorType == null || processorName == null)
+            throw new IllegalArgumentException("processorType or processorName is null.");
+
+        if (inputs == null) inputs = new HashMap<String, Object>();
+
+        Transaction tx = getTransactionManager().getTransaction();
+        boolean useOwnConnection = (tx == null || !tx.isTransactionStarted() || tx.isTransactionEnded());
+
+        UserDatabaseConnection udc = null;
+        try {
+            if (useOwnConnection) {
+                udc = createConnection(inputs);
+
+                //some drivers only fetch rows in batches when not in auto-commit mode
+                udc.getConnection();
+                udc.setAutoCommit(false);
+            }
+            else {
+                udc = findOrCreateConnection(inputs);
+            }
+
+            cleanUpInputs(inputs);
+            DataProcessor dp = DataProcessorFactory.getInstance().getDataProcessor(udc, processorType, processorName);
+            if (!(dp instanceof JdbcStatementProcessor)) {
+                throw new IllegalArgumentException("Only SQL statement can be streamed, but processor type is " + processorType + ".");
+            }
+            return ((JdbcStatementProcessor)dp).stream(udc, convertKeyCase(inputs), useOwnConnection);
+        }
+        catch(BaseSQLException bdex) {
+            throw bdex;
+        }
+        catch(RuntimeException ex) {
+            if (useOwnConnection) DAOUtil.closeConnection(udc);
+            throw ex;
+        }
+        catch(Exception ex) {
+            if (useOwnConnection) DAOUtil.closeConnection(udc);
+            throw new BaseSQLException(ex);
+        }
+    }
+
+
     /**
      * Insert data to database.
      *
@@ -529,6 +669,26 @@ public class SqlServiceImpl implements SqlService {
         return udc;
     }
 
+    /**
+     * Create a new connection which is not managed by any transaction
+     *
+     * @param inputs    Map of inputs
+     * @return UserDatabaseConnection object
+     */
+    private UserDatabaseConnection createConnection(Map<String, Object> inputs) {
+        DatabaseConnectionContext dcc =
+            (DatabaseConnectionContext)inputs.get(DataProcessor.input_key_database_connection_context);
+        String connectionName = (String)inputs.get(DataProcessor.input_key_database_connection_name);
+        if (dcc != null && connectionName != null) {
+            throw new IllegalArgumentException("You cannot have both connection name and dcc in the same inputs map.");
+        }
+
+        UserDatabaseConnectionFactory factory = UserDatabaseConnectionFactory.getInstance();
+        if (dcc != null) return factory.createUserDatabaseConnection(dcc);
+        if (connectionName != null) return factory.createUserDatabaseConnection(connectionName);
+        return factory.createUserDatabaseConnection();
+    }
+
     /**
      * Find or create a new connection
      *
@@ -740,12 +900,11 @@ public class SqlServiceImpl implements SqlService {
     }
 
     //return a string like this: (?fkName1_rowIndex1, ?fkName2_rowIndex2, ...)
-    private String populateConditionPart2(int rowIndex, InputInfo childIp,  RowData parent) {
+    private String populateConditionPart2(int rowIndex, InputInfo childIp, Map<String, Object> childInputs, RowData parent) {
         String part = "(";
         List<String> fkNames = childIp.getFKs();
         if (fkNames != null && fkNames.size() > 0) {
             Map<String, Object> newInputs = new HashMap<String, Object>();
-            Map<String, Object> childInputs = childIp.getInputs();
             for (String fkName : fkNames) {
                 String parentKeyName = (String)childInputs.get("&"+fkName);
                 Object parentData = parent.getField(parentKeyName);
@@ -779,118 +938,113 @@ public class SqlServiceImpl implements SqlService {
     private void linkParentWithChild(TableData parentRt, TableData childRt, String processorName, List<String> connectorList) {
         if(parentRt == null || childRt == null || childRt.getTableSize() == 0) return;
 
+        //index child rows by their connector values
+        Map<Object, List<RowData>> childIndex = new HashMap<Object, List<RowData>>();
+        int childSize = childRt.getTableSize();
+        for (int i = 0; i < childSize; i++) {
+            RowData child = childRt.getRow(i);
+            Object key = getConnectorKey(child, connectorList);
+            if (key == null) continue;
+            List<RowData> rows = childIndex.get(key);
+            if (rows == null) {
+                rows = new ArrayList<RowData>();
+                childIndex.put(key, rows);
+            }
+            rows.add(child);
+        }
+
         int size = parentRt.getAllRows().size();
-        Map<String, Object> connectorMap = new HashMap<String, Object>();
         for (int i = 0; i < size; i++) {
             RowData parentRow = parentRt.getRow(i);
-            populateConnectorMap(connectorMap, parentRow, connectorList);
-            parentRow.addChildRowToMap(processorName, getMatchingRowDataList(connectorMap, childRt));
-
-            //clear the map for next row
-            connectorMap.clear();
+            Object key = getConnectorKey(parentRow, connectorList);
+            List<RowData> rows = (key != null)?childIndex.get(key):null;
+            parentRow.addChildRowToMap(processorName,
+                    (rows != null)?(new ArrayList<RowData>(rows)):(new ArrayList<RowData>()));
         }
     }
 
-    private void populateConnectorMap(Map<String, Object> connectorMap, RowData parentRow, List<String> connectorList) {
-        for (String key : connectorList) {
-            connectorMap.put(key, parentRow.getField(key));
+    private List<RowData> getParentRowsOfDistinctKeys(TableData parentRt, List<String> connectorList) {
+        Map<Object, RowData> parentRows = new LinkedHashMap<Object, RowData>();
+        int size = parentRt.getTableSize();
+        for (int i = 0; i < size; i++) {
+            RowData parentRow = parentRt.getRow(i);
+            Object key = getConnectorKey(parentRow, connectorList);
+            if (key != null && !parentRows.containsKey(key)) parentRows.put(key, parentRow);
         }
+        return new ArrayList<RowData>(parentRows.values());
     }
 
-    private List<RowData> getMatchingRowDataList(Map<String, Object> connectorMap, TableData childRt) {
-        List<RowData> filteredList = new ArrayList<RowData>();
-        boolean allPassed = true;
-        int size = childRt.getTableSize();
-        for (int i=0; i<size; i++) {
-            RowData child = childRt.getRow(i);
-
-            for (Map.Entry<String, Object> entry :connectorMap.entrySet()) {
-                String key = entry.getKey();
-                Object keyData = entry.getValue();
-                Object rowData = child.getField(key);
-                if (rowData == null || !rowData.toString().equalsIgnoreCase(keyData.toString())) {
-                    allPassed = false;
-                    break;
-                }
-            }
+    //Returns null if any connector value is null. Values are compared by
+    //their string forms ignoring case, so that a number key matches the
+    //same key read as a string.
+    private Object getConnectorKey(RowData row, List<String> connectorList) {
+        if (connectorList.size() == 1) return getConnectorKeyValue(row.getField(connectorList.get(0)));
+
+        List<Object> key = new ArrayList<Object>(connectorList.size());
+        for (String connector : connectorList) {
+            Object value = getConnectorKeyValue(row.getField(connector));
+            if (value == null) return null;
+            key.add(value);
+        }
+        return key;
+    }
 
-            if (allPassed) {
-                filteredList.add(child);
-            }
+    private Object getConnectorKeyValue(Object value) {
+        if (value == null) return null;
+        return value.toString().toUpperCase();
+    }
 
-            allPassed = true;
+    //number of parent rows whose bind parameters fit in one child query
+    private int getChildQueryChunkSize(UserDatabaseConnection udc, String query, InputInfo childIp) {
+        int maxBinds = DBAdapterFactory.getInstance().getAdapter(udc.getConnectionName()).getMaxInListSize();
+        int queryBinds = 0;
+        for (int i = 0; i < query.length(); i++) {
+            if (query.charAt(i) == '?') queryBinds++;
         }
-
-        return filteredList;
+        int chunkSize = 0;
+        if (InputInfo.CONSTRUCT_CHILD_QUERY_THRU_UNION.equals(childIp.getChildQueryType())) {
+            chunkSize = maxBinds / Math.max(1, queryBinds);
+        }
+        else {
+            List<String> fkNames = childIp.getFKs();
+            int rowBinds = (fkNames != null)?fkNames.size():1;
+            chunkSize = (maxBinds - queryBinds) / Math.max(1, rowBinds);
+        }
+        return Math.max(1, chunkSize);
     }
 
-    private String getNewChildQuery(String query, InputInfo childIp, List<RowData> parentRows) {
+    private String getNewChildQuery(String query, InputInfo childIp, Map<String, Object> childInputs,
+            List<RowData> parentRows, int start, int end) {
         if (query == null || childIp == null ||
-            parentRows == null || parentRows.size() == 0)
+            parentRows == null || start >= end)
             return query;//nothing need to be changed.
 
         //query = SqlUtil.convertToUpperCase(query);
-        String childQuery = query;
+        StringBuilder childQuery = new StringBuilder(query);
 
-        //generate a child query as union
+        //generate a child query as union of the query for each parent row
         if (InputInfo.CONSTRUCT_CHILD_QUERY_THRU_UNION.equals(childIp.getChildQueryType())) {
-            int size = parentRows.size();
-            if (size > 0) {
-                int rowIndex = 0;
-                for (int i = 0; i < size -1; i++) {
-                    rowIndex = i;
-                    RowData parentRow = parentRows.get(i);
-                    childQuery += populateChildInputs(rowIndex, childIp.getInputs(), parentRow, query) + " UNION ";
-                }
-
-                //last row
-                rowIndex = size -1;
-                RowData parentRow = (RowData)parentRows.get(rowIndex);
-                childQuery += populateChildInputs(rowIndex, childIp.getInputs(), parentRow, query);
+            childQuery.setLength(0);
+            for (int rowIndex = start; rowIndex < end; rowIndex++) {
+                if (rowIndex > start) childQuery.append(" UNION ");
+                childQuery.append(populateChildInputs(rowIndex, childInputs, parentRows.get(rowIndex), query));
             }
         }
         else
-        if (InputInfo.CONSTRUCT_CHILD_QUERY_MAKE_NEW_WHERE_CLAUSE.equals(childIp.getChildQueryType())) {
-            int size = parentRows.size();
-            if (size > 0) {
-                String conditionPart1 = "(" + childIp.getFKString() + ") in ";
-                String conditionPart2 = "";
-                int rowIndex = 0;
-                for (int i = 0; i < size -1; i++) {
-                    rowIndex = i;
-                    RowData parentRow = parentRows.get(i);
-                    conditionPart2 += populateConditionPart2(rowIndex, childIp, parentRow) + ", ";
-                }
-
-                //last row
-                rowIndex = size -1;
-                RowData parentRow = parentRows.get(rowIndex);
-                conditionPart2 += populateConditionPart2(rowIndex, childIp, parentRow);
-                childQuery += " WHERE " + conditionPart1 + "(" + conditionPart2 + ")";
-            }
-        }
-        else
-        if (InputInfo.CONSTRUCT_CHILD_QUERY_ADD_TO_WHERE_CLAUSE.equals(childIp.getChildQueryType())) {
-            int size = parentRows.size();
-            if (size > 0) {
-                String conditionPart1 = "(" + childIp.getFKString() + ") in ";
-                String conditionPart2 = "";
-                int rowIndex = 0;
-                for (int i = 0; i < size -1; i++) {
-                    rowIndex = i;
-                    RowData parentRow = (RowData)parentRows.get(i);
-                    conditionPart2 += populateConditionPart2(rowIndex, childIp, parentRow) + ", ";
-                }
-
-                //last row
-                rowIndex = size -1;
-                RowData parentRow = (RowData)parentRows.get(rowIndex);
-                conditionPart2 += populateConditionPart2(rowIndex, childIp, parentRow);
-                childQuery += " AND " + conditionPart1 + "(" + conditionPart2 + ")";
+        if (InputInfo.CONSTRUCT_CHILD_QUERY_MAKE_NEW_WHERE_CLAUSE.equals(childIp.getChildQueryType()) ||
+            InputInfo.CONSTRUCT_CHILD_QUERY_ADD_TO_WHERE_CLAUSE.equals(childIp.getChildQueryType())) {
+            String conditionPart1 = "(" + childIp.getFKString() + ") in ";
+            StringBuilder conditionPart2 = new StringBuilder();
+            for (int rowIndex = start; rowIndex < end; rowIndex++) {
+                if (rowIndex > start) conditionPart2.append(", ");
+                conditionPart2.append(populateConditionPart2(rowIndex, childIp, childInputs, parentRows.get(rowIndex)));
             }
+            String connector = 
+                (InputInfo.CONSTRUCT_CHILD_QUERY_MAKE_NEW_WHERE_CLAUSE.equals(childIp.getChildQueryType()))?" WHERE ":" AND ";
+            childQuery.append(connector).append(conditionPart1).append("(").append(conditionPart2).append(")");
         }
 
-        return childQuery;
+        return childQuery.toString();
     }
 
     private LogUtil log = LogUtil.getLogger(this.getClass().getName());
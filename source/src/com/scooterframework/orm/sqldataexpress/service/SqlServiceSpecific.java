@@ -10,6 +10,7 @@ package com.scooterframework.orm.sqldataexpress.service;
 import java.util.Map;
 
 import com.scooterframework.orm.sqldataexpress.exception.BaseSQLException;
+import com.scooterframework.orm.sqldataexpress.object.RowIterator;
 import com.scooterframework.orm.sqldataexpress.object.TableData;
 
 /**
@@ -95,6 +96,23 @@ public interface SqlServiceSpecific
     throws BaseSQLException;
     
     
+    /**
+     * Retrieve rows from database one by one. Unlike <tt>retrieveRows</tt>, 
+     * rows are not loaded into memory all at once, so that memory use does 
+     * not depend on the size of the result. 
+     * 
+     * The returned iterator must be closed if not all rows are read. 
+     * 
+     * @param inputs            Map of input data
+     * @param processorType     A named SQL or direct SQL
+     * @param processorName     SQL name or SQL itself
+     * @return RowIterator      The row iterator
+     * @throws com.scooterframework.orm.sqldataexpress.exception.BaseSQLException
+     */
+    public RowIterator streamRows(Map<String, Object> inputs, String processorType, String processorName) 
+    throws BaseSQLException;
+    
+    
     /**
      * Insert data to database.
      * 
@@ -25,7 +25,10 @@ public class DAOUtil
 {
     public static void closeConnection( UserDatabaseConnection udc )
     {
-    	if (udc != null) closeConnection(udc.getConnection());
+    	if (udc != null) {
+    		udc.closeStatements();
+    		closeConnection(udc.getConnection());
+    	}
     }
     
     public static void closeConnection( Connection connection )
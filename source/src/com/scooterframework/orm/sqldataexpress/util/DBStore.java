@@ -7,8 +7,11 @@
  */
 package com.scooterframework.orm.sqldataexpress.util;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.scooterframework.common.util.CurrentThreadCache;
 import com.scooterframework.orm.sqldataexpress.config.DatabaseConfig;
@@ -136,37 +139,59 @@ public class DBStore {
         jdbcStatements.put(jdbcKey, jdbcStmt);
     }
     
-    public Map<String, JdbcStatementProcessor> getJdbcStatementProcessors() {
-        return jdbcStatementProcessors;
+    /**
+     * Returns the cache of parsed SQL statement processors.
+     */
+    public StatementCache getStatementCache() {
+        return statementCache;
     }
     
     public JdbcStatementProcessor getJdbcStatementProcessor(String name) {
+        return getJdbcStatementProcessor(DatabaseConfig.getInstance().getDefaultDatabaseConnectionName(), name);
+    }
+    
+    /**
+     * Retrieves a cached <tt>JdbcStatementProcessor</tt> instance.
+     * 
+     * @param connName   database connection name
+     * @param name       SQL statement string or statement name
+     * @return instance of <tt>JdbcStatementProcessor</tt>
+     */
+    public JdbcStatementProcessor getJdbcStatementProcessor(String connName, String name) {
         if (name == null) return null;
 
-        String jdbcKey = getJdbcKey(name);
-        JdbcStatementProcessor stmt = null;
         if (DatabaseConfig.getInstance().isInDevelopmentEnvironment()) {
-            stmt = (JdbcStatementProcessor)CurrentThreadCache.get(jdbcKey);
-            return stmt;
+            return (JdbcStatementProcessor)CurrentThreadCache.get(getJdbcKey(connName, name));
         }
         
-        stmt = (JdbcStatementProcessor)jdbcStatementProcessors.get(jdbcKey);
-        return stmt;
+        return statementCache.get(connName, name);
     }
     
     public void addJdbcStatementProcessor(String name, JdbcStatementProcessor jdbcProcessor) {
+        addJdbcStatementProcessor(DatabaseConfig.getInstance().getDefaultDatabaseConnectionName(), name, jdbcProcessor);
+    }
+    
+    /**
+     * Adds an instance of <tt>JdbcStatementProcessor</tt> unless one is 
+     * already cached for the same statement.
+     * 
+     * @param connName       database connection name
+     * @param name           SQL statement string or statement name
+     * @param jdbcProcessor  instance of <tt>JdbcStatementProcessor</tt>
+     * @return the processor in the cache
+     */
+    public JdbcStatementProcessor addJdbcStatementProcessor(String connName, String name, JdbcStatementProcessor jdbcProcessor) {
         if (name == null || jdbcProcessor == null) 
             throw new IllegalArgumentException("addJdbcStatementProcessor: Neither name nor jdbcProcessor can be null: " + 
                                                "name is " + name + "; " + 
                                                "jdbcProcessor is " + jdbcProcessor + ".");
 
-        String jdbcKey = getJdbcKey(name);
         if (DatabaseConfig.getInstance().isInDevelopmentEnvironment()) {
-            CurrentThreadCache.set(jdbcKey, jdbcProcessor);
-            return;
+            CurrentThreadCache.set(getJdbcKey(connName, name), jdbcProcessor);
+            return jdbcProcessor;
         }
         
-        jdbcStatementProcessors.put(jdbcKey, jdbcProcessor);
+        return statementCache.putIfAbsent(connName, name, jdbcProcessor);
     }
     
     public Map<String, TableInfo> getTableInfos() {
@@ -229,6 +254,7 @@ public class DBStore {
         }
         
         tables.put(tableKey, ti);
+        tableNames.put(tableKey, new String[]{connName, fullTableName});
     }
     
     /**
@@ -281,6 +307,59 @@ public class DBStore {
         }
         
         tables.put(tableKey, ti);
+        tableNames.put(tableKey, new String[]{connName, tableName});
+    }
+    
+    /**
+     * Returns names of tables whose <tt>TableInfo</tt> instances are stored. 
+     * Each item is an array of database connection name and table name.
+     * 
+     * @return list of connection name and table name pairs
+     */
+    public List<String[]> getTableInfoNames() {
+        return new ArrayList<String[]>(tableNames.values());
+    }
+    
+    /**
+     * Starts keeping a schema fingerprint of each database connection, taken 
+     * before the first table of the connection is looked up.
+     */
+    public void trackSchemaFingerprints() {
+        trackSchemaFingerprints = true;
+    }
+    
+    /**
+     * Checks if a schema fingerprint should be taken for a database 
+     * connection before its tables are looked up.
+     * 
+     * @param connName   database connection name
+     * @return true if fingerprints are tracked and there is none of the connection
+     */
+    public boolean needsSchemaFingerprint(String connName) {
+        return trackSchemaFingerprints && !schemaFingerprints.containsKey(connName);
+    }
+    
+    /**
+     * Returns the schema fingerprint of a database connection, or 
+     * <tt>null</tt> if there is none.
+     * 
+     * @param connName   database connection name
+     * @return fingerprint string
+     */
+    public String getSchemaFingerprint(String connName) {
+        return schemaFingerprints.get(connName);
+    }
+    
+    /**
+     * Sets the schema fingerprint of a database connection. An existing 
+     * fingerprint of the connection is kept.
+     * 
+     * @param connName     database connection name
+     * @param fingerprint  fingerprint string
+     */
+    public void setSchemaFingerprint(String connName, String fingerprint) {
+        if (connName == null || fingerprint == null) return;
+        schemaFingerprints.putIfAbsent(connName, fingerprint);
     }
     
     /**
@@ -448,6 +527,10 @@ public class DBStore {
         return "jdbc:" + name;
     }
 
+    private String getJdbcKey(String connName, String name) {
+        return "jdbc:" + name + "@" + connName;
+    }
+
     private String getTableKey(String connName, String fullTableName) {
         return "table:" + fullTableName.toUpperCase() + "@" + connName;
     }
@@ -463,8 +546,11 @@ public class DBStore {
     private Map<String, StoredProcedure> storedProcedures = new HashMap<String, StoredProcedure>();
     private Map<String, Function> functions = new HashMap<String, Function>();
     private Map<String, JdbcStatement> jdbcStatements = new HashMap<String, JdbcStatement>();
-    private Map<String, JdbcStatementProcessor> jdbcStatementProcessors = new HashMap<String, JdbcStatementProcessor>();
-    private Map<String, TableInfo> tables = new HashMap<String, TableInfo>();
-    private Map<String, PrimaryKey> pkMap = new HashMap<String, PrimaryKey>();
+    private StatementCache statementCache = new StatementCache(DatabaseConfig.DEFAULT_VALUE_statement_cache_size);
+    private Map<String, TableInfo> tables = new ConcurrentHashMap<String, TableInfo>();
+    private Map<String, String[]> tableNames = new ConcurrentHashMap<String, String[]>();
+    private Map<String, PrimaryKey> pkMap = new ConcurrentHashMap<String, PrimaryKey>();
+    private ConcurrentHashMap<String, String> schemaFingerprints = new ConcurrentHashMap<String, String>();
+    private volatile boolean trackSchemaFingerprints = false;
     private Map<String, DBAdapter> adapterMap = new HashMap<String, DBAdapter>();
 }
@@ -0,0 +1,297 @@
+/*
+ *   This software is distributed under the terms of the FSF
+ *   Gnu Lesser General Public License (see lgpl.txt).
+ *
+ *   This program is distributed WITHOUT ANY WARRANTY. See the
+ *   GNU General Public License for more details.
+ */
+package com.scooterframework.orm.sqldataexpress.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.scooterframework.common.logging.LogUtil;
+import com.scooterframework.orm.sqldataexpress.object.TableInfo;
+
+/**
+ * <p>
+ * SchemaSnapshot class saves <tt>TableInfo</tt> instances in <tt>DBStore</tt>
+ * to a file, and restores them when the application is started again, so
+ * that table meta data, including primary keys, does not have to be looked
+ * up from the database table by table on first use.
+ * </p>
+ *
+ * <p>
+ * A snapshot records a schema fingerprint of each database connection. On
+ * restore, tables of a connection whose fingerprint is unchanged are loaded
+ * from the file. Tables of other connections are looked up again in
+ * parallel by a bounded pool of threads, and the snapshot is saved again.
+ * </p>
+ *
+ * @author (Fei) John Chen
+ */
+public class SchemaSnapshot {
+    private static LogUtil log = LogUtil.getLogger(SchemaSnapshot.class.getName());
+
+    /**
+     * Version of the snapshot file format.
+     */
+    public static final int FORMAT_VERSION = 1;
+
+    private File file;
+
+    public SchemaSnapshot(File file) {
+        if (file == null)
+            throw new IllegalArgumentException("Snapshot file cannot be null.");
+        this.file = file;
+    }
+
+    /**
+     * Returns the snapshot file.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Restores table meta data from the snapshot file into <tt>DBStore</tt>.
+     * Tables of changed schemas are looked up again with at most
+     * <tt>threads</tt> threads, and the snapshot is saved again.
+     *
+     * <p>From now on, <tt>DBStore</tt> keeps the schema fingerprint of each
+     * connection as it was before the first table of the connection is
+     * cached. This is the fingerprint saved with the tables.</p>
+     *
+     * @param threads  maximum number of threads for looking up tables
+     * @return number of tables restored or looked up
+     */
+    public int restore(int threads) {
+        DBStore store = DBStore.getInstance();
+        store.trackSchemaFingerprints();
+        if (!file.exists()) return 0;
+
+        Map<String, String> savedFingerprints = new HashMap<String, String>();
+        List<Entry> entries = new ArrayList<Entry>();
+        if (!read(savedFingerprints, entries)) return 0;
+
+        Map<String, Boolean> valid = new HashMap<String, Boolean>();
+        for (Map.Entry<String, String> fp : savedFingerprints.entrySet()) {
+            String connName = fp.getKey();
+            String current = null;
+            try {
+                current = SqlExpressUtil.getSchemaFingerprint(connName);
+                store.setSchemaFingerprint(connName, current);
+            }
+            catch(Exception ex) {
+                log.warn("Failed to check schema of connection " + connName + ": " + ex.getMessage());
+            }
+            valid.put(connName, Boolean.valueOf(current != null && current.equals(fp.getValue())));
+        }
+
+        int loaded = 0;
+        List<String[]> stale = new ArrayList<String[]>();
+        for (Entry entry : entries) {
+            if (Boolean.TRUE.equals(valid.get(entry.connName))) {
+                store.addTableInfo(entry.connName, entry.tableName, entry.tableInfo);
+                loaded++;
+            }
+            else if (store.getSchemaFingerprint(entry.connName) != null) {
+                stale.add(new String[]{entry.connName, entry.tableName});
+            }
+        }
+        log.info("Loaded meta data of " + loaded + " tables from " + file);
+
+        if (stale.size() == 0) return loaded;
+
+        int rebuilt = lookupTables(stale, threads);
+        log.info("Looked up meta data of " + rebuilt + " tables of changed schemas.");
+        save();
+        return loaded + rebuilt;
+    }
+
+    /**
+     * Saves all <tt>TableInfo</tt> instances in <tt>DBStore</tt> to the
+     * snapshot file. Tables of a connection without a fingerprint taken
+     * before they were cached are not saved.
+     */
+    public void save() {
+        DBStore store = DBStore.getInstance();
+        List<Entry> entries = new ArrayList<Entry>();
+        for (String[] names : store.getTableInfoNames()) {
+            TableInfo ti = store.getTableInfo(names[0], names[1]);
+            if (ti != null) entries.add(new Entry(names[0], names[1], ti));
+        }
+        if (entries.size() == 0) return;
+
+        Map<String, String> snapshotFingerprints = new HashMap<String, String>();
+        for (Entry entry : entries) {
+            String connName = entry.connName;
+            if (snapshotFingerprints.containsKey(connName)) continue;
+
+            String fp = store.getSchemaFingerprint(connName);
+            if (fp != null) snapshotFingerprints.put(connName, fp);
+        }
+
+        File tmp = new File(file.getPath() + ".tmp");
+        ObjectOutputStream out = null;
+        try {
+            out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+            out.writeInt(FORMAT_VERSION);
+            out.writeObject(snapshotFingerprints);
+            int count = 0;
+            for (Entry entry : entries) {
+                if (snapshotFingerprints.containsKey(entry.connName)) count++;
+            }
+            out.writeInt(count);
+            for (Entry entry : entries) {
+                if (!snapshotFingerprints.containsKey(entry.connName)) continue;
+                out.writeUTF(entry.connName);
+                out.writeUTF(entry.tableName);
+                out.writeObject(entry.tableInfo);
+            }
+            out.close();
+            out = null;
+
+            if (file.exists() && !file.delete()) {
+                log.warn("Failed to replace schema snapshot " + file);
+                return;
+            }
+            if (!tmp.renameTo(file)) {
+                log.warn("Failed to save schema snapshot " + file);
+            }
+        }
+        catch(IOException ex) {
+            log.warn("Failed to save schema snapshot " + file + ": " + ex.getMessage());
+        }
+        finally {
+            if (out != null) {
+                try {
+                    out.close();
+                }
+                catch(IOException ex) {
+                    ;
+                }
+            }
+            if (tmp.exists()) tmp.delete();
+        }
+    }
+
+    /**
+     * Looks up and stores meta data of tables in parallel, and waits until
+     * all are done.
+     *
+     * @param names    list of connection name and table name pairs
+     * @param threads  maximum number of threads
+     * @return number of tables found
+     */
+    public static int lookupTables(List<String[]> names, int threads) {
+        if (names == null || names.size() == 0) return 0;
+        if (threads < 1) threads = 1;
+        if (threads > names.size()) threads = names.size();
+
+        final AtomicInteger seq = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "scooter-schema-loader-" + seq.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }
+        });
+
+        int found = 0;
+        try {
+            List<Callable<TableInfo>> tasks = new ArrayList<Callable<TableInfo>>(names.size());
+            for (String[] pair : names) {
+                final String connName = pair[0];
+                final String tableName = pair[1];
+                tasks.add(new Callable<TableInfo>() {
+                    public TableInfo call() throws Exception {
+                        return SqlExpressUtil.lookupTableInfo(connName, tableName);
+                    }
+                });
+            }
+
+            List<Future<TableInfo>> results = executor.invokeAll(tasks);
+            for (int i = 0; i < results.size(); i++) {
+                try {
+                    if (results.get(i).get() != null) found++;
+                }
+                catch(Exception ex) {
+                    log.warn("Failed to look up table " + names.get(i)[1] +
+                            " of connection " + names.get(i)[0] + ": " + ex.getMessage());
+                }
+            }
+        }
+        catch(InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        return found;
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean read(Map<String, String> savedFingerprints, List<Entry> entries) {
+        ObjectInputStream in = null;
+        try {
+            in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)));
+            int version = in.readInt();
+            if (version != FORMAT_VERSION) {
+                log.info("Ignored schema snapshot " + file + " of format version " + version);
+                return false;
+            }
+            savedFingerprints.putAll((Map<String, String>)in.readObject());
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String connName = in.readUTF();
+                String tableName = in.readUTF();
+                TableInfo ti = (TableInfo)in.readObject();
+                entries.add(new Entry(connName, tableName, ti));
+            }
+            return true;
+        }
+        catch(Exception ex) {
+            log.warn("Ignored unreadable schema snapshot " + file + ": " + ex.getMessage());
+            return false;
+        }
+        finally {
+            if (in != null) {
+                try {
+                    in.close();
+                }
+                catch(IOException ex) {
+                    ;
+                }
+            }
+        }
+    }
+
+    private static class Entry {
+        private String connName;
+        private String tableName;
+        private TableInfo tableInfo;
+
+        Entry(String connName, String tableName, TableInfo tableInfo) {
+            this.connName = connName;
+            this.tableName = tableName;
+            this.tableInfo = tableInfo;
+        }
+    }
+}
@@ -7,6 +7,7 @@
  */
 package com.scooterframework.orm.sqldataexpress.util;
 
+import java.security.MessageDigest;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
@@ -476,7 +477,7 @@ public class SqlExpressUtil {
                 errorMessage += ", because " + ex.getMessage() + ".";
             }
             finally {
-                DAOUtil.closeConnection(udc.getConnection());
+                DAOUtil.closeConnection(udc);
             }
             
             if (f != null) {
@@ -595,7 +596,7 @@ public class SqlExpressUtil {
                 errorMessage += ", because " + ex.getMessage() + ".";
             }
             finally {
-                DAOUtil.closeConnection(udc.getConnection());
+                DAOUtil.closeConnection(udc);
             }
             
             if (sp != null) {
@@ -781,9 +782,20 @@ public class SqlExpressUtil {
         
         TableInfo ti = null;
         
+        DBStore store = DBStore.getInstance();
+        if (store.needsSchemaFingerprint(connName)) {
+            try {
+                store.setSchemaFingerprint(connName, 
+                		readSchemaFingerprint(dba, udc.getConnection(), connName));
+            }
+            catch(Exception ex) {
+                log.warn("Failed to check schema of connection " + connName + ": " + ex.getMessage());
+            }
+        }
+        
         try {
             ti = createTableInfo(dba, udc, catalog, schema, table);
-            DBStore.getInstance().addTableInfo(connName, tableName, ti);
+            store.addTableInfo(connName, tableName, ti);
         }
         catch(LookupFailureException lfEx) {
         	throw lfEx;
@@ -981,6 +993,92 @@ public class SqlExpressUtil {
         return ti;
     }
     
+    /**
+     * Returns a fingerprint of the definitions of tables and views of a 
+     * database connection's schema. The fingerprint changes when the schema 
+     * is changed. It is read with the query of 
+     * {@link com.scooterframework.orm.sqldataexpress.vendor.DBAdapter#getSchemaFingerprintSQL(String, String)} 
+     * if the database has one, or else from a digest of column definitions 
+     * in JDBC meta data.
+     * 
+     * @param connName   db connection name
+     * @return fingerprint string
+     */
+    public static String getSchemaFingerprint(String connName) {
+    	if (connName == null) 
+    		throw new IllegalArgumentException("connName cannot be null.");
+    	
+        DBAdapter dba = DBAdapterFactory.getInstance().getAdapter(connName);
+        Connection connection = null;
+        try {
+        	connection = SqlExpressUtil.getConnection(connName);
+        	return readSchemaFingerprint(dba, connection, connName);
+        }
+        catch(SQLException ex) {
+            String errorMessage = "Failed to get schema fingerprint with database connection '" + 
+            		connName + "'. Reason: " + ex.getMessage() + ".";
+            throw new LookupFailureException(errorMessage, ex);
+        }
+        finally {
+        	DAOUtil.closeConnection(connection);
+        }
+    }
+    
+    /*
+     * Reads the schema fingerprint with an open connection. The connection 
+     * is not closed.
+     */
+    private static String readSchemaFingerprint(DBAdapter dba, Connection connection, String connName) {
+        String[] s2 = dba.getCatalogAndSchema(connName);
+        String catalog = s2[0];
+        String schema = s2[1];
+        String sql = dba.getSchemaFingerprintSQL(catalog, schema);
+        
+        Statement stmt = null;
+        ResultSet rs = null;
+        try {
+            StringBuilder sb = new StringBuilder();
+            if (sql != null) {
+                stmt = connection.createStatement();
+                rs = stmt.executeQuery(sql);
+                if (rs.next()) {
+                    int count = rs.getMetaData().getColumnCount();
+                    for (int i = 1; i <= count; i++) {
+                        if (i > 1) sb.append(':');
+                        sb.append(rs.getString(i));
+                    }
+                }
+            }
+            else {
+                MessageDigest md = MessageDigest.getInstance("MD5");
+                int count = 0;
+                rs = connection.getMetaData().getColumns(toUpperCaseIfAllowed(dba, catalog), 
+                		toUpperCaseIfAllowed(dba, schema), "%", "%");
+                while (rs.next()) {
+                    String column = rs.getString("TABLE_NAME") + "." + 
+                    	rs.getString("COLUMN_NAME") + ":" + rs.getString("TYPE_NAME") + 
+                    	":" + rs.getInt("COLUMN_SIZE") + ":" + rs.getInt("NULLABLE") + ",";
+                    md.update(column.getBytes("UTF-8"));
+                    count++;
+                }
+                sb.append(count).append(':');
+                for (byte b : md.digest()) {
+                    sb.append(Integer.toHexString((b & 0xff) | 0x100).substring(1));
+                }
+            }
+            return sb.toString();
+        }
+        catch(Exception ex) {
+            String errorMessage = "Failed to get schema fingerprint with database connection '" + 
+            		connName + "'. Reason: " + ex.getMessage() + ".";
+            throw new LookupFailureException(errorMessage, ex);
+        }
+        finally {
+            DAOUtil.closeResultSet(rs);
+            DAOUtil.closeStatement(stmt);
+        }
+    }
+    
     /**
      * Looks up <tt>{@link com.scooterframework.orm.sqldataexpress.object.PrimaryKey PrimaryKey}</tt>.
      * 
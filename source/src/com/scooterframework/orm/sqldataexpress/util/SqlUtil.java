@@ -7,6 +7,8 @@
  */
 package com.scooterframework.orm.sqldataexpress.util;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -386,6 +388,39 @@ public class SqlUtil {
         return havingClause;
     }
 
+    /**
+     * <p>Returns a value which can be used as a hash key for matching 
+     * column values of different rows.</p>
+     * 
+     * <p>Integral numbers are converted to <tt>Long</tt>, so that values of 
+     * the same key column retrieved as <tt>Integer</tt>, <tt>Long</tt> or 
+     * <tt>BigDecimal</tt> give the same key. Other values are returned as 
+     * they are.</p>
+     * 
+     * @param value column value
+     * @return key value
+     */
+    public static Object getKeyValue(Object value) {
+        if (value instanceof Integer || value instanceof Long ||
+            value instanceof Short || value instanceof Byte) {
+            return Long.valueOf(((Number)value).longValue());
+        }
+        if (value instanceof BigInteger) {
+            BigInteger bi = (BigInteger)value;
+            return (bi.bitLength() < 64)?Long.valueOf(bi.longValue()):value;
+        }
+        if (value instanceof BigDecimal) {
+            BigDecimal bd = (BigDecimal)value;
+            if (bd.signum() == 0) return Long.valueOf(0L);
+            bd = bd.stripTrailingZeros();
+            if (bd.scale() <= 0 && bd.precision() - bd.scale() < 19) {
+                return Long.valueOf(bd.longValue());
+            }
+            return bd;
+        }
+        return value;
+    }
+
     public static final String REPLACE_PART_START = "#";
 
     public static final String REPLACE_PART_END = "#";
@@ -0,0 +1,153 @@
+/*
+ *   This software is distributed under the terms of the FSF
+ *   Gnu Lesser General Public License (see lgpl.txt).
+ *
+ *   This program is distributed WITHOUT ANY WARRANTY. See the
+ *   GNU General Public License for more details.
+ */
+package com.scooterframework.orm.sqldataexpress.util;
+
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.scooterframework.cache.CacheStatisticsConstats;
+import com.scooterframework.cache.ConcurrentLRUCache;
+import com.scooterframework.orm.sqldataexpress.processor.JdbcStatementProcessor;
+
+/**
+ * StatementCache class holds parsed SQL statement processors. There is one
+ * bounded partition for each database connection name, because a statement
+ * is parsed against the meta data of the database it runs on.
+ *
+ * <p>Least recently used statements are evicted when a partition is full.
+ * Besides the usual cache statistics, the number of statement parses and
+ * the total time spent in parsing are recorded.</p>
+ *
+ * @author (Fei) John Chen
+ */
+public class StatementCache {
+
+	/**
+	 * Key to represent statistics <tt>ParseCount</tt> property.
+	 */
+	public static final String KEY_STATS_ParseCount = "ParseCount";
+
+	/**
+	 * Key to represent statistics <tt>ParseTimeMillis</tt> property.
+	 */
+	public static final String KEY_STATS_ParseTimeMillis = "ParseTimeMillis";
+
+	private final ConcurrentHashMap<String, ConcurrentLRUCache<String, JdbcStatementProcessor>> partitions =
+		new ConcurrentHashMap<String, ConcurrentLRUCache<String, JdbcStatementProcessor>>();
+	private final AtomicLong parseCount = new AtomicLong();
+	private final AtomicLong parseNanos = new AtomicLong();
+
+	private volatile int maxSizePerConnection;
+
+	public StatementCache(int maxSizePerConnection) {
+		this.maxSizePerConnection = maxSizePerConnection;
+	}
+
+	/**
+	 * Returns the cached processor of a SQL statement or statement name.
+	 *
+	 * @param connName  database connection name
+	 * @param name      SQL statement string or statement name
+	 * @return a cached processor, or null if there is none
+	 */
+	public JdbcStatementProcessor get(String connName, String name) {
+		return getPartition(connName).get(name);
+	}
+
+	/**
+	 * Caches a processor unless another thread has already cached one for
+	 * the same statement, in which case the cached one is returned.
+	 *
+	 * @param connName   database connection name
+	 * @param name       SQL statement string or statement name
+	 * @param processor  processor to cache
+	 * @return the processor in the cache
+	 */
+	public JdbcStatementProcessor putIfAbsent(String connName, String name, JdbcStatementProcessor processor) {
+		return getPartition(connName).putIfAbsent(name, processor);
+	}
+
+	/**
+	 * Records the time spent in parsing a statement.
+	 *
+	 * @param nanos  parse time in nanoseconds
+	 */
+	public void recordParse(long nanos) {
+		parseCount.incrementAndGet();
+		parseNanos.addAndGet(nanos);
+	}
+
+	/**
+	 * Sets the maximum number of statements of each connection.
+	 */
+	public void setMaxSizePerConnection(int size) {
+		maxSizePerConnection = size;
+		for (ConcurrentLRUCache<String, JdbcStatementProcessor> partition : partitions.values()) {
+			partition.setMaxSize(size);
+		}
+	}
+
+	/**
+	 * Removes all cached statements.
+	 */
+	public void clear() {
+		for (ConcurrentLRUCache<String, JdbcStatementProcessor> partition : partitions.values()) {
+			partition.clear();
+		}
+	}
+
+	/**
+	 * Returns statistics summed over all connections.
+	 */
+	public Properties getStatistics() {
+		long size = 0L;
+		long hits = 0L;
+		long misses = 0L;
+		long evictions = 0L;
+		for (ConcurrentLRUCache<String, JdbcStatementProcessor> partition : partitions.values()) {
+			size += partition.size();
+			hits += partition.getHitCount();
+			misses += partition.getMissCount();
+			evictions += partition.getEvictionCount();
+		}
+
+		Properties p = new Properties();
+		p.setProperty(CacheStatisticsConstats.KEY_CACHE_STATS_ObjectCount, "" + size);
+		p.setProperty(CacheStatisticsConstats.KEY_CACHE_STATS_CacheHits, "" + hits);
+		p.setProperty(CacheStatisticsConstats.KEY_CACHE_STATS_CacheMisses, "" + misses);
+		p.setProperty(CacheStatisticsConstats.KEY_CACHE_STATS_EvictionCount, "" + evictions);
+		p.setProperty(KEY_STATS_ParseCount, "" + parseCount.get());
+		p.setProperty(KEY_STATS_ParseTimeMillis, "" + (parseNanos.get() / 1000000L));
+		return p;
+	}
+
+	/**
+	 * Returns statistics of each connection, keyed by connection name.
+	 */
+	public Map<String, Properties> getConnectionStatistics() {
+		Map<String, Properties> map = new TreeMap<String, Properties>();
+		for (Map.Entry<String, ConcurrentLRUCache<String, JdbcStatementProcessor>> entry : partitions.entrySet()) {
+			map.put(entry.getKey(), entry.getValue().getStatistics());
+		}
+		return map;
+	}
+
+	private ConcurrentLRUCache<String, JdbcStatementProcessor> getPartition(String connName) {
+		String key = (connName != null)?connName:"";
+		ConcurrentLRUCache<String, JdbcStatementProcessor> partition = partitions.get(key);
+		if (partition == null) {
+			partition = new ConcurrentLRUCache<String, JdbcStatementProcessor>(key, maxSizePerConnection);
+			ConcurrentLRUCache<String, JdbcStatementProcessor> existing = partitions.putIfAbsent(key, partition);
+			if (existing != null) partition = existing;
+		}
+		return partition;
+	}
+}
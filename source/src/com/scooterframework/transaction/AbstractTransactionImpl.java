@@ -53,7 +53,7 @@ abstract public class AbstractTransactionImpl implements Transaction {
             Iterator<UserDatabaseConnection> it = connList.iterator();
             while(it.hasNext()) {
                 UserDatabaseConnection udc = it.next();
-                DAOUtil.closeConnection(udc.getConnection());
+                DAOUtil.closeConnection(udc);
             }
             connList.clear();
             nameConnMap.clear();
@@ -0,0 +1,82 @@
+/*
+ *   This software is distributed under the terms of the FSF
+ *   Gnu Lesser General Public License (see lgpl.txt).
+ *
+ *   This program is distributed WITHOUT ANY WARRANTY. See the
+ *   GNU General Public License for more details.
+ */
+package com.scooterframework.web.controller;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.scooterframework.admin.FilterManager;
+import com.scooterframework.admin.FilterManagerFactory;
+
+/**
+ * <p>
+ * ActionDispatchTable class holds an {@link ActionInvoker} for each public
+ * method of a controller class, keyed by the lower case method name.
+ * </p>
+ *
+ * <p>
+ * The table is built once for a loaded controller class, so that finding an
+ * action of a request is a map lookup instead of a scan of all methods of
+ * the class. Like <tt>BeanUtil.getMethod</tt>, action names are matched
+ * case-insensitively.
+ * </p>
+ *
+ * @author (Fei) John Chen
+ */
+public class ActionDispatchTable {
+	private final Class<?> controllerClass;
+	private final Map<String, ActionInvoker> invokers;
+
+	ActionDispatchTable(Class<?> controllerClass) {
+		if (controllerClass == null)
+			throw new IllegalArgumentException("controllerClass cannot be null for ActionDispatchTable().");
+		this.controllerClass = controllerClass;
+
+		FilterManager filterManager = FilterManagerFactory.getInstance().getFilterManager(controllerClass);
+		Map<String, ActionInvoker> m = new HashMap<String, ActionInvoker>();
+		for (Method method : controllerClass.getMethods()) {
+			String key = method.getName().toLowerCase();
+			if (!m.containsKey(key)) m.put(key, new ActionInvoker(method, filterManager));
+		}
+		invokers = m;
+	}
+
+	/**
+	 * Returns the controller class.
+	 */
+	public Class<?> getControllerClass() {
+		return controllerClass;
+	}
+
+	/**
+	 * Returns the invoker of an action.
+	 *
+	 * @param action the action name
+	 * @return the invoker, or null if there is no such method
+	 */
+	public ActionInvoker getInvoker(String action) {
+		return (action == null)?null:invokers.get(action.toLowerCase());
+	}
+
+	/**
+	 * Returns the invoker of an action method. A new invoker is returned if
+	 * the <tt>method</tt> is not the one held by the table.
+	 *
+	 * @param method the action method
+	 * @return the invoker
+	 */
+	public ActionInvoker getInvoker(Method method) {
+		ActionInvoker invoker = getInvoker(method.getName());
+		if (invoker == null || !invoker.getMethod().equals(method)) {
+			invoker = new ActionInvoker(method,
+					FilterManagerFactory.getInstance().getFilterManager(controllerClass));
+		}
+		return invoker;
+	}
+}
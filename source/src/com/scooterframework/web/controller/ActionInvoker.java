@@ -0,0 +1,144 @@
+/*
+ *   This software is distributed under the terms of the FSF
+ *   Gnu Lesser General Public License (see lgpl.txt).
+ *
+ *   This program is distributed WITHOUT ANY WARRANTY. See the
+ *   GNU General Public License for more details.
+ */
+package com.scooterframework.web.controller;
+
+import java.lang.reflect.Method;
+
+import com.scooterframework.admin.ActionControlFilter;
+import com.scooterframework.admin.FilterManager;
+import com.scooterframework.common.util.RequestMetrics;
+
+/**
+ * <p>
+ * ActionInvoker class runs an action method of a controller class together
+ * with the before and after filters of the action.
+ * </p>
+ *
+ * <p>
+ * The filters of the action are resolved from the <tt>FilterManager</tt> of
+ * the controller class when the action is invoked for the first time, and
+ * are resolved again only when more filters are declared.
+ * </p>
+ *
+ * @author (Fei) John Chen
+ */
+public class ActionInvoker {
+	private static final ActionControlFilter[] NO_FILTERS = new ActionControlFilter[0];
+
+	private final Method method;
+	private final FilterManager filterManager;
+	private volatile FilterChain filterChain;
+
+	ActionInvoker(Method method, FilterManager filterManager) {
+		if (method == null)
+			throw new IllegalArgumentException("method cannot be null for ActionInvoker().");
+		this.method = method;
+		this.filterManager = filterManager;
+
+		try {
+			method.setAccessible(true);
+		}
+		catch(SecurityException ex) {
+			;//access check is done on each call
+		}
+	}
+
+	/**
+	 * Returns the action method.
+	 */
+	public Method getMethod() {
+		return method;
+	}
+
+	/**
+	 * Executes the before filters, the action and the after filters on the
+	 * <tt>controller</tt>. The action is not run if a before filter returns
+	 * a not-null result. A not-null result of an after filter replaces the
+	 * result of the action.
+	 *
+	 * @param controller the controller instance
+	 * @return execution result
+	 * @throws Exception if the action or a filter fails
+	 */
+	public String invoke(Object controller) throws Exception {
+		FilterChain chain = getFilterChain();
+
+		ActionControlFilter[] filters = chain.beforeFilters;
+		if (filters.length > 0) {
+			long start = RequestMetrics.now();
+			try {
+				for (int i = 0; i < filters.length; i++) {
+					String result = filters[i].execute();
+					if (result != null) return result;
+				}
+			}
+			finally {
+				RequestMetrics.addTime(RequestMetrics.PHASE_FILTERS, start);
+			}
+		}
+
+		String result = null;
+		long start = RequestMetrics.now();
+		try {
+			result = (String)method.invoke(controller, (Object[])null);
+		}
+		finally {
+			RequestMetrics.addTime(RequestMetrics.PHASE_ACTION, start);
+		}
+
+		filters = chain.afterFilters;
+		if (filters.length > 0) {
+			start = RequestMetrics.now();
+			try {
+				for (int i = 0; i < filters.length; i++) {
+					String afResult = filters[i].execute();
+					if (afResult != null) {
+						result = afResult;
+						break;
+					}
+				}
+			}
+			finally {
+				RequestMetrics.addTime(RequestMetrics.PHASE_FILTERS, start);
+			}
+		}
+		return result;
+	}
+
+	private FilterChain getFilterChain() {
+		FilterChain chain = filterChain;
+		int revision = (filterManager == null)?0:filterManager.getRevision();
+		if (chain == null || chain.revision != revision) {
+			chain = resolveFilterChain(revision);
+			filterChain = chain;
+		}
+		return chain;
+	}
+
+	private FilterChain resolveFilterChain(int revision) {
+		if (filterManager == null || filterManager.noFilterDeclared()) {
+			return new FilterChain(revision, NO_FILTERS, NO_FILTERS);
+		}
+		String action = method.getName();
+		return new FilterChain(revision,
+				filterManager.getBeforeFilterChain(action),
+				filterManager.getAfterFilterChain(action));
+	}
+
+	private static class FilterChain {
+		private final int revision;
+		private final ActionControlFilter[] beforeFilters;
+		private final ActionControlFilter[] afterFilters;
+
+		FilterChain(int revision, ActionControlFilter[] beforeFilters, ActionControlFilter[] afterFilters) {
+			this.revision = revision;
+			this.beforeFilters = beforeFilters;
+			this.afterFilters = afterFilters;
+		}
+	}
+}
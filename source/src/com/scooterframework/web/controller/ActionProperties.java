@@ -32,7 +32,59 @@ public class ActionProperties {
     
     public String routeType;
     
+    /**
+     * Name of the matched route, used as the route of request metrics. 
+     * The controller and action are added to the name of a route which 
+     * serves more than one action.
+     */
+    public String routeName;
+    
     public Map<String, String> requiredFieldValues;
+    
+    /**
+     * The shared properties this instance is copied from.
+     */
+    private ActionProperties source;
+    
+    /**
+     * Returns a copy of the properties for one request. The controller and 
+     * action method resolved for the copy are kept in this instance too, so 
+     * that later copies do not resolve them again.
+     * 
+     * @return a copy of this instance
+     */
+    public ActionProperties copy() {
+        ActionProperties aps = new ActionProperties();
+        aps.controllerPath = controllerPath;
+        aps.controller = controller;
+        aps.controllerClassName = controllerClassName;
+        aps.action = action;
+        aps.model = model;
+        aps.format = format;
+        aps.resource = resource;
+        aps.cacheable = cacheable;
+        aps.controllerCreated = controllerCreated;
+        aps.controllerInstance = controllerInstance;
+        aps.methodCreated = methodCreated;
+        aps.methodInstance = methodInstance;
+        aps.routeType = routeType;
+        aps.routeName = routeName;
+        aps.requiredFieldValues = requiredFieldValues;
+        aps.source = this;
+        return aps;
+    }
+    
+    void setControllerInstance(Object instance) {
+        controllerInstance = instance;
+        controllerCreated = true;
+        if (source != null) source.setControllerInstance(instance);
+    }
+    
+    void setMethodInstance(Method method) {
+        methodInstance = method;
+        methodCreated = true;
+        if (source != null) source.setMethodInstance(method);
+    }
 
 	/**
      * Returns a string representation of the object.
@@ -51,6 +103,7 @@ public class ActionProperties {
         returnString.append("resource = " + resource).append(SEPARATOR);
         returnString.append("cacheable = " + cacheable).append(SEPARATOR);
         returnString.append("routeType = " + routeType).append(SEPARATOR);
+        returnString.append("routeName = " + routeName).append(SEPARATOR);
         returnString.append("controllerCreated = " + controllerCreated).append(SEPARATOR);
         returnString.append("methodCreated = " + methodCreated).append(SEPARATOR);
         returnString.append("requiredFieldValues = " + requiredFieldValues);
@@ -11,9 +11,8 @@ import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Method;
 import java.util.Enumeration;
-import java.util.HashMap;
 import java.util.Locale;
-import java.util.Map;
+import java.util.Properties;
 
 import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
@@ -23,18 +22,20 @@ import javax.servlet.http.HttpServletResponse;
 import com.scooterframework.admin.ApplicationConfig;
 import com.scooterframework.admin.Constants;
 import com.scooterframework.admin.EnvConfig;
-import com.scooterframework.admin.FilterManager;
-import com.scooterframework.admin.FilterManagerFactory;
 import com.scooterframework.autoloader.JavaCompiler;
+import com.scooterframework.cache.ConcurrentLRUCache;
 import com.scooterframework.common.exception.ExecutionException;
 import com.scooterframework.common.exception.MethodCreationException;
 import com.scooterframework.common.logging.LogUtil;
 import com.scooterframework.common.util.CurrentThreadCache;
 import com.scooterframework.common.util.CurrentThreadCacheClient;
+import com.scooterframework.common.util.RequestMetrics;
 import com.scooterframework.common.util.StringUtil;
 import com.scooterframework.common.util.WordUtil;
 import com.scooterframework.orm.sqldataexpress.config.DatabaseConfig;
 import com.scooterframework.web.route.NoRouteFoundException;
+import com.scooterframework.web.route.RouteConfig;
+import com.scooterframework.web.route.RouteConstants;
 
 /**
  * <p><strong>BaseRequestProcessor</strong> contains the processing logic that
@@ -48,7 +49,13 @@ import com.scooterframework.web.route.NoRouteFoundException;
 public class BaseRequestProcessor {
     protected LogUtil log = LogUtil.getLogger(getClass().getName());
 
-    private Map<String, ActionProperties> requestPropertiesMap = new HashMap<String, ActionProperties>();
+    /**
+     * Action properties keyed by request path key, or by another key chosen 
+     * by a subclass such as the matched route.
+     */
+    private ConcurrentLRUCache<Object, ActionProperties> requestPropertiesCache = 
+    	new ConcurrentLRUCache<Object, ActionProperties>("actionProperties", 
+    			RouteConfig.getInstance().getRouteCacheSize());
 
     public static final String DEFAULT_CONTROLLER_CLASS = "com.scooterframework.builtin.CRUDController";
 
@@ -76,6 +83,7 @@ public class BaseRequestProcessor {
         if (log.isDebugEnabled()) displayHttpRequest(request);
 
         try {
+            long start = RequestMetrics.now();
             processLocale(request, response);
 
             String requestPath = CurrentThreadCacheClient.requestPath();
@@ -86,33 +94,32 @@ public class BaseRequestProcessor {
             }
 
             if (isRootAccess(requestPath)) {
+            	RequestMetrics.setRoute(RouteConstants.ROUTE_TYPE_ROOT);
             	processRootAccess(request, response);
             }
             else {
             	String result = null;
 
-            	String requstPathKey = CurrentThreadCacheClient.requestPathKey();
-            	ActionProperties aps = requestPropertiesMap.get(requstPathKey);
-
-            	if (aps == null || ApplicationConfig.getInstance().isInDevelopmentEnvironment()) {
-                    String requestHttpMethod = CurrentThreadCacheClient.httpMethod();
-                    aps = prepareActionProperties(requestPath, requestHttpMethod, request);
-                    registerActionProperties(request, aps);
-                    requestPropertiesMap.put(requstPathKey, aps);
-            	}
-            	else {
-            		registerActionProperties(request, aps);
-            	}
+            	String requestHttpMethod = CurrentThreadCacheClient.httpMethod();
+            	ActionProperties aps = getActionProperties(requestPath, requestHttpMethod, request);
+            	registerActionProperties(request, aps);
                 log.debug("aps: " + aps);
+                RequestMetrics.addTime(RequestMetrics.PHASE_ROUTING, start);
 
                 result = executeRequest(aps, request, response);
                 log.debug("execution result: " + result);
 
-                if (result != null) {
-                    processNotNullResult(request, response, aps, result);
+                start = RequestMetrics.now();
+                try {
+                    if (result != null) {
+                        processNotNullResult(request, response, aps, result);
+                    }
+                    else {
+                        processNullResult(request, response, aps);
+                    }
                 }
-                else {
-                    processNullResult(request, response, aps);
+                finally {
+                    RequestMetrics.addTime(RequestMetrics.PHASE_RENDER, start);
                 }
             }
         }
@@ -121,6 +128,52 @@ public class BaseRequestProcessor {
         }
     }
 
+    /**
+     * Returns hit/miss statistics of the action properties cache.
+     */
+    public Properties getActionPropertiesCacheStatistics() {
+    	return requestPropertiesCache.getStatistics();
+    }
+
+    /**
+     * Returns action properties of a request. Properties are cached by 
+     * request path key unless in development environment.
+     * 
+     * @param requestPath     the request path
+     * @param requestHttpMethod  the request http method
+     * @param request The servlet request we are processing
+     * @return an ActionProperties instance
+     */
+    protected ActionProperties getActionProperties(String requestPath,
+    		String requestHttpMethod, HttpServletRequest request) {
+    	if (ApplicationConfig.getInstance().isInDevelopmentEnvironment()) {
+    		return prepareActionProperties(requestPath, requestHttpMethod, request);
+    	}
+
+    	String requestPathKey = CurrentThreadCacheClient.requestPathKey();
+    	ActionProperties aps = requestPropertiesCache.get(requestPathKey);
+    	if (aps == null) {
+    		aps = prepareActionProperties(requestPath, requestHttpMethod, request);
+    		requestPropertiesCache.put(requestPathKey, aps);
+    	}
+    	return aps;
+    }
+
+    /**
+     * Returns cached action properties, or <tt>null</tt> if there is none.
+     */
+    protected ActionProperties getCachedActionProperties(Object key) {
+    	return requestPropertiesCache.get(key);
+    }
+
+    /**
+     * Caches action properties. The properties are shared by all requests 
+     * of the same key, so they must not hold values of a single request.
+     */
+    protected void cacheActionProperties(Object key, ActionProperties aps) {
+    	requestPropertiesCache.put(key, aps);
+    }
+
     private boolean isAdminRequest(String requestPath) {
     	return (requestPath != null && requestPath.toLowerCase().startsWith("/admin"));
     }
@@ -146,8 +199,7 @@ public class BaseRequestProcessor {
     	}
     	else {
     		controllerInstance = getControllerInstance(aps.controllerClassName);
-    		aps.controllerInstance = controllerInstance;
-    		aps.controllerCreated = true;
+    		aps.setControllerInstance(controllerInstance);
     	}
 
         if (controllerInstance == null) {
@@ -168,8 +220,7 @@ public class BaseRequestProcessor {
         }
         else {
         	actionInstance = getActionMethod(controllerInstance.getClass(), aps.action);
-        	aps.methodInstance = actionInstance;
-        	aps.methodCreated = true;
+        	aps.setMethodInstance(actionInstance);
         }
 
         if (actionInstance == null) {
@@ -183,6 +234,8 @@ public class BaseRequestProcessor {
             }
         }
 
+        //only requests of existing actions are timed by route
+        RequestMetrics.setRoute(aps.routeName);
         return executeControllerAction(controllerInstance, actionInstance);
     }
 
@@ -248,10 +301,34 @@ public class BaseRequestProcessor {
         aps.action = action;
         aps.model = (DatabaseConfig.getInstance().usePluralTableName())?WordUtil.singularize(controller):controller;
         aps.format = format;
+        aps.routeName = controllerPath + "#" + action;
 
         return aps;
     }
 
+    /**
+     * Returns the controller path of a request path. It is the request path 
+     * without format extension and without its last segment.
+     *
+     * @param requestPath the request path
+     * @return controller path
+     */
+    protected String getControllerPath(String requestPath) {
+        String path = requestPath;
+        int lastDot = path.lastIndexOf(".");
+        if (lastDot != -1 && lastDot > path.lastIndexOf("/") &&
+            EnvConfig.getInstance().hasMimeTypeFor(path.substring(lastDot + 1))) {
+            path = path.substring(0, lastDot);
+        }
+
+        if (path.endsWith("/")) path = path.substring(0, path.length() - 1);
+
+        int lastSlash = path.lastIndexOf("/");
+        if (lastSlash > 0) return path.substring(0, lastSlash);
+        if (lastSlash == 0) return path;
+        return null;
+    }
+
     /**
      * Puts some action properties in <tt>request</tt> object.
      */
@@ -278,7 +355,7 @@ public class BaseRequestProcessor {
      * @return true if the request is from a localhost
      */
     protected boolean isLocalRequest(HttpServletRequest request) {
-        String s = (String)CurrentThreadCache.get(Constants.LOCAL_REQUEST);
+        String s = (String)CurrentThreadCache.get(CurrentThreadCache.SLOT_LOCAL_REQUEST);
         if ((Constants.VALUE_FOR_LOCAL_REQUEST).equals(s)) {
             return true;
         }
@@ -379,23 +456,7 @@ public class BaseRequestProcessor {
 
         String result = null;
         try {
-            boolean beforeIsSuccess = true;
-            FilterManager filterManager = FilterManagerFactory.getInstance().getFilterManager(controller.getClass());
-            if (filterManager != null && !filterManager.noFilterDeclared()) {
-            	result = filterManager.executeBeforeFiltersOn(method.getName());
-                if (result != null) beforeIsSuccess = false;
-            }
-
-            if (beforeIsSuccess) {
-                result = (String)method.invoke(controller, (Object[])null);
-            }
-
-            if (beforeIsSuccess && filterManager != null && !filterManager.noFilterDeclared()) {
-                String afResult = filterManager.executeAfterFiltersOn(method.getName());
-                if (afResult != null) {
-                    result = afResult;
-                }
-            }
+            result = ControllerFactory.getActionInvoker(controller.getClass(), method).invoke(controller);
         } catch (Exception ex) {
 			log.error("Error in executeControllerAction controller/action: " + controller + "/" + method, ex);
             ExecutionException eex =
@@ -8,12 +8,15 @@
 package com.scooterframework.web.controller;
 
 import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.Writer;
 
 import javax.servlet.ServletException;
 import javax.servlet.ServletOutputStream;
@@ -72,6 +75,33 @@ public class ContentHandlerHelper {
 	 */
 	public static void publish(HttpServletResponse response, String content, String mimeType) 
     throws IOException, ServletException {
+        prepareText(response, mimeType);
+        
+        PrintWriter out = response.getWriter();
+        out.println(content);
+        out.flush();
+    }
+	
+	/**
+	 * Prepares the response for sending text, and returns a buffered writer 
+	 * of the response output stream in the response encoding. Text written 
+	 * to the writer is sent whenever the buffer is full, so that the content 
+	 * does not have to be built in memory first. The writer must be flushed 
+	 * after all text is written.
+	 * Default <tt>mimeType</tt> is <tt>text/plain</tt>.
+	 * 
+	 * @param response  The HTTP response object.
+	 * @param mimeType  The content MIME type.
+	 * @return a writer of the response
+	 * @throws IOException
+	 */
+	public static Writer getTextWriter(HttpServletResponse response, String mimeType) 
+    throws IOException {
+        String encoding = prepareText(response, mimeType);
+        return new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), encoding), 8192);
+    }
+	
+	private static String prepareText(HttpServletResponse response, String mimeType) {
         String encoding = response.getCharacterEncoding();
     	if (encoding == null) encoding = "utf-8";
     	
@@ -86,10 +116,7 @@ public class ContentHandlerHelper {
     	}
         response.setHeader("Cache-Control", "no-cache");
         response.setStatus(HttpServletResponse.SC_OK);
-        
-        PrintWriter out = response.getWriter();
-        out.println(content);
-        out.flush();
+        return encoding;
     }
 	
 	/**
@@ -8,19 +8,30 @@
 package com.scooterframework.web.controller;
 
 import java.lang.reflect.Method;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import com.scooterframework.admin.ApplicationConfig;
 import com.scooterframework.admin.AutoLoadedObjectFactory;
+import com.scooterframework.admin.Constants;
 import com.scooterframework.admin.EnvConfig;
+import com.scooterframework.admin.Event;
+import com.scooterframework.admin.EventsManager;
+import com.scooterframework.admin.FilterManagerFactory;
+import com.scooterframework.admin.Listener;
 import com.scooterframework.common.exception.MethodCreationException;
 import com.scooterframework.common.logging.LogUtil;
-import com.scooterframework.common.util.BeanUtil;
 import com.scooterframework.web.route.RouteConfig;
 
 /**
- * ControllerFactory manages instances of controller classes.
+ * <p>ControllerFactory manages instances of controller classes and the
+ * {@link ActionDispatchTable} of each loaded controller class.</p>
+ * 
+ * <p>Dispatch tables are keyed by class, so that a reloaded controller class
+ * gets a new table. Tables and filter managers of classes loaded by a
+ * replaced class loader are removed when the autoloader publishes an
+ * <tt>EVENT_CLASS_RELOAD</tt> event.</p>
  * 
  * @author (Fei) John Chen
  */
@@ -56,7 +67,7 @@ public class ControllerFactory {
                     return null;
                 }
             }
-            controllerMap.put(controllerClassName, controller);
+            if (controller != null) controllerMap.put(controllerClassName, controller);
         }
         
         return controller;
@@ -79,24 +90,69 @@ public class ControllerFactory {
             throw new IllegalArgumentException("No method name specified.");
         }
         
-        String methodKey = clz.getName() + "." + methodName.toLowerCase();
-        Method method = allMethodsMap.get(methodKey);
-        
-        if (method == null || ApplicationConfig.getInstance().isInDevelopmentEnvironment()) {
-        	method = BeanUtil.getMethod(clz, methodName);
-    		
-    		if (method == null) {
-        		throw new MethodCreationException(clz.getName(), methodName);
-        	}
-    		
-    		allMethodsMap.put(methodKey, method);
+        ActionInvoker invoker = getActionDispatchTable(clz).getInvoker(methodName);
+        if (invoker == null) {
+            throw new MethodCreationException(clz.getName(), methodName);
         }
-        
-        return method;
+        return invoker.getMethod();
     }
     
-    private static Map<String, Object> controllerMap = new HashMap<String, Object>();
-	private static Map<String, Method> allMethodsMap = new HashMap<String, Method>();
+    /**
+     * Returns the dispatch table of a controller class. The table is created
+     * when it is requested for the first time.
+     * 
+     * @param clz the controller class
+     * @return the dispatch table of the class
+     */
+    public static ActionDispatchTable getActionDispatchTable(Class<?> clz) {
+        ActionDispatchTable table = dispatchTables.get(clz);
+        if (table == null) {
+            table = new ActionDispatchTable(clz);
+            ActionDispatchTable oldTable = dispatchTables.putIfAbsent(clz, table);
+            if (oldTable != null) table = oldTable;
+        }
+        return table;
+    }
+    
+    /**
+     * Returns the invoker of an action method of a controller class.
+     * 
+     * @param clz the controller class
+     * @param method the action method
+     * @return the invoker of the action
+     */
+    public static ActionInvoker getActionInvoker(Class<?> clz, Method method) {
+        return getActionDispatchTable(clz).getInvoker(method);
+    }
+    
+    /**
+     * Removes controller instances and dispatch tables of classes loaded by
+     * a class loader.
+     * 
+     * @param classLoader the class loader
+     */
+    public static void removeClassesLoadedBy(ClassLoader classLoader) {
+        for (Iterator<Object> it = controllerMap.values().iterator(); it.hasNext();) {
+            if (it.next().getClass().getClassLoader() == classLoader) it.remove();
+        }
+        for (Iterator<Class<?>> it = dispatchTables.keySet().iterator(); it.hasNext();) {
+            if (it.next().getClassLoader() == classLoader) it.remove();
+        }
+        FilterManagerFactory.getInstance().removeFilterManagers(classLoader);
+    }
+    
+    private static ConcurrentMap<String, Object> controllerMap = new ConcurrentHashMap<String, Object>();
+    private static ConcurrentMap<Class<?>, ActionDispatchTable> dispatchTables = new ConcurrentHashMap<Class<?>, ActionDispatchTable>();
+    
+    static {
+        EventsManager.getInstance().registerListener(Constants.EVENT_CLASS_RELOAD, new Listener() {
+            public void handleEvent(Event event) {
+                if (event.getData() instanceof ClassLoader) {
+                    removeClassesLoadedBy((ClassLoader)event.getData());
+                }
+            }
+        });
+    }
 
     private static LogUtil log = LogUtil.getLogger(ControllerFactory.class.getName());
 }
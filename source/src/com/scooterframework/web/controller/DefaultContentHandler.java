@@ -8,6 +8,7 @@
 package com.scooterframework.web.controller;
 
 import java.io.IOException;
+import java.io.Writer;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.Map;
@@ -24,6 +25,7 @@ import com.scooterframework.admin.EnvConfig;
 import com.scooterframework.common.logging.LogUtil;
 import com.scooterframework.common.util.StringUtil;
 import com.scooterframework.orm.activerecord.ActiveRecord;
+import com.scooterframework.orm.activerecord.RecordIterator;
 
 /**
  * DefaultContentHandler is responsible for handling content of a request
@@ -31,7 +33,9 @@ import com.scooterframework.orm.activerecord.ActiveRecord;
  *
  * <p>
  * The content for the following request format is treated as text:
- * json, txt, text, and xml.
+ * json, txt, text, and xml. Records, rows, maps and collections requested
+ * in json or xml format are written directly to the response by a
+ * {@link StreamingContentWriter}.
  *
  * @author (Fei) John Chen
  */
@@ -55,6 +59,11 @@ public class DefaultContentHandler implements ContentHandler {
 			String format) throws IOException, ServletException {
     	String mimeType = EnvConfig.getInstance().getMimeType(format);
 
+    	if (StreamingContentWriter.isSupported(content, format)) {
+    		publishStreaming(response, content, mimeType, format);
+    		return;
+    	}
+
     	if (EnvConfig.getInstance().isTextFile(format)) {
     		content = convertObjectToString(content, format);
     	}
@@ -68,6 +77,36 @@ public class DefaultContentHandler implements ContentHandler {
     	ContentHandlerHelper.publish(response, content, mimeType);
     }
 
+    /**
+     * Writes records, rows, maps and collections directly to the response
+     * in <tt>json</tt> or <tt>xml</tt> format. A <tt>RecordIterator</tt>
+     * content is closed after it is written or when writing fails.
+     *
+     * @param response  The HTTP response object.
+     * @param content  The content to be sent.
+     * @param mimeType  The content MIME type.
+     * @param format  The request format.
+     * @throws IOException
+     */
+    protected void publishStreaming(
+    		HttpServletResponse response,
+    		Object content,
+    		String mimeType,
+    		String format) throws IOException {
+    	try {
+    		Writer out = ContentHandlerHelper.getTextWriter(response, mimeType);
+    		if ("xml".equalsIgnoreCase(format)) {
+    			out.write("<?xml version=\"1.0\" encoding=\"" + response.getCharacterEncoding() + "\"?>");
+    		}
+    		new StreamingContentWriter(out, format).write(content);
+    		out.flush();
+    	}
+    	finally {
+    		//release the result set even if the client has gone away
+    		if (content instanceof RecordIterator) ((RecordIterator)content).close();
+    	}
+    }
+
     protected String convertObjectToString(Object data, String format) {
     	String spliter = ", ";
     	StringBuilder sb = new StringBuilder();
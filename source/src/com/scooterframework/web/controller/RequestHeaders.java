@@ -0,0 +1,249 @@
+/*
+ *   This software is distributed under the terms of the FSF
+ *   Gnu Lesser General Public License (see lgpl.txt).
+ *
+ *   This program is distributed WITHOUT ANY WARRANTY. See the
+ *   GNU General Public License for more details.
+ */
+package com.scooterframework.web.controller;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * <p>RequestHeaders class is a view of headers of a request. Headers are
+ * read from the underlying request when they are asked for, instead of
+ * being copied for every request.</p>
+ *
+ * <p>The class is a <tt>Properties</tt>, as the request header object
+ * stored under <tt>Constants.REQUEST_HEADER</tt> has always been. Looking
+ * up a header through <tt>get</tt>, <tt>getProperty</tt> or
+ * <tt>containsKey</tt> reads the request. Any other <tt>Properties</tt>
+ * method, such as listing or changing entries, first copies all headers
+ * into this object, after which it behaves as a plain <tt>Properties</tt>
+ * object.</p>
+ *
+ * <p>The view is only valid while the request is being processed.</p>
+ *
+ * @author (Fei) John Chen
+ */
+public class RequestHeaders extends Properties {
+
+    /**
+     * Generated serialVersionUID
+     */
+    private static final long serialVersionUID = 4302215744081693871L;
+
+    private final transient HttpServletRequest request;
+    private boolean loaded = false;
+
+    public RequestHeaders(HttpServletRequest request) {
+        if (request == null)
+            throw new IllegalArgumentException("Request cannot be null.");
+        this.request = request;
+    }
+
+    /**
+     * Returns value of a header, or <tt>null</tt> if the request does not
+     * have the header. Header names are case insensitive.
+     *
+     * @param name  header name
+     * @return header value
+     */
+    public String getHeader(String name) {
+        return request.getHeader(name);
+    }
+
+    /**
+     * Returns all values of a header.
+     *
+     * @param name  header name
+     * @return list of header values
+     */
+    public List<String> getHeaders(String name) {
+        List<String> values = new ArrayList<String>();
+        Enumeration<?> en = request.getHeaders(name);
+        if (en == null) return values;
+        while (en.hasMoreElements()) {
+            values.add((String)en.nextElement());
+        }
+        return values;
+    }
+
+    /**
+     * Returns names of all headers of the request.
+     *
+     * @return list of header names
+     */
+    public List<String> getHeaderNames() {
+        List<String> names = new ArrayList<String>();
+        Enumeration<?> en = request.getHeaderNames();
+        if (en == null) return names;
+        while (en.hasMoreElements()) {
+            names.add((String)en.nextElement());
+        }
+        return names;
+    }
+
+    /**
+     * Returns true if the request has the header.
+     *
+     * @param name  header name
+     * @return true if the header exists
+     */
+    public boolean containsHeader(String name) {
+        return request.getHeader(name) != null;
+    }
+
+    /**
+     * Returns a copy of all headers as a properties object.
+     *
+     * @return properties of headers
+     */
+    public Properties toProperties() {
+        Properties headers = new Properties();
+        Enumeration<?> en = request.getHeaderNames();
+        if (en == null) return headers;
+        while (en.hasMoreElements()) {
+            String name = (String)en.nextElement();
+            String value = request.getHeader(name);
+            if (value != null) headers.setProperty(name, value);
+        }
+        return headers;
+    }
+
+    public synchronized Object get(Object key) {
+        if (loaded) return super.get(key);
+        return (key instanceof String)?request.getHeader((String)key):null;
+    }
+
+    public String getProperty(String key) {
+        Object value = get(key);
+        return (value instanceof String)?(String)value:null;
+    }
+
+    public String getProperty(String key, String defaultValue) {
+        String value = getProperty(key);
+        return (value != null)?value:defaultValue;
+    }
+
+    public synchronized boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    public synchronized Object put(Object key, Object value) {
+        load();
+        return super.put(key, value);
+    }
+
+    public synchronized Object remove(Object key) {
+        load();
+        return super.remove(key);
+    }
+
+    public synchronized void putAll(Map<?, ?> t) {
+        load();
+        super.putAll(t);
+    }
+
+    public synchronized void clear() {
+        load();
+        super.clear();
+    }
+
+    public synchronized int size() {
+        load();
+        return super.size();
+    }
+
+    public synchronized boolean isEmpty() {
+        load();
+        return super.isEmpty();
+    }
+
+    public synchronized Enumeration<Object> keys() {
+        load();
+        return super.keys();
+    }
+
+    public synchronized Enumeration<Object> elements() {
+        load();
+        return super.elements();
+    }
+
+    public synchronized boolean contains(Object value) {
+        load();
+        return super.contains(value);
+    }
+
+    public boolean containsValue(Object value) {
+        return contains(value);
+    }
+
+    public synchronized Set<Object> keySet() {
+        load();
+        return super.keySet();
+    }
+
+    public synchronized Set<Map.Entry<Object, Object>> entrySet() {
+        load();
+        return super.entrySet();
+    }
+
+    public synchronized Collection<Object> values() {
+        load();
+        return super.values();
+    }
+
+    public synchronized Enumeration<?> propertyNames() {
+        load();
+        return super.propertyNames();
+    }
+
+    public synchronized Set<String> stringPropertyNames() {
+        load();
+        Set<String> names = new HashSet<String>();
+        for (Object key : super.keySet()) {
+            if (key instanceof String) names.add((String)key);
+        }
+        return Collections.unmodifiableSet(names);
+    }
+
+    public synchronized Object clone() {
+        load();
+        return super.clone();
+    }
+
+    public synchronized boolean equals(Object o) {
+        load();
+        return super.equals(o);
+    }
+
+    public synchronized int hashCode() {
+        load();
+        return super.hashCode();
+    }
+
+    public synchronized String toString() {
+        load();
+        return super.toString();
+    }
+
+    /*
+     * Copies all headers of the request into this object once.
+     */
+    private synchronized void load() {
+        if (loaded) return;
+        loaded = true;
+        super.putAll(toProperties());
+    }
+}
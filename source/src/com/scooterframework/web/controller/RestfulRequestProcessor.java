@@ -14,15 +14,16 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import com.scooterframework.admin.ApplicationConfig;
 import com.scooterframework.admin.Constants;
 import com.scooterframework.admin.EnvConfig;
 import com.scooterframework.common.util.CurrentThreadCache;
 import com.scooterframework.common.util.CurrentThreadCacheClient;
 import com.scooterframework.web.route.MatchMaker;
+import com.scooterframework.web.route.MatchedRoute;
 import com.scooterframework.web.route.RequestInfo;
 import com.scooterframework.web.route.RouteConfig;
 import com.scooterframework.web.route.RouteConstants;
-import com.scooterframework.web.route.RouteInfo;
 
 /**
  * <p><strong>RestfulRequestProcessor</strong> contains the processing logic that
@@ -63,6 +64,38 @@ public class RestfulRequestProcessor extends BaseRequestProcessor {
     	return super.executeRequest(aps, request, response);
     }
     
+    /**
+     * Returns action properties of a request. Properties which do not depend 
+     * on the concrete request path are cached by the matched route, which is 
+     * resolved for the request http method. Values of the request path, such 
+     * as format and field values, are set on a copy for the request.
+     * 
+     * @param requestPath     the request path
+     * @param requestHttpMethod  the request http method
+     * @param request The servlet request we are processing
+     * @return an ActionProperties instance
+     */
+    protected ActionProperties getActionProperties(String requestPath,
+    		String requestHttpMethod, HttpServletRequest request) {
+    	if (ApplicationConfig.getInstance().isInDevelopmentEnvironment()) {
+    		return prepareActionProperties(requestPath, requestHttpMethod, request);
+    	}
+
+        RequestInfo requestInfo = new RequestInfo(requestPath, requestHttpMethod);
+        MatchedRoute matchedRoute = MatchMaker.getInstance().match(requestInfo);
+        log.debug("matched route: " + matchedRoute);
+
+        ActionProperties shared = getCachedActionProperties(matchedRoute);
+        if (shared == null) {
+        	shared = createActionProperties(matchedRoute);
+        	cacheActionProperties(matchedRoute, shared);
+        }
+
+        ActionProperties aps = shared.copy();
+        populateRequestValues(aps, requestPath, requestInfo, matchedRoute);
+        return aps;
+    }
+    
     /**
      * Sets up action properties for the action execution. The properties are 
      * wrapped up in an <tt>ActionProperties</tt> instance.
@@ -72,37 +105,53 @@ public class RestfulRequestProcessor extends BaseRequestProcessor {
      */
 	public ActionProperties prepareActionProperties(String requestPath,
 			String requestHttpMethod, HttpServletRequest request) {
-    	ActionProperties aps = super.prepareActionProperties(requestPath, requestHttpMethod, request);
-    	
         RequestInfo requestInfo = new RequestInfo(requestPath, requestHttpMethod);
         log.debug("  requestInfo: " + requestInfo);
         
-        RouteInfo routeInfo = MatchMaker.getInstance().match(requestInfo);
-        log.debug("matched route: " + routeInfo);
-        
-        //setup field values
-        Map<String, String> requiredFieldValues = routeInfo.getRequiredFieldValues();
-        if (requiredFieldValues != null) {
-        	CurrentThreadCacheClient.cacheFieldValues(requiredFieldValues);
-            
-            for(Map.Entry<String, String> entry : requiredFieldValues.entrySet()) {
-                request.setAttribute(entry.getKey(), entry.getValue());
-            }
-        }
-        
-        aps.controller = routeInfo.getController();
-        aps.controllerClassName = routeInfo.getControllerClassName();
-        aps.action = routeInfo.getAction();
-        aps.model = routeInfo.getModel();
-        aps.format = routeInfo.getFormat();
-        aps.resource = routeInfo.getResourceName();
-        aps.routeType = routeInfo.getRouteType();
-        aps.requiredFieldValues = requiredFieldValues;
-        aps.cacheable = routeInfo.getCacheable();
+        MatchedRoute matchedRoute = MatchMaker.getInstance().match(requestInfo);
+        log.debug("matched route: " + matchedRoute);
         
+        ActionProperties aps = createActionProperties(matchedRoute);
+        populateRequestValues(aps, requestPath, requestInfo, matchedRoute);
+        return aps;
+    }
+    
+    /*
+     * Creates action properties which only depend on the matched route.
+     */
+    private ActionProperties createActionProperties(MatchedRoute matchedRoute) {
+        ActionProperties aps = new ActionProperties();
+        aps.controller = matchedRoute.getController();
+        aps.controllerClassName = matchedRoute.getControllerClassName();
+        aps.action = matchedRoute.getAction();
+        aps.model = matchedRoute.getModel();
+        aps.resource = matchedRoute.getResourceName();
+        aps.routeType = matchedRoute.getRouteType();
+        aps.cacheable = matchedRoute.getCacheable();
+        aps.routeName = getRouteName(matchedRoute);
         return aps;
     }
     
+    /*
+     * Sets values of the request path.
+     */
+    private void populateRequestValues(ActionProperties aps, String requestPath, 
+    		RequestInfo requestInfo, MatchedRoute matchedRoute) {
+        aps.controllerPath = getControllerPath(requestPath);
+        aps.format = requestInfo.getFormat();
+        aps.requiredFieldValues = matchedRoute.getRequiredFieldValues(requestInfo);
+    }
+    
+    private static String getRouteName(MatchedRoute matchedRoute) {
+        String type = matchedRoute.getRouteType();
+        if (RouteConstants.ROUTE_TYPE_REST.equals(type) || 
+            RouteConstants.ROUTE_TYPE_NAMED.equals(type) || 
+            RouteConstants.ROUTE_TYPE_ROOT.equals(type)) {
+            return matchedRoute.getRouteName();
+        }
+        return matchedRoute.getRouteName() + " " + matchedRoute.getController() + "#" + matchedRoute.getAction();
+    }
+    
     /**
      * Puts some action properties in <tt>request</tt> object.
      */
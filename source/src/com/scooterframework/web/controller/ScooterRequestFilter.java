@@ -11,9 +11,7 @@ import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.util.ArrayList;
-import java.util.Enumeration;
 import java.util.List;
-import java.util.Properties;
 
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
@@ -34,6 +32,7 @@ import com.scooterframework.common.exception.FileUploadException;
 import com.scooterframework.common.logging.LogUtil;
 import com.scooterframework.common.util.CurrentThreadCache;
 import com.scooterframework.common.util.CurrentThreadCacheClient;
+import com.scooterframework.common.util.RequestMetrics;
 import com.scooterframework.web.route.RequestInfo;
 
 /**
@@ -44,7 +43,8 @@ import com.scooterframework.web.route.RequestInfo;
  *     defined by the value of the <tt>attribute</tt> initialization
  *     parameter.</li>
  * <li>Initializes WebActionContext.</li>
- * <li>Records a bench mark in the response header if specified in environment.properties file.</li>
+ * <li>Records request times in {@link RequestMetrics} and in the response 
+ *     header if specified in environment.properties file.</li>
  * <li>Cleans up content cached in the request thread.</li>
  * </ul>
  * 
@@ -117,8 +117,11 @@ public class ScooterRequestFilter implements Filter {
         
        // boolean skip = skippedRequestPath((HttpServletRequest)request);
         boolean skip = staticContent;
+        boolean benchmark = !skip && EnvConfig.getInstance().allowRecordBenchmark();
         
-        long before = System.currentTimeMillis();
+        if (benchmark) {
+            RequestMetrics.begin(getRequestMethod((HttpServletRequest)request));
+        }
         
         if (!skip) {
             initializeActionContext((HttpServletRequest)request, (HttpServletResponse)response);
@@ -132,7 +135,9 @@ public class ScooterRequestFilter implements Filter {
         }
 
         String requestPathKeyWithQueryString = requestInfo(skip, (HttpServletRequest)request);
-        log.debug("============>>\"" + requestPathKeyWithQueryString + "\"");
+        if (log.isDebugEnabled()) {
+            log.debug("============>>\"" + requestPathKeyWithQueryString + "\"");
+        }
         
         try {
         	chain.doFilter(request, response);
@@ -140,13 +145,14 @@ public class ScooterRequestFilter implements Filter {
         	log.error("Error from chain.doFilter: " + ex.getMessage(), ex);
         }
         
-        long after = System.currentTimeMillis();
-        
-        if (EnvConfig.getInstance().allowRecordBenchmark()) {
-            log.info("\"" + requestPathKeyWithQueryString + "\" takes: " + (after - before) + " ms");
+        if (benchmark) {
+            long nanos = RequestMetrics.end();
+            if (log.isDebugEnabled()) {
+                log.debug("\"" + requestPathKeyWithQueryString + "\" takes: " + (nanos / 1000000L) + " ms");
+            }
             if (EnvConfig.getInstance().allowRecordBenchmarkInHeader()) {
                 HttpServletResponseWrapper resw = new HttpServletResponseWrapper((HttpServletResponse)response);
-                resw.addHeader("Exec-Time", (after - before) + " ms");
+                resw.addHeader("Exec-Time", (nanos / 1000000L) + " ms");
             }
         }
         
@@ -165,8 +171,10 @@ public class ScooterRequestFilter implements Filter {
         String requestPath = getRequestPath(request);
         String requestPathKey = RequestInfo.generateRequestKey(requestPath, method);
         String s = requestPathKey;
-        String queryString = request.getQueryString();
-        if (queryString != null) s += "?" + queryString;
+        if (log.isDebugEnabled()) {
+            String queryString = request.getQueryString();
+            if (queryString != null) s += "?" + queryString;
+        }
         
         CurrentThreadCacheClient.cacheHttpMethod(method);
         CurrentThreadCacheClient.cacheRequestPath(requestPath);
@@ -174,18 +182,11 @@ public class ScooterRequestFilter implements Filter {
         
         if (skipStatic) return s;
         
-        //request header
-        Properties headers = new Properties();
-        Enumeration<?> headerNames = request.getHeaderNames();
-        while(headerNames.hasMoreElements()) {
-            String name = (String)headerNames.nextElement();
-            String value = request.getHeader(name);
-            if (value != null) headers.setProperty(name, value);
-        }
-        CurrentThreadCache.set(Constants.REQUEST_HEADER, headers);
+        //request header, read from the request only when asked for
+        CurrentThreadCache.set(CurrentThreadCache.SLOT_REQUEST_HEADER, new RequestHeaders(request));
         
         if (isLocalRequest(request)) {
-            CurrentThreadCache.set(Constants.LOCAL_REQUEST, Constants.VALUE_FOR_LOCAL_REQUEST);
+            CurrentThreadCache.set(CurrentThreadCache.SLOT_LOCAL_REQUEST, Constants.VALUE_FOR_LOCAL_REQUEST);
         }
         
         if (isFileUploadRequest(request)) {
@@ -223,7 +224,7 @@ public class ScooterRequestFilter implements Filter {
     protected String getRequestPath(HttpServletRequest request) {
         String contextPath = request.getContextPath();
         String requestURI = decode(cleanJsessionid(request.getRequestURI()));
-        CurrentThreadCache.set(Constants.REQUEST_URI, requestURI);
+        CurrentThreadCache.set(CurrentThreadCache.SLOT_REQUEST_URI, requestURI);
         
         String requestPath = requestURI.substring(contextPath.length());
         if (requestPath.length() > 1 && 
@@ -0,0 +1,407 @@
+/*
+ *   This software is distributed under the terms of the FSF
+ *   Gnu Lesser General Public License (see lgpl.txt).
+ *
+ *   This program is distributed WITHOUT ANY WARRANTY. See the
+ *   GNU General Public License for more details.
+ */
+package com.scooterframework.web.controller;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import com.scooterframework.common.util.Util;
+import com.scooterframework.orm.activerecord.ActiveRecord;
+import com.scooterframework.orm.sqldataexpress.object.RowData;
+import com.scooterframework.orm.sqldataexpress.object.RowInfo;
+import com.scooterframework.orm.sqldataexpress.object.TableData;
+
+/**
+ * <p>
+ * StreamingContentWriter writes records, rows, maps and collections to a
+ * writer in <tt>json</tt> or <tt>xml</tt> format as it walks through them,
+ * without building a string of the whole content first. Items of an
+ * <tt>Iterator</tt>, such as a <tt>RecordIterator</tt>, are written as they
+ * are retrieved.
+ * </p>
+ *
+ * <p>
+ * Field names of records and rows are column names in lower case. Json
+ * values are written the same way as <tt>ActiveRecord.toJSON()</tt> does:
+ * integer and floating point numbers and booleans are literals, while other
+ * values are strings. Xml values are escaped. A collection is a json array,
+ * or an xml <tt>list</tt> element.
+ * </p>
+ *
+ * <pre>
+ * Examples:
+ *   [{"id":1,"title":"Scooter Rocks"},{"id":2,"title":"Hello"}]
+ *
+ *   &lt;list&gt;&lt;post&gt;&lt;id&gt;1&lt;/id&gt;&lt;title&gt;Scooter Rocks&lt;/title&gt;&lt;/post&gt;&lt;/list&gt;
+ * </pre>
+ *
+ * @author (Fei) John Chen
+ */
+public class StreamingContentWriter {
+    private static final String LIST_TAG = "list";
+    private static final String ITEM_TAG = "item";
+    private static final String ROW_TAG = "row";
+
+    private Writer out;
+    private boolean xml;
+
+    /**
+     * Creates a writer of a format.
+     *
+     * @param out     the writer to write to
+     * @param format  <tt>json</tt> or <tt>xml</tt>
+     */
+    public StreamingContentWriter(Writer out, String format) {
+        if (out == null)
+            throw new IllegalArgumentException("Writer cannot be null.");
+        if (!isSupportedFormat(format))
+            throw new IllegalArgumentException("Unsupported format: " + format);
+        this.out = out;
+        this.xml = "xml".equalsIgnoreCase(format);
+    }
+
+    /**
+     * Checks if the content can be written in the format.
+     *
+     * @param content  the content
+     * @param format   the request format
+     * @return true if the content can be written in the format
+     */
+    public static boolean isSupported(Object content, String format) {
+        return isSupportedFormat(format) &&
+               (content instanceof ActiveRecord || content instanceof RowData ||
+                content instanceof TableData || content instanceof Map ||
+                content instanceof Iterable || content instanceof Iterator ||
+                content instanceof Object[]);
+    }
+
+    private static boolean isSupportedFormat(String format) {
+        return "json".equalsIgnoreCase(format) || "xml".equalsIgnoreCase(format);
+    }
+
+    /**
+     * Writes the content. The writer is not flushed.
+     *
+     * @param content  the content
+     * @throws IOException
+     */
+    public void write(Object content) throws IOException {
+        if (xml) {
+            writeXML(content, null);
+        }
+        else {
+            writeJSON(content);
+        }
+    }
+
+    private void writeJSON(Object o) throws IOException {
+        if (o == null) {
+            out.write("null");
+        }
+        else if (o instanceof ActiveRecord) {
+            writeJSON((ActiveRecord)o);
+        }
+        else if (o instanceof RowData) {
+            writeJSON((RowData)o);
+        }
+        else if (o instanceof TableData) {
+            writeJSONArray(((TableData)o).getAllRows().iterator());
+        }
+        else if (o instanceof Map) {
+            writeJSON((Map<?, ?>)o);
+        }
+        else if (o instanceof Iterable) {
+            writeJSONArray(((Iterable<?>)o).iterator());
+        }
+        else if (o instanceof Iterator) {
+            writeJSONArray((Iterator<?>)o);
+        }
+        else if (o instanceof Object[]) {
+            writeJSONArray(Arrays.asList((Object[])o).iterator());
+        }
+        else if (o instanceof Boolean) {
+            out.write(o.toString());
+        }
+        else if (o instanceof Double || o instanceof Float) {
+            double d = ((Number)o).doubleValue();
+            out.write((Double.isNaN(d) || Double.isInfinite(d))?"null":numberToString(o.toString()));
+        }
+        else if (o instanceof Integer || o instanceof Long ||
+                 o instanceof Short || o instanceof Byte) {
+            out.write(o.toString());
+        }
+        else {
+            quote(o.toString());
+        }
+    }
+
+    private void writeJSON(ActiveRecord record) throws IOException {
+        RowInfo ri = record.getRowInfo();
+        out.write('{');
+        boolean first = true;
+        int dimension = ri.getDimension();
+        for (int i = 0; i < dimension; i++) {
+            if (!first) out.write(',');
+            first = false;
+            quote(ri.getColumnNameInLowerCase(i));
+            out.write(':');
+            writeJSON(record.getField(i));
+        }
+        List<String> extraFields = record.getExtraFieldNames();
+        for (String field : extraFields) {
+            if (!first) out.write(',');
+            first = false;
+            quote(field.toLowerCase());
+            out.write(':');
+            writeJSON(record.getField(field));
+        }
+        out.write('}');
+    }
+
+    private void writeJSON(RowData row) throws IOException {
+        RowInfo ri = row.getRowInfo();
+        out.write('{');
+        int dimension = (ri != null)?ri.getDimension():0;
+        for (int i = 0; i < dimension; i++) {
+            if (i > 0) out.write(',');
+            quote(ri.getColumnNameInLowerCase(i));
+            out.write(':');
+            writeJSON(row.getField(i));
+        }
+        out.write('}');
+    }
+
+    private void writeJSON(Map<?, ?> map) throws IOException {
+        out.write('{');
+        boolean first = true;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (!first) out.write(',');
+            first = false;
+            quote(String.valueOf(entry.getKey()));
+            out.write(':');
+            writeJSON(entry.getValue());
+        }
+        out.write('}');
+    }
+
+    private void writeJSONArray(Iterator<?> it) throws IOException {
+        out.write('[');
+        boolean first = true;
+        while (it.hasNext()) {
+            if (!first) out.write(',');
+            first = false;
+            writeJSON(it.next());
+        }
+        out.write(']');
+    }
+
+    /*
+     * Writes a json string, escaping characters the same way as
+     * <tt>org.json.JSONObject.quote()</tt>.
+     */
+    private void quote(String s) throws IOException {
+        out.write('"');
+        int length = s.length();
+        int start = 0;
+        char c = 0;
+        for (int i = 0; i < length; i++) {
+            char b = c;
+            c = s.charAt(i);
+            String escaped = null;
+            switch (c) {
+            case '\\':
+                escaped = "\\\\";
+                break;
+            case '"':
+                escaped = "\\\"";
+                break;
+            case '/':
+                if (b == '<') escaped = "\\/";
+                break;
+            case '\b':
+                escaped = "\\b";
+                break;
+            case '\t':
+                escaped = "\\t";
+                break;
+            case '\n':
+                escaped = "\\n";
+                break;
+            case '\f':
+                escaped = "\\f";
+                break;
+            case '\r':
+                escaped = "\\r";
+                break;
+            default:
+                if (c < ' ' || (c >= '\u0080' && c < '\u00a0') ||
+                    (c >= '\u2000' && c < '\u2100')) {
+                    String hex = Integer.toHexString(c);
+                    escaped = "\\u0000".substring(0, 6 - hex.length()) + hex;
+                }
+            }
+
+            if (escaped != null) {
+                if (i > start) out.write(s, start, i - start);
+                out.write(escaped);
+                start = i + 1;
+            }
+        }
+        if (length > start) out.write(s, start, length - start);
+        out.write('"');
+    }
+
+    /*
+     * Removes trailing zeros of a floating point number string, as
+     * <tt>org.json.JSONObject.numberToString()</tt> does.
+     */
+    private static String numberToString(String s) {
+        if (s.indexOf('.') > 0 && s.indexOf('e') < 0 && s.indexOf('E') < 0) {
+            int end = s.length();
+            while (s.charAt(end - 1) == '0') end--;
+            if (s.charAt(end - 1) == '.') end--;
+            s = s.substring(0, end);
+        }
+        return s;
+    }
+
+    /*
+     * Writes an object as an xml element. A map without a tag is written
+     * as its elements only. Items of a collection with a tag are written
+     * with the same tag.
+     */
+    private void writeXML(Object o, String tag) throws IOException {
+        if (o instanceof ActiveRecord) {
+            ActiveRecord record = (ActiveRecord)o;
+            if (tag == null) tag = Util.getShortClassName(record.getClass()).toLowerCase();
+            writeXML(record, tag);
+        }
+        else if (o instanceof RowData) {
+            writeXML((RowData)o, (tag != null)?tag:ROW_TAG);
+        }
+        else if (o instanceof TableData) {
+            writeXMLList(((TableData)o).getAllRows().iterator(), tag);
+        }
+        else if (o instanceof Map) {
+            if (tag != null) startTag(tag);
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>)o).entrySet()) {
+                writeXML(entry.getValue(), String.valueOf(entry.getKey()));
+            }
+            if (tag != null) endTag(tag);
+        }
+        else if (o instanceof Iterable) {
+            writeXMLList(((Iterable<?>)o).iterator(), tag);
+        }
+        else if (o instanceof Iterator) {
+            writeXMLList((Iterator<?>)o, tag);
+        }
+        else if (o instanceof Object[]) {
+            writeXMLList(Arrays.asList((Object[])o).iterator(), tag);
+        }
+        else {
+            if (tag == null) tag = ITEM_TAG;
+            startTag(tag);
+            escape(String.valueOf(o));
+            endTag(tag);
+        }
+    }
+
+    private void writeXML(ActiveRecord record, String tag) throws IOException {
+        RowInfo ri = record.getRowInfo();
+        startTag(tag);
+        int dimension = ri.getDimension();
+        for (int i = 0; i < dimension; i++) {
+            writeXMLField(ri.getColumnNameInLowerCase(i), record.getField(i));
+        }
+        List<String> extraFields = record.getExtraFieldNames();
+        for (String field : extraFields) {
+            writeXMLField(field.toLowerCase(), record.getField(field));
+        }
+        endTag(tag);
+    }
+
+    private void writeXML(RowData row, String tag) throws IOException {
+        RowInfo ri = row.getRowInfo();
+        startTag(tag);
+        int dimension = (ri != null)?ri.getDimension():0;
+        for (int i = 0; i < dimension; i++) {
+            writeXMLField(ri.getColumnNameInLowerCase(i), row.getField(i));
+        }
+        endTag(tag);
+    }
+
+    private void writeXMLField(String name, Object value) throws IOException {
+        startTag(name);
+        escape(String.valueOf(value));
+        endTag(name);
+    }
+
+    private void writeXMLList(Iterator<?> it, String tag) throws IOException {
+        if (tag != null) {
+            while (it.hasNext()) {
+                writeXML(it.next(), tag);
+            }
+            return;
+        }
+
+        startTag(LIST_TAG);
+        while (it.hasNext()) {
+            Object item = it.next();
+            boolean named = (item instanceof ActiveRecord || item instanceof RowData ||
+                             item instanceof TableData || item instanceof Iterable ||
+                             item instanceof Iterator || item instanceof Object[]);
+            writeXML(item, named?null:ITEM_TAG);
+        }
+        endTag(LIST_TAG);
+    }
+
+    private void startTag(String tag) throws IOException {
+        out.write('<');
+        out.write(tag);
+        out.write('>');
+    }
+
+    private void endTag(String tag) throws IOException {
+        out.write("</");
+        out.write(tag);
+        out.write('>');
+    }
+
+    private void escape(String s) throws IOException {
+        int length = s.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            String escaped = null;
+            switch (s.charAt(i)) {
+            case '&':
+                escaped = "&amp;";
+                break;
+            case '<':
+                escaped = "&lt;";
+                break;
+            case '>':
+                escaped = "&gt;";
+                break;
+            case '"':
+                escaped = "&quot;";
+                break;
+            }
+
+            if (escaped != null) {
+                if (i > start) out.write(s, start, i - start);
+                out.write(escaped);
+                start = i + 1;
+            }
+        }
+        if (length > start) out.write(s, start, length - start);
+    }
+}
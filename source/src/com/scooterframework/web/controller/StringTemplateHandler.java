@@ -18,11 +18,19 @@ import com.scooterframework.common.logging.LogUtil;
 import com.scooterframework.tools.common.GeneratorHelper;
 
 /**
+ * <p>
  * StringTemplateHandler handles StringTemplate templates.
+ * </p>
+ * 
+ * <p>
+ * Template files are parsed once and kept in the template cache of 
+ * {@link TemplateHandlerFactory}. Each request renders a new instance of 
+ * the cached template, so that attributes are not shared between requests.
+ * </p>
  *
  * @author (Fei) John Chen
  */
-public class StringTemplateHandler implements TemplateHandler {
+public class StringTemplateHandler implements TemplateHandler, TemplateCompiler<StringTemplate> {
 	private static LogUtil log = LogUtil.getLogger(StringTemplateHandler.class.getName());
 
 	/**
@@ -46,8 +54,33 @@ public class StringTemplateHandler implements TemplateHandler {
      * @return processed content as string
      */
     public String handle(File viewTemplate, Map<String, Object> props) {
-    	String content = getTemplateFileContent(viewTemplate);
-    	return handle(content, props);
+    	StringTemplate compiled = null;
+    	try {
+    		compiled = TemplateHandlerFactory.getTemplateCache().get(viewTemplate, this);
+    	}
+    	catch(IllegalArgumentException ex) {
+    		throw ex;
+    	}
+    	catch(Exception ex) {
+    		throw new IllegalArgumentException("Failed to compile template file '"
+    				+ viewTemplate + "': " + ex.getMessage());
+    	}
+    	StringTemplate st = compiled.getInstanceOf();
+    	st.setAttributes(props);
+    	return st.toString();
+    }
+
+    /**
+     * Parses the template file into a StringTemplate.
+     *
+     * @param templateFile  the template file
+     * @return the parsed template
+     */
+    public StringTemplate compile(File templateFile) {
+    	String content = getTemplateFileContent(templateFile);
+    	if (content == null)
+    		throw new IllegalArgumentException("Failed to load template file '" + templateFile + "'.");
+    	return new StringTemplate(content);
     }
 
 	protected String getTemplateFileContent(File templateFile) {
@@ -0,0 +1,154 @@
+/*
+ *   This software is distributed under the terms of the FSF
+ *   Gnu Lesser General Public License (see lgpl.txt).
+ *
+ *   This program is distributed WITHOUT ANY WARRANTY. See the
+ *   GNU General Public License for more details.
+ */
+package com.scooterframework.web.controller;
+
+import java.io.File;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.scooterframework.cache.CacheStatisticsConstats;
+import com.scooterframework.common.logging.LogUtil;
+
+/**
+ * <p>
+ * TemplateCache class holds compiled templates keyed by the template file
+ * path, so that a template file is read and parsed only once.
+ * </p>
+ *
+ * <p>
+ * When <tt>checkModified</tt> is true, which is the case in development
+ * environment, the last modified time of the file is compared with the one
+ * of the cached entry on each access, and a changed file is compiled again.
+ * Otherwise cached entries are never refreshed.
+ * </p>
+ *
+ * @author (Fei) John Chen
+ */
+public class TemplateCache {
+	private static LogUtil log = LogUtil.getLogger(TemplateCache.class.getName());
+
+	/**
+	 * Key to represent template cache statistics <tt>CompileCount</tt> property.
+	 */
+	public static final String KEY_STATS_CompileCount = "CompileCount";
+
+	/**
+	 * Key to represent template cache statistics <tt>CompileTime</tt>
+	 * property. The time is in milliseconds.
+	 */
+	public static final String KEY_STATS_CompileTime = "CompileTime";
+
+	private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final AtomicLong compileNanos = new AtomicLong();
+	private volatile boolean checkModified;
+
+	public TemplateCache(boolean checkModified) {
+		this.checkModified = checkModified;
+	}
+
+	public boolean isCheckModified() {
+		return checkModified;
+	}
+
+	public void setCheckModified(boolean checkModified) {
+		this.checkModified = checkModified;
+	}
+
+	/**
+	 * Returns the compiled template of the <tt>templateFile</tt>. The
+	 * template is compiled by the <tt>compiler</tt> if it is not cached yet
+	 * or if it has been changed.
+	 *
+	 * @param templateFile  the template file
+	 * @param compiler      the compiler of the template
+	 * @return the compiled template
+	 * @throws Exception if the template can not be compiled
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T get(File templateFile, TemplateCompiler<T> compiler) throws Exception {
+		if (templateFile == null)
+			throw new IllegalArgumentException("templateFile input cannot be null in get().");
+
+		String path = templateFile.getAbsolutePath();
+		Entry entry = entries.get(path);
+		if (entry != null && entry.compiler == compiler &&
+				(!checkModified || entry.lastModified == templateFile.lastModified())) {
+			hits.incrementAndGet();
+			return (T)entry.template;
+		}
+
+		misses.incrementAndGet();
+		long lastModified = templateFile.lastModified();
+		long start = System.nanoTime();
+		T template = compiler.compile(templateFile);
+		long elapsed = System.nanoTime() - start;
+		compileNanos.addAndGet(elapsed);
+		entries.put(path, new Entry(template, compiler, lastModified));
+		log.debug("Compiled template " + path + " in " + (elapsed / 1000000L) + " ms.");
+		return template;
+	}
+
+	/**
+	 * Removes the compiled template of a template file.
+	 *
+	 * @param templateFile  the template file
+	 */
+	public void remove(File templateFile) {
+		if (templateFile != null) entries.remove(templateFile.getAbsolutePath());
+	}
+
+	/**
+	 * Removes all compiled templates.
+	 */
+	public void clear() {
+		entries.clear();
+	}
+
+	/**
+	 * Returns number of cached templates.
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Returns total time in milliseconds spent on compiling templates.
+	 */
+	public long getCompileTime() {
+		return compileNanos.get() / 1000000L;
+	}
+
+	/**
+	 * Returns statistics of the cache.
+	 */
+	public Properties getStatistics() {
+		Properties p = new Properties();
+		p.setProperty(CacheStatisticsConstats.KEY_CACHE_STATS_ObjectCount, "" + size());
+		p.setProperty(CacheStatisticsConstats.KEY_CACHE_STATS_CacheHits, "" + hits.get());
+		p.setProperty(CacheStatisticsConstats.KEY_CACHE_STATS_CacheMisses, "" + misses.get());
+		p.setProperty(KEY_STATS_CompileCount, "" + misses.get());
+		p.setProperty(KEY_STATS_CompileTime, "" + getCompileTime());
+		return p;
+	}
+
+	private static class Entry {
+		private final Object template;
+		private final TemplateCompiler<?> compiler;
+		private final long lastModified;
+
+		Entry(Object template, TemplateCompiler<?> compiler, long lastModified) {
+			this.template = template;
+			this.compiler = compiler;
+			this.lastModified = lastModified;
+		}
+	}
+}
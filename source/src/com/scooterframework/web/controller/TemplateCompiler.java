@@ -0,0 +1,30 @@
+/*
+ *   This software is distributed under the terms of the FSF
+ *   Gnu Lesser General Public License (see lgpl.txt).
+ *
+ *   This program is distributed WITHOUT ANY WARRANTY. See the
+ *   GNU General Public License for more details.
+ */
+package com.scooterframework.web.controller;
+
+import java.io.File;
+
+/**
+ * TemplateCompiler interface defines how a template file is compiled into
+ * an object which can be cached by {@link TemplateCache} and reused by
+ * later requests. A template handler which implements this interface also
+ * gets its templates precompiled when the application starts.
+ *
+ * @author (Fei) John Chen
+ */
+public interface TemplateCompiler<T> {
+
+	/**
+	 * Compiles the <tt>templateFile</tt>.
+	 *
+	 * @param templateFile  the template file
+	 * @return the compiled template
+	 * @throws Exception if the template can not be read or parsed
+	 */
+	public T compile(File templateFile) throws Exception;
+}
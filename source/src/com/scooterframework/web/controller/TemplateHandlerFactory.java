@@ -7,7 +7,10 @@
  */
 package com.scooterframework.web.controller;
 
+import java.io.File;
+
 import com.scooterframework.admin.PluginManager;
+import com.scooterframework.common.logging.LogUtil;
 
 /**
  * TemplateHandlerFactory creates a template handler.
@@ -15,9 +18,22 @@ import com.scooterframework.admin.PluginManager;
  * @author (Fei) John Chen
  */
 public class TemplateHandlerFactory {
+	private static LogUtil log = LogUtil.getLogger(TemplateHandlerFactory.class.getName());
 	private static final String TEMPLATE_HANDLER_PLUGIN_PREFIX = "template.handler.";
+	private static final TemplateCache templateCache = new TemplateCache(true);
 	private static final StringTemplateHandler stHandler = new StringTemplateHandler();
 	
+	/**
+	 * Returns the cache of compiled templates shared by all template 
+	 * handlers. Changed template files are compiled again unless the 
+	 * application is started in an environment other than development.
+	 * 
+	 * @return the template cache
+	 */
+	public static TemplateCache getTemplateCache() {
+		return templateCache;
+	}
+	
 	/**
      * Returns the TemplateHandler for a specific template 
      * <tt>extension</tt> type.
@@ -41,4 +57,51 @@ public class TemplateHandlerFactory {
     	TemplateHandler handler = (TemplateHandler)PluginManager.getInstance().getPlugin(pluginName);
         return handler;
     }
+    
+    /**
+     * Compiles all templates under the <tt>templateDir</tt> directory whose 
+     * template handler is a {@link TemplateCompiler}. Templates that fail 
+     * to compile are logged and skipped.
+     * 
+     * @param templateDir  the directory of templates
+     * @return number of templates compiled
+     */
+    public static int precompileTemplates(File templateDir) {
+    	if (templateDir == null || !templateDir.isDirectory()) return 0;
+    	
+    	long start = System.currentTimeMillis();
+    	int count = precompile(templateDir);
+    	log.info("Precompiled " + count + " templates under " + templateDir + 
+    			" in " + (System.currentTimeMillis() - start) + " ms, cache statistics: " + 
+    			templateCache.getStatistics());
+    	return count;
+    }
+    
+    private static int precompile(File dir) {
+    	int count = 0;
+    	File[] files = dir.listFiles();
+    	if (files == null) return count;
+    	for (File file : files) {
+    		if (file.isDirectory()) {
+    			count += precompile(file);
+    			continue;
+    		}
+    		
+    		String name = file.getName();
+    		int dot = name.lastIndexOf('.');
+    		if (dot == -1 || name.endsWith(".jsp")) continue;
+    		
+    		TemplateHandler handler = getTemplateHandler(name.substring(dot + 1));
+    		if (!(handler instanceof TemplateCompiler<?>)) continue;
+    		
+    		try {
+    			templateCache.get(file, (TemplateCompiler<?>)handler);
+    			count = count + 1;
+    		}
+    		catch(Exception ex) {
+    			log.error("Failed to precompile template " + file + ": " + ex.getMessage());
+    		}
+    	}
+    	return count;
+    }
 }
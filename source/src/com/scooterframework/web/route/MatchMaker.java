@@ -12,6 +12,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.scooterframework.cache.ConcurrentLRUCache;
 
 /**
  * MatchMaker class
@@ -29,10 +32,28 @@ public class MatchMaker {
 	private List<RegularRoute> regularRoutes = new ArrayList<RegularRoute>();
 	private List<RestRoute> restRoutes = new ArrayList<RestRoute>();
 	
-	private Map<String, RouteInfo> requestRouteMap = new HashMap<String, RouteInfo>();
     private Map<String, Resource> resourceMap = new HashMap<String, Resource>();
     
     private static List<Route> allRoutes = new ArrayList<Route>();
+    
+    /**
+     * Routes compiled from <tt>allRoutes</tt> and their shared matched 
+     * routes. It is reset to <tt>null</tt> whenever the route list changes 
+     * and is rebuilt on the next match.
+     */
+    private volatile RouteTable routeTable;
+    
+    /**
+     * Version of the route list. It is increased whenever the route list 
+     * changes, so that a table compiled from an older list is not published.
+     */
+    private final AtomicInteger routesVersion = new AtomicInteger();
+    
+    /**
+     * Maximum number of shared matched routes of routes with dynamic 
+     * controller or action segments.
+     */
+    private volatile int routeCacheSize = ConcurrentLRUCache.DEFAULT_MAX_SIZE;
 	
 	private MatchMaker() {
 	}
@@ -70,6 +91,7 @@ public class MatchMaker {
 	public void setRootRoute(RootRoute route) {
 		rootRoute = route;
         allRoutes.add(route);
+        routesChanged();
 	}
     
     public DefaultRoute getDefaultRoute(String routeName) {
@@ -79,11 +101,13 @@ public class MatchMaker {
 	public void addDefaultRoute(DefaultRoute route) {
 		defaultRoutes.add(route);
         allRoutes.add(route);
+        routesChanged();
 	}
 	
 	public void addDefaultRoutes(List<DefaultRoute> routes) {
 		defaultRoutes.addAll(routes);
         allRoutes.addAll(routes);
+        routesChanged();
 	}
     
     public NamedRoute getNamedRoute(String routeName) {
@@ -93,11 +117,13 @@ public class MatchMaker {
 	public void addNamedRoute(NamedRoute route) {
 		namedRoutes.add(route);
         allRoutes.add(route);
+        routesChanged();
 	}
 	
 	public void addNamedRoutes(List<NamedRoute> routes) {
 		namedRoutes.addAll(routes);
         allRoutes.addAll(routes);
+        routesChanged();
 	}
     
     public RegularRoute getRegularRoute(String routeName) {
@@ -107,11 +133,13 @@ public class MatchMaker {
 	public void addRegularRoute(RegularRoute route) {
 		regularRoutes.add(route);
         allRoutes.add(route);
+        routesChanged();
 	}
 	
 	public void addRegularRoutes(List<RegularRoute> routes) {
 		regularRoutes.addAll(routes);
         allRoutes.addAll(routes);
+        routesChanged();
 	}
     
     public RestRoute getRestRoute(String routeName) {
@@ -121,11 +149,13 @@ public class MatchMaker {
 	public void addRestRoute(RestRoute route) {
 		restRoutes.add(route);
         allRoutes.add(route);
+        routesChanged();
 	}
 	
 	public void addRestRoutes(List<RestRoute> routes) {
 		restRoutes.addAll(routes);
         allRoutes.addAll(routes);
+        routesChanged();
 	}
     
     public Map<String, Resource> getResourceMap() {
@@ -181,37 +211,59 @@ public class MatchMaker {
 		regularRoutes.clear();
 		restRoutes.clear();
         allRoutes.clear();
-		
-		requestRouteMap.clear();
+        routesChanged();
+        
         resourceMap.clear();
 	}
 	
-	public RouteInfo match(RequestInfo requestInfo) {
+    /**
+     * Compiles all routes into a segment trie. This method is called when 
+     * routes are loaded so that the first request does not pay for it.
+     */
+    public void compileRoutes() {
+        buildRouteTable();
+    }
+    
+    /**
+     * Returns hit/miss statistics of the shared matched routes.
+     */
+    public Properties getRouteCacheStatistics() {
+        RouteTable table = routeTable;
+        return (table != null)?table.getStatistics():new Properties();
+    }
+    
+    /**
+     * Sets the maximum number of shared matched routes of routes with 
+     * dynamic controller or action segments. The least recently used ones 
+     * are evicted beyond it. Routes are compiled again.
+     */
+    public void setRouteCacheSize(int size) {
+        if (size <= 0)
+            throw new IllegalArgumentException("Route cache size must be positive.");
+        routeCacheSize = size;
+        routesChanged();
+    }
+	
+	/**
+	 * Returns the route matched by a request. The returned instance is 
+	 * shared by requests of the same route, controller and action. 
+	 * 
+	 * @param requestInfo  the request
+	 * @return the matched route, or <tt>null</tt> for the root path
+	 * @throws NoRouteFoundException if no route matches the request
+	 */
+	public MatchedRoute match(RequestInfo requestInfo) {
         if ("/".equals(requestInfo.getRequestPath())) return null;
-        
-		String requestKey = requestInfo.getRequestKey();
-		RouteInfo routeInfo = requestRouteMap.get(requestKey);
-		if (routeInfo != null) {
-			return routeInfo;
-		}
 		
-		Route route = null;
-        int index = -1;
-        int size = allRoutes.size();
-        for (int i = 0; i < size; i++) {
-            index = i;
-            Route r = allRoutes.get(i);
-			if (r.isRouteFor(requestInfo)) {
-				route = r;
-				break;
-			}
-        }
-        
-        boolean autoRestified = RouteConfig.getInstance().allowAutoREST();
-        if (route == null) {
-            if (autoRestified) {
-                String name = requestInfo.getAutoResourceName();
-                
+		RouteTable table = routeTable;
+		if (table == null) table = buildRouteTable();
+		
+		MatchedRoute matched = table.match(requestInfo);
+        if (matched == null && RouteConfig.getInstance().allowAutoREST()) {
+            String name = requestInfo.getAutoResourceName();
+            
+            boolean added = false;
+            synchronized(this) {
                 if (!isAddedResource(name)) {
                     Resource resource = new Resource(name, Resource.PLURAL, new Properties(), false, true);
                     
@@ -219,24 +271,46 @@ public class MatchMaker {
                     allRoutes.removeAll(defaultRoutes);
                     addRestRoutes(resource.getRoutes());
                     allRoutes.addAll(defaultRoutes);
+                    routesChanged();
                     addResource(name, resource);
-                    return match(requestInfo);
+                    added = true;
                 }
             }
+            
+            //match again if routes were added by this or another thread
+            if (added || table != routeTable) return match(requestInfo);
         }
         
-        if (route == null) {
-        	throw new NoRouteFoundException(requestKey);
+        if (matched == null) {
+        	throw new NoRouteFoundException(requestInfo.getRequestKey());
         }
 		
-		routeInfo = route.getRouteInfo(requestInfo);
-        routeInfo.setIndex(index);
-		
-		requestRouteMap.put(requestKey, routeInfo);
-		
-		return routeInfo;
+		return matched;
 	}
     
+    /**
+     * Resets compiled routes together with their matched routes. Positions 
+     * of routes may have changed, so matched routes are obsolete.
+     */
+    private synchronized void routesChanged() {
+        routesVersion.incrementAndGet();
+        routeTable = null;
+    }
+    
+    /**
+     * Compiles the current route list. The table is published only if the 
+     * route list has not changed while it was compiled; otherwise it is 
+     * used for the current request only.
+     */
+    private RouteTable buildRouteTable() {
+        int version = routesVersion.get();
+        RouteTable table = new RouteTable(allRoutes, routeCacheSize);
+        synchronized(this) {
+            if (version == routesVersion.get()) routeTable = table;
+        }
+        return table;
+    }
+    
     private Route getRouteFromList(String routeName, List<? extends Route> routes) {
         if (routeName == null || routes == null || routes.size() == 0) return null;
         
@@ -0,0 +1,133 @@
+/*
+ *   This software is distributed under the terms of the FSF
+ *   Gnu Lesser General Public License (see lgpl.txt).
+ *
+ *   This program is distributed WITHOUT ANY WARRANTY. See the
+ *   GNU General Public License for more details.
+ */
+package com.scooterframework.web.route;
+
+import java.util.Map;
+
+/**
+ * <p>MatchedRoute class holds the values of a route matched by a request
+ * which do not depend on the concrete request path, such as controller,
+ * action, controller class and model.</p>
+ *
+ * <p>An instance is immutable and is shared by all requests which match
+ * the same route with the same controller and action, so it can be used
+ * as a cache key. Values which differ from path to path, such as a record
+ * id, are retrieved per request by {@link #getRequiredFieldValues(RequestInfo)}.</p>
+ *
+ * @author (Fei) John Chen
+ */
+public class MatchedRoute {
+    private final int index;
+    private final Route route;
+    private final String controller;
+    private final String action;
+    private final String controllerClassName;
+    private final String model;
+    private final String modelClassName;
+    private final String routeType;
+    private final String routeName;
+    private final String viewPath;
+    private final String resourceName;
+    private final String cacheable;
+
+    MatchedRoute(int index, Route route, RouteInfo ri) {
+        this.index = index;
+        this.route = route;
+        this.controller = ri.controller;
+        this.action = ri.action;
+        this.controllerClassName = ri.controllerClassName;
+        this.model = ri.model;
+        this.modelClassName = ri.modelClassName;
+        this.routeType = ri.routeType;
+        this.routeName = ri.routeName;
+        this.viewPath = ri.viewPath;
+        this.resourceName = ri.resourceName;
+        this.cacheable = ri.cacheable;
+    }
+
+    /**
+     * Returns the position of the route in the route list.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public String getController() {
+        return controller;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public String getControllerClassName() {
+        return controllerClassName;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public String getModelClassName() {
+        return modelClassName;
+    }
+
+    public String getRouteType() {
+        return routeType;
+    }
+
+    public String getRouteName() {
+        return routeName;
+    }
+
+    public String getViewPath() {
+        return viewPath;
+    }
+
+    public String getResourceName() {
+        return resourceName;
+    }
+
+    public String getCacheable() {
+        return cacheable;
+    }
+
+    /**
+     * Returns the values of the fields of the route in the request path. A
+     * new map is returned for each call.
+     *
+     * @param requestInfo  the request which matches this route
+     * @return map of field names and values
+     */
+    public Map<String, String> getRequiredFieldValues(RequestInfo requestInfo) {
+        return route.getRequiredFieldValues(requestInfo);
+    }
+
+    /**
+     * Returns a string representation of the object.
+     * @return String
+     */
+    public String toString() {
+        StringBuilder returnString = new StringBuilder();
+        String SEPARATOR = ", ";
+
+        returnString.append("index = " + index).append(SEPARATOR);
+        returnString.append("routeName = " + routeName).append(SEPARATOR);
+        returnString.append("viewPath = " + viewPath).append(SEPARATOR);
+        returnString.append("routeType = " + routeType).append(SEPARATOR);
+        returnString.append("resourceName = " + resourceName).append(SEPARATOR);
+        returnString.append("controller = " + controller).append(SEPARATOR);
+        returnString.append("controllerClassName = " + controllerClassName).append(SEPARATOR);
+        returnString.append("model = " + model).append(SEPARATOR);
+        returnString.append("modelClassName = " + modelClassName).append(SEPARATOR);
+        returnString.append("action = " + action).append(SEPARATOR);
+        returnString.append("cacheable = " + cacheable);
+
+        return returnString.toString();
+    }
+}
@@ -38,20 +38,11 @@ public class NamedRoute extends RegularRoute {
 		return true;
 	}
 	
-	public RouteInfo getRouteInfo(RequestInfo requestInfo) {
-		RouteInfo ri = new RouteInfo(requestInfo);
+	protected void populateRequestValues(RouteInfo ri, RequestInfo requestInfo) {
 		ri.controller = this.controller;
 		ri.action = this.action;
 		ri.id = this.id;
 		ri.format = requestInfo.getFormat();
-		ri.controllerClassName = getControllerClassName(ri.controller);
-        ri.model = getModel(ri.controller);
-        ri.modelClassName = getModelClassName(ri.controller);
-		ri.routeType = getRouteType();
-		ri.routeName = getName();
-        ri.viewPath = getViewPath(ri.controller);
-        ri.cacheable = getCacheable();
-		return ri;
 	}
     
     protected void validation() {
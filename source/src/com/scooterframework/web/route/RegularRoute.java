@@ -35,8 +35,8 @@ public class RegularRoute extends Route {
 		
 		if (!isAllowedMethod(requestInfo.getRequestHttpMethod())) return false;
 		
-		String[] pathSegments = getPathSegments();
-		String[] riPathSegments = requestInfo.getPathSegments();
+		String[] pathSegments = rawPathSegments();
+		String[] riPathSegments = requestInfo.rawPathSegments();
 		for (int i = 0; i < segmentCount(); i++) {
 			String segment = pathSegments[i];
 			if (!segment.startsWith("$") && !segment.equalsIgnoreCase(riPathSegments[i])) return false;
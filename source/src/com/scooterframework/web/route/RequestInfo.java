@@ -64,6 +64,14 @@ public class RequestInfo {
 		return Util.cloneArray(pathSegments);
 	}
 	
+	/**
+	 * Returns the path segments without copying. The returned array must not
+	 * be modified.
+	 */
+	String[] rawPathSegments() {
+		return pathSegments;
+	}
+	
 	public int segmentCount() {
 		return segmentCount;
 	}
@@ -34,10 +34,9 @@ public class RestRoute extends RegularRoute {
 		super(name, p);
 	}
 
-    public RouteInfo getRouteInfo(RequestInfo requestInfo) {
-        RouteInfo ri = super.getRouteInfo(requestInfo);
+    protected void populateTemplateValues(RouteInfo ri) {
+        super.populateTemplateValues(ri);
         ri.resourceName = getResourceName();
-        return ri;
     }
 
 	public String getRouteType() {
@@ -11,6 +11,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
 import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 import com.scooterframework.admin.EnvConfig;
 import com.scooterframework.common.logging.LogUtil;
@@ -52,6 +53,7 @@ abstract public class Route {
 	private int segmentCount;
     private String screenURLPattern;
     private Properties requirementsProperties;
+    private Map<String, Pattern> requirementPatterns = new HashMap<String, Pattern>();
 
 	protected Route() {
 		;
@@ -71,7 +73,38 @@ abstract public class Route {
 
 	public RouteInfo getRouteInfo(RequestInfo requestInfo) {
 		RouteInfo ri = new RouteInfo(requestInfo);
+		populateRequestValues(ri, requestInfo);
+		populateTemplateValues(ri);
+		return ri;
+	}
+
+	/**
+	 * Populates the values of a route info that depend on the request path,
+	 * such as controller, action, id, format and required field values.
+	 */
+	protected void populateRequestValues(RouteInfo ri, RequestInfo requestInfo) {
+		Map<String, String> fieldValues = getRequiredFieldValues(requestInfo);
+		String tmp = "";
+        tmp = fieldValues.get(RouteConstants.ROUTE_KEY_CONTROLLER);
+		tmp = (tmp != null)?tmp:this.controller;
+        tmp = (namespace != null)?(namespace + "/" + tmp):tmp;
+        ri.controller = tmp;
+
+        tmp = fieldValues.get(RouteConstants.ROUTE_KEY_ACTION);
+		ri.action = (tmp != null)?tmp:this.action;
 
+        tmp = fieldValues.get(RouteConstants.ROUTE_KEY_ID);
+		ri.id = (tmp != null)?tmp:this.id;
+
+        ri.requiredFieldValues = fieldValues;
+		ri.format = requestInfo.getFormat();
+	}
+
+	/**
+	 * Returns the values of the required fields in the request path. A new
+	 * map is returned for each call.
+	 */
+	Map<String, String> getRequiredFieldValues(RequestInfo requestInfo) {
 		Map<String, String> fieldValues = new HashMap<String, String>();
 		if (requiredFieldPositions.size() > 0) {
 			for (Map.Entry<String, Integer> entry : requiredFieldPositions.entrySet()) {
@@ -83,7 +116,7 @@ abstract public class Route {
                 	continue;
                 }
 				int position = iPos.intValue();
-				String value = requestInfo.getPathSegments()[position];
+				String value = requestInfo.rawPathSegments()[position];
 
                 if (field.indexOf(RouteConstants.PRIMARY_KEY_SEPARATOR) != -1) {
                     fieldValues.putAll(getFieldValueMapForCompositeKey(field, value));
@@ -93,29 +126,31 @@ abstract public class Route {
                 }
 			}
 		}
-		String tmp = "";
-        tmp = fieldValues.get(RouteConstants.ROUTE_KEY_CONTROLLER);
-		tmp = (tmp != null)?tmp:this.controller;
-        tmp = (namespace != null)?(namespace + "/" + tmp):tmp;
-        ri.controller = tmp;
-
-        tmp = fieldValues.get(RouteConstants.ROUTE_KEY_ACTION);
-		ri.action = (tmp != null)?tmp:this.action;
-
-        tmp = fieldValues.get(RouteConstants.ROUTE_KEY_ID);
-		ri.id = (tmp != null)?tmp:this.id;
+		return fieldValues;
+	}
 
-        ri.requiredFieldValues = fieldValues;
+	/**
+	 * Returns the position of a required field in the path segments, or
+	 * <tt>-1</tt> if the field is not in the path.
+	 */
+	int getFieldPosition(String field) {
+		Integer iPos = requiredFieldPositions.get(field);
+		return (iPos != null)?iPos.intValue():-1;
+	}
 
+	/**
+	 * Populates the values of a route info that only depend on this route
+	 * and the resolved controller. The <tt>controller</tt> of the route info
+	 * must have been populated.
+	 */
+	protected void populateTemplateValues(RouteInfo ri) {
 		ri.controllerClassName = getControllerClassName(ri.controller);
         ri.model = getModel(ri.controller);
         ri.modelClassName = getModelClassName(ri.controller);
-		ri.format = requestInfo.getFormat();
 		ri.routeType = getRouteType();
 		ri.routeName = getName();
         ri.viewPath = getViewPath(ri.controller);
         ri.cacheable = getCacheable();
-		return ri;
 	}
 
     private static Map<String, String> getFieldValueMapForCompositeKey(String compositeFields, String restfulId) {
@@ -354,6 +389,14 @@ abstract public class Route {
 		return Util.cloneArray(pathSegments);
 	}
 
+	/**
+	 * Returns the path segments without copying. The returned array must not
+	 * be modified.
+	 */
+	String[] rawPathSegments() {
+		return pathSegments;
+	}
+
 	public int segmentCount() {
 		return segmentCount;
 	}
@@ -369,8 +412,7 @@ abstract public class Route {
 		if (requiredFieldPositions.size() > 0) {
 			for (Map.Entry<String, Integer> entry : requiredFieldPositions.entrySet()) {
 				String field = entry.getKey();
-                String requirementStr = requirementsProperties.getProperty(field);
-                if (requirementStr == null) continue;
+                if (!requirementPatterns.containsKey(field)) continue;
                 Integer iPos = entry.getValue();
                 if (iPos == null) {
                 	log.error("There is position value for field '" + field +
@@ -378,24 +420,45 @@ abstract public class Route {
                 	continue;
                 }
 				int position = iPos.intValue();
-				String value = requestInfo.getPathSegments()[position];
-                if (!matchRequirement(requirementStr, value)) return false;
+				String value = requestInfo.rawPathSegments()[position];
+                if (!matchRequirement(requirementPatterns.get(field), value)) return false;
 			}
 		}
         return true;
     }
 
-    private boolean matchRequirement(String requirementStr, String input) {
-        if (requirementStr == null) return true;
-        if (input == null) return false;
+    private boolean matchRequirement(Pattern pattern, String input) {
+        if (pattern == null || input == null) return false;
+        return pattern.matcher(input).matches();
+    }
 
-        boolean result = false;
-        if (requirementStr.startsWith("/") && requirementStr.endsWith("/")) {
-            //apply Pattern
-            requirementStr = requirementStr.substring(1, requirementStr.length() -1);
-            result = Pattern.matches(requirementStr, input);
+    /**
+     * Compiles the requirement of each field once. Only requirements of the
+     * form <tt>/regex/</tt> can be satisfied; any other requirement is kept
+     * as a <tt>null</tt> pattern which never matches.
+     */
+    private void compileRequirements() {
+        requirementPatterns.clear();
+        if (requirementsProperties == null) return;
+
+        for (Map.Entry<Object, Object> entry : requirementsProperties.entrySet()) {
+            String field = (String)entry.getKey();
+            String requirementStr = (String)entry.getValue();
+            if (requirementStr == null) continue;
+
+            Pattern pattern = null;
+            if (requirementStr.startsWith("/") && requirementStr.endsWith("/")) {
+                String regex = requirementStr.substring(1, requirementStr.length() -1);
+                try {
+                    pattern = Pattern.compile(regex);
+                }
+                catch(PatternSyntaxException ex) {
+                    log.error("Invalid requirement \"" + requirementStr + "\" for field '" +
+                            field + "' in route named " + name + ": " + ex.getMessage());
+                }
+            }
+            requirementPatterns.put(field, pattern);
         }
-        return result;
     }
 
 	public String getURLSegment(String key, String path) {
@@ -497,6 +560,7 @@ abstract public class Route {
                         RouteConstants.PROPERTY_SYMBOL_GROUP_ITEM_ASSIGN,
                         RouteConstants.PROPERTY_SYMBOL_GROUP_ITEMS_DELIMITER);
         }
+        compileRequirements();
 
         screenURLPattern = urlPattern;
         if (pathPrefix != null && !"".equals(pathPrefix)) {
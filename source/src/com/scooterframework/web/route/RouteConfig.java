@@ -15,6 +15,7 @@ import java.util.Observer;
 import java.util.Properties;
 
 import com.scooterframework.admin.PropertyFileChangeMonitor;
+import com.scooterframework.cache.ConcurrentLRUCache;
 import com.scooterframework.admin.PropertyReader;
 import com.scooterframework.common.logging.LogUtil;
 import com.scooterframework.common.util.Converters;
@@ -34,6 +35,8 @@ public class RouteConfig implements Observer {
     
     public static final String DEFAULT_VALUE_autoRest = "false";
     
+    public static final String DEFAULT_VALUE_routeCacheSize = "" + ConcurrentLRUCache.DEFAULT_MAX_SIZE;
+    
     private static RouteConfig me;
     private Properties appProperties = null;
     private boolean usePluralTableName = DatabaseConfig.getInstance().usePluralTableName();
@@ -169,6 +172,9 @@ public class RouteConfig implements Observer {
             }
         }
         
+        MatchMaker.getInstance().setRouteCacheSize(getRouteCacheSize());
+        MatchMaker.getInstance().compileRoutes();
+        
         //display routes
         if (log.isDebugEnabled()) {
             List<Route> allRoutes = MatchMaker.getInstance().getAllRoutes();
@@ -231,4 +237,20 @@ public class RouteConfig implements Observer {
         String autoRest = getProperty("auto.rest", DEFAULT_VALUE_autoRest);
         return ("true".equalsIgnoreCase(autoRest))?true:false;
     }
+    
+    /**
+     * Returns the maximum number of entries in each of the route related 
+     * caches. The value is defined by <tt>route.cache.size</tt> property.
+     */
+    public int getRouteCacheSize() {
+        String size = getProperty("route.cache.size", DEFAULT_VALUE_routeCacheSize);
+        int cacheSize = ConcurrentLRUCache.DEFAULT_MAX_SIZE;
+        try {
+            cacheSize = Integer.parseInt(size.trim());
+        }
+        catch(NumberFormatException ex) {
+            log.error("Invalid value \"" + size + "\" for route.cache.size: " + ex.getMessage());
+        }
+        return (cacheSize > 0)?cacheSize:ConcurrentLRUCache.DEFAULT_MAX_SIZE;
+    }
 }
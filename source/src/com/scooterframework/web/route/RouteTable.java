@@ -0,0 +1,129 @@
+/*
+ *   This software is distributed under the terms of the FSF
+ *   Gnu Lesser General Public License (see lgpl.txt).
+ *
+ *   This program is distributed WITHOUT ANY WARRANTY. See the
+ *   GNU General Public License for more details.
+ */
+package com.scooterframework.web.route;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.scooterframework.cache.CacheStatisticsConstats;
+import com.scooterframework.cache.ConcurrentLRUCache;
+
+/**
+ * <p>RouteTable class pairs a compiled {@link RouteTrie} with the
+ * {@link MatchedRoute} instances shared by requests matching its routes.</p>
+ *
+ * <p>A route without dynamic <tt>$controller</tt> or <tt>$action</tt>
+ * segments has only one matched route, which is kept by the position of
+ * the route. Matched routes of other routes are kept per route position
+ * and raw values of these segments in a {@link ConcurrentLRUCache}, so
+ * that paths with unknown controllers or actions cannot fill the table
+ * for good.</p>
+ *
+ * <p>A new table must be created whenever the route list changes.</p>
+ *
+ * @author (Fei) John Chen
+ */
+class RouteTable {
+    private static final String NONE = "";
+
+    private final RouteTrie trie;
+    private final AtomicReferenceArray<MatchedRoute> staticRoutes;
+    private final ConcurrentLRUCache<Key, MatchedRoute> dynamicRoutes;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    RouteTable(List<Route> routeList, int maxSize) {
+        trie = new RouteTrie(routeList);
+        staticRoutes = new AtomicReferenceArray<MatchedRoute>(trie.size());
+        dynamicRoutes = new ConcurrentLRUCache<Key, MatchedRoute>("matchedRoutes", maxSize);
+    }
+
+    /**
+     * Returns the shared matched route of the first route that matches the
+     * request, or <tt>null</tt> if there is none.
+     */
+    MatchedRoute match(RequestInfo requestInfo) {
+        int index = trie.match(requestInfo);
+        if (index == -1) return null;
+
+        Route route = trie.getRoute(index);
+        int controllerPosition = route.getFieldPosition(RouteConstants.ROUTE_KEY_CONTROLLER);
+        int actionPosition = route.getFieldPosition(RouteConstants.ROUTE_KEY_ACTION);
+        if (controllerPosition == -1 && actionPosition == -1) {
+            MatchedRoute matched = staticRoutes.get(index);
+            if (matched != null) {
+                hits.incrementAndGet();
+                return matched;
+            }
+
+            misses.incrementAndGet();
+            matched = new MatchedRoute(index, route, route.getRouteInfo(requestInfo));
+            if (!staticRoutes.compareAndSet(index, null, matched)) matched = staticRoutes.get(index);
+            return matched;
+        }
+
+        String[] segments = requestInfo.rawPathSegments();
+        Key key = new Key(index,
+                (controllerPosition != -1)?segments[controllerPosition]:NONE,
+                (actionPosition != -1)?segments[actionPosition]:NONE);
+        MatchedRoute matched = dynamicRoutes.get(key);
+        if (matched != null) return matched;
+
+        matched = new MatchedRoute(index, route, route.getRouteInfo(requestInfo));
+        MatchedRoute existing = dynamicRoutes.putIfAbsent(key, matched);
+        return (existing != null)?existing:matched;
+    }
+
+    /**
+     * Returns hit/miss statistics of the shared matched routes. Keys are
+     * defined in {@link com.scooterframework.cache.CacheStatisticsConstats}.
+     */
+    Properties getStatistics() {
+        int count = 0;
+        for (int i = 0; i < staticRoutes.length(); i++) {
+            if (staticRoutes.get(i) != null) count++;
+        }
+
+        Properties p = new Properties();
+        p.setProperty(CacheStatisticsConstats.KEY_CACHE_STATS_ObjectCount, "" + (count + dynamicRoutes.size()));
+        p.setProperty(CacheStatisticsConstats.KEY_CACHE_STATS_CacheHits, "" + (hits.get() + dynamicRoutes.getHitCount()));
+        p.setProperty(CacheStatisticsConstats.KEY_CACHE_STATS_CacheMisses, "" + (misses.get() + dynamicRoutes.getMissCount()));
+        p.setProperty(CacheStatisticsConstats.KEY_CACHE_STATS_EvictionCount, "" + dynamicRoutes.getEvictionCount());
+        return p;
+    }
+
+    /*
+     * Route position and raw controller and action segment values.
+     */
+    private static class Key {
+        private final int index;
+        private final String controller;
+        private final String action;
+        private final int hash;
+
+        Key(int index, String controller, String action) {
+            this.index = index;
+            this.controller = controller;
+            this.action = action;
+            this.hash = (31 * index + controller.hashCode()) * 31 + action.hashCode();
+        }
+
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key k = (Key)o;
+            return index == k.index && controller.equals(k.controller) && action.equals(k.action);
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ *   This software is distributed under the terms of the FSF
+ *   Gnu Lesser General Public License (see lgpl.txt).
+ *
+ *   This program is distributed WITHOUT ANY WARRANTY. See the
+ *   GNU General Public License for more details.
+ */
+package com.scooterframework.web.route;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * RouteTrie class compiles an ordered list of routes into a segment trie.
+ *
+ * <p>Regular, default and rest routes are indexed by their path segments.
+ * Literal segments become keyed children of a node, while dynamic segments
+ * (those starting with <tt>$</tt>) share a single wildcard child. Each leaf
+ * holds the positions of the routes ending there, pre-grouped by the HTTP
+ * methods the routes allow. Named routes are indexed by their full path.
+ * Any other route, such as the root route, is always a candidate.</p>
+ *
+ * <p>A request therefore only visits the nodes along its own path. The
+ * candidate routes found are checked with <tt>Route.isRouteFor</tt> in
+ * their original order, and a subtree is skipped when all its routes come
+ * after a route which already matched. The first route that matches is
+ * therefore the same route a linear scan over all routes would have
+ * returned. Matching does not collect candidates, so no lists or arrays
+ * are created per request.</p>
+ *
+ * <p>An instance is immutable once built and can be shared among threads.
+ * A new instance must be compiled whenever the route list changes.</p>
+ *
+ * @author (Fei) John Chen
+ */
+class RouteTrie {
+    private static final String[] KNOWN_METHODS = {
+        RouteConstants.ROUTE_HTTP_METHOD_GET,
+        RouteConstants.ROUTE_HTTP_METHOD_POST,
+        RouteConstants.ROUTE_HTTP_METHOD_PUT,
+        RouteConstants.ROUTE_HTTP_METHOD_DELETE,
+        RouteConstants.ROUTE_HTTP_METHOD_HEAD
+    };
+
+    private static final int[] NO_INDEXES = new int[0];
+    private static final int NO_MATCH = Integer.MAX_VALUE;
+
+    private final Route[] routes;
+    private final Node root = new Node();
+    private final Map<String, int[]> namedRouteIndexes = new HashMap<String, int[]>();
+    private final int[] alwaysCheckedIndexes;
+
+    RouteTrie(List<Route> routeList) {
+        routes = routeList.toArray(new Route[routeList.size()]);
+
+        Map<String, List<Integer>> named = new HashMap<String, List<Integer>>();
+        List<Integer> others = new ArrayList<Integer>();
+        int total = routes.length;
+        for (int i = 0; i < total; i++) {
+            Route route = routes[i];
+            Class<?> clz = route.getClass();
+            if (clz == RegularRoute.class || clz == DefaultRoute.class || clz == RestRoute.class) {
+                addSegmentRoute(route, i);
+            }
+            else
+            if (clz == NamedRoute.class) {
+                String path = route.getScreenURLPattern();
+                if (!path.startsWith("/")) path = "/" + path;
+                String key = foldCase(path);
+                List<Integer> indexes = named.get(key);
+                if (indexes == null) {
+                    indexes = new ArrayList<Integer>();
+                    named.put(key, indexes);
+                }
+                indexes.add(Integer.valueOf(i));
+            }
+            else {
+                others.add(Integer.valueOf(i));
+            }
+        }
+
+        for (Map.Entry<String, List<Integer>> entry : named.entrySet()) {
+            namedRouteIndexes.put(entry.getKey(), toArray(entry.getValue()));
+        }
+        alwaysCheckedIndexes = toArray(others);
+
+        root.compile(routes);
+    }
+
+    /**
+     * Returns the number of routes compiled into this trie.
+     */
+    int size() {
+        return routes.length;
+    }
+
+    /**
+     * Returns the route at a position of the original route list.
+     */
+    Route getRoute(int index) {
+        return routes[index];
+    }
+
+    /**
+     * Returns the position of the first route in the original route list
+     * that matches the request, or <tt>-1</tt> if there is none. Nothing is
+     * allocated for a request path in lower case.
+     */
+    int match(RequestInfo requestInfo) {
+        String method = requestInfo.getRequestHttpMethod().toUpperCase();
+        int best = find(root, requestInfo.rawPathSegments(), 0, requestInfo.segmentCount(),
+                        method, requestInfo, NO_MATCH);
+
+        int[] named = namedRouteIndexes.get(foldCase(requestInfo.getRequestPath()));
+        if (named != null) best = firstMatch(named, requestInfo, best);
+        best = firstMatch(alwaysCheckedIndexes, requestInfo, best);
+
+        return (best != NO_MATCH)?best:-1;
+    }
+
+    private void addSegmentRoute(Route route, int index) {
+        Node node = root;
+        String[] segments = route.rawPathSegments();
+        int count = route.segmentCount();
+        for (int i = 0; i < count; i++) {
+            String segment = segments[i];
+            if (segment.startsWith("$")) {
+                if (node.wildcardChild == null) node.wildcardChild = new Node();
+                node = node.wildcardChild;
+            }
+            else {
+                String key = foldCase(segment);
+                if (node.literalChildren == null) node.literalChildren = new HashMap<String, Node>();
+                Node child = node.literalChildren.get(key);
+                if (child == null) {
+                    child = new Node();
+                    node.literalChildren.put(key, child);
+                }
+                node = child;
+            }
+        }
+        node.routeIndexList.add(Integer.valueOf(index));
+    }
+
+    /*
+     * Walks the nodes along the request path and returns the smallest
+     * position of a matching route which is below <tt>best</tt>, or
+     * <tt>best</tt> if there is none. Subtrees whose routes are all after
+     * <tt>best</tt> are skipped.
+     */
+    private int find(Node node, String[] segments, int depth, int segmentCount,
+                     String method, RequestInfo requestInfo, int best) {
+        if (node.minIndex >= best) return best;
+
+        if (depth == segmentCount) {
+            return firstMatch(node.indexesFor(method), requestInfo, best);
+        }
+
+        if (node.literalChildren != null) {
+            Node child = node.literalChildren.get(foldCase(segments[depth]));
+            if (child != null) best = find(child, segments, depth + 1, segmentCount, method, requestInfo, best);
+        }
+
+        if (node.wildcardChild != null) {
+            best = find(node.wildcardChild, segments, depth + 1, segmentCount, method, requestInfo, best);
+        }
+        return best;
+    }
+
+    /*
+     * Returns the first of the sorted positions whose route matches the
+     * request if it is below <tt>best</tt>, or <tt>best</tt> otherwise.
+     */
+    private int firstMatch(int[] indexes, RequestInfo requestInfo, int best) {
+        int length = indexes.length;
+        for (int i = 0; i < length; i++) {
+            int index = indexes[i];
+            if (index >= best) break;
+            if (routes[index].isRouteFor(requestInfo)) return index;
+        }
+        return best;
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        int size = list.size();
+        int[] array = new int[size];
+        for (int i = 0; i < size; i++) {
+            array[i] = list.get(i).intValue();
+        }
+        return array;
+    }
+
+    /**
+     * Folds the case of a string so that two strings are equal after
+     * folding if and only if they are equal by
+     * <tt>String.equalsIgnoreCase</tt>.
+     */
+    static String foldCase(String s) {
+        if (s == null) return null;
+        int length = s.length();
+        int i = 0;
+        for (; i < length; i++) {
+            char c = s.charAt(i);
+            if (c != Character.toLowerCase(Character.toUpperCase(c))) break;
+        }
+        if (i == length) return s;
+
+        char[] chars = s.toCharArray();
+        for (; i < length; i++) {
+            chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+        }
+        return new String(chars);
+    }
+
+    private static class Node {
+        private Map<String, Node> literalChildren;
+        private Node wildcardChild;
+
+        private List<Integer> routeIndexList = new ArrayList<Integer>();
+        private int[] routeIndexes = NO_INDEXES;
+        private Map<String, int[]> methodRouteIndexes;
+
+        /*
+         * The smallest route position in this node and its subtree.
+         */
+        private int minIndex = NO_MATCH;
+
+        private int[] indexesFor(String method) {
+            if (methodRouteIndexes != null) {
+                int[] indexes = methodRouteIndexes.get(method);
+                if (indexes != null) return indexes;
+            }
+            return routeIndexes;
+        }
+
+        private void compile(Route[] routes) {
+            if (routeIndexList.size() > 0) {
+                routeIndexes = toArray(routeIndexList);
+                methodRouteIndexes = new HashMap<String, int[]>();
+                for (String method : KNOWN_METHODS) {
+                    List<Integer> allowed = new ArrayList<Integer>();
+                    for (int index : routeIndexes) {
+                        if (routes[index].isAllowedMethod(method)) allowed.add(Integer.valueOf(index));
+                    }
+                    methodRouteIndexes.put(method, toArray(allowed));
+                }
+            }
+            routeIndexList = null;
+            if (routeIndexes.length > 0) minIndex = routeIndexes[0];
+
+            if (literalChildren != null) {
+                for (Node child : literalChildren.values()) {
+                    child.compile(routes);
+                    minIndex = Math.min(minIndex, child.minIndex);
+                }
+            }
+            if (wildcardChild != null) {
+                wildcardChild.compile(routes);
+                minIndex = Math.min(minIndex, wildcardChild.minIndex);
+            }
+        }
+    }
+}
@@ -427,7 +427,7 @@ public class W {
      * @return true if local request
      */
     public static boolean isLocalRequest() {
-        String s = (String) CurrentThreadCache.get(Constants.LOCAL_REQUEST);
+        String s = (String) CurrentThreadCache.get(CurrentThreadCache.SLOT_LOCAL_REQUEST);
         if ((Constants.VALUE_FOR_LOCAL_REQUEST).equals(s)) {
             return true;
         }
@@ -4,6 +4,9 @@
 <%@ page import="
         java.util.Date,
         java.util.Map,
+        java.util.Properties,
+        com.scooterframework.cache.CacheStatisticsConstats,
+        com.scooterframework.orm.sqldataexpress.util.StatementCache,
         com.scooterframework.admin.Constants,
         com.scooterframework.admin.WebSessionListener,
         com.scooterframework.web.controller.ActionContext,
@@ -43,4 +46,57 @@
                                             <%=D.message((Date)(((Map)ActionContext.getFromGlobalData(Constants.APP_KEY_SCOOTER_PROPERTIES)).get(Constants.APP_KEY_APPLICATION_START_TIME)))%></td>
         </tr>
     </table>
-</div>
\ No newline at end of file
+</div>
+
+<%
+Properties routeStats = (Properties)request.getAttribute("route.cache.statistics");
+Properties stmtStats = (Properties)request.getAttribute("statement.cache.statistics");
+Map stmtConnStats = (Map)request.getAttribute("statement.cache.connections");
+%>
+
+<div id="cachestats">
+<h4>Caches</h4>
+    <table class="sTable">
+        <tr>
+            <th>Cache</th><th>Size</th><th>Hits</th><th>Misses</th><th>Evictions</th><th>Parses</th><th>Parse Time (ms)</th>
+        </tr>
+<% if (routeStats != null) { %>
+        <tr>
+            <td>Matched routes</td>
+            <td><%=routeStats.getProperty(CacheStatisticsConstats.KEY_CACHE_STATS_ObjectCount)%></td>
+            <td><%=routeStats.getProperty(CacheStatisticsConstats.KEY_CACHE_STATS_CacheHits)%></td>
+            <td><%=routeStats.getProperty(CacheStatisticsConstats.KEY_CACHE_STATS_CacheMisses)%></td>
+            <td><%=routeStats.getProperty(CacheStatisticsConstats.KEY_CACHE_STATS_EvictionCount)%></td>
+            <td></td><td></td>
+        </tr>
+<% } %>
+<% if (stmtStats != null) { %>
+        <tr>
+            <td>SQL statements</td>
+            <td><%=stmtStats.getProperty(CacheStatisticsConstats.KEY_CACHE_STATS_ObjectCount)%></td>
+            <td><%=stmtStats.getProperty(CacheStatisticsConstats.KEY_CACHE_STATS_CacheHits)%></td>
+            <td><%=stmtStats.getProperty(CacheStatisticsConstats.KEY_CACHE_STATS_CacheMisses)%></td>
+            <td><%=stmtStats.getProperty(CacheStatisticsConstats.KEY_CACHE_STATS_EvictionCount)%></td>
+            <td><%=stmtStats.getProperty(StatementCache.KEY_STATS_ParseCount)%></td>
+            <td><%=stmtStats.getProperty(StatementCache.KEY_STATS_ParseTimeMillis)%></td>
+        </tr>
+<% } %>
+<%
+if (stmtConnStats != null) {
+    for (Object key : stmtConnStats.keySet()) {
+        Properties p = (Properties)stmtConnStats.get(key);
+%>
+        <tr>
+            <td>&nbsp;&nbsp;SQL statements @ <%=key%></td>
+            <td><%=p.getProperty(CacheStatisticsConstats.KEY_CACHE_STATS_ObjectCount)%></td>
+            <td><%=p.getProperty(CacheStatisticsConstats.KEY_CACHE_STATS_CacheHits)%></td>
+            <td><%=p.getProperty(CacheStatisticsConstats.KEY_CACHE_STATS_CacheMisses)%></td>
+            <td><%=p.getProperty(CacheStatisticsConstats.KEY_CACHE_STATS_EvictionCount)%></td>
+            <td></td><td></td>
+        </tr>
+<%
+    }
+}
+%>
+    </table>
+</div>
@@ -0,0 +1,92 @@
+/*
+ *   This software is distributed under the terms of the FSF
+ *   Gnu Lesser General Public License (see lgpl.txt).
+ *
+ *   This program is distributed WITHOUT ANY WARRANTY. See the
+ *   GNU General Public License for more details.
+ */
+package com.scooterframework.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * CacheKeyTest class
+ *
+ * @author (Fei) John Chen
+ *
+ */
+public class CacheKeyTest {
+
+    @Test public void test_equals() {
+    	Map<String, Object> inputs = new HashMap<String, Object>();
+    	inputs.put("1", Integer.valueOf(5));
+    	CacheKey k1 = new CacheKey("Post", "findAll", "SELECT * FROM posts WHERE id = ?", inputs);
+    	CacheKey k2 = new CacheKey("Post", "findAll", "SELECT * FROM posts WHERE id = ?", inputs);
+    	assertEquals("same elements", k1, k2);
+    	assertEquals("same hash", k1.hashCode(), k2.hashCode());
+
+    	assertFalse("typed elements", new CacheKey("Post", "findById", Integer.valueOf(5)).equals(
+    			new CacheKey("Post", "findById", "5")));
+    	assertFalse("different name", new CacheKey("Post", "findFirst").equals(
+    			new CacheKey("Post", "findLast")));
+    	assertTrue("array elements", new CacheKey("Post", "findAllBy", new Object[]{"a", Integer.valueOf(1)}).equals(
+    			new CacheKey("Post", "findAllBy", new Object[]{"a", Integer.valueOf(1)})));
+    }
+
+    @Test public void test_elements_are_copied() {
+    	Map<String, Object> inputs = new HashMap<String, Object>();
+    	inputs.put("1", "a");
+    	CacheKey k1 = new CacheKey("Post", "findAll", inputs).copy();
+    	int hash = k1.hashCode();
+    	inputs.put("2", "b");
+    	assertEquals("hash after change of input", hash, k1.hashCode());
+    	assertFalse("key after change of input", k1.equals(new CacheKey("Post", "findAll", inputs)));
+    }
+
+    @Test public void test_copy_of_key_without_containers() {
+    	CacheKey k1 = new CacheKey("Post", "findById", Integer.valueOf(5));
+    	assertSame("same key", k1, k1.copy());
+    	CacheKey k2 = new CacheKey("Post", "findAllBy", new Object[]{"a", Integer.valueOf(1)});
+    	assertEquals("equal copy", k2, k2.copy());
+    }
+
+    @Test public void test_toBytes_is_independent_of_map_order() {
+    	Map<String, Object> m1 = new LinkedHashMap<String, Object>();
+    	m1.put("a", "1");
+    	m1.put("b", Integer.valueOf(2));
+    	Map<String, Object> m2 = new LinkedHashMap<String, Object>();
+    	m2.put("b", Integer.valueOf(2));
+    	m2.put("a", "1");
+    	CacheKey k1 = new CacheKey("Post", "findAll", m1);
+    	CacheKey k2 = new CacheKey("Post", "findAll", m2);
+    	assertTrue("bytes", Arrays.equals(k1.toBytes(), k2.toBytes()));
+    	assertEquals("compact key", k1.toCompactKey(), k2.toCompactKey());
+    	assertFalse("typed bytes", Arrays.equals(new CacheKey("Post", "findById", Integer.valueOf(5)).toBytes(),
+    			new CacheKey("Post", "findById", "5").toBytes()));
+    }
+
+    @Test public void test_toCompactKey() {
+    	StringBuilder sql = new StringBuilder("SELECT * FROM posts WHERE");
+    	for (int i = 0; i < 100; i++) sql.append(" id = ").append(i).append(" OR");
+    	CacheKey key = new CacheKey("com.example.models.Post", "findAll@42", sql.toString());
+    	String compact = key.toCompactKey();
+    	assertTrue("length", compact.length() <= CacheKey.MAX_COMPACT_KEY_LENGTH);
+    	assertTrue("prefix", compact.startsWith("com.example.models.Post.findAll@42#"));
+    	assertEquals("no spaces", -1, new CacheKey("a b", "c\td", "x").toCompactKey().indexOf(' '));
+
+    	StringBuilder longName = new StringBuilder();
+    	for (int i = 0; i < 300; i++) longName.append('n');
+    	assertTrue("length of long name",
+    			new CacheKey("ns", longName.toString()).toCompactKey().length() <= CacheKey.MAX_COMPACT_KEY_LENGTH);
+    }
+}
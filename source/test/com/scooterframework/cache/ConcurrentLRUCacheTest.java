@@ -0,0 +1,59 @@
+/*
+ *   This software is distributed under the terms of the FSF 
+ *   Gnu Lesser General Public License (see lgpl.txt). 
+ *
+ *   This program is distributed WITHOUT ANY WARRANTY. See the
+ *   GNU General Public License for more details.
+ */
+package com.scooterframework.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * ConcurrentLRUCacheTest class
+ * 
+ * @author (Fei) John Chen
+ *
+ */
+public class ConcurrentLRUCacheTest {
+	
+    @Test public void test_get_put() {
+    	ConcurrentLRUCache<String, String> cache = new ConcurrentLRUCache<String, String>("test", 10);
+    	assertNull("get before put", cache.get("a"));
+    	cache.put("a", "A");
+    	assertEquals("get after put", "A", cache.get("a"));
+    	assertEquals("hits", 1, cache.getHitCount());
+    	assertEquals("misses", 1, cache.getMissCount());
+    	assertEquals("size", 1, cache.size());
+    	
+    	cache.put("a", "AA");
+    	assertEquals("get after replace", "AA", cache.get("a"));
+    	assertEquals("size after replace", 1, cache.size());
+    }
+	
+    @Test public void test_eviction() {
+    	ConcurrentLRUCache<Integer, Integer> cache = new ConcurrentLRUCache<Integer, Integer>("test", 100);
+    	cache.put(Integer.valueOf(0), Integer.valueOf(0));
+    	for (int i = 1; i < 1000; i++) {
+    		cache.get(Integer.valueOf(0));
+    		cache.put(Integer.valueOf(i), Integer.valueOf(i));
+    	}
+    	assertTrue("size is bounded", cache.size() <= 100);
+    	assertTrue("evictions are counted", cache.getEvictionCount() >= 900);
+    	assertEquals("recently used entry is kept", Integer.valueOf(0), cache.get(Integer.valueOf(0)));
+    	assertEquals("latest entry is kept", Integer.valueOf(999), cache.get(Integer.valueOf(999)));
+    }
+	
+    @Test public void test_clear() {
+    	ConcurrentLRUCache<String, String> cache = new ConcurrentLRUCache<String, String>("test", 10);
+    	cache.put("a", "A");
+    	cache.put("b", "B");
+    	cache.clear();
+    	assertEquals("size after clear", 0, cache.size());
+    	assertNull("get after clear", cache.get("a"));
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ *   This software is distributed under the terms of the FSF
+ *   Gnu Lesser General Public License (see lgpl.txt).
+ *
+ *   This program is distributed WITHOUT ANY WARRANTY. See the
+ *   GNU General Public License for more details.
+ */
+package com.scooterframework.common.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * LatencyHistogramTest class
+ *
+ * @author (Fei) John Chen
+ *
+ */
+public class LatencyHistogramTest {
+
+    @Test public void test_small_values_are_exact() {
+    	LatencyHistogram h = new LatencyHistogram();
+    	for (long i = 1; i <= 20; i++) h.record(i);
+    	assertEquals(20, h.getCount());
+    	assertEquals(210, h.getSum());
+    	assertEquals(20, h.getMax());
+    	assertEquals(10, h.getValueAtPercentile(50));
+    	assertEquals(20, h.getValueAtPercentile(100));
+    	assertEquals(5, h.getCountAtOrBelow(5));
+    }
+
+    @Test public void test_relative_error() {
+    	LatencyHistogram h = new LatencyHistogram();
+    	long value = 123456789L;
+    	h.record(1L);
+    	h.record(value);
+    	long result = h.getValueAtPercentile(99);
+    	assertTrue(result >= value && result < value * 1.07);
+    	assertEquals(value, h.getMax());
+    	assertEquals(1, h.getCountAtOrBelow(value / 2));
+    	assertEquals(2, h.getCountAtOrBelow(Long.MAX_VALUE));
+    }
+
+    @Test public void test_empty() {
+    	LatencyHistogram h = new LatencyHistogram();
+    	assertEquals(0, h.getCount());
+    	assertEquals(0, h.getValueAtPercentile(99));
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ *   This software is distributed under the terms of the FSF
+ *   Gnu Lesser General Public License (see lgpl.txt).
+ *
+ *   This program is distributed WITHOUT ANY WARRANTY. See the
+ *   GNU General Public License for more details.
+ */
+package com.scooterframework.i18n;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * MessageTemplateTest class
+ *
+ * @author (Fei) John Chen
+ *
+ */
+public class MessageTemplateTest {
+
+    @Test public void test_values() {
+    	MessageTemplate t = MessageTemplate.compile("{1} has {0} items, {1}.", false);
+    	assertEquals("Bob has 3 items, Bob.", t.render(new Object[]{Integer.valueOf(3), "Bob"}));
+    	assertEquals("{1} has {0} items, {1}.", t.render(null));
+    	assertEquals("No slots", MessageTemplate.compile("No slots", false).render(new Object[]{"x"}));
+    }
+
+    @Test public void test_null_and_missing_values() {
+    	MessageTemplate t = MessageTemplate.compile("[{0}] [{1}] {x} {}", false);
+    	assertEquals("[] [{1}] {x} {}", t.render(new Object[]{null}));
+    }
+
+    @Test public void test_values_are_literal() {
+    	MessageTemplate t = MessageTemplate.compile("Price: {0}", false);
+    	assertEquals("Price: $5 \\ {1}", t.render(new Object[]{"$5 \\ {1}", "x"}));
+    }
+
+    @Test public void test_plural() {
+    	MessageTemplate t = MessageTemplate.compile("{0} hour(s) and {1} minute(s) ago", true);
+    	assertEquals("1 hour and 5 minutes ago", t.render(new Object[]{"1", "5"}));
+    	assertEquals("2 hours and 0 minute ago", t.render(new Object[]{"2", "0"}));
+    	assertEquals("2 hours and {1} minute(s) ago", t.render(new Object[]{"2"}));
+    	assertEquals("1 hour(s)", MessageTemplate.compile("{0} hour(s)", false).render(new Object[]{"1"}));
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ *   This software is distributed under the terms of the FSF
+ *   Gnu Lesser General Public License (see lgpl.txt).
+ *
+ *   This program is distributed WITHOUT ANY WARRANTY. See the
+ *   GNU General Public License for more details.
+ */
+package com.scooterframework.web.controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.json.JSONArray;
+import org.junit.Test;
+
+/**
+ * StreamingContentWriterTest class
+ *
+ * @author (Fei) John Chen
+ *
+ */
+public class StreamingContentWriterTest {
+
+    @Test public void test_supported() {
+    	assertTrue(StreamingContentWriter.isSupported(new ArrayList<Object>(), "json"));
+    	assertTrue(StreamingContentWriter.isSupported(new Object[0], "XML"));
+    	assertFalse(StreamingContentWriter.isSupported("[]", "json"));
+    	assertFalse(StreamingContentWriter.isSupported(new ArrayList<Object>(), "txt"));
+    }
+
+    @Test public void test_json() throws Exception {
+    	Map<String, Object> map = new LinkedHashMap<String, Object>();
+    	map.put("id", Integer.valueOf(1));
+    	map.put("price", Double.valueOf(2.50));
+    	map.put("amount", new java.math.BigDecimal("1.50"));
+    	map.put("ok", Boolean.TRUE);
+    	map.put("none", null);
+    	map.put("text", "a\"b\\c</d>\n\u2028");
+    	List<Object> list = new ArrayList<Object>();
+    	list.add(map);
+    	list.add(new Object[]{"x", Long.valueOf(2), Double.valueOf(Double.NaN)});
+
+    	String json = write(list, "json");
+    	assertEquals("[{\"id\":1,\"price\":2.5,\"amount\":\"1.50\",\"ok\":true,\"none\":null," +
+    			"\"text\":\"a\\\"b\\\\c<\\/d>\\n\\u2028\"},[\"x\",2,null]]", json);
+    	assertEquals(2, new JSONArray(json).length());
+    }
+
+    @Test public void test_xml() throws Exception {
+    	Map<String, Object> map = new LinkedHashMap<String, Object>();
+    	map.put("name", "a<b & \"c\"");
+    	map.put("tags", new String[]{"x", "y"});
+    	List<Object> list = new ArrayList<Object>();
+    	list.add(map);
+    	list.add("z");
+
+    	assertEquals("<list><item><name>a&lt;b &amp; &quot;c&quot;</name><tags>x</tags><tags>y</tags></item>" +
+    			"<item>z</item></list>", write(list, "xml"));
+    	assertEquals("<name>a&lt;b &amp; &quot;c&quot;</name><tags>x</tags><tags>y</tags>", write(map, "xml"));
+    }
+
+    private String write(Object content, String format) throws IOException {
+    	StringWriter sw = new StringWriter();
+    	new StreamingContentWriter(sw, format).write(content);
+    	return sw.toString();
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ *   This software is distributed under the terms of the FSF
+ *   Gnu Lesser General Public License (see lgpl.txt).
+ *
+ *   This program is distributed WITHOUT ANY WARRANTY. See the
+ *   GNU General Public License for more details.
+ */
+package com.scooterframework.web.route;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.Test;
+
+import com.scooterframework.test.ScooterTestHelper;
+
+/**
+ * RouteTrieTest class
+ *
+ * @author (Fei) John Chen
+ *
+ */
+public class RouteTrieTest extends ScooterTestHelper {
+
+    @Test public void test_same_as_linear_scan() {
+    	List<Route> routes = new ArrayList<Route>();
+    	routes.add(new NamedRoute("login", route("url:/login; controller:account; action:login")));
+    	routes.add(new RegularRoute("archive", route("url:/blog/$year/$month; controller:blog; action:archive; requirements: {year => /\\d+/}")));
+    	routes.add(new RegularRoute("blog", route("url:/blog/$action; controller:blog")));
+    	routes.add(new RegularRoute("posts_create", route("url:/posts; controller:posts; action:create; allowed_methods:POST")));
+    	routes.add(new RegularRoute("posts_index", route("url:/posts; controller:posts; action:index; allowed_methods:GET")));
+    	routes.add(new RegularRoute("posts_show", route("url:/posts/$id; controller:posts; action:show; allowed_methods:GET")));
+    	routes.add(new RegularRoute("posts_update", route("url:/posts/$id; controller:posts; action:update; allowed_methods:PUT")));
+    	routes.add(new DefaultRoute("default_0", route("url:$controller/$action; requirements: {controller => /\\D+/, action => /\\D+/}")));
+    	routes.add(new DefaultRoute("default_1", route("url:$controller/$action/$id; requirements: {controller => /\\D+/, action => /\\D+/}")));
+    	routes.add(new DefaultRoute("default_2", route("url:$controller/$action/$id.$format; requirements: {controller => /\\D+/, action => /\\D+/}")));
+
+    	String[][] requests = {
+    		{"/login", "GET"}, {"/LOGIN", "POST"}, {"/blog/2012/02", "GET"},
+    		{"/blog/recent", "GET"}, {"/blog/2012", "GET"}, {"/posts", "GET"},
+    		{"/posts", "POST"}, {"/posts", "DELETE"}, {"/posts/1", "GET"},
+    		{"/posts/1", "PUT"}, {"/posts/1", "DELETE"}, {"/posts/1.json", "GET"},
+    		{"/pets/show/3", "GET"}, {"/pets/show/3.xml", "GET"}, {"/pets/list", "HEAD"},
+    		{"/pets/7", "GET"}, {"/a/b/c/d", "GET"}, {"/blog/2012/02/extra", "GET"}
+    	};
+
+    	RouteTrie trie = new RouteTrie(routes);
+    	for (String[] request : requests) {
+    		assertEquals(request[1] + " " + request[0],
+    				linearScan(routes, new RequestInfo(request[0], request[1])),
+    				trie.match(new RequestInfo(request[0], request[1])));
+    	}
+    }
+
+    private int linearScan(List<Route> routes, RequestInfo requestInfo) {
+    	for (int i = 0; i < routes.size(); i++) {
+    		if (routes.get(i).isRouteFor(requestInfo)) return i;
+    	}
+    	return -1;
+    }
+
+    private Properties route(String line) {
+    	Properties p = new Properties();
+    	for (String item : line.split(";(?![^{]*})")) {
+    		int colon = item.indexOf(':');
+    		p.setProperty(item.substring(0, colon).trim(), item.substring(colon + 1).trim());
+    	}
+    	return p;
+    }
+}